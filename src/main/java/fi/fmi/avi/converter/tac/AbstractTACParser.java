@@ -6,12 +6,11 @@ import static fi.fmi.avi.model.immutable.WeatherImpl.WEATHER_CODES;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import fi.fmi.avi.converter.ConversionHints;
@@ -19,7 +18,9 @@ import fi.fmi.avi.converter.ConversionIssue;
 import fi.fmi.avi.converter.ConversionResult;
 import fi.fmi.avi.converter.tac.lexer.Lexeme;
 import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
+import fi.fmi.avi.converter.tac.lexer.LexemeIdentitySet;
 import fi.fmi.avi.converter.tac.lexer.LexemeSequence;
+import fi.fmi.avi.converter.tac.lexer.impl.LexemeUtils;
 import fi.fmi.avi.converter.tac.lexer.impl.token.CloudLayer;
 import fi.fmi.avi.converter.tac.lexer.impl.token.CloudLayer.CloudCover;
 import fi.fmi.avi.model.AviationCodeListUser;
@@ -115,22 +116,32 @@ public abstract class AbstractTACParser<T extends AviationWeatherMessageOrCollec
     }
 
     protected static ConversionIssue checkBeforeAnyOf(final Lexeme lexeme, final LexemeIdentity... toMatch) {
-        return lexeme == null || toMatch == null || toMatch.length == 0 ? null : checkBeforeAnyOf(lexeme, new HashSet<>(Arrays.asList(toMatch)));
+        return lexeme == null || toMatch == null || toMatch.length == 0 ? null : checkBeforeAnyOf(lexeme, LexemeIdentitySet.of(toMatch));
     }
 
+    /**
+     * Checks that none of the {@link Lexeme}s preceding <code>lexeme</code> is identified as any of <code>toMatch</code>.
+     *
+     * The check is answered from the first occurrence of each identity in the sequence, see
+     * {@link LexemeUtils#findFirstPreviousLexeme(Lexeme, Set)}, so the identities are best given as a constant
+     * {@link LexemeIdentitySet}.
+     *
+     * @param lexeme
+     *         the Lexeme to check
+     * @param toMatch
+     *         the identities not allowed before <code>lexeme</code>
+     *
+     * @return the issue for the first preceding Lexeme with any of the identities, or null if there is none
+     */
     protected static ConversionIssue checkBeforeAnyOf(final Lexeme lexeme, final Set<LexemeIdentity> toMatch) {
-        ConversionIssue retval = null;
-        if (lexeme != null && toMatch != null && !toMatch.isEmpty()) {
-            Lexeme toCheck = lexeme;
-            while (toCheck.hasPrevious()) {
-                toCheck = toCheck.getPrevious();
-                final LexemeIdentity identity = toCheck.getIdentity();
-                if (toMatch.contains(identity)) {
-                    retval = new ConversionIssue(ConversionIssue.Type.SYNTAX, "Invalid token order: '" + lexeme + "' was found after one of type " + identity);
-                }
-            }
+        if (lexeme == null || toMatch == null || toMatch.isEmpty()) {
+            return null;
         }
-        return retval;
+        final Lexeme preceding = LexemeUtils.findFirstPreviousLexeme(lexeme, toMatch);
+        if (preceding == null) {
+            return null;
+        }
+        return new ConversionIssue(ConversionIssue.Type.SYNTAX, "Invalid token order: '" + lexeme + "' was found after one of type " + preceding.getIdentity());
     }
 
     /**
@@ -151,11 +162,7 @@ public abstract class AbstractTACParser<T extends AviationWeatherMessageOrCollec
     }
 
     private static void checkZeroOrOne(final LexemeSequence lexed, final LexemeIdentity[] ids, List<ConversionIssue> issues, boolean[] oneFound) {
-        final List<Lexeme> recognizedLexemes = lexed.getLexemes()
-                .stream()
-                .filter((lexeme) -> Lexeme.Status.UNRECOGNIZED != lexeme.getStatus())
-                .collect(Collectors.toList());
-        for (final Lexeme l : recognizedLexemes) {
+        for (final Lexeme l : lexed.getRecognizedLexemes(ids)) {
             for (int i = 0; i < ids.length; i++) {
                 if (ids[i].equals(l.getIdentity())) {
                     if (!oneFound[i]) {
@@ -182,9 +189,34 @@ public abstract class AbstractTACParser<T extends AviationWeatherMessageOrCollec
 
     protected static List<ConversionIssue> withFoundIssueTime(final LexemeSequence lexed, final LexemeIdentity[] before, final ConversionHints hints,
             final Consumer<PartialOrCompleteTimeInstant> consumer) {
+        return withFoundIssueTime(lexed, match -> checkBeforeAnyOf(match, before), consumer);
+    }
+
+    /**
+     * Finds the issue time of the message, checking the order of the issue time group against the given message
+     * grammar validation.
+     *
+     * @param lexed
+     *         the message
+     * @param order
+     *         the validation of <code>lexed</code>
+     * @param hints
+     *         the parsing hints
+     * @param consumer
+     *         the function to execute with the issue time
+     *
+     * @return the issues found
+     */
+    protected static List<ConversionIssue> withFoundIssueTime(final LexemeSequence lexed, final MessageGrammar.Validation order, final ConversionHints hints,
+            final Consumer<PartialOrCompleteTimeInstant> consumer) {
+        return withFoundIssueTime(lexed, order::checkOrder, consumer);
+    }
+
+    private static List<ConversionIssue> withFoundIssueTime(final LexemeSequence lexed, final Function<Lexeme, ConversionIssue> orderCheck,
+            final Consumer<PartialOrCompleteTimeInstant> consumer) {
         final List<ConversionIssue> retval = new ArrayList<>();
         lexed.getFirstLexeme().findNext(LexemeIdentity.ISSUE_TIME, (match) -> {
-            final ConversionIssue issue = checkBeforeAnyOf(match, before);
+            final ConversionIssue issue = orderCheck.apply(match);
             if (issue != null) {
                 retval.add(issue);
             } else {
@@ -219,12 +251,39 @@ public abstract class AbstractTACParser<T extends AviationWeatherMessageOrCollec
 
     protected static List<ConversionIssue> appendWeatherCodes(final Lexeme source, final List<fi.fmi.avi.model.Weather> target, final LexemeIdentity[] before,
             final ConversionHints hints) {
+        return appendWeatherCodes(source, target, l -> checkBeforeAnyOf(l, before));
+    }
+
+    /**
+     * Appends the weather codes of <code>source</code> and of the following weather groups to <code>target</code>,
+     * checking the order of each group as if it was identified as <code>orderOf</code>.
+     *
+     * @param source
+     *         the first weather group
+     * @param target
+     *         the list to append the weather to
+     * @param order
+     *         the validation of the message of <code>source</code>
+     * @param orderOf
+     *         the identity of the groups to check the order of the weather groups as
+     * @param hints
+     *         the parsing hints
+     *
+     * @return the issues found
+     */
+    protected static List<ConversionIssue> appendWeatherCodes(final Lexeme source, final List<fi.fmi.avi.model.Weather> target,
+            final MessageGrammar.Validation order, final LexemeIdentity orderOf, final ConversionHints hints) {
+        return appendWeatherCodes(source, target, l -> order.checkOrder(l, orderOf));
+    }
+
+    private static List<ConversionIssue> appendWeatherCodes(final Lexeme source, final List<fi.fmi.avi.model.Weather> target,
+            final Function<Lexeme, ConversionIssue> orderCheck) {
         Lexeme l = source;
         final List<ConversionIssue> issues = new ArrayList<>();
         while (l != null) {
             final String code = l.getParsedValue(Lexeme.ParsedValueName.VALUE, String.class);
             if (code != null) {
-                final ConversionIssue issue = checkBeforeAnyOf(l, before);
+                final ConversionIssue issue = orderCheck.apply(l);
                 if (issue != null) {
                     issues.add(issue);
                 } else {
@@ -309,7 +368,7 @@ public abstract class AbstractTACParser<T extends AviationWeatherMessageOrCollec
     }
 
     protected static boolean lexingSuccessful(final LexemeSequence lexed, final ConversionHints hints) {
-        return lexed.getLexemes().stream().noneMatch(l -> !l.isIgnored() && !Lexeme.Status.OK.equals(l.getStatus()));
+        return lexed.getNonOkLexemeCount() == 0;
     }
 
     protected boolean checkAndReportLexingResult(final LexemeSequence lexed, final ConversionHints hints, final ConversionResult<?> result) {
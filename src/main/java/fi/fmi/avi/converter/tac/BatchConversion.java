@@ -0,0 +1,200 @@
+package fi.fmi.avi.converter.tac;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import fi.fmi.avi.converter.AviMessageSpecificConverter;
+import fi.fmi.avi.converter.ConversionHints;
+import fi.fmi.avi.converter.ConversionIssue;
+import fi.fmi.avi.converter.ConversionResult;
+import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
+
+/**
+ * Converts batches of TAC messages concurrently with a single parser.
+ *
+ * The TAC parsers and the lexer configured in {@link fi.fmi.avi.converter.tac.conf.Parsing} keep no state between the
+ * messages once configured, so one instance of each can be shared by all the threads of the batch. The messages are
+ * divided into chunks of consecutive messages, several for each thread to balance the differences in the message
+ * lengths, and the results are returned in the order of the input. A message failing with an exception does not affect
+ * the others, its result is a failed result with an issue describing the exception.
+ */
+public final class BatchConversion {
+    // the number of chunks per thread of the executor:
+    private static final int CHUNKS_PER_THREAD = 8;
+
+    /**
+     * Converts the given messages in the {@link ForkJoinPool#commonPool() common pool}.
+     *
+     * @param converter the parser to convert the messages with
+     * @param input the messages
+     * @param hints the parsing hints for all the messages, not to be modified during the conversion
+     * @param <T> the type of the parsed messages
+     * @return the conversion results, in the order of <code>input</code>
+     */
+    public static <T extends AviationWeatherMessageOrCollection> List<ConversionResult<T>> convertMessages(
+            final AviMessageSpecificConverter<String, T> converter, final List<String> input, final ConversionHints hints) {
+        return convertMessages(converter, input, hints, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Converts the messages of the given stream in the given executor, see
+     * {@link #convertMessages(AviMessageSpecificConverter, List, ConversionHints, Executor)}. The stream is collected
+     * into a list before the conversion: the messages are held in memory until the whole batch is converted, as are
+     * the returned results. Split very long streams into batches of a suitable size.
+     *
+     * @param converter the parser to convert the messages with
+     * @param input the messages
+     * @param hints the parsing hints for all the messages, not to be modified during the conversion
+     * @param executor the executor to run the conversion in
+     * @param <T> the type of the parsed messages
+     * @return the conversion results, in the encounter order of <code>input</code>
+     */
+    public static <T extends AviationWeatherMessageOrCollection> List<ConversionResult<T>> convertMessages(
+            final AviMessageSpecificConverter<String, T> converter, final Stream<String> input, final ConversionHints hints, final Executor executor) {
+        return convertMessages(converter, input.collect(Collectors.toList()), hints, executor);
+    }
+
+    /**
+     * Converts the given messages in the given executor, waiting for all of them to be converted. The number of
+     * threads to divide the messages for is the parallelism of a {@link ForkJoinPool} and the maximum pool size of a
+     * {@link ThreadPoolExecutor}. The messages are divided for a single thread in any other executor, use
+     * {@link #convertMessages(AviMessageSpecificConverter, List, ConversionHints, Executor, int)} to give the number of
+     * its threads.
+     *
+     * @param converter the parser to convert the messages with
+     * @param input the messages
+     * @param hints the parsing hints for all the messages, not to be modified during the conversion
+     * @param executor the executor to run the conversion in
+     * @param <T> the type of the parsed messages
+     * @return the conversion results, in the order of <code>input</code>
+     */
+    public static <T extends AviationWeatherMessageOrCollection> List<ConversionResult<T>> convertMessages(
+            final AviMessageSpecificConverter<String, T> converter, final List<String> input, final ConversionHints hints, final Executor executor) {
+        final int parallelism;
+        if (executor instanceof ForkJoinPool) {
+            parallelism = ((ForkJoinPool) executor).getParallelism();
+        } else if (executor instanceof ThreadPoolExecutor) {
+            parallelism = ((ThreadPoolExecutor) executor).getMaximumPoolSize();
+        } else {
+            parallelism = 1;
+        }
+        return convertMessages(converter, input, hints, executor, parallelism);
+    }
+
+    /**
+     * Converts the given messages in the given executor, waiting for all of them to be converted. A {@link ForkJoinPool}
+     * converts the chunks of the messages as tasks splitting the batch recursively, any other executor as a task for each
+     * chunk.
+     *
+     * @param converter the parser to convert the messages with
+     * @param input the messages
+     * @param hints the parsing hints for all the messages, not to be modified during the conversion
+     * @param executor the executor to run the conversion in
+     * @param parallelism the number of threads of the executor available for the conversion, to divide the messages for
+     * @param <T> the type of the parsed messages
+     * @return the conversion results, in the order of <code>input</code>
+     */
+    public static <T extends AviationWeatherMessageOrCollection> List<ConversionResult<T>> convertMessages(
+            final AviMessageSpecificConverter<String, T> converter, final List<String> input, final ConversionHints hints, final Executor executor,
+            final int parallelism) {
+        Objects.requireNonNull(converter, "converter");
+        Objects.requireNonNull(executor, "executor");
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        final Batch<T> batch = new Batch<>(converter, input.toArray(new String[0]), hints);
+        if (batch.messages.length == 0) {
+            return Collections.emptyList();
+        }
+        final int chunkSize = chunkSize(batch.messages.length, parallelism);
+        if (executor instanceof ForkJoinPool) {
+            ((ForkJoinPool) executor).invoke(new ChunkTask<>(batch, 0, batch.messages.length, chunkSize));
+        } else {
+            final List<CompletableFuture<Void>> chunks = new ArrayList<>();
+            for (int from = 0; from < batch.messages.length; from += chunkSize) {
+                final int start = from;
+                final int end = Math.min(from + chunkSize, batch.messages.length);
+                chunks.add(CompletableFuture.runAsync(() -> batch.convert(start, end), executor));
+            }
+            try {
+                CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[0])).join();
+            } catch (final CompletionException e) {
+                // only errors escape the conversion of a chunk:
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw e;
+            }
+        }
+        return Collections.unmodifiableList(Arrays.asList(batch.results));
+    }
+
+    private static int chunkSize(final int messageCount, final int threads) {
+        // long, as the maximum pool size of an unbounded ThreadPoolExecutor is Integer.MAX_VALUE:
+        return (int) Math.max(1L, messageCount / ((long) threads * CHUNKS_PER_THREAD));
+    }
+
+    private static final class Batch<T extends AviationWeatherMessageOrCollection> {
+        private final AviMessageSpecificConverter<String, T> converter;
+        private final String[] messages;
+        private final ConversionHints hints;
+        private final ConversionResult<T>[] results;
+
+        @SuppressWarnings("unchecked")
+        private Batch(final AviMessageSpecificConverter<String, T> converter, final String[] messages, final ConversionHints hints) {
+            this.converter = converter;
+            this.messages = messages;
+            this.hints = hints;
+            this.results = new ConversionResult[messages.length];
+        }
+
+        private void convert(final int from, final int to) {
+            for (int i = from; i < to; i++) {
+                try {
+                    this.results[i] = this.converter.convertMessage(this.messages[i], this.hints);
+                } catch (final RuntimeException e) {
+                    final ConversionResult<T> failed = new ConversionResult<>();
+                    failed.addIssue(new ConversionIssue(ConversionIssue.Type.OTHER, "Unable to convert message: " + e));
+                    this.results[i] = failed;
+                }
+            }
+        }
+    }
+
+    private static final class ChunkTask<T extends AviationWeatherMessageOrCollection> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Batch<T> batch;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+
+        private ChunkTask(final Batch<T> batch, final int from, final int to, final int chunkSize) {
+            this.batch = batch;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= this.chunkSize) {
+                this.batch.convert(this.from, this.to);
+            } else {
+                final int middle = (this.from + this.to) >>> 1;
+                invokeAll(new ChunkTask<>(this.batch, this.from, middle, this.chunkSize), new ChunkTask<>(this.batch, middle, this.to, this.chunkSize));
+            }
+        }
+    }
+}
@@ -0,0 +1,446 @@
+package fi.fmi.avi.converter.tac;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import fi.fmi.avi.converter.ConversionIssue;
+import fi.fmi.avi.converter.tac.lexer.Lexeme;
+import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
+import fi.fmi.avi.converter.tac.lexer.LexemeIdentitySet;
+import fi.fmi.avi.converter.tac.lexer.LexemeSequence;
+import fi.fmi.avi.converter.tac.lexer.impl.LexemeUtils;
+
+/**
+ * Declarative rules for the order and the cardinality of the groups of a TAC message, compiled into a validator which
+ * checks a lexed message in a single forward pass.
+ *
+ * The message is described as a list of sections in their order, each section listing the identities of the groups
+ * allowed in it. A lexeme must not be preceded by a lexeme of any of the later sections, apart from the identities
+ * {@link Builder#allowingAfter(LexemeIdentity...) allowed} for its section and the identities declared
+ * {@link Builder#looselyOrdered(LexemeIdentity...) loosely ordered}. The repeating parts of the message, such as the
+ * trends of a METAR or the change forecasts of a TAF, are described as {@link Builder#group(LexemeIdentity...) groups}
+ * with sections of their own. A group lasts from a lexeme identified as one of its start identities until the start of
+ * the next group, the same way as {@link LexemeSequence#splitBy(LexemeIdentity...)} splits the message, and the
+ * lexemes of the sections of a group are only checked against the preceding lexemes of the same group. A group should
+ * therefore declare all the identities its lexemes may have, in one section if their order is free: the lexemes of the
+ * other identities are checked with the rules of the message sections against all the preceding lexemes of the message,
+ * wherever they are found.
+ *
+ * The rules are compiled into a bit mask for each identity. Validating a message takes a single forward pass recording
+ * the first lexeme of each strictly ordered identity of the message and the start of each group, and each order check is
+ * then answered when asked by testing these against the mask. The lexeme reported for a violation is the first
+ * preceding lexeme of a disallowed identity, as by {@link AbstractTACParser#checkBeforeAnyOf(Lexeme, Set)}. A grammar
+ * is immutable and may be shared by any number of threads.
+ */
+public final class MessageGrammar {
+    private static final int NONE = -1;
+
+    private final LexemeIdentitySet zeroOrOne;
+    private final LexemeIdentity[] groupStarts;
+    private final Scope message;
+    // by the index of the group start identity in groupStarts:
+    private final Scope[] groupsByStart;
+
+    private MessageGrammar(final Builder builder) {
+        this.zeroOrOne = LexemeIdentitySet.copyOf(builder.zeroOrOne);
+        this.message = new Scope(builder.scopes.get(0));
+        final List<LexemeIdentity> starts = new ArrayList<>();
+        final List<Scope> groups = new ArrayList<>();
+        for (final ScopeDeclaration declaration : builder.scopes.subList(1, builder.scopes.size())) {
+            final Scope group = new Scope(declaration);
+            for (final LexemeIdentity start : declaration.starts) {
+                if (starts.contains(start)) {
+                    throw new IllegalArgumentException("More than one group started by " + start);
+                }
+                starts.add(start);
+                groups.add(group);
+            }
+        }
+        this.groupStarts = starts.toArray(new LexemeIdentity[0]);
+        this.groupsByStart = groups.toArray(new Scope[0]);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Checks the given lexed message against the grammar. The sequence must not be modified after the validation, as
+     * the results are not updated.
+     *
+     * @param lexed the whole lexed message
+     * @return the validation results
+     */
+    public Validation validate(final LexemeSequence lexed) {
+        return new Validation(lexed);
+    }
+
+    /**
+     * Splits the message into the part preceding the first group and the groups, see
+     * {@link LexemeSequence#splitBy(LexemeIdentity...)}.
+     *
+     * @param lexed the message to split
+     * @return the parts of the message in their order
+     */
+    public List<LexemeSequence> splitIntoGroups(final LexemeSequence lexed) {
+        return lexed.splitBy(this.groupStarts);
+    }
+
+    private int groupStartedBy(final LexemeIdentity identity) {
+        for (int i = 0; i < this.groupStarts.length; i++) {
+            if (this.groupStarts[i].equals(identity)) {
+                return i;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * The compiled sections of the message or of a group. Each identity constraining the order of the others is given
+     * a bit, and the rule of each section is the mask of the identities which must not precede it.
+     */
+    private static final class Scope {
+        private final int[] bitsByOrdinal;
+        private final long[] notAfterByOrdinal;
+        private final boolean[] ruledByOrdinal;
+        private final int bitCount;
+
+        private Scope(final ScopeDeclaration declaration) {
+            int maxOrdinal = 0;
+            for (final SectionDeclaration section : declaration.sections) {
+                for (final LexemeIdentity identity : section.identities) {
+                    maxOrdinal = Math.max(maxOrdinal, identity.ordinal());
+                }
+            }
+            this.bitsByOrdinal = new int[maxOrdinal + 1];
+            this.notAfterByOrdinal = new long[maxOrdinal + 1];
+            this.ruledByOrdinal = new boolean[maxOrdinal + 1];
+            Arrays.fill(this.bitsByOrdinal, NONE);
+            final LexemeIdentitySet declared = LexemeIdentitySet.of();
+            int bitCount = 0;
+            for (final SectionDeclaration section : declaration.sections) {
+                for (final LexemeIdentity identity : section.identities) {
+                    if (!declared.add(identity)) {
+                        throw new IllegalArgumentException(identity + " declared in more than one section");
+                    }
+                    if (!declaration.looselyOrdered.contains(identity)) {
+                        if (bitCount == Long.SIZE) {
+                            throw new IllegalArgumentException("At most " + Long.SIZE + " strictly ordered identities are supported");
+                        }
+                        this.bitsByOrdinal[identity.ordinal()] = bitCount++;
+                    }
+                }
+            }
+            this.bitCount = bitCount;
+            for (final LexemeIdentity identity : declaration.looselyOrdered) {
+                if (!declared.contains(identity)) {
+                    throw new IllegalArgumentException(identity + " is loosely ordered but not declared in any section");
+                }
+            }
+            // the rule of each section covers the strictly ordered identities of all the later sections:
+            long later = 0L;
+            for (int i = declaration.sections.size() - 1; i >= 0; i--) {
+                final SectionDeclaration section = declaration.sections.get(i);
+                long rule = later;
+                for (final LexemeIdentity allowed : section.allowedAfter) {
+                    rule &= ~this.bit(allowed);
+                }
+                for (final LexemeIdentity identity : section.identities) {
+                    this.notAfterByOrdinal[identity.ordinal()] = rule;
+                    this.ruledByOrdinal[identity.ordinal()] = true;
+                    later |= this.bit(identity);
+                }
+            }
+        }
+
+        private long bit(final LexemeIdentity identity) {
+            if (identity == null || identity.ordinal() >= this.bitsByOrdinal.length || this.bitsByOrdinal[identity.ordinal()] == NONE) {
+                return 0L;
+            }
+            return 1L << this.bitsByOrdinal[identity.ordinal()];
+        }
+
+        private boolean hasRule(final LexemeIdentity identity) {
+            return identity != null && identity.ordinal() < this.ruledByOrdinal.length && this.ruledByOrdinal[identity.ordinal()];
+        }
+
+        private long notAfter(final LexemeIdentity identity) {
+            return this.hasRule(identity) ? this.notAfterByOrdinal[identity.ordinal()] : 0L;
+        }
+    }
+
+    private static final class SectionDeclaration {
+        private final LexemeIdentitySet identities;
+        private final LexemeIdentitySet allowedAfter = LexemeIdentitySet.of();
+
+        private SectionDeclaration(final LexemeIdentitySet identities) {
+            this.identities = identities;
+        }
+    }
+
+    private static final class ScopeDeclaration {
+        private final LexemeIdentity[] starts;
+        private final List<SectionDeclaration> sections = new ArrayList<>();
+        private final LexemeIdentitySet looselyOrdered = LexemeIdentitySet.of();
+
+        private ScopeDeclaration(final LexemeIdentity... starts) {
+            this.starts = starts;
+        }
+    }
+
+    public static class Builder {
+        private final LexemeIdentitySet zeroOrOne = LexemeIdentitySet.of();
+        // the message scope first, then the groups:
+        private final List<ScopeDeclaration> scopes = new ArrayList<>();
+
+        private Builder() {
+            this.scopes.add(new ScopeDeclaration());
+        }
+
+        private ScopeDeclaration current() {
+            return this.scopes.get(this.scopes.size() - 1);
+        }
+
+        /**
+         * Declares the identities of which the whole message may contain at most one recognized lexeme each.
+         *
+         * @param identities the identities
+         * @return this builder
+         */
+        public Builder zeroOrOne(final LexemeIdentity... identities) {
+            this.zeroOrOne.addAll(Arrays.asList(identities));
+            return this;
+        }
+
+        /**
+         * Adds the next section to the message or to the group declared last.
+         *
+         * @param identities the identities of the lexemes of the section
+         * @return this builder
+         */
+        public Builder section(final LexemeIdentity... identities) {
+            this.current().sections.add(new SectionDeclaration(LexemeIdentitySet.of(identities)));
+            return this;
+        }
+
+        /**
+         * Allows the lexemes of the section added last to also follow the given identities of the later sections.
+         *
+         * @param identities the identities allowed to precede the section
+         * @return this builder
+         */
+        public Builder allowingAfter(final LexemeIdentity... identities) {
+            final List<SectionDeclaration> sections = this.current().sections;
+            if (sections.isEmpty()) {
+                throw new IllegalStateException("No section to allow the identities for");
+            }
+            sections.get(sections.size() - 1).allowedAfter.addAll(Arrays.asList(identities));
+            return this;
+        }
+
+        /**
+         * Declares identities of the message or of the group declared last as loosely ordered: their lexemes must
+         * still not be preceded by the lexemes of the later sections, but they may precede the lexemes of the earlier
+         * sections themselves.
+         *
+         * @param identities the identities, each declared in a section of the same message or group
+         * @return this builder
+         */
+        public Builder looselyOrdered(final LexemeIdentity... identities) {
+            this.current().looselyOrdered.addAll(Arrays.asList(identities));
+            return this;
+        }
+
+        /**
+         * Starts declaring a group of the message, started by a lexeme identified as any of the given identities. The
+         * sections added after this belong to the group. A group with no sections only ends the preceding group.
+         *
+         * @param startIdentities the identities starting the group
+         * @return this builder
+         */
+        public Builder group(final LexemeIdentity... startIdentities) {
+            if (startIdentities.length == 0) {
+                throw new IllegalArgumentException("A group must have at least one start identity");
+            }
+            this.scopes.add(new ScopeDeclaration(startIdentities.clone()));
+            return this;
+        }
+
+        public MessageGrammar build() {
+            return new MessageGrammar(this);
+        }
+    }
+
+    /**
+     * The result of validating a lexed message. The validation pass records the first lexeme of each strictly ordered
+     * identity of the message and the start of each group, and the order checks of the parsers are answered from these
+     * when asked. Not thread-safe.
+     */
+    public final class Validation {
+        private final List<Lexeme> lexemes;
+        private final boolean positionsKnown;
+        // the indexes of the first lexeme of each strictly ordered identity of the message, in the message order:
+        private final int[] messageFirsts;
+        private final int messageFirstCount;
+        // the indexes of the lexemes starting a group, in the message order:
+        private int[] groupStartIndexes = new int[4];
+        private int groupCount;
+        private final List<ConversionIssue> cardinalityIssues;
+
+        private Validation(final LexemeSequence lexed) {
+            this.lexemes = lexed.getLexemes(true);
+            this.messageFirsts = new int[message.bitCount];
+            List<ConversionIssue> issues = null;
+            final LexemeIdentitySet seenOnce = LexemeIdentitySet.of();
+            boolean ascending = true;
+            long previousPosition = LexemeUtils.UNKNOWN_POSITION;
+            long messageSeen = 0L;
+            int messageFirstCount = 0;
+            int i = 0;
+            for (final Lexeme l : this.lexemes) {
+                final LexemeIdentity id = l.getIdentity();
+                final long position = LexemeUtils.getPosition(l);
+                ascending &= position != LexemeUtils.UNKNOWN_POSITION && (i == 0 || position > previousPosition);
+                previousPosition = position;
+
+                if (id != null && groupStartedBy(id) != NONE) {
+                    if (this.groupCount == this.groupStartIndexes.length) {
+                        this.groupStartIndexes = Arrays.copyOf(this.groupStartIndexes, this.groupCount * 2);
+                    }
+                    this.groupStartIndexes[this.groupCount++] = i;
+                }
+                if (!l.isIgnored() && id != null) {
+                    final long messageBit = message.bit(id);
+                    if ((messageSeen & messageBit) == 0L && messageBit != 0L) {
+                        messageSeen |= messageBit;
+                        this.messageFirsts[messageFirstCount++] = i;
+                    }
+                }
+                // as in LexemeSequence.getRecognizedLexemes(), the first lexeme is counted even if ignored:
+                if ((i == 0 || !l.isIgnored()) && id != null && Lexeme.Status.UNRECOGNIZED != l.getStatus() && zeroOrOne.contains(id) && !seenOnce.add(id)) {
+                    if (issues == null) {
+                        issues = new ArrayList<>();
+                    }
+                    issues.add(new ConversionIssue(ConversionIssue.Type.SYNTAX, "More than one of " + id + " in " + lexed.getTAC()));
+                }
+                i++;
+            }
+            this.positionsKnown = ascending;
+            this.messageFirstCount = messageFirstCount;
+            this.cardinalityIssues = issues == null ? Collections.emptyList() : Collections.unmodifiableList(issues);
+        }
+
+        /**
+         * Returns the issues for the identities declared {@link Builder#zeroOrOne(LexemeIdentity...) zero or one}
+         * having more than one lexeme in the message, one for each extra lexeme in the message order.
+         *
+         * @return the issues, empty if none
+         */
+        public List<ConversionIssue> getCardinalityIssues() {
+            return this.cardinalityIssues;
+        }
+
+        /**
+         * Checks that the given lexeme is not preceded by any lexeme not allowed before its section.
+         *
+         * @param lexeme the lexeme of the validated message, or of any of its subsequences
+         * @return the issue for the first disallowed lexeme preceding <code>lexeme</code>, or null if none or the identity
+         *         of the lexeme has no section in the grammar
+         */
+        public ConversionIssue checkOrder(final Lexeme lexeme) {
+            if (lexeme == null) {
+                return null;
+            }
+            final int index = this.indexOf(lexeme);
+            return this.toIssue(lexeme, this.findViolation(index, this.lexemes.get(index).getIdentity()));
+        }
+
+        /**
+         * Checks that the given lexeme is not preceded by any lexeme not allowed before the section of the given
+         * identity, as if the lexeme had the identity.
+         *
+         * @param lexeme the lexeme of the validated message, or of any of its subsequences
+         * @param identity the identity of the section to check the lexeme against
+         * @return the issue for the first disallowed lexeme preceding <code>lexeme</code>, or null if none or the
+         *         identity has no section in the grammar
+         */
+        public ConversionIssue checkOrder(final Lexeme lexeme, final LexemeIdentity identity) {
+            if (lexeme == null) {
+                return null;
+            }
+            return this.toIssue(lexeme, this.findViolation(this.indexOf(lexeme), identity));
+        }
+
+        private ConversionIssue toIssue(final Lexeme lexeme, final int violation) {
+            if (violation == NONE) {
+                return null;
+            }
+            return new ConversionIssue(ConversionIssue.Type.SYNTAX,
+                    "Invalid token order: '" + lexeme + "' was found after one of type " + this.lexemes.get(violation).getIdentity());
+        }
+
+        // finds the first lexeme preceding the lexeme at index which is not allowed before the section of identity:
+        private int findViolation(final int index, final LexemeIdentity identity) {
+            final int groupStart = this.groupStartOf(index);
+            if (groupStart != NONE) {
+                final Scope group = groupsByStart[groupStartedBy(this.lexemes.get(groupStart).getIdentity())];
+                if (group.hasRule(identity)) {
+                    final long notAfter = group.notAfter(identity);
+                    for (int i = groupStart; i < index && notAfter != 0L; i++) {
+                        final Lexeme l = this.lexemes.get(i);
+                        if (!l.isIgnored() && (group.bit(l.getIdentity()) & notAfter) != 0L) {
+                            return i;
+                        }
+                    }
+                    return NONE;
+                }
+            }
+            final long notAfter = message.notAfter(identity);
+            for (int i = 0; i < this.messageFirstCount && this.messageFirsts[i] < index && notAfter != 0L; i++) {
+                if ((message.bit(this.lexemes.get(this.messageFirsts[i]).getIdentity()) & notAfter) != 0L) {
+                    return this.messageFirsts[i];
+                }
+            }
+            return NONE;
+        }
+
+        // the index of the lexeme starting the group of the lexeme at index, or NONE if it precedes the first group:
+        private int groupStartOf(final int index) {
+            final int found = Arrays.binarySearch(this.groupStartIndexes, 0, this.groupCount, index);
+            final int preceding = found >= 0 ? found : -found - 2;
+            return preceding >= 0 ? this.groupStartIndexes[preceding] : NONE;
+        }
+
+        private int indexOf(final Lexeme lexeme) {
+            final long position = LexemeUtils.getPosition(lexeme);
+            if (this.positionsKnown && position != LexemeUtils.UNKNOWN_POSITION) {
+                int low = 0;
+                int high = this.lexemes.size() - 1;
+                while (low <= high) {
+                    final int mid = (low + high) >>> 1;
+                    final long midPosition = LexemeUtils.getPosition(this.lexemes.get(mid));
+                    if (midPosition < position) {
+                        low = mid + 1;
+                    } else if (midPosition > position) {
+                        high = mid - 1;
+                    } else {
+                        if (LexemeUtils.isSameLexeme(this.lexemes.get(mid), lexeme)) {
+                            return mid;
+                        }
+                        break;
+                    }
+                }
+            }
+            // the lexemes of other sequences, or when the positions are not known:
+            for (int i = 0; i < this.lexemes.size(); i++) {
+                if (LexemeUtils.isSameLexeme(this.lexemes.get(i), lexeme)) {
+                    return i;
+                }
+            }
+            throw new IllegalArgumentException("Lexeme " + lexeme + " is not a part of the validated message");
+        }
+    }
+}
@@ -2,8 +2,15 @@ package fi.fmi.avi.converter.tac.bulletin;
 
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 import fi.fmi.avi.converter.ConversionHints;
 import fi.fmi.avi.converter.ConversionIssue;
@@ -29,13 +36,58 @@ public class GenericMeteorologicalBulletinParser extends AbstractTACParser<Gener
     private static final LexemeIdentity[] ZERO_OR_ONE_ALLOWED = {LexemeIdentity.BULLETIN_HEADING_DATA_DESIGNATORS,
             LexemeIdentity.BULLETIN_HEADING_LOCATION_INDICATOR, LexemeIdentity.ISSUE_TIME, LexemeIdentity.BULLETIN_HEADING_BBB_INDICATOR };
 
+    private static final int DEFAULT_PARALLEL_PROCESSING_THRESHOLD = 32;
+
     private AviMessageLexer lexer;
+    private Executor containedMessageExecutor;
+    private int parallelProcessingThreshold = DEFAULT_PARALLEL_PROCESSING_THRESHOLD;
 
     @Override
     public void setTACLexer(final AviMessageLexer lexer) {
         this.lexer = lexer;
     }
 
+    /**
+     * Sets the executor for lexing and parsing the contained messages of large bulletins in parallel. By default, and
+     * if set to null, the contained messages are processed in the calling thread. The messages and the conversion
+     * issues are in the message order either way.
+     *
+     * The calling thread blocks while waiting for the contained messages to be processed. The executor must therefore
+     * not be a bounded pool which also runs the calls of this parser, for example the fixed thread pool given to
+     * {@link fi.fmi.avi.converter.tac.BatchConversion}: with all of its threads waiting, the queued contained messages
+     * are never processed. A {@link java.util.concurrent.ForkJoinPool}, such as the common pool, compensates for its
+     * blocked workers and can be shared with the callers.
+     *
+     * @param executor the executor, or null for processing in the calling thread
+     * @see #setParallelProcessingThreshold(int)
+     */
+    public void setContainedMessageExecutor(final Executor executor) {
+        this.containedMessageExecutor = executor;
+    }
+
+    public Executor getContainedMessageExecutor() {
+        return this.containedMessageExecutor;
+    }
+
+    /**
+     * Sets the minimum number of contained messages for processing a bulletin in parallel with the
+     * {@link #setContainedMessageExecutor(Executor) contained message executor}. Processing the smaller bulletins in
+     * the calling thread avoids handing the messages over to other threads when there is little to gain from it.
+     * The default is 32.
+     *
+     * @param threshold the minimum number of contained messages, at least 1
+     */
+    public void setParallelProcessingThreshold(final int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Threshold must be at least 1, got " + threshold);
+        }
+        this.parallelProcessingThreshold = threshold;
+    }
+
+    public int getParallelProcessingThreshold() {
+        return this.parallelProcessingThreshold;
+    }
+
     /**
      * Converts a single message.
      *
@@ -53,7 +105,11 @@ public class GenericMeteorologicalBulletinParser extends AbstractTACParser<Gener
         if (this.lexer == null) {
             throw new IllegalStateException("TAC lexer not set");
         }
-        final LexemeSequence lexed = this.lexer.lexMessage(input, hints);
+        //Split the TAC after each end token, will always return at least one part (the original):
+        final List<String> parts = splitAfterEndTokens(input);
+        //Only the first part with the heading is lexed as a bulletin, the contained messages are lexed individually below.
+        //The first contained message is lexed in both, as the end of the heading is only known from the lexed bulletin:
+        final LexemeSequence lexed = this.lexer.lexMessage(parts.get(0), hints);
 
         if (LexemeIdentity.BULLETIN_HEADING_DATA_DESIGNATORS != lexed.getFirstLexeme().getIdentityIfAcceptable()//
                 || !lexed.getFirstLexeme().hasNext()//
@@ -73,11 +129,8 @@ public class GenericMeteorologicalBulletinParser extends AbstractTACParser<Gener
 
         final GenericMeteorologicalBulletinImpl.Builder bulletinBuilder = GenericMeteorologicalBulletinImpl.builder();
 
-        //Split & filter in the sequences ending with END_TOKEN, will always return at least one sequence (the original), unless the original is empty:
-        final List<LexemeSequence> subSequences = lexed.splitBy(false, LexemeIdentity.END_TOKEN);
-
         final StringBuilder abbrHeading = new StringBuilder();
-        Lexeme l = subSequences.get(0).getFirstLexeme(); // we have already checked that this is the data designators token
+        Lexeme l = lexed.getFirstLexeme(); // we have already checked that this is the data designators token
         abbrHeading.append(l.getTACToken());
         l = l.findNext(LexemeIdentity.BULLETIN_HEADING_LOCATION_INDICATOR, d -> abbrHeading.append(d.getTACToken()));
         l = l.findNext(LexemeIdentity.ISSUE_TIME, time -> abbrHeading.append(time.getTACToken()));
@@ -89,11 +142,10 @@ public class GenericMeteorologicalBulletinParser extends AbstractTACParser<Gener
         bulletinBuilder.setHeading(bulletinHeading);
 
 
-        //Lex each the contained message again individually to collect more info:
+        //Lex each the contained message individually to collect more info:
         String msg;
-        Lexeme lm;
 
-        String bulletinID = null;
+        final String bulletinID;
         //GTSExchangeFileInfo bulletinMetadata = null;
         if (hints != null && hints.containsKey(ConversionHints.KEY_BULLETIN_ID)) {
             bulletinID = hints.get(ConversionHints.KEY_BULLETIN_ID, String.class);
@@ -106,146 +158,320 @@ public class GenericMeteorologicalBulletinParser extends AbstractTACParser<Gener
                         + "from bulletinID '" + bulletinID + "'"));
             }
             */
+        } else {
+            bulletinID = null;
         }
         final ConversionHints messageSpecificHints = new ConversionHints(hints);
-        for (int i = 0; i < subSequences.size(); i++) {
-            if (i == 0) {
-                msg = lastHeadingToken.getTailSequence().trimWhiteSpace().getTAC();
-            } else {
-                msg = subSequences.get(i).trimWhiteSpace().getTAC();
+        final Object hintedMessageType = hints != null ? hints.get(ConversionHints.KEY_MESSAGE_TYPE) : null;
+        final Executor executor = this.containedMessageExecutor;
+        if (executor != null && parts.size() >= this.parallelProcessingThreshold) {
+            //Each message is lexed once with the bulletin hints, recognizing its type at the same time:
+            final ConversionHints bulletinLexingHints = new ConversionHints(messageSpecificHints);
+            final List<Supplier<LexedMessage>> tasks = new ArrayList<>(parts.size());
+            for (int i = 0; i < parts.size(); i++) {
+                final String containedTAC = i == 0 ? lastHeadingToken.getTailSequence().trimWhiteSpace().getTAC() : trimWhiteSpace(parts.get(i));
+                tasks.add(() -> {
+                    final AtomicReference<MessageType> recognizedType = new AtomicReference<>();
+                    final LexemeSequence sequence = this.lexer.lexMessage(containedTAC, bulletinLexingHints, recognizedType::set);
+                    return new LexedMessage(containedTAC, sequence, Optional.ofNullable(recognizedType.get()));
+                });
             }
-            final GenericAviationWeatherMessageImpl.Builder msgBuilder = new GenericAviationWeatherMessageImpl.Builder();
-            Optional<MessageType> messageType = this.lexer.recognizeMessageType(msg, hints);
-            if (!messageType.isPresent() || MessageType.GENERIC.equals(messageType.get())) {
-                //Fallback: check a hint for contained message type:
-                if (messageSpecificHints.containsKey(ConversionHints.KEY_CONTAINED_MESSAGE_TYPE)) {
-                    messageType = Optional.ofNullable((MessageType) messageSpecificHints.get(ConversionHints.KEY_CONTAINED_MESSAGE_TYPE));
-                    messageType.ifPresent(mt -> messageSpecificHints.put(ConversionHints.KEY_MESSAGE_TYPE, mt));
+            final List<CompletableFuture<LexedMessage>> lexedMessages = submitAll(tasks, executor);
+
+            //The message types are decided in the message order, as a fallback type changes the lexing hints of the
+            //following messages. The messages with changed hints are lexed again:
+            final List<Optional<MessageType>> messageTypes = new ArrayList<>(parts.size());
+            final List<List<ConversionIssue>> messageIssues = new ArrayList<>(parts.size());
+            final List<CompletableFuture<LexemeSequence>> sequences = new ArrayList<>(parts.size());
+            ConversionHints lexingHints = bulletinLexingHints;
+            for (final CompletableFuture<LexedMessage> future : lexedMessages) {
+                final LexedMessage lexedMessage;
+                try {
+                    lexedMessage = future.join();
+                } catch (final CompletionException e) {
+                    //rethrown when the message is reached below:
+                    sequences.add(future.thenApply(m -> m.sequence));
+                    break;
+                }
+                final List<ConversionIssue> issues = new ArrayList<>();
+                messageTypes.add(fallbackMessageType(lexedMessage.recognizedType, messageSpecificHints, bulletinHeading, issues));
+                messageIssues.add(issues);
+                if (Objects.equals(hintedMessageType, messageSpecificHints.get(ConversionHints.KEY_MESSAGE_TYPE))) {
+                    sequences.add(CompletableFuture.completedFuture(lexedMessage.sequence));
                 } else {
-                    //Fallback 2: try to determine message type from the bulletin heading:
-                    messageType = bulletinHeading.getExpectedContainedMessageType();
-                    if (messageType.isPresent()) {
-                        if (!messageSpecificHints.containsKey(ConversionHints.KEY_MESSAGE_TYPE)) {
-                            messageSpecificHints.put(ConversionHints.KEY_MESSAGE_TYPE, messageType.get());
-                        }
-                    } else {
-                        result.addIssue(new ConversionIssue(ConversionIssue.Severity.WARNING, ConversionIssue.Type.MISSING_DATA,
-                                "Unable to determine contained " + "message type for bulletin data designators " + bulletinHeading.getDataTypeDesignatorT1ForTAC() + " and " + bulletinHeading.getDataTypeDesignatorT2()));
+                    if (!Objects.equals(lexingHints.get(ConversionHints.KEY_MESSAGE_TYPE), messageSpecificHints.get(ConversionHints.KEY_MESSAGE_TYPE))) {
+                        lexingHints = new ConversionHints(messageSpecificHints);
                     }
+                    final ConversionHints containedHints = lexingHints;
+                    sequences.add(CompletableFuture.supplyAsync(() -> this.lexer.lexMessage(lexedMessage.tac, containedHints), executor));
                 }
             }
 
-            messageType.ifPresent(msgBuilder::setMessageType);
-            msgBuilder.setMessageFormat(GenericAviationWeatherMessage.Format.TAC);
-            final LexemeSequence messageSequence = this.lexer.lexMessage(msg, messageSpecificHints);
+            //The messages are parsed in the message order, stopping at the first failed message like in the calling
+            //thread:
+            for (int i = 0; i < sequences.size(); i++) {
+                final LexemeSequence messageSequence = join(sequences.get(i));
+                final List<ConversionIssue> issues = messageIssues.get(i);
+                final Optional<GenericAviationWeatherMessage> message = parseContainedMessage(i, messageTypes.get(i), messageSequence, hints, bulletinID,
+                        issues);
+                result.addIssue(issues);
+                if (!message.isPresent()) {
+                    sequences.subList(i + 1, sequences.size()).forEach(future -> future.cancel(false));
+                    return result;
+                }
+                bulletinBuilder.addMessages(message.get());
+            }
+        } else {
+            for (int i = 0; i < parts.size(); i++) {
+                if (i == 0) {
+                    msg = lastHeadingToken.getTailSequence().trimWhiteSpace().getTAC();
+                } else {
+                    msg = trimWhiteSpace(parts.get(i));
+                }
+                final List<ConversionIssue> issues = new ArrayList<>();
+                //The type recognized while lexing is the one recognized with the bulletin hints, unless a fallback type
+                //for an earlier message has been added to the message specific hints:
+                final Object lexedAsMessageType = messageSpecificHints.get(ConversionHints.KEY_MESSAGE_TYPE);
+                final AtomicReference<MessageType> recognizedType = new AtomicReference<>();
+                LexemeSequence messageSequence = this.lexer.lexMessage(msg, messageSpecificHints, recognizedType::set);
+                final Optional<MessageType> messageType = fallbackMessageType(Objects.equals(hintedMessageType, lexedAsMessageType) ?
+                        Optional.ofNullable(recognizedType.get()) :
+                        this.lexer.recognizeMessageType(msg, hints), messageSpecificHints, bulletinHeading, issues);
+                if (!Objects.equals(lexedAsMessageType, messageSpecificHints.get(ConversionHints.KEY_MESSAGE_TYPE))) {
+                    //The fallback type changes the lexing:
+                    messageSequence = this.lexer.lexMessage(msg, messageSpecificHints);
+                }
 
-            if (messageType.isPresent() &&
-                    (MessageType.SPACE_WEATHER_ADVISORY != messageType.get()
-                            && MessageType.VOLCANIC_ASH_ADVISORY != messageType.get() )){
-                if (!endsInEndToken(messageSequence, hints)) {
-                    result.addIssue(new ConversionIssue(ConversionIssue.Severity.ERROR, ConversionIssue.Type.SYNTAX, "Contained message #" + (i+1) + " does not "
-                            + "end in end token"));
+                final Optional<GenericAviationWeatherMessage> message = parseContainedMessage(i, messageType, messageSequence, hints, bulletinID, issues);
+                result.addIssue(issues);
+                if (!message.isPresent()) {
                     return result;
                 }
+                bulletinBuilder.addMessages(message.get());
             }
+        }
+        result.setConvertedMessage(bulletinBuilder.build());
 
-            lm = messageSequence.getFirstLexeme();
-
-            lm.findNext(LexemeIdentity.AERODROME_DESIGNATOR, designator -> msgBuilder.setTargetAerodrome(
-                    AerodromeImpl.builder().setDesignator(designator.getParsedValue(Lexeme.ParsedValueName.VALUE, String.class)).build()));
-            lm.findNext(LexemeIdentity.ISSUE_TIME, (time) -> {
-                final Integer year = time.getParsedValue(Lexeme.ParsedValueName.YEAR, Integer.class);
-                final Integer month = time.getParsedValue(Lexeme.ParsedValueName.MONTH, Integer.class);
-                final Integer day = time.getParsedValue(Lexeme.ParsedValueName.DAY1, Integer.class);
-                final Integer hour = time.getParsedValue(Lexeme.ParsedValueName.HOUR1, Integer.class);
-                final Integer minute = time.getParsedValue(Lexeme.ParsedValueName.MINUTE1, Integer.class);
-                if (hour != null && minute != null) {
-                    //Do we have enough info for a complete time?
-                    if (year != null && month != null && day != null) {
-                        msgBuilder.setIssueTime(PartialOrCompleteTimeInstant.of(ZonedDateTime.of(year, month, day, hour, minute, 0, 0, ZoneId.of("Z"))));
-                    } else {
-                        if (year == null && month != null) {
-                            result.addIssue(new ConversionIssue(ConversionIssue.Severity.WARNING, ConversionIssue.Type.MISSING_DATA, "Month information "
-                                    + "available but ignored for parsing contained message issue time, year info missing"));
-                        } else if (year != null && month == null) {
-                            result.addIssue(new ConversionIssue(ConversionIssue.Severity.WARNING, ConversionIssue.Type.MISSING_DATA, "Year information "
-                                    + "available but ignored for parsing contained message issue time, month info missing"));
-                        }
-                        msgBuilder.setIssueTime(PartialOrCompleteTimeInstant.of(PartialDateTime.of(day != null?day:-1, hour, minute, ZoneId.of("Z"))));
+        return result;
+    }
+
+    /**
+     * Falls back to the contained message type given in the hints or expected by the bulletin heading if the type of a
+     * contained message is not recognized, and adds it to the message specific hints for lexing the message and the
+     * following ones.
+     */
+    private static Optional<MessageType> fallbackMessageType(final Optional<MessageType> recognized, final ConversionHints messageSpecificHints,
+            final BulletinHeading bulletinHeading, final List<ConversionIssue> issues) {
+        Optional<MessageType> messageType = recognized;
+        if (!messageType.isPresent() || MessageType.GENERIC.equals(messageType.get())) {
+            //Fallback: check a hint for contained message type:
+            if (messageSpecificHints.containsKey(ConversionHints.KEY_CONTAINED_MESSAGE_TYPE)) {
+                messageType = Optional.ofNullable((MessageType) messageSpecificHints.get(ConversionHints.KEY_CONTAINED_MESSAGE_TYPE));
+                messageType.ifPresent(mt -> messageSpecificHints.put(ConversionHints.KEY_MESSAGE_TYPE, mt));
+            } else {
+                //Fallback 2: try to determine message type from the bulletin heading:
+                messageType = bulletinHeading.getExpectedContainedMessageType();
+                if (messageType.isPresent()) {
+                    if (!messageSpecificHints.containsKey(ConversionHints.KEY_MESSAGE_TYPE)) {
+                        messageSpecificHints.put(ConversionHints.KEY_MESSAGE_TYPE, messageType.get());
                     }
+                } else {
+                    issues.add(new ConversionIssue(ConversionIssue.Severity.WARNING, ConversionIssue.Type.MISSING_DATA,
+                            "Unable to determine contained " + "message type for bulletin data designators " + bulletinHeading.getDataTypeDesignatorT1ForTAC() + " and " + bulletinHeading.getDataTypeDesignatorT2()));
                 }
-            });
+            }
+        }
+        return messageType;
+    }
 
-            if (messageType.isPresent() &&
-                    (MessageType.SPACE_WEATHER_ADVISORY == messageType.get()
-                            || MessageType.VOLCANIC_ASH_ADVISORY == messageType.get())) {
-                //Valid time for SWX & VAA is extracted from the included phenomena time offsets:
-                final PartialOrCompleteTimeInstant.Builder start = PartialOrCompleteTimeInstant.builder();
-                final PartialOrCompleteTimeInstant.Builder end = PartialOrCompleteTimeInstant.builder();
-                lm.findNext(LexemeIdentity.ADVISORY_PHENOMENA_TIME_GROUP, (time) -> {
-                    Integer day = time.getParsedValue(Lexeme.ParsedValueName.DAY1, Integer.class);
-                    Integer hour = time.getParsedValue(Lexeme.ParsedValueName.HOUR1, Integer.class);
-                    Integer minute = time.getParsedValue(Lexeme.ParsedValueName.MINUTE1, Integer.class);
-                    start.setPartialTime(PartialDateTime.of(day != null ? day : -1, hour != null ? hour : -1, minute != null ? minute : -1, ZoneId.of("Z")));
-
-                    //Valid time end is the last time group value
-                    Lexeme ll = time.findNext(LexemeIdentity.ADVISORY_PHENOMENA_TIME_GROUP);
-                    while (ll != null) {
-                        day = ll.getParsedValue(Lexeme.ParsedValueName.DAY1, Integer.class);
-                        hour = ll.getParsedValue(Lexeme.ParsedValueName.HOUR1, Integer.class);
-                        minute = ll.getParsedValue(Lexeme.ParsedValueName.MINUTE1, Integer.class);
-                        end.setPartialTime(PartialDateTime.of(day != null ? day : -1, hour != null ? hour : -1, minute != null ? minute : -1, ZoneId.of("Z")));
-                        ll = ll.findNext(LexemeIdentity.ADVISORY_PHENOMENA_TIME_GROUP);
-                    }
-                    msgBuilder.setValidityTime(PartialOrCompleteTimePeriod.builder()//
-                            .setStartTime(start.build())//
-                            .setEndTime(end.build())//
-                            .build());
-                });
-            } else {
-                lm.findNext(LexemeIdentity.VALID_TIME, (time) -> {
-                    final Integer fromDay = time.getParsedValue(Lexeme.ParsedValueName.DAY1, Integer.class);
-                    final Integer fromHour = time.getParsedValue(Lexeme.ParsedValueName.HOUR1, Integer.class);
-                    final Integer fromMinute = time.getParsedValue(Lexeme.ParsedValueName.MINUTE1, Integer.class);
-                    final Integer toDay = time.getParsedValue(Lexeme.ParsedValueName.DAY2, Integer.class);
-                    final Integer toHour = time.getParsedValue(Lexeme.ParsedValueName.HOUR2, Integer.class);
-                    final Integer toMinute = time.getParsedValue(Lexeme.ParsedValueName.MINUTE2, Integer.class);
-
-                    //If there are different VALID_TIME lexemes in the same message, discard the entire valid time info with warning
-                    boolean conflict = false;
-                    Lexeme next = time.findNext(LexemeIdentity.VALID_TIME);
-                    while (next != null) {
-                        if (!next.equals(time)) {
-                            conflict = true;
-                        }
-                        next = next.findNext(LexemeIdentity.VALID_TIME);
+    /**
+     * Collects the generic info of a lexed contained message.
+     *
+     * @return the message, or empty if the message cannot be included in the bulletin
+     */
+    private Optional<GenericAviationWeatherMessage> parseContainedMessage(final int index, final Optional<MessageType> messageType,
+            final LexemeSequence messageSequence, final ConversionHints hints, final String bulletinID, final List<ConversionIssue> issues) {
+        final GenericAviationWeatherMessageImpl.Builder msgBuilder = new GenericAviationWeatherMessageImpl.Builder();
+        messageType.ifPresent(msgBuilder::setMessageType);
+        msgBuilder.setMessageFormat(GenericAviationWeatherMessage.Format.TAC);
+
+        if (messageType.isPresent() &&
+                (MessageType.SPACE_WEATHER_ADVISORY != messageType.get()
+                        && MessageType.VOLCANIC_ASH_ADVISORY != messageType.get() )){
+            if (!endsInEndToken(messageSequence, hints)) {
+                issues.add(new ConversionIssue(ConversionIssue.Severity.ERROR, ConversionIssue.Type.SYNTAX, "Contained message #" + (index + 1) + " does not "
+                        + "end in end token"));
+                return Optional.empty();
+            }
+        }
+
+        final Lexeme lm = messageSequence.getFirstLexeme();
+
+        lm.findNext(LexemeIdentity.AERODROME_DESIGNATOR, designator -> msgBuilder.setTargetAerodrome(
+                AerodromeImpl.builder().setDesignator(designator.getParsedValue(Lexeme.ParsedValueName.VALUE, String.class)).build()));
+        lm.findNext(LexemeIdentity.ISSUE_TIME, (time) -> {
+            final Integer year = time.getParsedValue(Lexeme.ParsedValueName.YEAR, Integer.class);
+            final Integer month = time.getParsedValue(Lexeme.ParsedValueName.MONTH, Integer.class);
+            final Integer day = time.getParsedValue(Lexeme.ParsedValueName.DAY1, Integer.class);
+            final Integer hour = time.getParsedValue(Lexeme.ParsedValueName.HOUR1, Integer.class);
+            final Integer minute = time.getParsedValue(Lexeme.ParsedValueName.MINUTE1, Integer.class);
+            if (hour != null && minute != null) {
+                //Do we have enough info for a complete time?
+                if (year != null && month != null && day != null) {
+                    msgBuilder.setIssueTime(PartialOrCompleteTimeInstant.of(ZonedDateTime.of(year, month, day, hour, minute, 0, 0, ZoneId.of("Z"))));
+                } else {
+                    if (year == null && month != null) {
+                        issues.add(new ConversionIssue(ConversionIssue.Severity.WARNING, ConversionIssue.Type.MISSING_DATA, "Month information "
+                                + "available but ignored for parsing contained message issue time, year info missing"));
+                    } else if (year != null && month == null) {
+                        issues.add(new ConversionIssue(ConversionIssue.Severity.WARNING, ConversionIssue.Type.MISSING_DATA, "Year information "
+                                + "available but ignored for parsing contained message issue time, month info missing"));
                     }
-                    if (conflict) {
-                        result.addIssue(new ConversionIssue(ConversionIssue.Severity.WARNING, ConversionIssue.Type.LOGICAL,
-                                "There are different valid time tokens in the message, discarding valid time info"));
-                    } else {
-                        final PartialOrCompleteTimePeriod.Builder validTime = PartialOrCompleteTimePeriod.builder()
-                                .setStartTime(PartialOrCompleteTimeInstant.of(
-                                        PartialDateTime.of(fromDay != null ? fromDay : -1, fromHour != null ? fromHour : -1, fromMinute != null ? fromMinute : -1,
-                                                ZoneId.of("Z"))))
-                                .setEndTime(PartialOrCompleteTimeInstant.of(
-                                        PartialDateTime.of(toDay != null ? toDay : -1, toHour != null ? toHour : -1, toMinute != null ? toMinute : -1, ZoneId.of("Z"))));
-                        msgBuilder.setValidityTime(validTime.build());
+                    msgBuilder.setIssueTime(PartialOrCompleteTimeInstant.of(PartialDateTime.of(day != null?day:-1, hour, minute, ZoneId.of("Z"))));
+                }
+            }
+        });
+
+        if (messageType.isPresent() &&
+                (MessageType.SPACE_WEATHER_ADVISORY == messageType.get()
+                        || MessageType.VOLCANIC_ASH_ADVISORY == messageType.get())) {
+            //Valid time for SWX & VAA is extracted from the included phenomena time offsets:
+            final PartialOrCompleteTimeInstant.Builder start = PartialOrCompleteTimeInstant.builder();
+            final PartialOrCompleteTimeInstant.Builder end = PartialOrCompleteTimeInstant.builder();
+            lm.findNext(LexemeIdentity.ADVISORY_PHENOMENA_TIME_GROUP, (time) -> {
+                Integer day = time.getParsedValue(Lexeme.ParsedValueName.DAY1, Integer.class);
+                Integer hour = time.getParsedValue(Lexeme.ParsedValueName.HOUR1, Integer.class);
+                Integer minute = time.getParsedValue(Lexeme.ParsedValueName.MINUTE1, Integer.class);
+                start.setPartialTime(PartialDateTime.of(day != null ? day : -1, hour != null ? hour : -1, minute != null ? minute : -1, ZoneId.of("Z")));
+
+                //Valid time end is the last time group value
+                Lexeme ll = time.findNext(LexemeIdentity.ADVISORY_PHENOMENA_TIME_GROUP);
+                while (ll != null) {
+                    day = ll.getParsedValue(Lexeme.ParsedValueName.DAY1, Integer.class);
+                    hour = ll.getParsedValue(Lexeme.ParsedValueName.HOUR1, Integer.class);
+                    minute = ll.getParsedValue(Lexeme.ParsedValueName.MINUTE1, Integer.class);
+                    end.setPartialTime(PartialDateTime.of(day != null ? day : -1, hour != null ? hour : -1, minute != null ? minute : -1, ZoneId.of("Z")));
+                    ll = ll.findNext(LexemeIdentity.ADVISORY_PHENOMENA_TIME_GROUP);
+                }
+                msgBuilder.setValidityTime(PartialOrCompleteTimePeriod.builder()//
+                        .setStartTime(start.build())//
+                        .setEndTime(end.build())//
+                        .build());
+            });
+        } else {
+            lm.findNext(LexemeIdentity.VALID_TIME, (time) -> {
+                final Integer fromDay = time.getParsedValue(Lexeme.ParsedValueName.DAY1, Integer.class);
+                final Integer fromHour = time.getParsedValue(Lexeme.ParsedValueName.HOUR1, Integer.class);
+                final Integer fromMinute = time.getParsedValue(Lexeme.ParsedValueName.MINUTE1, Integer.class);
+                final Integer toDay = time.getParsedValue(Lexeme.ParsedValueName.DAY2, Integer.class);
+                final Integer toHour = time.getParsedValue(Lexeme.ParsedValueName.HOUR2, Integer.class);
+                final Integer toMinute = time.getParsedValue(Lexeme.ParsedValueName.MINUTE2, Integer.class);
+
+                //If there are different VALID_TIME lexemes in the same message, discard the entire valid time info with warning
+                boolean conflict = false;
+                Lexeme next = time.findNext(LexemeIdentity.VALID_TIME);
+                while (next != null) {
+                    if (!next.equals(time)) {
+                        conflict = true;
                     }
+                    next = next.findNext(LexemeIdentity.VALID_TIME);
+                }
+                if (conflict) {
+                    issues.add(new ConversionIssue(ConversionIssue.Severity.WARNING, ConversionIssue.Type.LOGICAL,
+                            "There are different valid time tokens in the message, discarding valid time info"));
+                } else {
+                    final PartialOrCompleteTimePeriod.Builder validTime = PartialOrCompleteTimePeriod.builder()
+                            .setStartTime(PartialOrCompleteTimeInstant.of(
+                                    PartialDateTime.of(fromDay != null ? fromDay : -1, fromHour != null ? fromHour : -1, fromMinute != null ? fromMinute : -1,
+                                            ZoneId.of("Z"))))
+                            .setEndTime(PartialOrCompleteTimeInstant.of(
+                                    PartialDateTime.of(toDay != null ? toDay : -1, toHour != null ? toHour : -1, toMinute != null ? toMinute : -1, ZoneId.of("Z"))));
+                    msgBuilder.setValidityTime(validTime.build());
+                }
 
-                });
-            }
-            msgBuilder.setOriginalMessage(messageSequence.getTAC());
-            msgBuilder.setTranslatedTAC(messageSequence.getTAC());
-            msgBuilder.setTranslated(true);
-            withTimeForTranslation(hints, (time) -> {
-                msgBuilder.setTranslationTime(time);
             });
-            msgBuilder.setNullableTranslatedBulletinID(bulletinID);
-            bulletinBuilder.addMessages(msgBuilder.build());
         }
-        result.setConvertedMessage(bulletinBuilder.build());
+        msgBuilder.setOriginalMessage(messageSequence.getTAC());
+        msgBuilder.setTranslatedTAC(messageSequence.getTAC());
+        msgBuilder.setTranslated(true);
+        withTimeForTranslation(hints, (time) -> {
+            msgBuilder.setTranslationTime(time);
+        });
+        msgBuilder.setNullableTranslatedBulletinID(bulletinID);
+        return Optional.of(msgBuilder.build());
+    }
 
-        return result;
+    /**
+     * Submits the tasks to the given executor, returning the futures of their results in the task order.
+     */
+    private static <T> List<CompletableFuture<T>> submitAll(final List<Supplier<T>> tasks, final Executor executor) {
+        final List<CompletableFuture<T>> futures = new ArrayList<>(tasks.size());
+        for (final Supplier<T> task : tasks) {
+            futures.add(CompletableFuture.supplyAsync(task, executor));
+        }
+        return futures;
+    }
+
+    /**
+     * Waits for the result of a task, rethrowing the exception thrown by the task as it would be if run in the calling
+     * thread.
+     */
+    private static <T> T join(final CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (final CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Splits the TAC after each end token, like {@link LexemeSequence#splitBy(boolean, LexemeIdentity...)} splits the
+     * lexed TAC. The end token is always split into a lexeme of its own, so the parts are found without lexing.
+     */
+    private static List<String> splitAfterEndTokens(final String tac) {
+        final List<String> retval = new ArrayList<>();
+        int start = 0;
+        int end;
+        while ((end = tac.indexOf('=', start)) >= 0) {
+            retval.add(tac.substring(start, end + 1));
+            start = end + 1;
+        }
+        if (start < tac.length() || retval.isEmpty()) {
+            retval.add(tac.substring(start));
+        }
+        return retval;
+    }
+
+    /**
+     * Trims the characters lexed as white space from the beginning and end of the TAC, like
+     * {@link LexemeSequence#trimWhiteSpace()} trims the lexed TAC.
+     */
+    private static String trimWhiteSpace(final String tac) {
+        int start = 0;
+        int end = tac.length();
+        while (start < end && Lexeme.MeteorologicalBulletinSpecialCharacter.fromChar(tac.charAt(start)) != null) {
+            start++;
+        }
+        while (end > start && Lexeme.MeteorologicalBulletinSpecialCharacter.fromChar(tac.charAt(end - 1)) != null) {
+            end--;
+        }
+        return tac.substring(start, end);
+    }
+
+    private static final class LexedMessage {
+        private final String tac;
+        private final LexemeSequence sequence;
+        private final Optional<MessageType> recognizedType;
+
+        private LexedMessage(final String tac, final LexemeSequence sequence, final Optional<MessageType> recognizedType) {
+            this.tac = tac;
+            this.sequence = sequence;
+            this.recognizedType = recognizedType;
+        }
     }
 }
@@ -4,11 +4,16 @@ import static fi.fmi.avi.converter.tac.lexer.impl.token.LowWindStart.LOW_WIND_ST
 import static fi.fmi.avi.converter.tac.lexer.impl.token.WXREPStart.WXREP_START;
 import static fi.fmi.avi.converter.tac.lexer.impl.token.WXWarningStart.WX_WARNING_START;
 
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
@@ -16,12 +21,13 @@ import org.springframework.context.annotation.Primary;
 import fi.fmi.avi.converter.tac.lexer.AviMessageLexer;
 import fi.fmi.avi.converter.tac.lexer.Lexeme;
 import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
-import fi.fmi.avi.converter.tac.lexer.LexemeSequence;
 import fi.fmi.avi.converter.tac.lexer.LexingFactory;
 import fi.fmi.avi.converter.tac.lexer.impl.AviMessageLexerImpl;
 import fi.fmi.avi.converter.tac.lexer.impl.LexingFactoryImpl;
 import fi.fmi.avi.converter.tac.lexer.impl.PrioritizedLexemeVisitor.OccurrenceFrequency;
 import fi.fmi.avi.converter.tac.lexer.impl.RecognizingAviMessageTokenLexer;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPredicate;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenSuitabilityTester;
 import fi.fmi.avi.converter.tac.lexer.impl.token.AdvisoryNumber;
 import fi.fmi.avi.converter.tac.lexer.impl.token.AdvisoryNumberLabel;
 import fi.fmi.avi.converter.tac.lexer.impl.token.AdvisoryPhenomenaTimeGroup;
@@ -108,6 +114,13 @@ import fi.fmi.avi.model.MessageType;
 @Configuration
 public class Lexing {
 
+    /**
+     * The system property which, when set to <code>true</code>, enables the lexing statistics of the {@link #aviMessageLexer()}
+     * and registers it to the platform MBean server with the name {@link #STATISTICS_MBEAN_NAME}.
+     */
+    public static final String STATISTICS_PROPERTY = "fi.fmi.avi.converter.tac.lexingStatistics";
+    public static final String STATISTICS_MBEAN_NAME = "fi.fmi.avi.converter.tac:type=AviMessageLexer";
+
     private static final Pattern BULLETIN_START_PATTERN = Pattern.compile("^[A-Z]{4}[0-9]{2}$");
 
     @Bean
@@ -127,12 +140,34 @@ public class Lexing {
         l.addTokenLexer(spaceWeatherAdvisoryTokenLexer());
         l.addTokenLexer(volcanicAshAdvisoryTokenLexer());
         l.addTokenLexer(genericAviationWeatherMessageTokenLexer()); //Keep this last, matches anything
+        if (Boolean.getBoolean(STATISTICS_PROPERTY)) {
+            l.setStatisticsEnabled(true);
+            registerStatisticsMBean(l);
+        }
         return l;
     }
 
+    /**
+     * Registers the lexer as the statistics MBean, unless another lexer has already been registered with the same name,
+     * as when several application contexts are created in the same JVM.
+     */
+    private static void registerStatisticsMBean(final AviMessageLexerImpl lexer) {
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName name = new ObjectName(STATISTICS_MBEAN_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(lexer, name);
+            }
+        } catch (final JMException e) {
+            throw new IllegalStateException("Unable to register lexing statistics MBean " + STATISTICS_MBEAN_NAME, e);
+        }
+    }
+
     @Bean
     public LexingFactory lexingFactory() {
         LexingFactoryImpl f = new LexingFactoryImpl();
+        // Rules only needed for advisories are not tried on the tokens of other known message types:
+        MessageType[] advisories = { MessageType.SPACE_WEATHER_ADVISORY, MessageType.VOLCANIC_ASH_ADVISORY };
         f.addTokenCombiningRule(fractionalHorizontalVisibilityCombinationRule());
         f.addTokenCombiningRule(windShearAllCombinationRule());
         f.addTokenCombiningRule(windShearCombinationRule());
@@ -142,29 +177,29 @@ public class Lexing {
         f.addTokenCombiningRule(sigmetValidTimeCombinationRule());
         f.addTokenCombiningRule(usSigmetValidTimeCombinationRule());
         f.addTokenCombiningRule(advisoryStartCombinationRule());
-        f.addTokenCombiningRule(advisoryFctOffsetCombinationRule());
-        f.addTokenCombiningRule(spaceWeatherAdvisoryPhenomenaCombinationRule());
-        f.addTokenCombiningRule(spaceWeatherAdvisoryForecastTimeCombinationRule());
-        f.addTokenCombiningRule(volcanicAshAdvisoryDtgCombinationRule());
-        f.addTokenCombiningRule(volcanicAshAdvisoryCloudForecastCombinationRule());
-        f.addTokenCombiningRule(volcanicAshAdvisoryForecastTimeCombinationRule());
-        f.addTokenCombiningRule(advisoryNumberCombinationRule());
-        f.addTokenCombiningRule(spaceWeatherAdvisoryNotAvailableCombinationRule());
-        f.addTokenCombiningRule(spaceWeatherAdvisoryNoExpectedCombinationRule());
-        f.addTokenCombiningRule(spaceWeatherAdvisoryHorizontalLimitCombinationRule());
-        f.addTokenCombiningRule(spaceWeatherAdvisoryVerticalLimitCombinationRule());
+        f.addTokenCombiningRule(advisoryFctOffsetCombinationRule(), advisories);
+        f.addTokenCombiningRule(spaceWeatherAdvisoryPhenomenaCombinationRule(), advisories);
+        f.addTokenCombiningRule(spaceWeatherAdvisoryForecastTimeCombinationRule(), advisories);
+        f.addTokenCombiningRule(volcanicAshAdvisoryDtgCombinationRule(), advisories);
+        f.addTokenCombiningRule(volcanicAshAdvisoryCloudForecastCombinationRule(), advisories);
+        f.addTokenCombiningRule(volcanicAshAdvisoryForecastTimeCombinationRule(), advisories);
+        f.addTokenCombiningRule(advisoryNumberCombinationRule(), advisories);
+        f.addTokenCombiningRule(spaceWeatherAdvisoryNotAvailableCombinationRule(), advisories);
+        f.addTokenCombiningRule(spaceWeatherAdvisoryNoExpectedCombinationRule(), advisories);
+        f.addTokenCombiningRule(spaceWeatherAdvisoryHorizontalLimitCombinationRule(), advisories);
+        f.addTokenCombiningRule(spaceWeatherAdvisoryVerticalLimitCombinationRule(), advisories);
         f.addTokenCombiningRule(latitudeLongitudePairCombinationRule());
-        f.addTokenCombiningRule(spaceWeatherAdvisoryEffect());
-        f.addTokenCombiningRule(spaceWeatherAdvisoryEffectType());
-        f.addTokenCombiningRule(spaceWeatherAdvisoryEffectTypeHFCom());
-        f.addTokenCombiningRule(spaceWeatherAdvisoryDaylightSide());
-        f.addTokenCombiningRule(spaceWeatherAdvisoryPhenomenon());
-        f.addTokenCombiningRule(spaceWeatherAdvisoryNextAdvisoryCombinationRules());
-        f.addTokenCombiningRule(spaceWeatherAdvisoryIssuedAtCombinationRule());
-        f.addTokenCombiningRule(spaceWeatherAdvisoryIssuedByCombinationRule());
-        f.addTokenCombiningRule(spaceWeatherAdvisoryNoAdvisoriesCombinationRule());
-        f.addTokenCombiningRule(spaceWeatherAdvisoryReplaceAdvisoryCombinationRules());
-        f.addTokenCombiningRule(spaceWeatherAdvisoryReplaceAdvisoryWithSpaceCombinationRules());
+        f.addTokenCombiningRule(spaceWeatherAdvisoryEffect(), advisories);
+        f.addTokenCombiningRule(spaceWeatherAdvisoryEffectType(), advisories);
+        f.addTokenCombiningRule(spaceWeatherAdvisoryEffectTypeHFCom(), advisories);
+        f.addTokenCombiningRule(spaceWeatherAdvisoryDaylightSide(), advisories);
+        f.addTokenCombiningRule(spaceWeatherAdvisoryPhenomenon(), advisories);
+        f.addTokenCombiningRule(spaceWeatherAdvisoryNextAdvisoryCombinationRules(), advisories);
+        f.addTokenCombiningRule(spaceWeatherAdvisoryIssuedAtCombinationRule(), advisories);
+        f.addTokenCombiningRule(spaceWeatherAdvisoryIssuedByCombinationRule(), advisories);
+        f.addTokenCombiningRule(spaceWeatherAdvisoryNoAdvisoriesCombinationRule(), advisories);
+        f.addTokenCombiningRule(spaceWeatherAdvisoryReplaceAdvisoryCombinationRules(), advisories);
+        f.addTokenCombiningRule(spaceWeatherAdvisoryReplaceAdvisoryWithSpaceCombinationRules(), advisories);
 
         f.setMessageStartToken(MessageType.METAR,
                 f.createLexeme("METAR", LexemeIdentity.METAR_START, Lexeme.Status.OK, true));
@@ -206,406 +241,161 @@ public class Lexing {
     private List<Predicate<String>> fractionalHorizontalVisibilityCombinationRule() {
         // cases like "1 1/8SM",
         List<Predicate<String>> retval = new ArrayList<>();
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^[0-9]*$");
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^[0-9]*/[0-9]*[A-Z]{2}$");
-            }
-        });
+        retval.add(TokenPredicate.matching("^[0-9]*$"));
+        retval.add(TokenPredicate.matching("^[0-9]*/[0-9]*[A-Z]{2}$"));
         return retval;
     }
 
     private List<Predicate<String>> windShearAllCombinationRule() {
         List<Predicate<String>> retval = new ArrayList<>();
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return "WS".equals(s);
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return "ALL".equals(s);
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return "RWY".equals(s);
-            }
-        });
+        retval.add(TokenPredicate.equalTo("WS"));
+        retval.add(TokenPredicate.equalTo("ALL"));
+        retval.add(TokenPredicate.equalTo("RWY"));
         return retval;
     }
 
     private List<Predicate<String>> windShearCombinationRule() {
         List<Predicate<String>> retval = new ArrayList<>();
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return "WS".equals(s);
-            }
-        });
+        retval.add(TokenPredicate.equalTo("WS"));
         // Windshear token for a particular runway has changed between 16th and 19th edition of Annex 3
         //  16th = "WS RWYnn[LRC]"
         //  19th = "WS Rnn[LRC]"
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^R(?:WY)?[0-9]{2}[LRC]?$");
-            }
-        });
+        retval.add(TokenPredicate.matching("^R(?:WY)?[0-9]{2}[LRC]?$"));
         return retval;
     }
 
     private List<Predicate<String>> probTempoCombinationRule() {
         List<Predicate<String>> retval = new ArrayList<>();
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^PROB[34]0$");
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return "TEMPO".equals(s);
-            }
-        });
+        retval.add(TokenPredicate.matching("^PROB[34]0$"));
+        retval.add(TokenPredicate.equalTo("TEMPO"));
         return retval;
     }
 
     private List<Predicate<String>> lowWindCombinationRule() {
         List<Predicate<String>> retval = new ArrayList<>();
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return "LOW".equals(s);
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return "WIND".equals(s);
-            }
-        });
+        retval.add(TokenPredicate.equalTo("LOW"));
+        retval.add(TokenPredicate.equalTo("WIND"));
         return retval;
     }
 
     private List<Predicate<String>> wxWarningCombinationRule() {
         List<Predicate<String>> retval = new ArrayList<>();
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return "WX".equals(s);
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return "WRNG".equals(s);
-            }
-        });
+        retval.add(TokenPredicate.equalTo("WX"));
+        retval.add(TokenPredicate.equalTo("WRNG"));
         return retval;
     }
 
     private List<Predicate<String>> sigmetValidTimeCombinationRule() {
         List<Predicate<String>> retval = new ArrayList<>();
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return "VALID".equals(s);
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^[0-9]{6}[/-][0-9]{6}$");
-            }
-        });
+        retval.add(TokenPredicate.equalTo("VALID"));
+        retval.add(TokenPredicate.matching("^[0-9]{6}[/-][0-9]{6}$"));
         return retval;
     }
 
     private List<Predicate<String>> usSigmetValidTimeCombinationRule() {
         List<Predicate<String>> retval = new ArrayList<>();
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return "VALID".equals(s);
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return "UNTIL".equals(s);
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^[0-9]{2}[0-9]{2}Z$");
-            }
-        });
+        retval.add(TokenPredicate.equalTo("VALID"));
+        retval.add(TokenPredicate.equalTo("UNTIL"));
+        retval.add(TokenPredicate.matching("^[0-9]{2}[0-9]{2}Z$"));
         return retval;
     }
 
     private List<Predicate<String>> advisoryStartCombinationRule() {
         List<Predicate<String>> retval = new ArrayList<>();
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^(?:SWX)|(?:VA)$");
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return "ADVISORY".equals(s);
-            }
-        });
+        retval.add(TokenPredicate.matching("^(?:SWX)|(?:VA)$"));
+        retval.add(TokenPredicate.equalTo("ADVISORY"));
         return retval;
     }
 
     private List<Predicate<String>> advisoryFctOffsetCombinationRule() {
         List<Predicate<String>> retval = new ArrayList<>();
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^\\+[0-9]{1,2}$");
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("HR:$");
-            }
-        });
+        retval.add(TokenPredicate.matching("^\\+[0-9]{1,2}$"));
+        retval.add(TokenPredicate.matching("HR:$"));
         return retval;
     }
 
     private List<Predicate<String>> spaceWeatherAdvisoryPhenomenaCombinationRule() {
         List<Predicate<String>> retval = new ArrayList<>();
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^(?:OBS|FCST)$");
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^SWX:?$");
-            }
-        });
+        retval.add(TokenPredicate.matching("^(?:OBS|FCST)$"));
+        retval.add(TokenPredicate.matching("^SWX:?$"));
         return retval;
     }
 
     private List<Predicate<String>> spaceWeatherAdvisoryEffect() {
         List<Predicate<String>> retval = new ArrayList<>();
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^SWX$");
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^EFFECT:$");
-            }
-        });
+        retval.add(TokenPredicate.matching("^SWX$"));
+        retval.add(TokenPredicate.matching("^EFFECT:$"));
         return retval;
     }
 
     private List<Predicate<String>> spaceWeatherAdvisoryHorizontalLimitCombinationRule() {
         List<Predicate<String>> retval = new ArrayList<>();
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^(W|E)\\d{1,5}$");
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^-$");
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^(W|E)\\d{1,5}$");
-            }
-        });
+        retval.add(TokenPredicate.matching("^(W|E)\\d{1,5}$"));
+        retval.add(TokenPredicate.matching("^-$"));
+        retval.add(TokenPredicate.matching("^(W|E)\\d{1,5}$"));
         return retval;
     }
 
     private List<Predicate<String>> spaceWeatherAdvisoryVerticalLimitCombinationRule() {
         List<Predicate<String>> retval = new ArrayList<>();
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^ABV$");
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^FL\\d{3}$");
-            }
-        });
+        retval.add(TokenPredicate.matching("^ABV$"));
+        retval.add(TokenPredicate.matching("^FL\\d{3}$"));
         return retval;
     }
 
     private List<Predicate<String>> spaceWeatherAdvisoryEffectType() {
         List<Predicate<String>> retval = new ArrayList<>();
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^SATCOM|GNSS|RADIATION$");
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^MOD|SEV$");
-            }
-        });
+        retval.add(TokenPredicate.matching("^SATCOM|GNSS|RADIATION$"));
+        retval.add(TokenPredicate.matching("^MOD|SEV$"));
         return retval;
     }
 
     private List<Predicate<String>> spaceWeatherAdvisoryEffectTypeHFCom() {
         List<Predicate<String>> retval = new ArrayList<>();
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^HF$");
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^COM$");
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^MOD|SEV$");
-            }
-        });
+        retval.add(TokenPredicate.matching("^HF$"));
+        retval.add(TokenPredicate.matching("^COM$"));
+        retval.add(TokenPredicate.matching("^MOD|SEV$"));
         return retval;
     }
 
     private List<Predicate<String>> spaceWeatherAdvisoryDaylightSide() {
         List<Predicate<String>> retval = new ArrayList<>();
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^DAYLIGHT$");
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^SIDE$");
-            }
-        });
+        retval.add(TokenPredicate.matching("^DAYLIGHT$"));
+        retval.add(TokenPredicate.matching("^SIDE$"));
         return retval;
     }
 
     private List<Predicate<String>> spaceWeatherAdvisoryPhenomenon() {
         List<Predicate<String>> retval = new ArrayList<>();
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^FCST$");
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^SWX:$");
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^\\+\\d{1,2}$");
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^HR:$");
-            }
-        });
+        retval.add(TokenPredicate.matching("^FCST$"));
+        retval.add(TokenPredicate.matching("^SWX:$"));
+        retval.add(TokenPredicate.matching("^\\+\\d{1,2}$"));
+        retval.add(TokenPredicate.matching("^HR:$"));
         return retval;
     }
 
     private List<Predicate<String>> spaceWeatherAdvisoryForecastTimeCombinationRule() {
         List<Predicate<String>> retval = new ArrayList<>();
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^FCST\\s+SWX");
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^\\+[0-9]{1,2}\\s+HR:$");
-            }
-        });
+        retval.add(TokenPredicate.matching("^FCST\\s+SWX"));
+        retval.add(TokenPredicate.matching("^\\+[0-9]{1,2}\\s+HR:$"));
         return retval;
     }
 
     private List<Predicate<String>> advisoryNumberCombinationRule() {
         List<Predicate<String>> retval = new ArrayList<>();
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^ADVISORY$");
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^NR:$");
-            }
-        });
+        retval.add(TokenPredicate.matching("^ADVISORY$"));
+        retval.add(TokenPredicate.matching("^NR:$"));
         return retval;
     }
 
     private List<Predicate<String>> spaceWeatherAdvisoryPolygonCombinationRule() {
         List<Predicate<String>> retval = new ArrayList<>();
         for(int i = 0; i < 5; i++) {
-            retval.add(new Predicate<String>() {
-                @Override
-                public boolean test(final String s) {
-                    return s.matches("^(N|S)\\d+$");
-                }
-            });
-            retval.add(new Predicate<String>() {
-                @Override
-                public boolean test(final String s) {
-                    return s.matches("^(W|E)\\d+$");
-                }
-            });
+            retval.add(TokenPredicate.matching("^(N|S)\\d+$"));
+            retval.add(TokenPredicate.matching("^(W|E)\\d+$"));
 
             if(i < 4) {
-                retval.add(new Predicate<String>() {
-                    @Override
-                    public boolean test(final String s) {
-                        return s.matches("^-$");
-                    }
-                });
+                retval.add(TokenPredicate.matching("^-$"));
             }
         }
         return retval;
@@ -613,247 +403,92 @@ public class Lexing {
 
     private List<Predicate<String>> latitudeLongitudePairCombinationRule() {
         List<Predicate<String>> retval = new ArrayList<>();
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^[NS]\\d+$");
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^[WE]\\d+$");
-            }
-        });
+        retval.add(TokenPredicate.matching("^[NS]\\d+$"));
+        retval.add(TokenPredicate.matching("^[WE]\\d+$"));
         return retval;
     }
 
     private List<Predicate<String>> spaceWeatherAdvisoryIssuedByCombinationRule() {
         List<Predicate<String>> retval = new ArrayList<>();
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^WILL$");
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^BE$");
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^ISSUED$");
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^BY$");
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            //TODO:
-            public boolean test(final String s) {
-                return s.matches("^[0-9]{4}[0-9]{2}[0-9]{2}/[0-9]{2}[0-9]{2}Z$");
-            }
-        });
+        retval.add(TokenPredicate.matching("^WILL$"));
+        retval.add(TokenPredicate.matching("^BE$"));
+        retval.add(TokenPredicate.matching("^ISSUED$"));
+        retval.add(TokenPredicate.matching("^BY$"));
+        //TODO:
+        retval.add(TokenPredicate.matching("^[0-9]{4}[0-9]{2}[0-9]{2}/[0-9]{2}[0-9]{2}Z$"));
         return retval;
     }
 
     private List<Predicate<String>> spaceWeatherAdvisoryIssuedAtCombinationRule() {
         List<Predicate<String>> retval = new ArrayList<>();
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^[0-9]{4}[0-9]{2}[0-9]{2}/[0-9]{2}[0-9]{2}Z$");
-            }
-        });
+        retval.add(TokenPredicate.matching("^[0-9]{4}[0-9]{2}[0-9]{2}/[0-9]{2}[0-9]{2}Z$"));
         return retval;
     }
 
     private List<Predicate<String>> spaceWeatherAdvisoryNoAdvisoriesCombinationRule() {
         List<Predicate<String>> retval = new ArrayList<>();
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^NO$");
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^FURTHER$");
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^ADVISORIES$");
-            }
-        }); return retval;
+        retval.add(TokenPredicate.matching("^NO$"));
+        retval.add(TokenPredicate.matching("^FURTHER$"));
+        retval.add(TokenPredicate.matching("^ADVISORIES$")); return retval;
     }
 
     private List<Predicate<String>> spaceWeatherAdvisoryNextAdvisoryCombinationRules() {
         List<Predicate<String>> retval = new ArrayList<>();
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^NXT$");
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^ADVISORY:$");
-            }
-        });
+        retval.add(TokenPredicate.matching("^NXT$"));
+        retval.add(TokenPredicate.matching("^ADVISORY:$"));
         return retval;
     }
 
     private List<Predicate<String>>  spaceWeatherAdvisoryReplaceAdvisoryWithSpaceCombinationRules() {
         List<Predicate<String>> retval = new ArrayList<>();
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^NR$");
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^RPLC$");
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^:$");
-            }
-        });
+        retval.add(TokenPredicate.matching("^NR$"));
+        retval.add(TokenPredicate.matching("^RPLC$"));
+        retval.add(TokenPredicate.matching("^:$"));
         return retval;
     }
 
     private List<Predicate<String>>  spaceWeatherAdvisoryReplaceAdvisoryCombinationRules() {
         List<Predicate<String>> retval = new ArrayList<>();
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^NR$");
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^RPLC:$");
-            }
-        });
+        retval.add(TokenPredicate.matching("^NR$"));
+        retval.add(TokenPredicate.matching("^RPLC:$"));
         return retval;
     }
 
     private List<Predicate<String>> spaceWeatherAdvisoryNoExpectedCombinationRule() {
         List<Predicate<String>> retval = new ArrayList<>();
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^NO$");
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^SWX$");
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^EXP$");
-            }
-        });
+        retval.add(TokenPredicate.matching("^NO$"));
+        retval.add(TokenPredicate.matching("^SWX$"));
+        retval.add(TokenPredicate.matching("^EXP$"));
         return retval;
     }
 
     private List<Predicate<String>> spaceWeatherAdvisoryNotAvailableCombinationRule() {
         List<Predicate<String>> retval = new ArrayList<>();
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^NOT$");
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^AVBL$");
-            }
-        });
+        retval.add(TokenPredicate.matching("^NOT$"));
+        retval.add(TokenPredicate.matching("^AVBL$"));
         return retval;
     }
 
     private List<Predicate<String>> volcanicAshAdvisoryDtgCombinationRule() {
         List<Predicate<String>> retval = new ArrayList<>();
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return "OBS".equals(s);
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return "VA".equals(s);
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return "DTG:".equals(s);
-            }
-        });
+        retval.add(TokenPredicate.equalTo("OBS"));
+        retval.add(TokenPredicate.equalTo("VA"));
+        retval.add(TokenPredicate.equalTo("DTG:"));
         return retval;
     }
 
     private List<Predicate<String>> volcanicAshAdvisoryCloudForecastCombinationRule() {
         List<Predicate<String>> retval = new ArrayList<>();
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return "FCST".equals(s);
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return "VA".equals(s);
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return "CLD".equals(s);
-            }
-        });
+        retval.add(TokenPredicate.equalTo("FCST"));
+        retval.add(TokenPredicate.equalTo("VA"));
+        retval.add(TokenPredicate.equalTo("CLD"));
         return retval;
     }
 
     private List<Predicate<String>> volcanicAshAdvisoryForecastTimeCombinationRule() {
         List<Predicate<String>> retval = new ArrayList<>();
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^FCST\\s+VA\\s+CLD");
-            }
-        });
-        retval.add(new Predicate<String>() {
-            @Override
-            public boolean test(final String s) {
-                return s.matches("^\\+[0-9]{1,2}\\s+HR:$");
-            }
-        });
+        retval.add(TokenPredicate.matching("^FCST\\s+VA\\s+CLD"));
+        retval.add(TokenPredicate.matching("^\\+[0-9]{1,2}\\s+HR:$"));
         return retval;
     }
 
@@ -861,38 +496,19 @@ public class Lexing {
 
     private RecognizingAviMessageTokenLexer metarTokenLexer() {
         final RecognizingAviMessageTokenLexer l = new RecognizingAviMessageTokenLexer();
-        //Lambdas not allowed in Spring 3.x Java config files:
-        l.setSuitabilityTester(new RecognizingAviMessageTokenLexer.SuitabilityTester() {
-            @Override
-            public boolean test(final LexemeSequence sequence) {
-                return sequence.getFirstLexeme().getTACToken().equals("METAR");
-            }
-
-            @Override
-            public MessageType getMessageType() {
-                return MessageType.METAR;
-            }
-        });
+        l.setSuitabilityTester(TokenSuitabilityTester.firstTokenEquals(MessageType.METAR, "METAR"));
         l.teach(new MetarStart(OccurrenceFrequency.FREQUENT));
         teachMetarAndSpeciCommonTokens(l);
+        l.setPatternAutomatonEnabled(true);
         return l;
     }
 
     private RecognizingAviMessageTokenLexer speciTokenLexer() {
         final RecognizingAviMessageTokenLexer l = new RecognizingAviMessageTokenLexer();
-        l.setSuitabilityTester(new RecognizingAviMessageTokenLexer.SuitabilityTester() {
-            @Override
-            public boolean test(final LexemeSequence sequence) {
-                return sequence.getFirstLexeme().getTACToken().equals("SPECI");
-            }
-
-            @Override
-            public MessageType getMessageType() {
-                return MessageType.SPECI;
-            }
-        });
+        l.setSuitabilityTester(TokenSuitabilityTester.firstTokenEquals(MessageType.SPECI, "SPECI"));
         l.teach(new SpeciStart(OccurrenceFrequency.FREQUENT));
         teachMetarAndSpeciCommonTokens(l);
+        l.setPatternAutomatonEnabled(true);
         return l;
     }
 
@@ -930,18 +546,7 @@ public class Lexing {
 
     private RecognizingAviMessageTokenLexer tafTokenLexer() {
         final RecognizingAviMessageTokenLexer l = new RecognizingAviMessageTokenLexer();
-        //Lambdas not allowed in Spring 3.x Java config files:
-        l.setSuitabilityTester(new RecognizingAviMessageTokenLexer.SuitabilityTester() {
-            @Override
-            public boolean test(final LexemeSequence sequence) {
-                return sequence.getFirstLexeme().getTACToken().equals("TAF");
-            }
-
-            @Override
-            public MessageType getMessageType() {
-                return MessageType.TAF;
-            }
-        });
+        l.setSuitabilityTester(TokenSuitabilityTester.firstTokenEquals(MessageType.TAF, "TAF"));
         l.teach(new TAFStart(OccurrenceFrequency.FREQUENT));
         l.teach(new ICAOCode(OccurrenceFrequency.RARE));
         l.teach(new ValidTime(OccurrenceFrequency.RARE));
@@ -965,182 +570,97 @@ public class Lexing {
         l.teach(new Remark(OccurrenceFrequency.FREQUENT));
         l.teach(new EndToken(OccurrenceFrequency.RARE));
         l.teach(new Whitespace(OccurrenceFrequency.FREQUENT));
+        l.setPatternAutomatonEnabled(true);
         return l;
     }
 
 
     private RecognizingAviMessageTokenLexer genericMeteorologicalBulletinTokenLexer() {
         final RecognizingAviMessageTokenLexer l = new RecognizingAviMessageTokenLexer();
-        //Lambdas not allowed in Spring 3.x Java config files:
-        l.setSuitabilityTester(new RecognizingAviMessageTokenLexer.SuitabilityTester() {
-            @Override
-            public boolean test(final LexemeSequence sequence) {
-                //Just check the first Lexeme for now, add checks for further Lexemes if
-                // collisions arise with other token lexers:
-                if (sequence.getFirstLexeme() != null) {
-                    return BULLETIN_START_PATTERN.matcher(sequence.getFirstLexeme().getTACToken()).matches();
-                }
-                return false;
-            }
-
-            @Override
-            public MessageType getMessageType() {
-                return MessageType.BULLETIN;
-            }
-
-        });
+        //Just check the first Lexeme for now, add checks for further Lexemes if
+        // collisions arise with other token lexers:
+        l.setSuitabilityTester(TokenSuitabilityTester.firstTokenMatches(MessageType.BULLETIN, BULLETIN_START_PATTERN));
         l.teach(new BulletinHeaderDataDesignators(OccurrenceFrequency.AVERAGE));
         l.teach(new BulletinLocationIndicator(OccurrenceFrequency.AVERAGE));
         l.teach(new IssueTime(OccurrenceFrequency.FREQUENT));
         l.teach(new BulletinHeadingBBBIndicator(OccurrenceFrequency.AVERAGE));
         l.teach(new EndToken(OccurrenceFrequency.FREQUENT));
         l.teach(new Whitespace(OccurrenceFrequency.FREQUENT));
+        l.setPatternAutomatonEnabled(true);
         return l;
     }
 
     private RecognizingAviMessageTokenLexer genericAviationWeatherMessageTokenLexer() {
         final RecognizingAviMessageTokenLexer l = new RecognizingAviMessageTokenLexer();
-        //Lambdas not allowed in Spring 3.x Java config files:
-        l.setSuitabilityTester(new RecognizingAviMessageTokenLexer.SuitabilityTester() {
-            @Override
-            public boolean test(final LexemeSequence sequence) {
-                return true;
-            }
-
-            @Override
-            public MessageType getMessageType() {
-                return MessageType.GENERIC;
-            }
-
-        });
+        l.setSuitabilityTester(TokenSuitabilityTester.anyMessage(MessageType.GENERIC));
         l.teach(new EndToken(OccurrenceFrequency.FREQUENT));
         l.teach(new Whitespace(OccurrenceFrequency.FREQUENT));
+        l.setPatternAutomatonEnabled(true);
         return l;
     }
 
     private RecognizingAviMessageTokenLexer lowWindTokenLexer() {
         final RecognizingAviMessageTokenLexer l = new RecognizingAviMessageTokenLexer();
-        //Lambdas not allowed in Spring 3.x Java config files:
-        l.setSuitabilityTester(new RecognizingAviMessageTokenLexer.SuitabilityTester() {
-            @Override
-            public boolean test(final LexemeSequence sequence) {
-                return sequence.getFirstLexeme().getTACToken().equals("LOW WIND");
-            }
-
-            @Override
-            public MessageType getMessageType() {
-                return lowWind();
-            }
-        });
+        l.setSuitabilityTester(TokenSuitabilityTester.firstTokenEquals(lowWind(), "LOW WIND"));
         l.teach(new LowWindStart(OccurrenceFrequency.FREQUENT));
         l.teach(new ICAOCode(OccurrenceFrequency.RARE));
         l.teach(new IssueTime(OccurrenceFrequency.RARE));
         l.teach(new EndToken(OccurrenceFrequency.RARE));
         l.teach(new Whitespace(OccurrenceFrequency.FREQUENT));
+        l.setPatternAutomatonEnabled(true);
         return l;
     }
 
     private RecognizingAviMessageTokenLexer wxWarningTokenLexer() {
         final RecognizingAviMessageTokenLexer l = new RecognizingAviMessageTokenLexer();
-        //Lambdas not allowed in Spring 3.x Java config files:
-        l.setSuitabilityTester(new RecognizingAviMessageTokenLexer.SuitabilityTester() {
-            @Override
-            public boolean test(final LexemeSequence sequence) {
-                return sequence.getFirstLexeme().getTACToken().equals("WX WRNG");
-            }
-
-            @Override
-            public MessageType getMessageType() {
-                return wxWarning();
-            }
-        });
+        l.setSuitabilityTester(TokenSuitabilityTester.firstTokenEquals(wxWarning(), "WX WRNG"));
         l.teach(new WXWarningStart(OccurrenceFrequency.FREQUENT));
         l.teach(new ICAOCode(OccurrenceFrequency.RARE));
         l.teach(new IssueTime(OccurrenceFrequency.RARE));
         l.teach(new EndToken(OccurrenceFrequency.RARE));
         l.teach(new Whitespace(OccurrenceFrequency.FREQUENT));
+        l.setPatternAutomatonEnabled(true);
         return l;
     }
 
     private RecognizingAviMessageTokenLexer wxRepTokenLexer() {
         final RecognizingAviMessageTokenLexer l = new RecognizingAviMessageTokenLexer();
-        //Lambdas not allowed in Spring 3.x Java config files:
-        l.setSuitabilityTester(new RecognizingAviMessageTokenLexer.SuitabilityTester() {
-            @Override
-            public boolean test(final LexemeSequence sequence) {
-                return sequence.getFirstLexeme().getTACToken().equals("WXREP");
-            }
-
-            @Override
-            public MessageType getMessageType() {
-                return wxRep();
-            }
-        });
+        l.setSuitabilityTester(TokenSuitabilityTester.firstTokenEquals(wxRep(), "WXREP"));
         l.teach(new WXREPStart(OccurrenceFrequency.FREQUENT));
         l.teach(new REP(OccurrenceFrequency.FREQUENT));
         l.teach(new IssueTime(OccurrenceFrequency.RARE));
         l.teach(new EndToken(OccurrenceFrequency.RARE));
         l.teach(new Whitespace(OccurrenceFrequency.FREQUENT));
+        l.setPatternAutomatonEnabled(true);
         return l;
     }
 
     private RecognizingAviMessageTokenLexer intlSigmetTokenLexer() {
         final RecognizingAviMessageTokenLexer l = new RecognizingAviMessageTokenLexer();
-        //Lambdas not allowed in Spring 3.x Java config files:
-        l.setSuitabilityTester(new RecognizingAviMessageTokenLexer.SuitabilityTester() {
-            @Override
-            public boolean test(final LexemeSequence sequence) {
-                return sequence.getFirstLexeme().hasNext() && sequence.getFirstLexeme().getNext().getTACToken().equals("SIGMET");
-            }
-
-            @Override
-            public MessageType getMessageType() {
-                return MessageType.SIGMET;
-            }
-        });
+        l.setSuitabilityTester(TokenSuitabilityTester.secondTokenEquals(MessageType.SIGMET, "SIGMET"));
         l.teach(new SigmetStart(OccurrenceFrequency.FREQUENT));
         l.teach(new SigmetValidTime(OccurrenceFrequency.AVERAGE));
         l.teach(new EndToken(OccurrenceFrequency.RARE));
         l.teach(new Whitespace(OccurrenceFrequency.FREQUENT));
+        l.setPatternAutomatonEnabled(true);
         return l;
     }
 
     private RecognizingAviMessageTokenLexer usSigmetTokenLexer() {
         final RecognizingAviMessageTokenLexer l = new RecognizingAviMessageTokenLexer();
-        //Lambdas not allowed in Spring 3.x Java config files:
-        l.setSuitabilityTester(new RecognizingAviMessageTokenLexer.SuitabilityTester() {
-            @Override
-            public boolean test(final LexemeSequence sequence) {
-                return sequence.getFirstLexeme().getTACToken().matches("^SIG[CWE]$");
-            }
-
-            @Override
-            public MessageType getMessageType() {
-                return MessageType.SIGMET;
-            }
-        });
+        l.setSuitabilityTester(TokenSuitabilityTester.firstTokenEquals(MessageType.SIGMET, "SIGC", "SIGW", "SIGE"));
 
         l.teach(new USSigmetStart(OccurrenceFrequency.FREQUENT));
         l.teach(new USSigmetValidUntil(OccurrenceFrequency.AVERAGE));
         l.teach(new EndToken(OccurrenceFrequency.RARE));
         l.teach(new Whitespace(OccurrenceFrequency.FREQUENT));
+        l.setPatternAutomatonEnabled(true);
         return l;
     }
 
     private RecognizingAviMessageTokenLexer spaceWeatherAdvisoryTokenLexer() {
         final RecognizingAviMessageTokenLexer l = new RecognizingAviMessageTokenLexer();
-        //Lambdas not allowed in Spring 3.x Java config files:
-        l.setSuitabilityTester(new RecognizingAviMessageTokenLexer.SuitabilityTester() {
-            @Override
-            public boolean test(final LexemeSequence sequence) {
-                return sequence.getFirstLexeme().getTACToken().matches("^SWX\\s+ADVISORY$");
-            }
-
-            @Override
-            public MessageType getMessageType() {
-                return MessageType.SPACE_WEATHER_ADVISORY;
-            }
-        });
+        l.setSuitabilityTester(TokenSuitabilityTester.firstTokenMatches(MessageType.SPACE_WEATHER_ADVISORY, Pattern.compile("^SWX\\s+ADVISORY$")));
 
         l.teach(new SWXAdvisoryStart(OccurrenceFrequency.RARE));
         l.teach(new DTGIssueTimeLabel(OccurrenceFrequency.AVERAGE));
@@ -1173,23 +693,13 @@ public class Lexing {
         l.teach(new AdvisoryRemarkStart(OccurrenceFrequency.AVERAGE));
         l.teach(new Remark(OccurrenceFrequency.FREQUENT));
 
+        l.setPatternAutomatonEnabled(true);
         return l;
     }
 
     private RecognizingAviMessageTokenLexer volcanicAshAdvisoryTokenLexer() {
         final RecognizingAviMessageTokenLexer l = new RecognizingAviMessageTokenLexer();
-        //Lambdas not allowed in Spring 3.x Java config files:
-        l.setSuitabilityTester(new RecognizingAviMessageTokenLexer.SuitabilityTester() {
-            @Override
-            public boolean test(final LexemeSequence sequence) {
-                return sequence.getFirstLexeme().getTACToken().matches("^VA\\s+ADVISORY$");
-            }
-
-            @Override
-            public MessageType getMessageType() {
-                return MessageType.VOLCANIC_ASH_ADVISORY;
-            }
-        });
+        l.setSuitabilityTester(TokenSuitabilityTester.firstTokenMatches(MessageType.VOLCANIC_ASH_ADVISORY, Pattern.compile("^VA\\s+ADVISORY$")));
 
         l.teach(new VolcanicAshAdvisoryStart(OccurrenceFrequency.RARE));
         l.teach(new DTGIssueTime(OccurrenceFrequency.RARE));
@@ -1197,6 +707,7 @@ public class Lexing {
         l.teach(new VolcanicAshPhenomena(OccurrenceFrequency.AVERAGE));
         l.teach(new AdvisoryPhenomenaTimeGroup(OccurrenceFrequency.AVERAGE));
         l.teach(new Whitespace(OccurrenceFrequency.FREQUENT));
+        l.setPatternAutomatonEnabled(true);
         return l;
     }
 
@@ -25,6 +25,9 @@ import fi.fmi.avi.model.taf.immutable.TAFImpl;
 
 /**
  * TAC converter parsing Spring configuration
+ *
+ * The parsers share the lexer bean and may be called from several threads at once, for example by
+ * {@link fi.fmi.avi.converter.tac.BatchConversion}.
  */
 @Configuration
 @Import(Lexing.class)
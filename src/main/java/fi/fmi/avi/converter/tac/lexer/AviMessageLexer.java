@@ -1,6 +1,7 @@
 package fi.fmi.avi.converter.tac.lexer;
 
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import fi.fmi.avi.converter.ConversionHints;
 import fi.fmi.avi.model.MessageType;
@@ -46,6 +47,23 @@ public interface AviMessageLexer {
      */
     LexemeSequence lexMessage(String input, ConversionHints hints);
 
+    /**
+     * Lexes the input String with the given parsing settings, and reports the message type the lexing was based on.
+     * Gives the same results as calling {@link #recognizeMessageType(String, ConversionHints)} and
+     * {@link #lexMessage(String, ConversionHints)} with the same arguments, which is what the default implementation
+     * does. Implementations may recognize the type from the lexemes split for lexing instead of splitting the input
+     * twice.
+     *
+     * @param input the TAC encoded message
+     * @param hints parsing hints to be passed to the lexer implementation
+     * @param recognizedType called with the type of the message if recognized
+     * @return sequence of recognized or unrecognized {@link Lexeme}s
+     */
+    default LexemeSequence lexMessage(final String input, final ConversionHints hints, final Consumer<MessageType> recognizedType) {
+        this.recognizeMessageType(input, hints).ifPresent(recognizedType);
+        return this.lexMessage(input, hints);
+    }
+
     /**
      * Tries to recognize the given String as one of the aviation message types in
      * {@link MessageType}. Must use the same
@@ -260,6 +260,8 @@ public interface Lexeme {
      * Returns a {@link LexemeSequence} starting from this Lexeme using the {@link #getNext()} iteratively
      * until the {@link #hasNext()} return false.
      *
+     * The returned sequence may share the Lexemes with the sequence this Lexeme belongs to.
+     *
      * @return the tail lexeme sequence
      *
      * @throws IllegalStateException
@@ -642,23 +644,28 @@ public interface Lexeme {
         DELETE('\u007F'),
         SPACE('\u0020');
 
-        private char content;
+        private static final MeteorologicalBulletinSpecialCharacter[] BY_CHARACTER = new MeteorologicalBulletinSpecialCharacter[128];
 
-        public static MeteorologicalBulletinSpecialCharacter fromChar(final char c) {
-            for (MeteorologicalBulletinSpecialCharacter m:MeteorologicalBulletinSpecialCharacter.values()) {
-                if (m.getContent().equals(Character.toString(c))) {
-                    return m;
-                }
+        static {
+            for (final MeteorologicalBulletinSpecialCharacter m : MeteorologicalBulletinSpecialCharacter.values()) {
+                BY_CHARACTER[m.character] = m;
             }
-            return null;
+        }
+
+        private final char character;
+        private final String content;
+
+        public static MeteorologicalBulletinSpecialCharacter fromChar(final char c) {
+            return c < BY_CHARACTER.length ? BY_CHARACTER[c] : null;
         }
 
         MeteorologicalBulletinSpecialCharacter(final char content) {
-            this.content = content;
+            this.character = content;
+            this.content = String.valueOf(content);
         }
 
         public String getContent() {
-            return String.valueOf(this.content);
+            return this.content;
         }
     }
     /**
@@ -29,10 +29,13 @@ import static fi.fmi.avi.converter.tac.lexer.Lexeme.ParsedValueName.YEAR;
 import static java.util.Objects.requireNonNull;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
@@ -47,6 +50,11 @@ import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 @JsonDeserialize(using = LexemeIdentity.Deserializer.class)
 @JsonSerialize(using = LexemeIdentity.Serializer.class)
 public class LexemeIdentity {
+    // the canonical instances, first created identity of each name, must be initialized before the constants below.
+    // Only written when registering a new name, the lookups take no lock:
+    private static final Map<String, LexemeIdentity> CANONICAL_BY_NAME = new ConcurrentHashMap<>();
+    private static volatile LexemeIdentity[] canonicalByOrdinal = new LexemeIdentity[0];
+
     public static final LexemeIdentity METAR_START = new LexemeIdentity("METAR_START");
     public static final LexemeIdentity SPECI_START = new LexemeIdentity("SPECI_START");
     public static final LexemeIdentity TAF_START = new LexemeIdentity("TAF_START");
@@ -146,6 +154,7 @@ public class LexemeIdentity {
             EnumSet.of(IdentityProperty.LABEL));
 
     private final String name;
+    private final int ordinal;
     private final Set<Lexeme.ParsedValueName> possibleParameters;
     private final Set<IdentityProperty> identityProperties;
 
@@ -157,6 +166,51 @@ public class LexemeIdentity {
         this.name = requireNonNull(name, "name");
         this.possibleParameters = unmodifiableEnumSetCopy(requireNonNull(possibleParameters, "possibleParameters"));
         this.identityProperties = unmodifiableEnumSetCopy(requireNonNull(identityProperties, "identityProperties"));
+        this.ordinal = register(this);
+    }
+
+    private static synchronized int register(final LexemeIdentity identity) {
+        final LexemeIdentity canonical = CANONICAL_BY_NAME.get(identity.name);
+        if (canonical != null) {
+            return canonical.ordinal;
+        }
+        final LexemeIdentity[] registered = Arrays.copyOf(canonicalByOrdinal, canonicalByOrdinal.length + 1);
+        registered[registered.length - 1] = identity;
+        canonicalByOrdinal = registered;
+        CANONICAL_BY_NAME.put(identity.name, identity);
+        return registered.length - 1;
+    }
+
+    /**
+     * Returns the canonical identity of the given name, that is the first one created with this name. The predefined identities
+     * are always canonical. Only the names of the identities created with the constructors are known, this method never
+     * creates new identities, so that looking up names of arbitrary input does not grow the registry of the identities.
+     *
+     * @param name the identity name
+     * @return the canonical identity
+     * @throws IllegalArgumentException if no identity of this name has been created
+     */
+    public static LexemeIdentity forName(final String name) {
+        final LexemeIdentity canonical = CANONICAL_BY_NAME.get(requireNonNull(name, "name"));
+        if (canonical == null) {
+            throw new IllegalArgumentException("Unknown lexeme identity: " + name);
+        }
+        return canonical;
+    }
+
+    /**
+     * Returns the canonical identity of the given ordinal.
+     *
+     * @param ordinal the ordinal as returned by {@link #ordinal()}
+     * @return the canonical identity
+     * @throws IndexOutOfBoundsException if no identity has the given ordinal
+     */
+    public static LexemeIdentity forOrdinal(final int ordinal) {
+        final LexemeIdentity[] registered = canonicalByOrdinal;
+        if (ordinal < 0 || ordinal >= registered.length) {
+            throw new IndexOutOfBoundsException("No lexeme identity of ordinal " + ordinal);
+        }
+        return registered[ordinal];
     }
 
     private static <E extends Enum<E>> Set<E> unmodifiableEnumSetCopy(final Collection<E> input) {
@@ -167,6 +221,27 @@ public class LexemeIdentity {
         return this.name;
     }
 
+    /**
+     * Returns the number of this identity, shared by all the identities of the same name. The ordinals are assigned in the
+     * order of creation, starting from zero, so the predefined identities always get the same small ordinals.
+     *
+     * @return the ordinal
+     * @see LexemeIdentitySet
+     */
+    public int ordinal() {
+        return this.ordinal;
+    }
+
+    /**
+     * Returns the canonical instance of this identity.
+     *
+     * @return the canonical identity of this name
+     * @see #forName(String)
+     */
+    public LexemeIdentity canonical() {
+        return forOrdinal(this.ordinal);
+    }
+
     public Set<Lexeme.ParsedValueName> getPossibleNames() {
         return this.possibleParameters;
     }
@@ -180,8 +255,11 @@ public class LexemeIdentity {
     }
 
     public boolean equals(final Object other) {
-        if (other instanceof LexemeIdentity) {
-            return name.equals(((LexemeIdentity) other).name());
+        if (other == this) {
+            return true;
+        } else if (other instanceof LexemeIdentity) {
+            // equal to comparing the names, as the identities of the same name share the ordinal
+            return ordinal == ((LexemeIdentity) other).ordinal;
         } else {
             return false;
         }
@@ -194,7 +272,7 @@ public class LexemeIdentity {
 
     @Override
     public int hashCode() {
-        return name.hashCode();
+        return ordinal;
     }
 
     /**
@@ -220,7 +298,11 @@ public class LexemeIdentity {
         @Override
         public LexemeIdentity deserialize(final JsonParser jsonParser, final DeserializationContext deserializationContext) throws IOException {
             final String value = ((JsonNode) jsonParser.getCodec().readTree(jsonParser)).asText();
-            return new LexemeIdentity(value);
+            try {
+                return LexemeIdentity.forName(value);
+            } catch (final IllegalArgumentException e) {
+                throw deserializationContext.weirdStringException(value, LexemeIdentity.class, "unknown lexeme identity");
+            }
         }
     }
 
@@ -0,0 +1,166 @@
+package fi.fmi.avi.converter.tac.lexer;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Set of {@link LexemeIdentity} backed by a bit set indexed by {@link LexemeIdentity#ordinal()}, in the same manner as
+ * {@link java.util.EnumSet} for enums. Checking the membership of an identity takes a single bit test, which makes this
+ * set suitable for the token order checks done for each lexeme of a message.
+ *
+ * The set is mutable. It iterates the canonical instances of its members in the order of their ordinals, and does not accept null.
+ */
+public final class LexemeIdentitySet extends AbstractSet<LexemeIdentity> {
+    private long[] words;
+    private int size;
+
+    private LexemeIdentitySet() {
+        this.words = new long[2];
+    }
+
+    private LexemeIdentitySet(final LexemeIdentitySet other) {
+        this.words = other.words.clone();
+        this.size = other.size;
+    }
+
+    /**
+     * Creates a set containing the given identities.
+     *
+     * @param identities the identities to include
+     * @return the set
+     */
+    public static LexemeIdentitySet of(final LexemeIdentity... identities) {
+        final LexemeIdentitySet retval = new LexemeIdentitySet();
+        for (final LexemeIdentity identity : identities) {
+            retval.add(identity);
+        }
+        return retval;
+    }
+
+    /**
+     * Creates a set containing the identities of the given collection.
+     *
+     * @param identities the identities to include
+     * @return the set
+     */
+    public static LexemeIdentitySet copyOf(final Collection<LexemeIdentity> identities) {
+        if (identities instanceof LexemeIdentitySet) {
+            return new LexemeIdentitySet((LexemeIdentitySet) identities);
+        }
+        final LexemeIdentitySet retval = new LexemeIdentitySet();
+        retval.addAll(identities);
+        return retval;
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+        if (!(o instanceof LexemeIdentity)) {
+            return false;
+        }
+        final int ordinal = ((LexemeIdentity) o).ordinal();
+        final int word = ordinal >>> 6;
+        return word < this.words.length && (this.words[word] & (1L << ordinal)) != 0;
+    }
+
+    @Override
+    public boolean add(final LexemeIdentity identity) {
+        final int ordinal = identity.ordinal();
+        final int word = ordinal >>> 6;
+        if (word >= this.words.length) {
+            this.words = Arrays.copyOf(this.words, Math.max(word + 1, this.words.length * 2));
+        }
+        final long before = this.words[word];
+        this.words[word] |= 1L << ordinal;
+        if (before != this.words[word]) {
+            this.size++;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean remove(final Object o) {
+        if (!contains(o)) {
+            return false;
+        }
+        final int ordinal = ((LexemeIdentity) o).ordinal();
+        this.words[ordinal >>> 6] &= ~(1L << ordinal);
+        this.size--;
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(this.words, 0L);
+        this.size = 0;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    @Override
+    public Iterator<LexemeIdentity> iterator() {
+        return new Iterator<LexemeIdentity>() {
+            private int nextOrdinal = nextSetOrdinal(0);
+            private int lastOrdinal = -1;
+            private int expectedSize = LexemeIdentitySet.this.size;
+
+            @Override
+            public boolean hasNext() {
+                return this.nextOrdinal >= 0;
+            }
+
+            @Override
+            public LexemeIdentity next() {
+                if (this.nextOrdinal < 0) {
+                    throw new NoSuchElementException();
+                }
+                if (this.expectedSize != LexemeIdentitySet.this.size) {
+                    throw new ConcurrentModificationException();
+                }
+                this.lastOrdinal = this.nextOrdinal;
+                this.nextOrdinal = nextSetOrdinal(this.lastOrdinal + 1);
+                return LexemeIdentity.forOrdinal(this.lastOrdinal);
+            }
+
+            @Override
+            public void remove() {
+                if (this.lastOrdinal < 0) {
+                    throw new IllegalStateException();
+                }
+                LexemeIdentitySet.this.words[this.lastOrdinal >>> 6] &= ~(1L << this.lastOrdinal);
+                LexemeIdentitySet.this.size--;
+                this.expectedSize--;
+                this.lastOrdinal = -1;
+            }
+        };
+    }
+
+    private int nextSetOrdinal(final int from) {
+        int word = from >>> 6;
+        if (word >= this.words.length) {
+            return -1;
+        }
+        long bits = this.words[word] & (-1L << from);
+        while (true) {
+            if (bits != 0) {
+                return word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+            }
+            if (++word == this.words.length) {
+                return -1;
+            }
+            bits = this.words[word];
+        }
+    }
+}
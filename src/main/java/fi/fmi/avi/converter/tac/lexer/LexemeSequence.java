@@ -1,6 +1,9 @@
 package fi.fmi.avi.converter.tac.lexer;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import fi.fmi.avi.converter.ConversionHints;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
@@ -76,6 +79,36 @@ public interface LexemeSequence {
      */
     List<Lexeme> getLexemes(boolean acceptIgnored);
 
+    /**
+     * Returns the {@link Lexeme}s of {@link #getLexemes()} identified as any of the given <code>identities</code>
+     * and with a status other than {@link Lexeme.Status#UNRECOGNIZED}, in their sequence order.
+     *
+     * The sequence may index the Lexemes by their identity when first asked, so that looking up each message
+     * field does not require iterating the whole sequence.
+     *
+     * @param identities
+     *         the identities to return the Lexemes for
+     *
+     * @return the recognized Lexemes as an unmodifiable list
+     */
+    default List<Lexeme> getRecognizedLexemes(final LexemeIdentity... identities) {
+        final List<LexemeIdentity> identityList = Arrays.asList(identities);
+        return Collections.unmodifiableList(this.getLexemes()
+                .stream()
+                .filter((lexeme) -> Lexeme.Status.UNRECOGNIZED != lexeme.getStatus() && identityList.contains(lexeme.getIdentity()))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Returns the number of {@link Lexeme}s in the sequence which are not ignored and have a status other
+     * than {@link Lexeme.Status#OK}.
+     *
+     * @return the number of Lexemes not successfully lexed, zero if lexing was successful
+     */
+    default int getNonOkLexemeCount() {
+        return (int) this.getLexemes().stream().filter(l -> !l.isIgnored() && !Lexeme.Status.OK.equals(l.getStatus())).count();
+    }
+
     /**
      * Returns a list of sub-sequences cut from the sequence split by given {@link LexemeIdentity} set.
      * A new sub-sequence starts at each found {@link Lexeme} identified as any of the given
@@ -87,6 +120,9 @@ public interface LexemeSequence {
      * If not matches are found, the original {@link LexemeSequence} is returned as the
      * only list item.
      *
+     * The returned sequences may be views sharing the {@link Lexeme}s of this sequence, so that changes made
+     * to the Lexemes of one are visible in the other. Use a {@link LexemeSequenceBuilder} to create an independent copy.
+     *
      * @param ids
      *         the IDs if the tokens to use for splitting
      *
@@ -111,7 +147,8 @@ public interface LexemeSequence {
     List<LexemeSequence> splitBy(boolean separatorStartsSequence, LexemeIdentity... ids);
 
     /**
-     * Trims any white space from the beginning and end of this sequence.
+     * Trims any white space from the beginning and end of this sequence. Like the sequences returned by
+     * {@link #splitBy(LexemeIdentity...)}, the returned sequence may share the {@link Lexeme}s of this sequence.
      *
      * @return the same sequence trimmed
      */
@@ -1,9 +1,18 @@
 package fi.fmi.avi.converter.tac.lexer.impl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,6 +20,7 @@ import org.slf4j.LoggerFactory;
 import fi.fmi.avi.converter.ConversionHints;
 import fi.fmi.avi.converter.tac.lexer.AviMessageLexer;
 import fi.fmi.avi.converter.tac.lexer.Lexeme;
+import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
 import fi.fmi.avi.converter.tac.lexer.LexemeSequence;
 import fi.fmi.avi.converter.tac.lexer.LexingFactory;
 import fi.fmi.avi.model.MessageType;
@@ -18,11 +28,24 @@ import fi.fmi.avi.model.MessageType;
 /**
  * Created by rinne on 21/12/16.
  */
-public class AviMessageLexerImpl implements AviMessageLexer {
+public class AviMessageLexerImpl implements AviMessageLexer, AviMessageLexerStatisticsMXBean {
     private static final Logger LOG = LoggerFactory.getLogger(AviMessageLexerImpl.class);
     private static final int MAX_ITERATIONS = 100;
 
     final private List<RecognizingAviMessageTokenLexer> tokenLexers = new ArrayList<>();
+    // the index of the first token lexer accepting each exact token by its TokenSuitabilityTester:
+    private final Map<String, Integer> tokenLexersByFirstToken = new HashMap<>();
+    private final Map<String, Integer> tokenLexersBySecondToken = new HashMap<>();
+    // the token lexers with any other kind of suitability tester:
+    private final BitSet testedTokenLexers = new BitSet();
+    // whether all suitability testers only look at the first two tokens:
+    private boolean onlyTokenSuitabilityTesters = true;
+    private final LongAdder lexedMessageCount = new LongAdder();
+    private final LongAdder iterationCount = new LongAdder();
+    private final LongAdder lexemeVisitCount = new LongAdder();
+    private volatile TokenClassificationCache tokenClassificationCache;
+    private volatile boolean statisticsEnabled = false;
+    private final ConcurrentMap<MessageType, IterationCounters> iterationCountersByType = new ConcurrentHashMap<>();
 
     private LexingFactory factory;
 
@@ -34,8 +57,84 @@ public class AviMessageLexerImpl implements AviMessageLexer {
         return this.factory;
     }
 
+    /**
+     * Enables caching the visitors possibly recognizing each token across the lexed messages, or disables it with size 0.
+     * The visitors found not to accept a token by their preconditions or regular expressions are not tried again for the
+     * same token in later messages of the same type. The cache is disabled by default.
+     *
+     * @param maxEntries the maximum number of cached tokens, 0 to disable the cache
+     */
+    public void setTokenClassificationCacheSize(final int maxEntries) {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("Cache size must not be negative, got " + maxEntries);
+        }
+        this.tokenClassificationCache = maxEntries == 0 ? null : new TokenClassificationCache(maxEntries);
+    }
+
+    public boolean isTokenClassificationCacheEnabled() {
+        return this.tokenClassificationCache != null;
+    }
+
+    /**
+     * Returns the number of token visits answered from the token classification cache since enabling it or the last
+     * {@link #resetStatistics()} call.
+     *
+     * @return number of cache hits, 0 if the cache is disabled
+     */
+    @Override
+    public long getTokenClassificationCacheHitCount() {
+        final TokenClassificationCache cache = this.tokenClassificationCache;
+        return cache == null ? 0 : cache.getHitCount();
+    }
+
+    /**
+     * Returns the number of token visits which had to classify the token from scratch since enabling the token
+     * classification cache or the last {@link #resetStatistics()} call.
+     *
+     * @return number of cache misses, 0 if the cache is disabled
+     */
+    @Override
+    public long getTokenClassificationCacheMissCount() {
+        final TokenClassificationCache cache = this.tokenClassificationCache;
+        return cache == null ? 0 : cache.getMissCount();
+    }
+
+    /**
+     * Returns the number of tokens evicted from the full token classification cache.
+     *
+     * @return number of evicted tokens, 0 if the cache is disabled
+     */
+    @Override
+    public long getTokenClassificationCacheEvictionCount() {
+        final TokenClassificationCache cache = this.tokenClassificationCache;
+        return cache == null ? 0 : cache.getEvictionCount();
+    }
+
+    /**
+     * Adds a token lexer to be tried after the already added ones. The suitability tester of the token lexer must be set
+     * before adding it.
+     *
+     * @param l the token lexer
+     */
     public void addTokenLexer(final RecognizingAviMessageTokenLexer l) {
+        final int index = this.tokenLexers.size();
         this.tokenLexers.add(l);
+        if (this.statisticsEnabled) {
+            l.setStatisticsEnabled(true);
+        }
+        final RecognizingAviMessageTokenLexer.SuitabilityTester tester = l.getSuitablityTester();
+        if (tester instanceof TokenSuitabilityTester && ((TokenSuitabilityTester) tester).getTokens() != null) {
+            final TokenSuitabilityTester tokenTester = (TokenSuitabilityTester) tester;
+            final Map<String, Integer> byToken = tokenTester.getTokenPosition() == 0 ? this.tokenLexersByFirstToken : this.tokenLexersBySecondToken;
+            for (final String token : tokenTester.getTokens()) {
+                byToken.putIfAbsent(token, index);
+            }
+        } else {
+            this.testedTokenLexers.set(index);
+        }
+        if (!(tester instanceof TokenSuitabilityTester)) {
+            this.onlyTokenSuitabilityTesters = false;
+        }
     }
 
     @Override
@@ -45,30 +144,112 @@ public class AviMessageLexerImpl implements AviMessageLexer {
 
     @Override
     public LexemeSequence lexMessage(final String input, final ConversionHints hints) {
+        return this.lexMessage(input, hints, type -> {
+        });
+    }
+
+    /**
+     * Lexes the input String with the given parsing settings, and reports the message type the lexing was based on.
+     * The type is recognized from the lexemes split for lexing, like {@link #recognizeMessageType(String, ConversionHints)}
+     * would recognize it from the input.
+     *
+     * @param input the TAC encoded message
+     * @param hints parsing hints to be passed to the lexer implementation
+     * @param recognizedType called with the type of the message if recognized
+     * @return sequence of recognized or unrecognized {@link Lexeme}s
+     */
+    @Override
+    public LexemeSequence lexMessage(final String input, final ConversionHints hints, final Consumer<MessageType> recognizedType) {
         if (this.factory == null) {
             throw new IllegalStateException("LexingFactory not injected");
         }
         final LexemeSequence result = this.factory.createLexemeSequence(input, hints);
-        final Optional<RecognizingAviMessageTokenLexer> tokenLexer = this.tokenLexers.stream()
-                .filter((lexer) -> lexer.getSuitablityTester().test(result)).findFirst();
+        final Optional<RecognizingAviMessageTokenLexer> tokenLexer = this.findTokenLexer(result);
         if (tokenLexer.isPresent()) {
-            boolean lexemesChanged = true;
+            final MessageType messageType = tokenLexer.get().getMessageType();
+            if (messageType != null) {
+                recognizedType.accept(messageType);
+            }
+            final List<Lexeme> lexemes = new ArrayList<>(result.getLexemes(true));
+            final int size = lexemes.size();
+            BitSet currentRound = new BitSet(size);
+            BitSet nextRound = new BitSet(size);
+            currentRound.set(0, size);
+            // the context lookups made by the visitors tell which lexemes depend on the lexemes of each identity:
+            final LexemeContextIndex contextIndex =
+                    result instanceof LexingFactoryImpl.LexemeSequenceImpl ? ((LexingFactoryImpl.LexemeSequenceImpl) result).getContextIndex() : null;
+            final BitSet lookups = contextIndex != null ? new BitSet() : null;
+            final Dependents dependents = new Dependents();
             int iterationCount = 0;
-            while (lexemesChanged && iterationCount < MAX_ITERATIONS) {
-                lexemesChanged = false;
+            long visitCount = 0;
+            final TokenClassificationCache cache = this.tokenClassificationCache;
+            while (!currentRound.isEmpty() && iterationCount < MAX_ITERATIONS) {
                 iterationCount++;
-                int oldHashCode;
-                final List<Lexeme> lexemes = result.getLexemes()
-                        .stream()
-                        .filter(l -> l.getIdentificationCertainty() < 1.0)
-                        .collect(Collectors.toList());
-                for (final Lexeme lexeme : lexemes) {
-                    oldHashCode = lexeme.hashCode();
-                    lexeme.accept(tokenLexer.get(), hints);
-                    lexemesChanged = lexemesChanged || oldHashCode != lexeme.hashCode();
+                for (int i = currentRound.nextSetBit(0); i >= 0; i = currentRound.nextSetBit(i + 1)) {
+                    final Lexeme lexeme = lexemes.get(i);
+                    if (lexeme.isIgnored() || lexeme.getIdentificationCertainty() >= 1.0) {
+                        continue;
+                    }
+                    final LexemeIdentity identityBefore = lexeme.getIdentity();
+                    final LexingFactoryImpl.LexemeImpl tracked = lexeme instanceof LexingFactoryImpl.LexemeImpl ? (LexingFactoryImpl.LexemeImpl) lexeme : null;
+                    final int modificationCountBefore = tracked != null ? tracked.getModificationCount() : 0;
+                    final LexemeState before = tracked == null ? new LexemeState(lexeme) : null;
+                    if (contextIndex != null) {
+                        contextIndex.recordLookups(lookups);
+                    }
+                    if (cache != null) {
+                        tokenLexer.get().visit(lexeme, hints, cache);
+                    } else {
+                        lexeme.accept(tokenLexer.get(), hints);
+                    }
+                    visitCount++;
+                    if (contextIndex != null) {
+                        contextIndex.recordLookups(null);
+                        dependents.add(lookups, i);
+                        lookups.clear();
+                    }
+                    if (tracked != null ? tracked.getModificationCount() != modificationCountBefore : !before.isSameAs(lexeme)) {
+                        if (contextIndex == null || i == 0) {
+                            // without recorded lookups, or when the first lexeme changes, any following visit may depend on it:
+                            currentRound.set(i + 1, size);
+                        } else {
+                            // the next two significant lexemes see this one through getPrevious(), the lexemes which have
+                            // looked up its old or new identity through the context index:
+                            final int next = nextSignificantIndex(lexemes, i);
+                            if (next < size) {
+                                currentRound.set(next);
+                                final int secondNext = nextSignificantIndex(lexemes, next);
+                                if (secondNext < size) {
+                                    currentRound.set(secondNext);
+                                }
+                            }
+                            dependents.queue(identityBefore, i, currentRound);
+                            dependents.queue(lexeme.getIdentity(), i, currentRound);
+                        }
+                        // only the nearest preceding significant lexeme can see this one through getNext(), and must wait
+                        // for the next round:
+                        final int previous = previousSignificantIndex(lexemes, i);
+                        if (previous >= 0) {
+                            nextRound.set(previous);
+                        }
+                    }
                 }
+                final BitSet done = currentRound;
+                done.clear();
+                currentRound = nextRound;
+                nextRound = done;
+            }
+            if (result instanceof LexingFactoryImpl.LexemeSequenceImpl) {
+                // only needed by the visitors:
+                ((LexingFactoryImpl.LexemeSequenceImpl) result).releaseContextIndex();
             }
-            if (iterationCount == MAX_ITERATIONS) {
+            this.lexedMessageCount.increment();
+            this.iterationCount.add(iterationCount);
+            this.lexemeVisitCount.add(visitCount);
+            if (this.statisticsEnabled) {
+                this.iterationCountersByType.computeIfAbsent(tokenLexer.get().getMessageType(), type -> new IterationCounters()).add(iterationCount);
+            }
+            if (!currentRound.isEmpty()) {
                 LOG.warn("Lexing result for {} did not stabilize within the maximum iteration count " + MAX_ITERATIONS + ", result may be incomplete",
                         result.getFirstLexeme().getIdentity());
             }
@@ -76,11 +257,113 @@ public class AviMessageLexerImpl implements AviMessageLexer {
         return result;
     }
 
+    /**
+     * Returns the number of messages lexed with a recognized token lexer since creation or the last
+     * {@link #resetStatistics()} call.
+     *
+     * @return number of lexed messages
+     */
+    @Override
+    public long getLexedMessageCount() {
+        return this.lexedMessageCount.sum();
+    }
+
+    /**
+     * Returns the total number of lexing rounds run over all the lexed messages. Each round visits the lexemes queued for
+     * re-visiting by changes in the previous one.
+     *
+     * @return number of lexing rounds
+     */
+    @Override
+    public long getIterationCount() {
+        return this.iterationCount.sum();
+    }
+
+    /**
+     * Returns the total number of individual lexeme visits made by the token lexers over all the lexed messages.
+     *
+     * @return number of lexeme visits
+     */
+    @Override
+    public long getLexemeVisitCount() {
+        return this.lexemeVisitCount.sum();
+    }
+
+    @Override
+    public boolean isStatisticsEnabled() {
+        return this.statisticsEnabled;
+    }
+
+    /**
+     * Enables or disables the detailed lexing statistics: the lexing rounds by message type, and the counters of each
+     * visitor of each token lexer. The message, round and visit totals are always counted. Enabling resets the detailed
+     * counters.
+     *
+     * @param enabled true to count
+     * @see #getMessageTypeStatistics()
+     * @see #getVisitorStatistics()
+     */
+    @Override
+    public void setStatisticsEnabled(final boolean enabled) {
+        this.statisticsEnabled = enabled;
+        this.iterationCountersByType.clear();
+        for (final RecognizingAviMessageTokenLexer l : this.tokenLexers) {
+            l.setStatisticsEnabled(enabled);
+        }
+    }
+
+    /**
+     * Returns a snapshot of the lexing rounds needed for the messages of each type.
+     *
+     * @return the statistics by message type, empty if the statistics are disabled
+     */
+    @Override
+    public List<MessageTypeStatistics> getMessageTypeStatistics() {
+        final List<MessageTypeStatistics> retval = new ArrayList<>();
+        for (final Map.Entry<MessageType, IterationCounters> entry : this.iterationCountersByType.entrySet()) {
+            final IterationCounters c = entry.getValue();
+            retval.add(new MessageTypeStatistics(entry.getKey().name(), c.messages.sum(), c.iterations.sum(), c.maxIterations.get()));
+        }
+        return retval;
+    }
+
+    /**
+     * Returns a snapshot of the counters of all the visitors of all the token lexers, in the token lexer order.
+     *
+     * @return the statistics by visitor, empty if the statistics are disabled
+     */
+    @Override
+    public List<VisitorStatistics> getVisitorStatistics() {
+        final List<VisitorStatistics> retval = new ArrayList<>();
+        for (final RecognizingAviMessageTokenLexer l : this.tokenLexers) {
+            retval.addAll(l.getVisitorStatistics());
+        }
+        return retval;
+    }
+
+    @Override
+    public void resetStatistics() {
+        this.lexedMessageCount.reset();
+        this.iterationCount.reset();
+        this.lexemeVisitCount.reset();
+        final TokenClassificationCache cache = this.tokenClassificationCache;
+        if (cache != null) {
+            cache.resetStatistics();
+        }
+        this.iterationCountersByType.clear();
+        for (final RecognizingAviMessageTokenLexer l : this.tokenLexers) {
+            l.resetStatistics();
+        }
+    }
+
     /**
      * Tries to recognize the given String as one of the aviation message types in
      * {@link MessageType}. Must use the same
      * logic as {@link #lexMessage(String, ConversionHints)} does internally.
      *
+     * If all the token lexers use a {@link TokenSuitabilityTester}, only the first two tokens of the message are
+     * needed and the rest of the input is not split into lexemes.
+     *
      * @param input
      *         the TAC encoded message
      * @param hints
@@ -93,15 +376,139 @@ public class AviMessageLexerImpl implements AviMessageLexer {
         if (this.factory == null) {
             throw new IllegalStateException("LexingFactory not injected");
         }
-        final LexemeSequence result = this.factory.createLexemeSequence(input, hints);
-        if (!this.tokenLexers.isEmpty()) {
-            final Optional<RecognizingAviMessageTokenLexer> tokenLexer = this.tokenLexers.stream()
-                    .filter((lexer) -> lexer.getSuitablityTester().test(result)).findFirst();
-            if (tokenLexer.isPresent()) {
-                return Optional.of(tokenLexer.get().getMessageType());
+        final LexemeSequence result;
+        if (this.onlyTokenSuitabilityTesters && this.factory instanceof LexingFactoryImpl) {
+            result = ((LexingFactoryImpl) this.factory).createLexemeSequencePrefix(input, hints, 2);
+        } else {
+            result = this.factory.createLexemeSequence(input, hints);
+        }
+        return this.findTokenLexer(result).map(RecognizingAviMessageTokenLexer::getMessageType);
+    }
+
+    /**
+     * Finds the first token lexer suitable for the given sequence. The token lexers accepting an exact first or second
+     * token are found by their index, only the other ones preceding the first indexed match are tested.
+     */
+    private Optional<RecognizingAviMessageTokenLexer> findTokenLexer(final LexemeSequence sequence) {
+        int indexed = Integer.MAX_VALUE;
+        final Lexeme first = sequence.getFirstLexeme();
+        if (first != null) {
+            indexed = this.tokenLexersByFirstToken.getOrDefault(first.getTACToken(), indexed);
+            final Lexeme second = this.tokenLexersBySecondToken.isEmpty() ? null : first.getNext();
+            if (second != null) {
+                indexed = Math.min(indexed, this.tokenLexersBySecondToken.getOrDefault(second.getTACToken(), indexed));
+            }
+        }
+        for (int i = this.testedTokenLexers.nextSetBit(0); i >= 0 && i < indexed; i = this.testedTokenLexers.nextSetBit(i + 1)) {
+            final RecognizingAviMessageTokenLexer tokenLexer = this.tokenLexers.get(i);
+            if (tokenLexer.getSuitablityTester().test(sequence)) {
+                return Optional.of(tokenLexer);
+            }
+        }
+        return indexed == Integer.MAX_VALUE ? Optional.empty() : Optional.of(this.tokenLexers.get(indexed));
+    }
+
+    private static int nextSignificantIndex(final List<Lexeme> lexemes, final int index) {
+        int i = index + 1;
+        while (i < lexemes.size() && (lexemes.get(i).isIgnored() || LexemeIdentity.WHITE_SPACE.equals(lexemes.get(i).getIdentity()))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int previousSignificantIndex(final List<Lexeme> lexemes, final int index) {
+        int i = index - 1;
+        while (i >= 0 && (lexemes.get(i).isIgnored() || LexemeIdentity.WHITE_SPACE.equals(lexemes.get(i).getIdentity()))) {
+            i--;
+        }
+        return i;
+    }
+
+    private static final class IterationCounters {
+        private final LongAdder messages = new LongAdder();
+        private final LongAdder iterations = new LongAdder();
+        private final LongAccumulator maxIterations = new LongAccumulator(Math::max, 0);
+
+        void add(final int iterationCount) {
+            this.messages.increment();
+            this.iterations.add(iterationCount);
+            this.maxIterations.accumulate(iterationCount);
+        }
+    }
+
+    /**
+     * The lexemes of a message which have looked up each identity from the context index while visited, by the identity
+     * ordinal.
+     */
+    private static final class Dependents {
+        private BitSet[] byIdentity = new BitSet[0];
+
+        void add(final BitSet lookups, final int index) {
+            for (int ordinal = lookups.nextSetBit(0); ordinal >= 0; ordinal = lookups.nextSetBit(ordinal + 1)) {
+                if (ordinal >= this.byIdentity.length) {
+                    this.byIdentity = Arrays.copyOf(this.byIdentity, ordinal + 1);
+                }
+                if (this.byIdentity[ordinal] == null) {
+                    this.byIdentity[ordinal] = new BitSet();
+                }
+                this.byIdentity[ordinal].set(index);
+            }
+        }
+
+        /**
+         * Queues the lexemes after <code>index</code> depending on the given identity.
+         */
+        void queue(final LexemeIdentity identity, final int index, final BitSet round) {
+            if (identity != null && identity.ordinal() < this.byIdentity.length && this.byIdentity[identity.ordinal()] != null) {
+                final BitSet dependent = this.byIdentity[identity.ordinal()];
+                for (int i = dependent.nextSetBit(index + 1); i >= 0; i = dependent.nextSetBit(i + 1)) {
+                    round.set(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * The lexeme properties the lexing visitors may change, used for detecting whether a visit of a lexeme of another
+     * {@link LexingFactory} implementation made any progress.
+     */
+    private static final class LexemeState {
+        private final LexemeIdentity identity;
+        private final Lexeme.Status status;
+        private final String lexerMessage;
+        private final double certainty;
+        private final boolean ignored;
+        private final boolean synthetic;
+        private final Map<Lexeme.ParsedValueName, Object> parsedValues;
+
+        LexemeState(final Lexeme lexeme) {
+            this.identity = lexeme.getIdentity();
+            this.status = lexeme.getStatus();
+            this.lexerMessage = lexeme.getLexerMessage();
+            this.certainty = lexeme.getIdentificationCertainty();
+            this.ignored = lexeme.isIgnored();
+            this.synthetic = lexeme.isSynthetic();
+            final Map<Lexeme.ParsedValueName, Object> values = lexeme.getParsedValues();
+            this.parsedValues = ParsedValueMap.copyOf(values);
+        }
+
+        boolean isSameAs(final Lexeme lexeme) {
+            if (!Objects.equals(this.identity, lexeme.getIdentity()) || this.status != lexeme.getStatus()
+                    || Double.compare(this.certainty, lexeme.getIdentificationCertainty()) != 0 || this.ignored != lexeme.isIgnored()
+                    || this.synthetic != lexeme.isSynthetic() || !Objects.equals(this.lexerMessage, lexeme.getLexerMessage())) {
+                return false;
+            }
+            final Map<Lexeme.ParsedValueName, Object> values = lexeme.getParsedValues();
+            if (values.size() != this.parsedValues.size()) {
+                return false;
+            }
+            for (final Map.Entry<Lexeme.ParsedValueName, Object> entry : values.entrySet()) {
+                if (!Objects.deepEquals(entry.getValue(), this.parsedValues.get(entry.getKey()))) {
+                    return false;
+                }
             }
+            return true;
         }
-        return Optional.empty();
     }
 
 }
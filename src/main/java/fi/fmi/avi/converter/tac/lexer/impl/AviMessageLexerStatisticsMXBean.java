@@ -0,0 +1,37 @@
+package fi.fmi.avi.converter.tac.lexer.impl;
+
+import java.util.List;
+
+/**
+ * Management interface of the lexing statistics of {@link AviMessageLexerImpl}. The lexer configured by
+ * {@link fi.fmi.avi.converter.tac.conf.Lexing} is registered to the platform MBean server when the system property
+ * {@value fi.fmi.avi.converter.tac.conf.Lexing#STATISTICS_PROPERTY} is <code>true</code>. Other lexer instances can be
+ * registered to an MBean server to read the counters over JMX, for example:
+ * <pre>
+ * ManagementFactory.getPlatformMBeanServer().registerMBean(lexer, new ObjectName("fi.fmi.avi.converter.tac:type=AviMessageLexer"));
+ * </pre>
+ */
+public interface AviMessageLexerStatisticsMXBean {
+
+    long getLexedMessageCount();
+
+    long getIterationCount();
+
+    long getLexemeVisitCount();
+
+    long getTokenClassificationCacheHitCount();
+
+    long getTokenClassificationCacheMissCount();
+
+    long getTokenClassificationCacheEvictionCount();
+
+    boolean isStatisticsEnabled();
+
+    void setStatisticsEnabled(boolean enabled);
+
+    List<MessageTypeStatistics> getMessageTypeStatistics();
+
+    List<VisitorStatistics> getVisitorStatistics();
+
+    void resetStatistics();
+}
@@ -0,0 +1,539 @@
+package fi.fmi.avi.converter.tac.lexer.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+import fi.fmi.avi.converter.ConversionHints;
+import fi.fmi.avi.converter.tac.lexer.Lexeme;
+import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
+import fi.fmi.avi.converter.tac.lexer.LexemeSequence;
+import fi.fmi.avi.converter.tac.lexer.LexemeVisitor;
+
+/**
+ * An immutable snapshot of a {@link LexemeSequence}, created with {@link #of(LexemeSequence)}. Later changes to the
+ * original sequence are not reflected in the snapshot.
+ *
+ * The state of the lexemes is stored in parallel arrays shared by the snapshot and all the subsequences cut from it,
+ * each covering a range of the arrays. The {@link Lexeme}s are flyweights holding only their index, created on demand
+ * and the same instance for each call. Unlike the lexemes of a lexed sequence, they refer neither to the factory nor to
+ * each other, so retaining one retains the arrays only. All the modifying methods of the lexemes throw an
+ * {@link UnsupportedOperationException}, and the snapshot can be read by any number of threads concurrently.
+ */
+public final class FrozenLexemeSequence implements LexemeSequence {
+    private static final byte SYNTHETIC = 1;
+    private static final byte IGNORED = 2;
+
+    private final Snapshot snapshot;
+    // the range of the snapshot arrays covered by this sequence, from inclusive, to exclusive:
+    private final int from;
+    private final int to;
+    // the TAC of the frozen sequence, null for the subsequences, which concatenate their tokens:
+    private final String tac;
+    private final AtomicReferenceArray<FrozenLexeme> lexemes;
+    private volatile List<Lexeme> significantLexemeList;
+    private volatile List<Lexeme> lexemeList;
+    private volatile LexemeIdentityIndex identityIndex;
+
+    private FrozenLexemeSequence(final Snapshot snapshot, final int from, final int to, final String tac) {
+        this.snapshot = snapshot;
+        this.from = from;
+        this.to = to;
+        this.tac = tac;
+        this.lexemes = new AtomicReferenceArray<>(to - from);
+    }
+
+    /**
+     * Creates an immutable snapshot of the current state of the given sequence. Only the public {@link Lexeme} and
+     * {@link LexemeSequence} methods are used, so any implementation can be frozen.
+     *
+     * Freezing a sequence once the lexing is done also releases the references between the mutable Lexemes,
+     * the snapshot only retains the state needed for reading.
+     *
+     * @param sequence the sequence to freeze
+     * @return the snapshot, or the given sequence if already frozen
+     */
+    public static FrozenLexemeSequence of(final LexemeSequence sequence) {
+        if (sequence instanceof FrozenLexemeSequence) {
+            return (FrozenLexemeSequence) sequence;
+        }
+        final List<Lexeme> source = sequence.getLexemes(true);
+        return new FrozenLexemeSequence(new Snapshot(source), 0, source.size(), sequence.getTAC());
+    }
+
+    private FrozenLexeme lexeme(final int index) {
+        if (index < this.from || index >= this.to) {
+            return null;
+        }
+        final FrozenLexeme existing = this.lexemes.get(index - this.from);
+        if (existing != null) {
+            return existing;
+        }
+        this.lexemes.compareAndSet(index - this.from, null, new FrozenLexeme(this, index));
+        return this.lexemes.get(index - this.from);
+    }
+
+    private FrozenLexemeSequence subsequence(final int from, final int to) {
+        return new FrozenLexemeSequence(this.snapshot, from, to, null);
+    }
+
+    private int next(final int index, final boolean acceptIgnored, final boolean acceptWhitespace) {
+        int i = index + 1;
+        while (i < this.to && !this.snapshot.isAcceptable(i, acceptIgnored, acceptWhitespace)) {
+            i++;
+        }
+        return i;
+    }
+
+    private int previous(final int index, final boolean acceptIgnored, final boolean acceptWhitespace) {
+        int i = index - 1;
+        while (i >= this.from && !this.snapshot.isAcceptable(i, acceptIgnored, acceptWhitespace)) {
+            i--;
+        }
+        return i;
+    }
+
+    @Override
+    public String getTAC() {
+        if (this.tac != null) {
+            return this.tac;
+        }
+        final StringBuilder sb = new StringBuilder();
+        for (int i = this.from; i < this.to; i++) {
+            sb.append(this.snapshot.tokens[i]);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public Lexeme getFirstLexeme() {
+        return this.lexeme(this.from);
+    }
+
+    @Override
+    public Lexeme getLastLexeme() {
+        return this.lexeme(this.to - 1);
+    }
+
+    @Override
+    public List<Lexeme> getLexemes() {
+        return this.getLexemes(false);
+    }
+
+    @Override
+    public List<Lexeme> getLexemes(final boolean acceptIgnored) {
+        List<Lexeme> retval = acceptIgnored ? this.lexemeList : this.significantLexemeList;
+        if (retval == null) {
+            final List<Lexeme> list = new ArrayList<>();
+            for (int i = this.from; i < this.to; i = this.next(i, acceptIgnored, true)) {
+                list.add(this.lexeme(i));
+            }
+            retval = Collections.unmodifiableList(list);
+            if (acceptIgnored) {
+                this.lexemeList = retval;
+            } else {
+                this.significantLexemeList = retval;
+            }
+        }
+        return retval;
+    }
+
+    private LexemeIdentityIndex getIdentityIndex() {
+        LexemeIdentityIndex retval = this.identityIndex;
+        if (retval == null) {
+            // may be created by more than one thread at first, but is equal for each:
+            retval = new LexemeIdentityIndex(this.getLexemes(true), l -> ((FrozenLexeme) l).index);
+            this.identityIndex = retval;
+        }
+        return retval;
+    }
+
+    @Override
+    public List<Lexeme> getRecognizedLexemes(final LexemeIdentity... identities) {
+        return this.getIdentityIndex().getRecognized(identities);
+    }
+
+    @Override
+    public int getNonOkLexemeCount() {
+        return this.getIdentityIndex().getNonOkCount();
+    }
+
+    @Override
+    public List<LexemeSequence> splitBy(final LexemeIdentity... ids) {
+        return this.splitBy(true, ids);
+    }
+
+    @Override
+    public List<LexemeSequence> splitBy(final boolean separatorStartsSequence, final LexemeIdentity... ids) {
+        final List<LexemeSequence> retval = new ArrayList<>();
+        int start = this.from;
+        for (int i = this.from; i < this.to; i++) {
+            boolean matchFound = false;
+            for (final LexemeIdentity toMatch : ids) {
+                if (toMatch.equals(this.snapshot.identities[i])) {
+                    matchFound = true;
+                    break;
+                }
+            }
+            if (matchFound) {
+                final int end = separatorStartsSequence ? i : i + 1;
+                //Do not produce empty sequences
+                if (end > start) {
+                    retval.add(this.subsequence(start, end));
+                    start = end;
+                }
+            }
+        }
+        if (this.to > start) {
+            retval.add(this.subsequence(start, this.to));
+        }
+        return retval;
+    }
+
+    /**
+     * Trims any white space from the beginning and end of this sequence.
+     *
+     * @return a subsequence of this snapshot without the leading and trailing white space
+     */
+    @Override
+    public LexemeSequence trimWhiteSpace() {
+        int start = this.from;
+        while (start < this.to && LexemeIdentity.WHITE_SPACE.equals(this.snapshot.identities[start])) {
+            start++;
+        }
+        int end = this.to;
+        while (end > start && LexemeIdentity.WHITE_SPACE.equals(this.snapshot.identities[end - 1])) {
+            end--;
+        }
+        return this.subsequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = this.from; i < this.to; i++) {
+            sb.append('[');
+            sb.append(this.lexeme(i));
+            sb.append(']');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * The state of the frozen lexemes, indexed by their position in the frozen sequence.
+     */
+    private static final class Snapshot {
+        private final String[] tokens;
+        private final LexemeIdentity[] identities;
+        private final Lexeme.Status[] statuses;
+        private final String[] lexerMessages;
+        private final int[] startIndexes;
+        private final int[] endIndexes;
+        private final double[] certainties;
+        private final byte[] flags;
+        private final Map<Lexeme.ParsedValueName, Object>[] parsedValues;
+
+        @SuppressWarnings("unchecked")
+        Snapshot(final List<Lexeme> source) {
+            final int size = source.size();
+            this.tokens = new String[size];
+            this.identities = new LexemeIdentity[size];
+            this.statuses = new Lexeme.Status[size];
+            this.lexerMessages = new String[size];
+            this.startIndexes = new int[size];
+            this.endIndexes = new int[size];
+            this.certainties = new double[size];
+            this.flags = new byte[size];
+            this.parsedValues = new Map[size];
+            for (int i = 0; i < size; i++) {
+                final Lexeme l = source.get(i);
+                this.tokens[i] = l.getTACToken();
+                this.identities[i] = l.getIdentity();
+                this.statuses[i] = l.getStatus();
+                this.lexerMessages[i] = l.getLexerMessage();
+                this.startIndexes[i] = l.getStartIndex();
+                this.endIndexes[i] = l.getEndIndex();
+                this.certainties[i] = l.getIdentificationCertainty();
+                this.flags[i] = (byte) ((l.isSynthetic() ? SYNTHETIC : 0) | (l.isIgnored() ? IGNORED : 0));
+                this.parsedValues[i] = ParsedValueMap.copyOf(l.getParsedValues());
+            }
+        }
+
+        boolean isAcceptable(final int index, final boolean acceptIgnored, final boolean acceptWhitespace) {
+            return (acceptIgnored || (this.flags[index] & IGNORED) == 0) && (acceptWhitespace || !LexemeIdentity.WHITE_SPACE.equals(this.identities[index]));
+        }
+    }
+
+    /**
+     * A lexeme of a frozen sequence, reading its state from the snapshot arrays.
+     */
+    static final class FrozenLexeme implements PositionedLexeme {
+        private final FrozenLexemeSequence sequence;
+        private final int index;
+
+        private FrozenLexeme(final FrozenLexemeSequence sequence, final int index) {
+            this.sequence = sequence;
+            this.index = index;
+        }
+
+        @Override
+        public LexemeIdentityIndex getIdentityIndex() {
+            return this.sequence.getIdentityIndex();
+        }
+
+        @Override
+        public long getPosition() {
+            return this.index;
+        }
+
+        @Override
+        public Object getOrigin() {
+            return this.sequence.snapshot;
+        }
+
+        private Snapshot snapshot() {
+            return this.sequence.snapshot;
+        }
+
+        private static UnsupportedOperationException frozen() {
+            return new UnsupportedOperationException("Lexeme of a frozen sequence cannot be modified");
+        }
+
+        @Override
+        public LexemeIdentity getIdentity() {
+            return this.snapshot().identities[this.index];
+        }
+
+        @Override
+        public LexemeIdentity getIdentityIfAcceptable() {
+            final Status status = this.getStatus();
+            return Status.OK == status || Status.WARNING == status ? this.getIdentity() : null;
+        }
+
+        @Override
+        public Status getStatus() {
+            return this.snapshot().statuses[this.index];
+        }
+
+        @Override
+        public String getLexerMessage() {
+            return this.snapshot().lexerMessages[this.index];
+        }
+
+        @Override
+        public int getStartIndex() {
+            return this.snapshot().startIndexes[this.index];
+        }
+
+        @Override
+        public int getEndIndex() {
+            return this.snapshot().endIndexes[this.index];
+        }
+
+        @Override
+        public Map<ParsedValueName, Object> getParsedValues() {
+            return this.snapshot().parsedValues[this.index];
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public <T> T getParsedValue(final ParsedValueName name, final Class<T> clz) {
+            final LexemeIdentity id = this.getIdentity();
+            if (id == null) {
+                return null;
+            } else if (!id.canStore(name)) {
+                throw new IllegalArgumentException("Lexeme of identity " + id + " can never contain parsed value " + name + ", you should fix your code");
+            }
+            final Object val = this.getParsedValues().get(name);
+            if (val != null) {
+                if (clz.isAssignableFrom(val.getClass())) {
+                    return (T) val;
+                } else {
+                    throw new ClassCastException("Cannot return value of type " + val.getClass() + " as " + clz);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public String getTACToken() {
+            return this.snapshot().tokens[this.index];
+        }
+
+        @Override
+        public Lexeme getFirst() {
+            return this.getFirst(false);
+        }
+
+        @Override
+        public Lexeme getFirst(final boolean acceptIgnoredAndWhitespace) {
+            final FrozenLexemeSequence seq = this.sequence;
+            if (!acceptIgnoredAndWhitespace && !seq.snapshot.isAcceptable(seq.from, false, false)) {
+                return seq.lexeme(seq.next(seq.from, false, false));
+            }
+            return seq.lexeme(seq.from);
+        }
+
+        @Override
+        public Lexeme getPrevious() {
+            return this.getPrevious(false);
+        }
+
+        @Override
+        public Lexeme getPrevious(final boolean acceptIgnoredAndWhitespace) {
+            return this.sequence.lexeme(this.sequence.previous(this.index, acceptIgnoredAndWhitespace, acceptIgnoredAndWhitespace));
+        }
+
+        @Override
+        public Lexeme getNext() {
+            return this.getNext(false);
+        }
+
+        @Override
+        public Lexeme getNext(final boolean acceptIgnoredAndWhitespace) {
+            return this.sequence.lexeme(this.sequence.next(this.index, acceptIgnoredAndWhitespace, acceptIgnoredAndWhitespace));
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return this.hasPrevious(false);
+        }
+
+        @Override
+        public boolean hasPrevious(final boolean acceptIgnored) {
+            return this.sequence.previous(this.index, acceptIgnored, acceptIgnored) >= this.sequence.from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.hasNext(false);
+        }
+
+        @Override
+        public boolean hasNext(final boolean acceptIgnored) {
+            return this.sequence.next(this.index, acceptIgnored, acceptIgnored) < this.sequence.to;
+        }
+
+        @Override
+        public LexemeSequence getTailSequence() {
+            return this.sequence.subsequence(this.index + 1, this.sequence.to);
+        }
+
+        @Override
+        public boolean isSynthetic() {
+            return (this.snapshot().flags[this.index] & SYNTHETIC) != 0;
+        }
+
+        @Override
+        public double getIdentificationCertainty() {
+            return this.snapshot().certainties[this.index];
+        }
+
+        @Override
+        public boolean isIgnored() {
+            return (this.snapshot().flags[this.index] & IGNORED) != 0;
+        }
+
+        @Override
+        public boolean isRecognized() {
+            return !Status.UNRECOGNIZED.equals(this.getStatus());
+        }
+
+        @Override
+        public void identify(final LexemeIdentity id) {
+            throw frozen();
+        }
+
+        @Override
+        public void identify(final LexemeIdentity id, final Status status) {
+            throw frozen();
+        }
+
+        @Override
+        public void identify(final LexemeIdentity id, final Status status, final String note) {
+            throw frozen();
+        }
+
+        @Override
+        public void identify(final LexemeIdentity id, final double certainty) {
+            throw frozen();
+        }
+
+        @Override
+        public void identify(final LexemeIdentity id, final Status status, final double certainty) {
+            throw frozen();
+        }
+
+        @Override
+        public void identify(final LexemeIdentity id, final Status status, final String note, final double certainty) {
+            throw frozen();
+        }
+
+        @Override
+        public void setParsedValue(final ParsedValueName name, final Object value) {
+            throw frozen();
+        }
+
+        @Override
+        public void setLexerMessage(final String msg) {
+            throw frozen();
+        }
+
+        @Override
+        public void setIdentificationCertainty(final double percentage) {
+            throw frozen();
+        }
+
+        @Override
+        public void setIgnored(final boolean ignored) {
+            throw frozen();
+        }
+
+        @Override
+        public void accept(final LexemeVisitor visitor, final ConversionHints hints) {
+            if (visitor != null) {
+                visitor.visit(this, hints);
+            }
+        }
+
+        @Override
+        public Lexeme findNext(final LexemeIdentity needle) {
+            return this.findNext(needle, null, null);
+        }
+
+        @Override
+        public Lexeme findNext(final LexemeIdentity needle, final Consumer<Lexeme> found) {
+            return this.findNext(needle, found, null);
+        }
+
+        @Override
+        public Lexeme findNext(final LexemeIdentity needle, final Consumer<Lexeme> found, final LexemeParsingNotifyer notFound) {
+            return LexingFactoryImpl.findNext(this, this.sequence.getIdentityIndex(), this.index, needle, found, notFound);
+        }
+
+        @Override
+        public String toString() {
+            return "'" + this.getTACToken() + "'(" + this.getIdentity() + "," + this.getStatus() + ")";
+        }
+
+        /**
+         * Lexemes at the same index of the same snapshot are equal, regardless of the subsequence.
+         */
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof FrozenLexeme)) {
+                return false;
+            }
+            final FrozenLexeme other = (FrozenLexeme) o;
+            return other.sequence.snapshot == this.sequence.snapshot && other.index == this.index;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(this.sequence.snapshot) + this.index;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package fi.fmi.avi.converter.tac.lexer.impl;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import fi.fmi.avi.converter.tac.lexer.Lexeme;
+import fi.fmi.avi.converter.tac.lexer.impl.LexingFactoryImpl.LexemeImpl;
+
+/**
+ * The lexemes of an array-backed {@link LexingFactoryImpl.LexemeSequenceImpl} in their sequence order. Free space is
+ * kept at both ends of the array, so that adding and removing at either end takes amortized constant time: the
+ * sequences grow at the end while being read, and get the artificial start token added as the first.
+ */
+final class LexemeArray {
+    private static final int INITIAL_CAPACITY = 32;
+
+    private LexemeImpl[] items = new LexemeImpl[INITIAL_CAPACITY];
+    // the index of the first lexeme in items:
+    private int start = INITIAL_CAPACITY / 4;
+    private int size;
+
+    int size() {
+        return this.size;
+    }
+
+    LexemeImpl get(final int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + this.size);
+        }
+        return this.items[this.start + index];
+    }
+
+    void addFirst(final LexemeImpl lexeme) {
+        if (this.start == 0) {
+            this.grow();
+        }
+        this.start--;
+        this.items[this.start] = lexeme;
+        this.size++;
+    }
+
+    void addLast(final LexemeImpl lexeme) {
+        if (this.start + this.size == this.items.length) {
+            this.grow();
+        }
+        this.items[this.start + this.size] = lexeme;
+        this.size++;
+    }
+
+    void removeFirst() {
+        if (this.size > 0) {
+            this.items[this.start] = null;
+            this.start++;
+            this.size--;
+        }
+    }
+
+    void removeLast() {
+        if (this.size > 0) {
+            this.size--;
+            this.items[this.start + this.size] = null;
+        }
+    }
+
+    void setLast(final LexemeImpl lexeme) {
+        this.items[this.start + this.size - 1] = lexeme;
+    }
+
+    /**
+     * Returns the current lexemes as an unmodifiable list, which is not affected by later changes to this array.
+     *
+     * @return the lexemes
+     */
+    List<Lexeme> toList() {
+        return Collections.unmodifiableList(Arrays.<Lexeme> asList(Arrays.copyOfRange(this.items, this.start, this.start + this.size)));
+    }
+
+    // doubles the capacity, re-centering the lexemes to leave room at both ends:
+    private void grow() {
+        final LexemeImpl[] grown = new LexemeImpl[Math.max(INITIAL_CAPACITY, this.items.length * 2)];
+        final int newStart = (grown.length - this.size) / 2;
+        System.arraycopy(this.items, this.start, grown, newStart, this.size);
+        this.items = grown;
+        this.start = newStart;
+    }
+}
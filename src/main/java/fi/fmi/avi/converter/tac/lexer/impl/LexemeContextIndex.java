@@ -0,0 +1,126 @@
+package fi.fmi.avi.converter.tac.lexer.impl;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+import fi.fmi.avi.converter.tac.lexer.Lexeme;
+import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
+import fi.fmi.avi.converter.tac.lexer.impl.LexingFactoryImpl.LexemeImpl;
+
+/**
+ * Index of the significant (not whitespace, not ignored) lexemes of a sequence by their identity, for answering the
+ * questions visitors ask about the preceding context of a token without walking back to the start of the message.
+ *
+ * The lexemes of each identity are kept ordered by their position in the sequence, so finding the closest one before
+ * a given lexeme takes logarithmic time. The index is maintained by {@link LexingFactoryImpl.LexemeImpl} whenever a
+ * lexeme is linked into or unlinked from the sequence, identified or marked ignored.
+ *
+ * @see LexemeUtils
+ */
+final class LexemeContextIndex {
+    private static final Comparator<LexemeImpl> BY_POSITION = Comparator.comparingLong(LexemeImpl::getPosition);
+
+    // indexed by LexemeIdentity.ordinal(), enough for the predefined identities:
+    private TreeSet<LexemeImpl>[] byIdentity = newArray(128);
+    // the ordinals of the identities looked up, while recorded for the lexer:
+    private BitSet lookups;
+
+    @SuppressWarnings("unchecked")
+    private static TreeSet<LexemeImpl>[] newArray(final int size) {
+        return new TreeSet[size];
+    }
+
+    void add(final LexemeImpl lexeme, final LexemeIdentity identity) {
+        final int ordinal = identity.ordinal();
+        if (ordinal >= this.byIdentity.length) {
+            this.byIdentity = Arrays.copyOf(this.byIdentity, Math.max(ordinal + 1, this.byIdentity.length * 2));
+        }
+        if (this.byIdentity[ordinal] == null) {
+            this.byIdentity[ordinal] = new TreeSet<>(BY_POSITION);
+        }
+        this.byIdentity[ordinal].add(lexeme);
+    }
+
+    /**
+     * Records the ordinals of the identities looked up from this index into the given set, so that the lexer knows
+     * which lexemes the visit of a token depended on.
+     *
+     * @param lookups the set to record into, or null to stop recording
+     */
+    void recordLookups(final BitSet lookups) {
+        this.lookups = lookups;
+    }
+
+    void remove(final LexemeImpl lexeme, final LexemeIdentity identity) {
+        final int ordinal = identity.ordinal();
+        if (ordinal < this.byIdentity.length && this.byIdentity[ordinal] != null) {
+            this.byIdentity[ordinal].remove(lexeme);
+        }
+    }
+
+    /**
+     * Finds the closest significant lexeme of the given identity before <code>before</code>.
+     *
+     * @param identity the identity to look for
+     * @param before the lexeme to search back from
+     * @return the found lexeme, or null if there is none
+     */
+    LexemeImpl findPrevious(final LexemeIdentity identity, final LexemeImpl before) {
+        final int ordinal = identity.ordinal();
+        if (this.lookups != null) {
+            this.lookups.set(ordinal);
+        }
+        if (ordinal >= this.byIdentity.length || this.byIdentity[ordinal] == null) {
+            return null;
+        }
+        return this.byIdentity[ordinal].lower(before);
+    }
+
+    /**
+     * Finds the closest significant lexeme of any of the given identities before <code>before</code>.
+     *
+     * @param identities the identities to look for
+     * @param before the lexeme to search back from
+     * @return the found lexeme, or null if there is none
+     */
+    LexemeImpl findPrevious(final Set<LexemeIdentity> identities, final LexemeImpl before) {
+        LexemeImpl retval = null;
+        for (final LexemeIdentity identity : identities) {
+            final LexemeImpl candidate = findPrevious(identity, before);
+            if (candidate != null && (retval == null || candidate.getPosition() > retval.getPosition())) {
+                retval = candidate;
+            }
+        }
+        return retval;
+    }
+
+    /**
+     * Tells whether there is a significant lexeme of the given identity fulfilling the condition between the given lexemes.
+     *
+     * @param identity the identity to look for
+     * @param after the exclusive start of the range, or null to start from the first lexeme
+     * @param before the exclusive end of the range
+     * @param condition the condition the lexeme must fulfill
+     * @return true if such a lexeme exists
+     */
+    boolean exists(final LexemeIdentity identity, final LexemeImpl after, final LexemeImpl before, final Predicate<Lexeme> condition) {
+        final int ordinal = identity.ordinal();
+        if (this.lookups != null) {
+            this.lookups.set(ordinal);
+        }
+        if (ordinal >= this.byIdentity.length || this.byIdentity[ordinal] == null || after != null && after.getPosition() >= before.getPosition()) {
+            return false;
+        }
+        final TreeSet<LexemeImpl> lexemes = this.byIdentity[ordinal];
+        for (final LexemeImpl l : after == null ? lexemes.headSet(before, false) : lexemes.subSet(after, false, before, false)) {
+            if (condition.test(l)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,274 @@
+package fi.fmi.avi.converter.tac.lexer.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+import fi.fmi.avi.converter.tac.lexer.Lexeme;
+import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
+import fi.fmi.avi.converter.tac.lexer.LexemeSequence;
+
+/**
+ * Index of the lexemes of a finished sequence by their identity, for answering the questions the parsers ask about
+ * the whole sequence without scanning it from the first lexeme for each message field. Built in a single pass when
+ * first needed, and dropped by the sequence whenever its lexemes change.
+ *
+ * Unlike {@link LexemeContextIndex}, which is kept up to date while the lexemes are still being identified, this index
+ * is immutable and considers the lexeme status as well.
+ *
+ * @see LexemeSequence#getRecognizedLexemes(LexemeIdentity...)
+ * @see LexemeSequence#getNonOkLexemeCount()
+ * @see Lexeme#findNext(LexemeIdentity)
+ */
+final class LexemeIdentityIndex {
+    private static final int[] NONE = new int[0];
+
+    private final Lexeme[] lexemes;
+    private final long[] positions;
+    // by LexemeIdentity.ordinal(), the indexes of the lexemes in this.lexemes:
+    private final int[][] recognized;
+    private final int[][] acceptable;
+    // the indexes of the first significant lexeme of each identity, in the sequence order:
+    private final int[] firstOccurrences;
+    private final int nonOkCount;
+
+    /**
+     * @param sequenceLexemes all the lexemes of the sequence in their order, including the ignored ones
+     * @param position the position of each lexeme in the sequence, increasing in the sequence order
+     */
+    LexemeIdentityIndex(final List<Lexeme> sequenceLexemes, final ToLongFunction<Lexeme> position) {
+        final int size = sequenceLexemes.size();
+        this.lexemes = sequenceLexemes.toArray(new Lexeme[size]);
+        this.positions = new long[size];
+        int maxOrdinal = -1;
+        for (int i = 0; i < size; i++) {
+            this.positions[i] = position.applyAsLong(this.lexemes[i]);
+            final LexemeIdentity id = this.lexemes[i].getIdentity();
+            if (id != null && id.ordinal() > maxOrdinal) {
+                maxOrdinal = id.ordinal();
+            }
+        }
+        final int[] recognizedCounts = new int[maxOrdinal + 1];
+        final int[] acceptableCounts = new int[maxOrdinal + 1];
+        final boolean[] isRecognized = new boolean[size];
+        final boolean[] isAcceptable = new boolean[size];
+        final boolean[] occurred = new boolean[maxOrdinal + 1];
+        final int[] firsts = new int[size];
+        int firstCount = 0;
+        int notOk = 0;
+        for (int i = 0; i < size; i++) {
+            final Lexeme l = this.lexemes[i];
+            final LexemeIdentity id = l.getIdentity();
+            final boolean ignored = l.isIgnored();
+            // as in LexemeSequence.getLexemes(), the first lexeme is listed even if ignored:
+            if (i == 0 || !ignored) {
+                if (!ignored && Lexeme.Status.OK != l.getStatus()) {
+                    notOk++;
+                }
+                if (id != null && Lexeme.Status.UNRECOGNIZED != l.getStatus()) {
+                    isRecognized[i] = true;
+                    recognizedCounts[id.ordinal()]++;
+                }
+            }
+            // as in Lexeme.findNext(), only the significant lexemes with an acceptable identity are found:
+            if (!ignored && id != null && !LexemeIdentity.WHITE_SPACE.equals(id) && l.getIdentityIfAcceptable() != null) {
+                isAcceptable[i] = true;
+                acceptableCounts[id.ordinal()]++;
+            }
+            if (!ignored && id != null && !LexemeIdentity.WHITE_SPACE.equals(id) && !occurred[id.ordinal()]) {
+                occurred[id.ordinal()] = true;
+                firsts[firstCount++] = i;
+            }
+        }
+        this.firstOccurrences = Arrays.copyOf(firsts, firstCount);
+        this.nonOkCount = notOk;
+        this.recognized = new int[maxOrdinal + 1][];
+        this.acceptable = new int[maxOrdinal + 1][];
+        for (int ordinal = 0; ordinal <= maxOrdinal; ordinal++) {
+            this.recognized[ordinal] = recognizedCounts[ordinal] == 0 ? NONE : new int[recognizedCounts[ordinal]];
+            this.acceptable[ordinal] = acceptableCounts[ordinal] == 0 ? NONE : new int[acceptableCounts[ordinal]];
+        }
+        Arrays.fill(recognizedCounts, 0);
+        Arrays.fill(acceptableCounts, 0);
+        for (int i = 0; i < size; i++) {
+            if (isRecognized[i] || isAcceptable[i]) {
+                final int ordinal = this.lexemes[i].getIdentity().ordinal();
+                if (isRecognized[i]) {
+                    this.recognized[ordinal][recognizedCounts[ordinal]++] = i;
+                }
+                if (isAcceptable[i]) {
+                    this.acceptable[ordinal][acceptableCounts[ordinal]++] = i;
+                }
+            }
+        }
+    }
+
+    private static int[] of(final int[][] byOrdinal, final LexemeIdentity identity) {
+        return identity == null || identity.ordinal() >= byOrdinal.length ? NONE : byOrdinal[identity.ordinal()];
+    }
+
+    /**
+     * Returns the recognized lexemes identified as any of the given identities, in the sequence order.
+     *
+     * @param identities the identities
+     * @return the lexemes, unmodifiable
+     */
+    List<Lexeme> getRecognized(final LexemeIdentity... identities) {
+        int[] indexes = NONE;
+        for (final LexemeIdentity identity : identities) {
+            final int[] found = of(this.recognized, identity);
+            if (found.length > 0 && found != indexes) {
+                if (indexes.length == 0) {
+                    indexes = found;
+                } else {
+                    indexes = merge(indexes, found);
+                }
+            }
+        }
+        if (indexes.length == 0) {
+            return Collections.emptyList();
+        }
+        final List<Lexeme> retval = new ArrayList<>(indexes.length);
+        for (final int i : indexes) {
+            retval.add(this.lexemes[i]);
+        }
+        return Collections.unmodifiableList(retval);
+    }
+
+    // merges two sorted index arrays, dropping the duplicates of the same identity given twice:
+    private static int[] merge(final int[] a, final int[] b) {
+        final int[] retval = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < a.length || j < b.length) {
+            final int next;
+            if (j == b.length || i < a.length && a[i] <= b[j]) {
+                next = a[i++];
+            } else {
+                next = b[j++];
+            }
+            if (k == 0 || retval[k - 1] != next) {
+                retval[k++] = next;
+            }
+        }
+        return k == retval.length ? retval : Arrays.copyOf(retval, k);
+    }
+
+    int getNonOkCount() {
+        return this.nonOkCount;
+    }
+
+    /**
+     * Finds the first significant lexeme identified as <code>needle</code> with an acceptable status after the given
+     * position, see {@link Lexeme#findNext(LexemeIdentity)}.
+     *
+     * @param needle the identity to find, not null
+     * @param after the position of the lexeme to start after
+     * @return the lexeme found, or null if none
+     */
+    Lexeme findNext(final LexemeIdentity needle, final long after) {
+        final int[] candidates = of(this.acceptable, needle);
+        int low = 0;
+        int high = candidates.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (this.positions[candidates[mid]] <= after) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low < candidates.length ? this.lexemes[candidates[low]] : null;
+    }
+
+    /**
+     * Finds the first significant lexeme of the sequence identified as any of the given identities, if it is before
+     * the given position. Takes time proportional to the number of distinct identities before the position.
+     *
+     * @param identities the identities to find
+     * @param before the position of the lexeme the match must precede
+     * @return the lexeme found, or null if none
+     */
+    Lexeme findFirst(final Set<LexemeIdentity> identities, final long before) {
+        for (final int i : this.firstOccurrences) {
+            if (this.positions[i] >= before) {
+                break;
+            }
+            if (identities.contains(this.lexemes[i].getIdentity())) {
+                return this.lexemes[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The index of a mutable sequence, recreated on demand after the lexemes have changed. A single
+     * {@link Lexeme#findNext(LexemeIdentity)} is cheaper to do by navigating the lexemes than by indexing the whole
+     * sequence, so the index is created for it only when the sequence is looked up repeatedly.
+     *
+     * The state is replaced as a whole through a volatile field, so an unmodified sequence, and the views sharing its
+     * index, can be read by several threads concurrently. At worst, threads racing for a missing index each create one.
+     * Modifying the lexemes while other threads read them is not supported.
+     */
+    static final class Lazy {
+        private static final State NOT_INDEXED = new State(-1, null);
+
+        private final Supplier<LexemeIdentityIndex> factory;
+        private volatile State state = NOT_INDEXED;
+
+        Lazy(final Supplier<LexemeIdentityIndex> factory) {
+            this.factory = factory;
+        }
+
+        /**
+         * @param modificationCount the current modification count of the lexemes, see
+         *         {@link LexingFactoryImpl.LexemeSequenceImpl#getIdentityModificationCount()}
+         * @return the index, created if necessary
+         */
+        LexemeIdentityIndex get(final int modificationCount) {
+            final State current = this.state;
+            if (current.modificationCount == modificationCount && current.index != null) {
+                return current.index;
+            }
+            return this.create(modificationCount);
+        }
+
+        /**
+         * @param modificationCount the current modification count of the lexemes
+         * @return the index for a {@link Lexeme#findNext(LexemeIdentity)}, or null if not worth creating yet
+         */
+        LexemeIdentityIndex getForLookup(final int modificationCount) {
+            final State current = this.state;
+            if (current.modificationCount != modificationCount) {
+                // the first lookup since the change, remembered by the state without an index:
+                this.state = new State(modificationCount, null);
+                return null;
+            }
+            if (current.index != null) {
+                return current.index;
+            }
+            return this.create(modificationCount);
+        }
+
+        private LexemeIdentityIndex create(final int modificationCount) {
+            final LexemeIdentityIndex index = this.factory.get();
+            this.state = new State(modificationCount, index);
+            return index;
+        }
+    }
+
+    private static final class State {
+        private final int modificationCount;
+        private final LexemeIdentityIndex index;
+
+        State(final int modificationCount, final LexemeIdentityIndex index) {
+            this.modificationCount = modificationCount;
+            this.index = index;
+        }
+    }
+}
@@ -0,0 +1,472 @@
+package fi.fmi.avi.converter.tac.lexer.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import fi.fmi.avi.converter.ConversionHints;
+import fi.fmi.avi.converter.tac.lexer.Lexeme;
+import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
+import fi.fmi.avi.converter.tac.lexer.LexemeSequence;
+import fi.fmi.avi.converter.tac.lexer.LexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.LexingFactoryImpl.LexemeImpl;
+
+/**
+ * A subsequence of a {@link LexingFactoryImpl.LexemeSequenceImpl} sharing its lexemes instead of copying them. Returned
+ * by {@link LexemeSequence#splitBy(LexemeIdentity...)}, {@link LexemeSequence#trimWhiteSpace()} and
+ * {@link Lexeme#getTailSequence()}, which are used by the parsers to cut each message into its parts.
+ *
+ * The lexemes of a view are thin wrappers created on demand, which read and write the state of the underlying lexemes
+ * but bound the navigation to the range of the view: the first lexeme of the view has no previous one and the last has
+ * no next one. Changes made to a lexeme through a view, such as re-identifying it, are visible in the underlying
+ * sequence and all its other views. A view must not be used after lexemes have been added to or removed from the
+ * underlying sequence. An independent copy can be created with
+ * <code>factory.createLexemeSequenceBuilder().appendAll(view.getLexemes(true)).build()</code>.
+ */
+final class LexemeSequenceView implements LexemeSequence {
+    private static final LexemeSequenceView EMPTY = new LexemeSequenceView(null, null);
+
+    // both null for an empty view:
+    private final LexemeImpl first;
+    private final LexemeImpl last;
+    // wrappers of the lexemes, indexed by the position offset from the first one, see wrap():
+    private ViewLexeme[] wrappers;
+    private final LexemeIdentityIndex.Lazy identityIndex = new LexemeIdentityIndex.Lazy(
+            () -> new LexemeIdentityIndex(this.getLexemes(true), l -> ((ViewLexeme) l).lexeme.getPosition()));
+
+    private LexemeSequenceView(final LexemeImpl first, final LexemeImpl last) {
+        this.first = first;
+        this.last = last;
+    }
+
+    // the identities of the lexemes of a view change with those of the underlying sequence:
+    private int getIdentityModificationCount() {
+        return this.first == null || this.first.getSequence() == null ? 0 : this.first.getSequence().getIdentityModificationCount();
+    }
+
+    /**
+     * Creates a view of the lexemes from <code>first</code> to <code>last</code>, inclusive. Both must be linked into
+     * the same sequence, <code>first</code> not after <code>last</code>.
+     *
+     * @param first the first lexeme of the view, or null for an empty view
+     * @param last the last lexeme of the view, or null for an empty view
+     * @return the view
+     */
+    static LexemeSequenceView of(final LexemeImpl first, final LexemeImpl last) {
+        if (first == null || last == null) {
+            return EMPTY;
+        }
+        return new LexemeSequenceView(first, last);
+    }
+
+    static List<LexemeSequence> splitBy(final LexemeImpl first, final LexemeImpl last, final boolean separatorStartsSequence, final LexemeIdentity... ids) {
+        final List<LexemeSequence> retval = new ArrayList<>();
+        LexemeImpl start = null;
+        LexemeImpl end = null;
+        for (LexemeImpl l = first; l != null; l = l == last ? null : l.getNextImpl(true, true)) {
+            boolean matchFound = false;
+            for (final LexemeIdentity toMatch : ids) {
+                if (toMatch.equals(l.getIdentity())) {
+                    matchFound = true;
+                    break;
+                }
+            }
+            if (matchFound) {
+                if (!separatorStartsSequence) {
+                    if (start == null) {
+                        start = l;
+                    }
+                    end = l;
+                }
+                //Do not produce empty sequences
+                if (start != null) {
+                    retval.add(new LexemeSequenceView(start, end));
+                    start = null;
+                }
+                if (separatorStartsSequence) {
+                    start = l;
+                    end = l;
+                }
+            } else {
+                if (start == null) {
+                    start = l;
+                }
+                end = l;
+            }
+        }
+        if (start != null) {
+            retval.add(new LexemeSequenceView(start, end));
+        }
+        return retval;
+    }
+
+    static LexemeSequenceView trimWhiteSpace(final LexemeImpl first, final LexemeImpl last) {
+        LexemeImpl start = first;
+        while (start != null && LexemeIdentity.WHITE_SPACE.equals(start.getIdentity())) {
+            start = start == last ? null : start.getNextImpl(true, true);
+        }
+        if (start == null) {
+            return EMPTY;
+        }
+        // stops at the latest at start, which is not white space:
+        LexemeImpl end = last;
+        while (LexemeIdentity.WHITE_SPACE.equals(end.getIdentity())) {
+            end = end.getPreviousImpl(true, true);
+        }
+        return new LexemeSequenceView(start, end);
+    }
+
+    boolean contains(final LexemeImpl lexeme) {
+        return lexeme != null && this.first != null && lexeme.getPosition() >= this.first.getPosition() && lexeme.getPosition() <= this.last.getPosition();
+    }
+
+    /**
+     * Returns the wrapper of the given lexeme in this view, the same instance for each call.
+     *
+     * @param lexeme the underlying lexeme
+     * @return the wrapper, or null if the lexeme is null or outside this view
+     */
+    ViewLexeme wrap(final LexemeImpl lexeme) {
+        if (!this.contains(lexeme)) {
+            return null;
+        }
+        // the positions increase along the sequence, and are practically contiguous:
+        if (this.wrappers == null) {
+            this.wrappers = new ViewLexeme[(int) (this.last.getPosition() - this.first.getPosition() + 1)];
+        }
+        final int index = (int) (lexeme.getPosition() - this.first.getPosition());
+        ViewLexeme retval = this.wrappers[index];
+        if (retval == null) {
+            retval = new ViewLexeme(this, lexeme);
+            this.wrappers[index] = retval;
+        }
+        return retval;
+    }
+
+    @Override
+    public String getTAC() {
+        final StringBuilder sb = new StringBuilder();
+        for (LexemeImpl l = this.first; l != null; l = l == this.last ? null : l.getNextImpl(true, true)) {
+            sb.append(l.getTACToken());
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public Lexeme getFirstLexeme() {
+        return this.wrap(this.first);
+    }
+
+    @Override
+    public Lexeme getLastLexeme() {
+        return this.wrap(this.last);
+    }
+
+    @Override
+    public List<Lexeme> getLexemes() {
+        return this.getLexemes(false);
+    }
+
+    @Override
+    public List<Lexeme> getLexemes(final boolean acceptIgnored) {
+        final List<Lexeme> retval = new ArrayList<>();
+        ViewLexeme l = this.wrap(this.first);
+        while (l != null) {
+            retval.add(l);
+            l = this.wrap(l.lexeme.getNextImpl(acceptIgnored, true));
+        }
+        return Collections.unmodifiableList(retval);
+    }
+
+    private LexemeIdentityIndex getIdentityIndex() {
+        return this.identityIndex.get(this.getIdentityModificationCount());
+    }
+
+    @Override
+    public List<Lexeme> getRecognizedLexemes(final LexemeIdentity... identities) {
+        return this.getIdentityIndex().getRecognized(identities);
+    }
+
+    @Override
+    public int getNonOkLexemeCount() {
+        return this.getIdentityIndex().getNonOkCount();
+    }
+
+    @Override
+    public List<LexemeSequence> splitBy(final LexemeIdentity... ids) {
+        return this.splitBy(true, ids);
+    }
+
+    @Override
+    public List<LexemeSequence> splitBy(final boolean separatorStartsSequence, final LexemeIdentity... ids) {
+        return splitBy(this.first, this.last, separatorStartsSequence, ids);
+    }
+
+    /**
+     * Trims any white space from the beginning and end of this sequence.
+     *
+     * @return a view of this sequence without the leading and trailing white space
+     */
+    @Override
+    public LexemeSequence trimWhiteSpace() {
+        return trimWhiteSpace(this.first, this.last);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        for (LexemeImpl l = this.first; l != null; l = l == this.last ? null : l.getNextImpl(true, true)) {
+            sb.append('[');
+            sb.append(l);
+            sb.append(']');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A lexeme of a view, delegating everything except the navigation to the underlying lexeme.
+     */
+    static final class ViewLexeme implements PositionedLexeme {
+        private final LexemeSequenceView view;
+        private final LexemeImpl lexeme;
+
+        private ViewLexeme(final LexemeSequenceView view, final LexemeImpl lexeme) {
+            this.view = view;
+            this.lexeme = lexeme;
+        }
+
+        @Override
+        public LexemeIdentityIndex getIdentityIndex() {
+            return this.view.getIdentityIndex();
+        }
+
+        @Override
+        public long getPosition() {
+            return this.lexeme.getPosition();
+        }
+
+        @Override
+        public Object getOrigin() {
+            return this.lexeme.getOrigin();
+        }
+
+        @Override
+        public LexemeIdentity getIdentity() {
+            return this.lexeme.getIdentity();
+        }
+
+        @Override
+        public LexemeIdentity getIdentityIfAcceptable() {
+            return this.lexeme.getIdentityIfAcceptable();
+        }
+
+        @Override
+        public Status getStatus() {
+            return this.lexeme.getStatus();
+        }
+
+        @Override
+        public String getLexerMessage() {
+            return this.lexeme.getLexerMessage();
+        }
+
+        @Override
+        public int getStartIndex() {
+            return this.lexeme.getStartIndex();
+        }
+
+        @Override
+        public int getEndIndex() {
+            return this.lexeme.getEndIndex();
+        }
+
+        @Override
+        public Map<ParsedValueName, Object> getParsedValues() {
+            return this.lexeme.getParsedValues();
+        }
+
+        @Override
+        public <T> T getParsedValue(final ParsedValueName name, final Class<T> clz) {
+            return this.lexeme.getParsedValue(name, clz);
+        }
+
+        @Override
+        public String getTACToken() {
+            return this.lexeme.getTACToken();
+        }
+
+        @Override
+        public Lexeme getFirst() {
+            return this.getFirst(false);
+        }
+
+        @Override
+        public Lexeme getFirst(final boolean acceptIgnoredAndWhitespace) {
+            final LexemeImpl first = this.view.first;
+            if (!acceptIgnoredAndWhitespace && !first.isSignificant()) {
+                return this.view.wrap(first.getNextImpl(false, false));
+            }
+            return this.view.wrap(first);
+        }
+
+        @Override
+        public Lexeme getPrevious() {
+            return this.getPrevious(false);
+        }
+
+        @Override
+        public Lexeme getPrevious(final boolean acceptIgnoredAndWhitespace) {
+            return this.view.wrap(this.lexeme.getPreviousImpl(acceptIgnoredAndWhitespace, acceptIgnoredAndWhitespace));
+        }
+
+        @Override
+        public Lexeme getNext() {
+            return this.getNext(false);
+        }
+
+        @Override
+        public Lexeme getNext(final boolean acceptIgnoredAndWhitespace) {
+            return this.view.wrap(this.lexeme.getNextImpl(acceptIgnoredAndWhitespace, acceptIgnoredAndWhitespace));
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return this.hasPrevious(false);
+        }
+
+        @Override
+        public boolean hasPrevious(final boolean acceptIgnored) {
+            return this.getPrevious(acceptIgnored) != null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.hasNext(false);
+        }
+
+        @Override
+        public boolean hasNext(final boolean acceptIgnored) {
+            return this.getNext(acceptIgnored) != null;
+        }
+
+        @Override
+        public LexemeSequence getTailSequence() {
+            final LexemeImpl next = this.lexeme.getNextImpl(true, true);
+            return this.view.contains(next) ? new LexemeSequenceView(next, this.view.last) : EMPTY;
+        }
+
+        @Override
+        public boolean isSynthetic() {
+            return this.lexeme.isSynthetic();
+        }
+
+        @Override
+        public double getIdentificationCertainty() {
+            return this.lexeme.getIdentificationCertainty();
+        }
+
+        @Override
+        public boolean isIgnored() {
+            return this.lexeme.isIgnored();
+        }
+
+        @Override
+        public void identify(final LexemeIdentity id) {
+            this.lexeme.identify(id);
+        }
+
+        @Override
+        public void identify(final LexemeIdentity id, final Status status) {
+            this.lexeme.identify(id, status);
+        }
+
+        @Override
+        public void identify(final LexemeIdentity id, final Status status, final String note) {
+            this.lexeme.identify(id, status, note);
+        }
+
+        @Override
+        public void identify(final LexemeIdentity id, final double certainty) {
+            this.lexeme.identify(id, certainty);
+        }
+
+        @Override
+        public void identify(final LexemeIdentity id, final Status status, final double certainty) {
+            this.lexeme.identify(id, status, certainty);
+        }
+
+        @Override
+        public void identify(final LexemeIdentity id, final Status status, final String note, final double certainty) {
+            this.lexeme.identify(id, status, note, certainty);
+        }
+
+        @Override
+        public boolean isRecognized() {
+            return this.lexeme.isRecognized();
+        }
+
+        @Override
+        public void setParsedValue(final ParsedValueName name, final Object value) {
+            this.lexeme.setParsedValue(name, value);
+        }
+
+        @Override
+        public void setLexerMessage(final String msg) {
+            this.lexeme.setLexerMessage(msg);
+        }
+
+        @Override
+        public void setIdentificationCertainty(final double percentage) {
+            this.lexeme.setIdentificationCertainty(percentage);
+        }
+
+        @Override
+        public void setIgnored(final boolean ignored) {
+            this.lexeme.setIgnored(ignored);
+        }
+
+        @Override
+        public void accept(final LexemeVisitor visitor, final ConversionHints hints) {
+            //Always acccept, the visitor navigates within the view:
+            if (visitor != null) {
+                visitor.visit(this, hints);
+            }
+        }
+
+        @Override
+        public Lexeme findNext(final LexemeIdentity needle) {
+            return this.findNext(needle, null, null);
+        }
+
+        @Override
+        public Lexeme findNext(final LexemeIdentity needle, final Consumer<Lexeme> found) {
+            return this.findNext(needle, found, null);
+        }
+
+        @Override
+        public Lexeme findNext(final LexemeIdentity needle, final Consumer<Lexeme> found, final LexemeParsingNotifyer notFound) {
+            final LexemeIdentityIndex index = needle == null ? null : this.view.identityIndex.getForLookup(this.view.getIdentityModificationCount());
+            return LexingFactoryImpl.findNext(this, index, this.lexeme.getPosition(), needle, found, notFound);
+        }
+
+        @Override
+        public String toString() {
+            return this.lexeme.toString();
+        }
+
+        /**
+         * Wrappers of the same underlying lexeme are equal, regardless of the view.
+         */
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof ViewLexeme && ((ViewLexeme) o).lexeme == this.lexeme;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this.lexeme);
+        }
+    }
+}
@@ -1,22 +1,158 @@
 package fi.fmi.avi.converter.tac.lexer.impl;
 
-import java.util.Arrays;
-import java.util.List;
+import java.util.Set;
 import java.util.function.Predicate;
 
 import fi.fmi.avi.converter.tac.lexer.Lexeme;
 import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
+import fi.fmi.avi.converter.tac.lexer.LexemeIdentitySet;
 
+/**
+ * Queries about the preceding context of a lexeme for the lexeme visitors and the token order checks of the parsers.
+ *
+ * For the lexemes created by {@link LexingFactoryImpl} the queries are answered using the context index of the lexeme
+ * sequence, without walking back through the preceding lexemes. Only the significant lexemes, that is not whitespace
+ * nor ignored, are considered.
+ */
 public final class LexemeUtils {
+    /**
+     * The value returned by {@link #getPosition(Lexeme)} for the lexemes with no known position.
+     */
+    public static final long UNKNOWN_POSITION = Long.MIN_VALUE;
 
-    private static final List<LexemeIdentity> TAF_GROUP_DELIMITERS = Arrays.asList(LexemeIdentity.TAF_START, LexemeIdentity.TAF_FORECAST_CHANGE_INDICATOR,
+    private static final Set<LexemeIdentity> TAF_GROUP_DELIMITERS = LexemeIdentitySet.of(LexemeIdentity.TAF_START, LexemeIdentity.TAF_FORECAST_CHANGE_INDICATOR,
             LexemeIdentity.TREND_CHANGE_INDICATOR, LexemeIdentity.END_TOKEN);
 
+    private static LexemeContextIndex contextIndex(final Lexeme token) {
+        return token instanceof LexingFactoryImpl.LexemeImpl ? ((LexingFactoryImpl.LexemeImpl) token).getContextIndex() : null;
+    }
+
+    /**
+     * Tells whether any of the lexemes before <code>token</code> is identified as <code>identity</code>.
+     *
+     * @param token the lexeme to look back from
+     * @param identity the identity to look for
+     * @return true if a preceding lexeme has the identity
+     */
+    public static boolean existsPreviousLexeme(final Lexeme token, final LexemeIdentity identity) {
+        return existsPreviousLexeme(token, identity, l -> true);
+    }
+
+    /**
+     * Tells whether any of the lexemes before <code>token</code> is identified as <code>identity</code> and fulfills the
+     * given extra condition.
+     *
+     * @param token the lexeme to look back from
+     * @param identity the identity to look for
+     * @param extraCondition the condition the preceding lexeme must also fulfill
+     * @return true if a matching preceding lexeme exists
+     */
+    public static boolean existsPreviousLexeme(final Lexeme token, final LexemeIdentity identity, final Predicate<Lexeme> extraCondition) {
+        final LexemeContextIndex index = contextIndex(token);
+        if (index != null) {
+            return index.exists(identity, null, (LexingFactoryImpl.LexemeImpl) token, extraCondition);
+        }
+        Lexeme l = token.getPrevious();
+        while (l != null) {
+            if (identity.equals(l.getIdentity()) && extraCondition.test(l)) {
+                return true;
+            }
+            l = l.getPrevious();
+        }
+        return false;
+    }
+
+    /**
+     * Returns the position of the lexeme in the sequence it was created in, increasing in the sequence order. The
+     * lexemes of the subsequences split from a sequence have the same positions as the lexemes they wrap, so the
+     * position identifies the lexeme regardless of the subsequence it was reached through.
+     *
+     * @param token the lexeme
+     * @return the position, or {@link #UNKNOWN_POSITION} if not known for the {@link Lexeme} implementation
+     */
+    public static long getPosition(final Lexeme token) {
+        return token instanceof PositionedLexeme ? ((PositionedLexeme) token).getPosition() : UNKNOWN_POSITION;
+    }
+
+    /**
+     * Tells whether the given lexemes are the same lexeme, either directly or through the subsequences split from the
+     * same sequence.
+     *
+     * @param first a lexeme
+     * @param second another lexeme
+     * @return true if both refer to the same lexeme
+     */
+    public static boolean isSameLexeme(final Lexeme first, final Lexeme second) {
+        if (first == second) {
+            return true;
+        }
+        if (first instanceof PositionedLexeme && second instanceof PositionedLexeme) {
+            final PositionedLexeme a = (PositionedLexeme) first;
+            final PositionedLexeme b = (PositionedLexeme) second;
+            return a.getOrigin() != null && a.getOrigin() == b.getOrigin() && a.getPosition() == b.getPosition();
+        }
+        return false;
+    }
+
+    /**
+     * Finds the first of the lexemes before <code>token</code> identified as any of the given identities. Like the
+     * navigation with {@link Lexeme#getPrevious()}, only the lexemes of the sequence or subsequence of <code>token</code>
+     * are considered.
+     *
+     * Meant for the token order checks made by the parsers once the lexing is done: for the lexemes created by
+     * {@link LexingFactoryImpl} the lexeme is found from the first occurrences of each identity in the identity index of
+     * the sequence, which is recreated whenever the lexemes are changed.
+     *
+     * @param token the lexeme to look back from
+     * @param identities the identities to look for
+     * @return the first matching lexeme before the token, or null if none
+     */
+    public static Lexeme findFirstPreviousLexeme(final Lexeme token, final Set<LexemeIdentity> identities) {
+        if (token instanceof PositionedLexeme) {
+            final PositionedLexeme l = (PositionedLexeme) token;
+            final LexemeIdentityIndex index = l.getIdentityIndex();
+            if (index != null) {
+                return index.findFirst(identities, l.getPosition());
+            }
+        }
+        Lexeme retval = null;
+        Lexeme l = token.getPrevious();
+        while (l != null) {
+            if (identities.contains(l.getIdentity())) {
+                retval = l;
+            }
+            l = l.getPrevious();
+        }
+        return retval;
+    }
+
     public static boolean existsPreviousLexemesWithinSameGroup(final Lexeme token, final LexemeIdentity identity) {
         return existsPreviousLexemesWithinSameGroup(token, identity, l -> true);
     }
 
+    /**
+     * Tells whether a lexeme identified as <code>identity</code> and fulfilling the extra condition exists between
+     * the start of the TAF change or trend group of <code>token</code> and <code>token</code> itself. The group starts
+     * after the closest preceding TAF start, change group indicator, trend change indicator or end token, or after the
+     * first lexeme of the message.
+     *
+     * @param token the lexeme to look back from
+     * @param identity the identity to look for
+     * @param extraCondition the condition the preceding lexeme must also fulfill
+     * @return true if a matching lexeme exists in the same group
+     */
     public static boolean existsPreviousLexemesWithinSameGroup(final Lexeme token, final LexemeIdentity identity, final Predicate<Lexeme> extraCondition) {
+        final LexemeContextIndex index = contextIndex(token);
+        if (index != null) {
+            final LexingFactoryImpl.LexemeImpl current = (LexingFactoryImpl.LexemeImpl) token;
+            LexingFactoryImpl.LexemeImpl groupStart = index.findPrevious(TAF_GROUP_DELIMITERS, current);
+            final Lexeme first = token.getFirst();
+            if (first instanceof LexingFactoryImpl.LexemeImpl && (groupStart == null
+                    || ((LexingFactoryImpl.LexemeImpl) first).getPosition() > groupStart.getPosition())) {
+                groupStart = (LexingFactoryImpl.LexemeImpl) first;
+            }
+            return groupStart != null && index.exists(identity, groupStart, current, extraCondition);
+        }
         Lexeme l = token;
         while ((l = l.getPrevious()) != token.getFirst()) {
             if (TAF_GROUP_DELIMITERS.contains(l.getIdentity())) {
@@ -2,12 +2,16 @@ package fi.fmi.avi.converter.tac.lexer.impl;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.StringTokenizer;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
@@ -26,30 +30,142 @@ import fi.fmi.avi.model.MessageType;
 
 public class LexingFactoryImpl implements LexingFactory {
 
-    private static final String TAC_DELIMS = Arrays.stream(Lexeme.MeteorologicalBulletinSpecialCharacter.values())
-            .map(Lexeme.MeteorologicalBulletinSpecialCharacter::getContent).collect(StringBuilder::new, StringBuilder::append, StringBuilder::append).toString()
-            + "=";
-
     private final List<List<Predicate<String>>> tokenCombiningRules = new ArrayList<>();
 
+    private final List<Set<MessageType>> tokenCombiningRuleScopes = new ArrayList<>();
+
     private final Map<MessageType, Lexeme> startTokens = new HashMap<>();
 
-    public void addTokenCombiningRule(final List<Predicate<String>> rule) {
+    private final Map<String, MessageType> messageTypesByStartToken = new HashMap<>();
+
+    private final Map<MessageType, TokenCombiningRuleIndex> scopedTokenCombiningRuleIndexes = new ConcurrentHashMap<>();
+
+    private volatile TokenCombiningRuleIndex tokenCombiningRuleIndex;
+
+    private boolean arrayBackedSequences;
+
+    /**
+     * Adds a rule for combining a sequence of white-space separated tokens into a single token.
+     *
+     * The rules are applied in the order of adding. Use {@link TokenPredicate}s as the rule elements where
+     * possible: the rules ending with one are only evaluated when the last token may match.
+     *
+     * If any <code>messageTypes</code> are given, the rule is only applied to the messages of those types, or
+     * to the messages the type of which cannot be determined while splitting the TAC into tokens. The type is
+     * determined by the first token of the message if it matches a {@link #setMessageStartToken(MessageType, Lexeme)
+     * message start token}, or otherwise by the {@link ConversionHints#KEY_MESSAGE_TYPE} hint.
+     *
+     * @param rule the predicates each of the combined tokens must match, in the token order
+     * @param messageTypes the message types to apply the rule to, none for all types
+     */
+    public void addTokenCombiningRule(final List<Predicate<String>> rule, final MessageType... messageTypes) {
         this.tokenCombiningRules.add(rule);
+        this.tokenCombiningRuleScopes.add(messageTypes.length == 0 ? Collections.emptySet() : new HashSet<>(Arrays.asList(messageTypes)));
+        this.tokenCombiningRuleIndex = null;
+        this.scopedTokenCombiningRuleIndexes.clear();
     }
 
     public void setMessageStartToken(final MessageType type, final Lexeme token) {
-        this.startTokens.put(type, token);
+        final Lexeme previous = this.startTokens.put(type, token);
+        if (previous != null) {
+            this.messageTypesByStartToken.remove(previous.getTACToken(), type);
+        }
+        this.messageTypesByStartToken.put(token.getTACToken(), type);
     }
 
     @Override
     public List<List<Predicate<String>>> getTokenCombiningRules() {
-        return this.tokenCombiningRules;
+        return Collections.unmodifiableList(this.tokenCombiningRules);
+    }
+
+    /**
+     * Returns the token combining rules applied to the messages of the given type.
+     *
+     * @param messageType the message type
+     * @return the rules not scoped to any type and the rules scoped to <code>messageType</code>, in the order of adding
+     */
+    public List<List<Predicate<String>>> getTokenCombiningRules(final MessageType messageType) {
+        return getTokenCombiningRuleIndex(messageType).getRules();
+    }
+
+    TokenCombiningRuleIndex getTokenCombiningRuleIndex() {
+        TokenCombiningRuleIndex index = this.tokenCombiningRuleIndex;
+        if (index == null) {
+            index = new TokenCombiningRuleIndex(this.tokenCombiningRules);
+            this.tokenCombiningRuleIndex = index;
+        }
+        return index;
+    }
+
+    TokenCombiningRuleIndex getTokenCombiningRuleIndex(final MessageType messageType) {
+        return this.scopedTokenCombiningRuleIndexes.computeIfAbsent(messageType, type -> {
+            final List<List<Predicate<String>>> rules = new ArrayList<>();
+            for (int i = 0; i < this.tokenCombiningRules.size(); i++) {
+                final Set<MessageType> scope = this.tokenCombiningRuleScopes.get(i);
+                if (scope.isEmpty() || scope.contains(type)) {
+                    rules.add(this.tokenCombiningRules.get(i));
+                }
+            }
+            return new TokenCombiningRuleIndex(rules);
+        });
+    }
+
+    /**
+     * Decides the message type used for selecting the token combining rules.
+     *
+     * @param firstToken the first non-whitespace token of the message
+     * @param hints the conversion hints, may be null
+     * @return the message type, or null if it cannot be determined
+     */
+    MessageType getTokenCombiningScope(final String firstToken, final ConversionHints hints) {
+        final MessageType byStartToken = this.messageTypesByStartToken.get(firstToken);
+        if (byStartToken != null) {
+            return byStartToken;
+        }
+        if (hints != null) {
+            final Object hinted = hints.get(ConversionHints.KEY_MESSAGE_TYPE);
+            if (hinted instanceof MessageType && this.startTokens.containsKey(hinted)) {
+                return (MessageType) hinted;
+            }
+        }
+        return null;
+    }
+
+    public boolean isArrayBackedSequences() {
+        return this.arrayBackedSequences;
+    }
+
+    /**
+     * Selects the storage of the sequences created by this factory and its builders. The lexemes of an array-backed
+     * sequence are also kept in an array in their sequence order, which makes the size of the sequence and the lexeme at
+     * a given index available in constant time at the cost of the array. By default the lexemes are only linked to
+     * each other.
+     *
+     * @param arrayBackedSequences true to create array-backed sequences
+     */
+    public void setArrayBackedSequences(final boolean arrayBackedSequences) {
+        this.arrayBackedSequences = arrayBackedSequences;
     }
 
     @Override
     public LexemeSequence createLexemeSequence(final String input, final ConversionHints hints) {
-        final LexemeSequenceImpl result = new LexemeSequenceImpl(this, input);
+        final LexemeSequenceImpl result = new LexemeSequenceImpl(this, input, hints);
+        appendArtifialStartTokenIfNecessary(input, result, hints);
+        return result;
+    }
+
+    /**
+     * Splits only the start of the given TAC into lexemes, until the given number of the first non-whitespace tokens
+     * can no longer be changed by the token combining rules. The tokens are the same as the first ones of the sequence
+     * created by {@link #createLexemeSequence(String, ConversionHints)}, including the artificial start token.
+     *
+     * @param input the TAC encoded message
+     * @param hints the conversion hints, may be null
+     * @param tokenCount the number of the first non-whitespace tokens needed
+     * @return the sequence of the starting lexemes of the message
+     */
+    LexemeSequence createLexemeSequencePrefix(final String input, final ConversionHints hints, final int tokenCount) {
+        final LexemeSequenceImpl result = new LexemeSequenceImpl(this, input, hints, tokenCount);
         appendArtifialStartTokenIfNecessary(input, result, hints);
         return result;
     }
@@ -92,22 +208,99 @@ public class LexingFactoryImpl implements LexingFactory {
         }
     }
 
+    /**
+     * Implements {@link Lexeme#findNext(LexemeIdentity, Consumer, Lexeme.LexemeParsingNotifyer)} by navigating from the
+     * given lexeme, so that it stays within the bounds of the sequence or view the lexeme belongs to.
+     */
+    static Lexeme findNext(final Lexeme from, final LexemeIdentity needle, final Consumer<Lexeme> found, final Lexeme.LexemeParsingNotifyer notFound) {
+        return notifyFindResult(findNext(from, needle), found, notFound);
+    }
+
+    private static Lexeme findNext(final Lexeme from, final LexemeIdentity needle) {
+        Lexeme retval = null;
+        Lexeme current = from.getNext();
+        if (current != null) {
+            boolean stop = false;
+            LexemeIdentity currentId;
+            while (!stop) {
+                currentId = current.getIdentityIfAcceptable();
+                if (needle == null || (currentId != null && currentId.equals(needle))) {
+                    retval = current;
+                }
+                stop = !current.hasNext() || retval != null;
+                current = current.getNext();
+            }
+        }
+        return retval;
+    }
+
+    /**
+     * Implements {@link Lexeme#findNext(LexemeIdentity, Consumer, Lexeme.LexemeParsingNotifyer)} using the identity index
+     * of the sequence or view the lexeme belongs to, once it is worth creating.
+     *
+     * @param from the lexeme to start after
+     * @param index the index, or null to navigate from the lexeme instead
+     * @param position the position of <code>from</code> in the index
+     */
+    static Lexeme findNext(final Lexeme from, final LexemeIdentityIndex index, final long position, final LexemeIdentity needle,
+            final Consumer<Lexeme> found, final Lexeme.LexemeParsingNotifyer notFound) {
+        if (index == null || needle == null) {
+            return findNext(from, needle, found, notFound);
+        }
+        return notifyFindResult(index.findNext(needle, position), found, notFound);
+    }
+
+    private static Lexeme notifyFindResult(final Lexeme retval, final Consumer<Lexeme> found, final Lexeme.LexemeParsingNotifyer notFound) {
+        if (retval != null) {
+            if (found != null) {
+                found.accept(retval);
+            }
+        } else {
+            if (notFound != null) {
+                notFound.ping();
+            }
+        }
+        return retval;
+    }
+
     static class LexemeSequenceImpl implements LexemeSequence {
 
         private final LexingFactory factory;
         private String originalTac;
         private LexemeImpl head;
         private LexemeImpl tail;
+        // null unless array-backed, see LexingFactoryImpl.setArrayBackedSequences():
+        private final LexemeArray lexemeArray;
+        // created on demand, see getContextIndex():
+        private LexemeContextIndex contextIndex;
+        // incremented on each change affecting getLexemes(), for invalidating the cached lists:
+        private int modificationCount;
+        private int cachedListsModificationCount = -1;
+        private List<Lexeme> cachedLexemes;
+        private List<Lexeme> cachedLexemesWithIgnored;
+        // incremented also on each change to the lexeme identities and statuses, for invalidating the identity index:
+        private int identityModificationCount;
+        private final LexemeIdentityIndex.Lazy identityIndex = new LexemeIdentityIndex.Lazy(
+                () -> new LexemeIdentityIndex(this.getLexemes(true), l -> ((LexemeImpl) l).position));
+
+        LexemeSequenceImpl(final LexingFactory factory, final String originalTac, final ConversionHints hints) {
+            this(factory, originalTac, hints, 0);
+        }
 
-        LexemeSequenceImpl(final LexingFactory factory, final String originalTac) {
+        /**
+         * @param prefixTokenCount if positive, only the start of <code>originalTac</code> is read until this number of
+         *         the first non-whitespace tokens are final
+         */
+        LexemeSequenceImpl(final LexingFactory factory, final String originalTac, final ConversionHints hints, final int prefixTokenCount) {
             this.factory = factory;
+            this.lexemeArray = factory instanceof LexingFactoryImpl && ((LexingFactoryImpl) factory).isArrayBackedSequences() ? new LexemeArray() : null;
             if (originalTac != null) {
-                this.constructFromTAC(originalTac);
+                this.constructFromTAC(originalTac, hints, prefixTokenCount);
             }
         }
 
         LexemeSequenceImpl(final LexingFactory factory) {
-            this(factory, null);
+            this(factory, null, null);
         }
 
         @Override
@@ -134,8 +327,31 @@ public class LexingFactoryImpl implements LexingFactory {
             return this.getLexemes(false);
         }
 
+        /**
+         * Returns the lexemes of this sequence. The returned list is unmodifiable, and is shared by the calls made until
+         * the next change to the lexemes of this sequence.
+         */
         @Override
         public List<Lexeme> getLexemes(final boolean acceptIgnored) {
+            if (this.cachedListsModificationCount != this.modificationCount) {
+                this.cachedLexemes = null;
+                this.cachedLexemesWithIgnored = null;
+                this.cachedListsModificationCount = this.modificationCount;
+            }
+            if (acceptIgnored) {
+                if (this.cachedLexemesWithIgnored == null) {
+                    this.cachedLexemesWithIgnored = this.lexemeArray != null ? this.lexemeArray.toList() : this.collectLexemes(true);
+                }
+                return this.cachedLexemesWithIgnored;
+            } else {
+                if (this.cachedLexemes == null) {
+                    this.cachedLexemes = this.collectLexemes(false);
+                }
+                return this.cachedLexemes;
+            }
+        }
+
+        private List<Lexeme> collectLexemes(final boolean acceptIgnored) {
             final List<Lexeme> retval = new ArrayList<>();
             LexemeImpl l = this.head;
             while (l != null) {
@@ -145,6 +361,76 @@ public class LexingFactoryImpl implements LexingFactory {
             return Collections.unmodifiableList(retval);
         }
 
+        /**
+         * Returns the number of lexemes in this sequence, including the ignored and white space ones. Takes constant time
+         * for an array-backed sequence.
+         *
+         * @return the size
+         */
+        int size() {
+            if (this.lexemeArray != null) {
+                return this.lexemeArray.size();
+            }
+            int retval = 0;
+            for (LexemeImpl l = this.head; l != null; l = l.next) {
+                retval++;
+            }
+            return retval;
+        }
+
+        /**
+         * Returns the lexeme at the given index of this sequence, counting the ignored and white space ones. Takes
+         * constant time for an array-backed sequence.
+         *
+         * @param index the index
+         * @return the lexeme
+         * @throws IndexOutOfBoundsException if the index is negative or not less than the size
+         */
+        Lexeme get(final int index) {
+            if (this.lexemeArray != null) {
+                return this.lexemeArray.get(index);
+            }
+            LexemeImpl l = index < 0 ? null : this.head;
+            for (int i = 0; i < index && l != null; i++) {
+                l = l.next;
+            }
+            if (l == null) {
+                throw new IndexOutOfBoundsException("Index: " + index);
+            }
+            return l;
+        }
+
+        void lexemeIgnoredChanged() {
+            this.modificationCount++;
+            this.identityModificationCount++;
+        }
+
+        void lexemeIdentityChanged() {
+            this.identityModificationCount++;
+        }
+
+        int getIdentityModificationCount() {
+            return this.identityModificationCount;
+        }
+
+        LexemeIdentityIndex getIdentityIndex() {
+            return this.identityIndex.get(this.identityModificationCount);
+        }
+
+        LexemeIdentityIndex getIdentityIndexForLookup() {
+            return this.identityIndex.getForLookup(this.identityModificationCount);
+        }
+
+        @Override
+        public List<Lexeme> getRecognizedLexemes(final LexemeIdentity... identities) {
+            return this.getIdentityIndex().getRecognized(identities);
+        }
+
+        @Override
+        public int getNonOkLexemeCount() {
+            return this.getIdentityIndex().getNonOkCount();
+        }
+
         @Override
         public List<LexemeSequence> splitBy(final LexemeIdentity... ids) {
             return this.splitBy(true, ids);
@@ -152,60 +438,17 @@ public class LexingFactoryImpl implements LexingFactory {
 
         @Override
         public List<LexemeSequence> splitBy(final boolean separatorStartsSequence, final LexemeIdentity... ids) {
-            final List<LexemeSequence> retval = new ArrayList<>();
-            LexemeSequenceBuilder builder = new LexemeSequenceBuilderImpl(this.factory);
-            LexemeImpl l = this.head;
-            boolean matchFound = false;
-            while (l != null) {
-                matchFound = false;
-                for (final LexemeIdentity toMatch : ids) {
-                    if (toMatch.equals(l.getIdentity())) {
-                        matchFound = true;
-                        if (!separatorStartsSequence) {
-                            builder.append(l);
-                        }
-                        //Do not produce empty sequences
-                        if (!builder.isEmpty()) {
-                            retval.add(builder.build());
-                            builder = new LexemeSequenceBuilderImpl(this.factory);
-                        }
-                        break;
-                    }
-                }
-                if (!matchFound) {
-                    builder.append(l);
-                } else if (separatorStartsSequence) {
-                    builder.append(l);
-                }
-                l = l.getNextImpl(true, true);
-            }
-            if (!builder.isEmpty()) {
-                retval.add(builder.build());
-            }
-            return retval;
+            return LexemeSequenceView.splitBy(this.head, this.tail, separatorStartsSequence, ids);
         }
 
         /**
          * Trims any white space from the beginning and end of this sequence.
          *
-         * @return the same sequence trimmed
+         * @return a view of this sequence without the leading and trailing white space
          */
         @Override
         public LexemeSequence trimWhiteSpace() {
-            final LexemeSequenceBuilder builder = new LexemeSequenceBuilderImpl(this.factory);
-            Lexeme l = this.head;
-            while (l != null && LexemeIdentity.WHITE_SPACE.equals(l.getIdentity())) {
-                l = l.getNext();
-            }
-            if (l != null) {
-                builder.append(l).appendAll(l.getTailSequence().getLexemes());
-            }
-            Optional<Lexeme> last = builder.getLast();
-            while (last.isPresent() && LexemeIdentity.WHITE_SPACE.equals(last.get().getIdentity())) {
-                builder.removeLast();
-                last = builder.getLast();
-            }
-            return builder.build();
+            return LexemeSequenceView.trimWhiteSpace(this.head, this.tail);
         }
 
         @Override
@@ -221,6 +464,47 @@ public class LexingFactoryImpl implements LexingFactory {
             return sb.toString();
         }
 
+        LexemeContextIndex getContextIndex() {
+            if (this.contextIndex == null) {
+                final LexemeContextIndex index = new LexemeContextIndex();
+                for (LexemeImpl l = this.head; l != null; l = l.next) {
+                    if (l.isSignificant() && l.getIdentity() != null) {
+                        index.add(l, l.getIdentity());
+                    }
+                }
+                this.contextIndex = index;
+            }
+            return this.contextIndex;
+        }
+
+        /**
+         * Drops the context index, if created, once it is no longer needed by the visitors.
+         */
+        void releaseContextIndex() {
+            this.contextIndex = null;
+        }
+
+        private void link(final LexemeImpl lexeme, final long position) {
+            lexeme.sequence = this;
+            lexeme.position = position;
+            this.modificationCount++;
+            this.identityModificationCount++;
+            if (this.contextIndex != null && lexeme.isSignificant() && lexeme.getIdentity() != null) {
+                this.contextIndex.add(lexeme, lexeme.getIdentity());
+            }
+        }
+
+        private void unlink(final LexemeImpl lexeme) {
+            if (this.contextIndex != null && lexeme.getIdentity() != null) {
+                this.contextIndex.remove(lexeme, lexeme.getIdentity());
+            }
+            // the first lexeme of the sequence is only needed by the lexeme itself after leaving it:
+            lexeme.first = this.head;
+            lexeme.sequence = null;
+            this.modificationCount++;
+            this.identityModificationCount++;
+        }
+
         Lexeme replaceFirstWith(final LexemeImpl replacement) {
             if (replacement == null) {
                 throw new NullPointerException();
@@ -252,18 +536,21 @@ public class LexingFactoryImpl implements LexingFactory {
             }
             final LexemeImpl oldLast = this.tail;
             final LexemeImpl prev = this.tail.getPreviousImpl(true, true);
+            this.unlink(oldLast);
+            this.link(replacement, oldLast.position);
+            if (this.lexemeArray != null) {
+                this.lexemeArray.setLast(replacement);
+            }
             this.tail = replacement;
             if (oldLast == this.head) {
                 //Replacing the only token
                 this.head = replacement;
-                this.tail.setFirst(this.head);
-            } else {
-                this.tail.setFirst(oldLast.first);
             }
             if (prev != null) {
                 this.tail.setPrevious(prev);
                 prev.setNext(this.tail);
             }
+            this.tail.relinkSignificantNeighbours();
             return oldLast;
         }
 
@@ -274,6 +561,7 @@ public class LexingFactoryImpl implements LexingFactory {
         void addAsFirst(final LexemeImpl toAdd) {
             if (toAdd != null) {
                 final LexemeImpl oldFirst = this.head;
+                this.link(toAdd, oldFirst == null ? 0 : oldFirst.position - 1);
                 if (oldFirst != null) {
                     oldFirst.setPrevious(toAdd);
                     toAdd.setNext(oldFirst);
@@ -282,7 +570,10 @@ public class LexingFactoryImpl implements LexingFactory {
                 }
                 toAdd.setPrevious(null);
                 this.head = toAdd;
-                this.updateLinksToFirst();
+                if (this.lexemeArray != null) {
+                    this.lexemeArray.addFirst(toAdd);
+                }
+                toAdd.relinkSignificantNeighbours();
                 if (!toAdd.isSynthetic()) {
                     //Assume a single white space token separator:
                     this.adjustIndexes(1, toAdd.getTACToken().length() + 1);
@@ -292,28 +583,35 @@ public class LexingFactoryImpl implements LexingFactory {
 
         void addAsLast(final LexemeImpl toAdd) {
             if (toAdd != null) {
+                this.link(toAdd, this.tail == null ? 0 : this.tail.position + 1);
                 if (this.head != null) {
                     final LexemeImpl oldLast = this.tail;
                     oldLast.setNext(toAdd);
                     toAdd.setPrevious(oldLast);
-                    toAdd.setFirst(this.head);
                 } else {
                     this.head = toAdd;
-                    toAdd.setFirst(toAdd);
                     toAdd.setPrevious(null);
                 }
                 toAdd.setNext(null);
                 this.tail = toAdd;
+                if (this.lexemeArray != null) {
+                    this.lexemeArray.addLast(toAdd);
+                }
+                toAdd.relinkSignificantNeighbours();
             }
         }
 
         Lexeme removeFirst() {
-            final Lexeme removed = this.head;
+            final LexemeImpl removed = this.head;
             if (this.head.hasNext(true)) {
+                this.unlink(removed);
                 this.head = this.head.getNextImpl(true, true);
                 this.head.setPrevious(null);
+                this.head.relinkSignificantNeighbours();
+                if (this.lexemeArray != null) {
+                    this.lexemeArray.removeFirst();
+                }
             }
-            this.updateLinksToFirst();
             if (!removed.isSynthetic()) {
                 this.adjustIndexes(0, -(removed.getTACToken().length() + 1));
             }
@@ -323,9 +621,14 @@ public class LexingFactoryImpl implements LexingFactory {
         LexemeImpl removeLast() {
             final LexemeImpl removed = this.tail;
             if (this.tail != null) {
+                this.unlink(removed);
+                if (this.lexemeArray != null) {
+                    this.lexemeArray.removeLast();
+                }
                 if (this.tail.hasPrevious(true)) {
                     this.tail = this.tail.getPreviousImpl(true, true);
                     this.tail.setNext(null);
+                    this.tail.relinkSignificantNeighbours();
                 } else {
                     this.head = null;
                     this.tail = null;
@@ -334,15 +637,6 @@ public class LexingFactoryImpl implements LexingFactory {
             return removed;
         }
 
-        private void updateLinksToFirst() {
-            final LexemeImpl first = this.head;
-            LexemeImpl l = this.head;
-            while (l != null) {
-                l.setFirst(first);
-                l = l.getNextImpl(true, true);
-            }
-        }
-
         private void adjustIndexes(final int fromIndex, final int by) {
             LexemeImpl l = this.head;
             int index = -1;
@@ -356,46 +650,111 @@ public class LexingFactoryImpl implements LexingFactory {
             }
         }
 
-        private void constructFromTAC(final String tac) {
+        private void constructFromTAC(final String tac, final ConversionHints hints, final int prefixTokenCount) {
+            int start = 0;
             if (tac != null && tac.length() > 0) {
-                final StringTokenizer st = new StringTokenizer(tac, TAC_DELIMS, true);
-                int start = 0;
-                while (st.hasMoreTokens()) {
-                    final String s = st.nextToken();
-                    start = tac.indexOf(s, start);
+                final LexingFactoryImpl scopingFactory = this.factory instanceof LexingFactoryImpl ? (LexingFactoryImpl) this.factory : null;
+                final TokenCombiningRuleIndex allRules = scopingFactory != null ?
+                        scopingFactory.getTokenCombiningRuleIndex() :
+                        new TokenCombiningRuleIndex(this.factory.getTokenCombiningRules());
+                TokenCombiningRuleIndex combiningRules = allRules;
+                // All rules are applied until the first token is final, it may be a result of combining:
+                boolean scopeDecided = scopingFactory == null;
+                // Special characters and the end token are single character lexemes, the tokens between them are sliced by offset:
+                final int length = tac.length();
+                while (start < length) {
+                    final char c = tac.charAt(start);
                     //Special chars or space:
-                    final Lexeme.MeteorologicalBulletinSpecialCharacter specialCharacter = Lexeme.MeteorologicalBulletinSpecialCharacter.fromChar(s.charAt(0));
-                    if (s.length() == 1 && specialCharacter != null) {
-                        final LexemeImpl l = new LexemeImpl(this.factory, s, LexemeIdentity.WHITE_SPACE);
+                    final Lexeme.MeteorologicalBulletinSpecialCharacter specialCharacter = Lexeme.MeteorologicalBulletinSpecialCharacter.fromChar(c);
+                    if (specialCharacter != null) {
+                        final LexemeImpl l = new LexemeImpl(this.factory, specialCharacter.getContent(), LexemeIdentity.WHITE_SPACE);
                         l.setStartIndex(start);
-                        l.setEndIndex(l.getStartIndex() + l.getTACToken().length() - 1);
+                        l.setEndIndex(start);
                         l.setParsedValue(Lexeme.ParsedValueName.TYPE, specialCharacter);
                         this.addAsLast(l);
+                        start++;
                     } else {
-                        if ("=".equals(s)) {
+                        if (c == '=') {
                             final LexemeImpl l = new LexemeImpl(this.factory, "=", LexemeIdentity.END_TOKEN);
                             l.setStartIndex(start);
                             l.setEndIndex(start);
                             this.addAsLast(l);
+                            start++;
                         } else {
-                            final LexemeImpl l = new LexemeImpl(this.factory, s);
+                            int end = start + 1;
+                            while (end < length && !isDelimiter(tac.charAt(end))) {
+                                end++;
+                            }
+                            final LexemeImpl l = new LexemeImpl(this.factory, tac.substring(start, end));
                             l.setStartIndex(start);
-                            l.setEndIndex(start + l.getTACToken().length() - 1);
+                            l.setEndIndex(end - 1);
                             this.addAsLast(l);
+                            start = end;
                         }
                         if (this.tail.hasPrevious()) {
-                            for (final List<Predicate<String>> combiningRule : this.factory.getTokenCombiningRules()) {
-                                this.combinePrevMatchingTokens(combiningRule);
+                            this.combinePrevMatchingTokens(combiningRules);
+                        }
+                        // A start token combined of several tokens, such as "SWX ADVISORY", is only final once a token
+                        // no rule can combine with the following ones has been appended after its first part:
+                        if (!scopeDecided && this.isPrefixFinal(1, allRules)) {
+                            final MessageType scope = scopingFactory.getTokenCombiningScope(this.getFirstNonWhitespace().getTACToken(), hints);
+                            if (scope != null) {
+                                combiningRules = scopingFactory.getTokenCombiningRuleIndex(scope);
                             }
+                            scopeDecided = true;
+                        }
+                        if (prefixTokenCount > 0 && this.isPrefixFinal(prefixTokenCount, allRules)) {
+                            break;
                         }
                     }
-                    start += s.length();
                 }
             }
-            this.originalTac = tac;
+            this.originalTac = prefixTokenCount > 0 && tac != null ? tac.substring(0, start) : tac;
+        }
+
+        /**
+         * Tells whether the given number of the first non-whitespace tokens are final. Combining always ends with the last
+         * token, and includes every token between its first and last one, so all tokens preceding a token which no rule
+         * can combine with the following ones are final once anything has been appended after it. The check uses all the
+         * rules, as the scoped ones are a subset of them.
+         */
+        private boolean isPrefixFinal(final int tokenCount, final TokenCombiningRuleIndex allRules) {
+            LexemeImpl l = this.getFirstNonWhitespace();
+            for (int i = 1; i < tokenCount && l != null; i++) {
+                l = l.getNextImpl(false, false);
+            }
+            while (l != null && l != this.tail) {
+                if (!allRules.mayBeCombinedWithFollowing(l.getTACToken())) {
+                    return true;
+                }
+                l = l.getNextImpl(false, false);
+            }
+            return false;
         }
 
-        private void combinePrevMatchingTokens(final List<Predicate<String>> toMatch) {
+        private static boolean isDelimiter(final char c) {
+            return c == '=' || Lexeme.MeteorologicalBulletinSpecialCharacter.fromChar(c) != null;
+        }
+
+        private LexemeImpl getFirstNonWhitespace() {
+            LexemeImpl l = this.head;
+            while (l != null && LexemeIdentity.WHITE_SPACE.equals(l.getIdentity())) {
+                l = l.getNextImpl(true, true);
+            }
+            return l;
+        }
+
+        private void combinePrevMatchingTokens(final TokenCombiningRuleIndex combiningRules) {
+            // Each combination replaces the tail, the rest of the rules are tried against the combined token
+            BitSet candidates = combiningRules.getCandidateRules(this.tail.getTACToken());
+            for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                if (this.combinePrevMatchingTokens(combiningRules.getRule(i))) {
+                    candidates = combiningRules.getCandidateRules(this.tail.getTACToken());
+                }
+            }
+        }
+
+        private boolean combinePrevMatchingTokens(final List<Predicate<String>> toMatch) {
             LexemeImpl l = this.tail;
             int index = toMatch.size() - 1;
             boolean match = false;
@@ -432,6 +791,7 @@ public class LexingFactoryImpl implements LexingFactory {
                     this.addAsLast(token);
                 }
             }
+            return match;
         }
 
         private String getAsTAC() {
@@ -478,7 +838,7 @@ public class LexingFactoryImpl implements LexingFactory {
 
         @Override
         public LexemeSequenceBuilder removeLast() {
-            if (this.seq.getLexemes(true).size() > 0) {
+            if (this.seq.tail != null) {
                 this.seq.removeLast();
             }
             return this;
@@ -491,14 +851,15 @@ public class LexingFactoryImpl implements LexingFactory {
 
         @Override
         public boolean isEmpty() {
-            return this.seq.getLexemes().isEmpty();
+            return this.seq.head == null;
         }
     }
 
-    static class LexemeImpl implements Lexeme {
+    static class LexemeImpl implements PositionedLexeme {
         private final LexingFactory factory;
         private final String tacToken;
-        private final Map<ParsedValueName, Object> parsedValues;
+        // shared empty map until the first value is set, then a ParsedValueMap:
+        private Map<ParsedValueName, Object> parsedValues = Collections.emptyMap();
         private LexemeIdentity id;
         private Status status;
         private String lexerMessage;
@@ -507,10 +868,18 @@ public class LexingFactoryImpl implements LexingFactory {
         private int startIndex = -1;
         private int endIndex = -1;
         private double certainty = 0.0d;
-        //Lexing navigation:
+        //Lexing navigation, the first lexeme is taken from the sequence while linked into one:
         private LexemeImpl first;
         private LexemeImpl next;
         private LexemeImpl prev;
+        // the closest non-whitespace, not ignored lexemes in both directions, see relinkSignificantNeighbours():
+        private LexemeImpl nextSignificant;
+        private LexemeImpl previousSignificant;
+        // the sequence this lexeme is linked into, and the increasing position in it:
+        private LexemeSequenceImpl sequence;
+        private long position;
+        // incremented whenever the identification, the flags or the parsed values actually change:
+        private int modificationCount;
 
         LexemeImpl(final LexingFactory factory, final Lexeme lexeme) {
             this.factory = factory;
@@ -519,7 +888,7 @@ public class LexingFactoryImpl implements LexingFactory {
             this.status = lexeme.getStatus();
             this.lexerMessage = lexeme.getLexerMessage();
             this.isSynthetic = lexeme.isSynthetic();
-            this.parsedValues = new HashMap<>(lexeme.getParsedValues());
+            this.parsedValues = ParsedValueMap.copyOf(lexeme.getParsedValues());
             this.startIndex = lexeme.getStartIndex();
             this.endIndex = lexeme.getEndIndex();
             this.certainty = lexeme.getIdentificationCertainty();
@@ -543,7 +912,6 @@ public class LexingFactoryImpl implements LexingFactory {
             this.id = identity;
             this.status = status;
             this.isSynthetic = false;
-            this.parsedValues = new HashMap<>();
         }
 
         @Override
@@ -566,7 +934,13 @@ public class LexingFactoryImpl implements LexingFactory {
         }
 
         public void setStatus(final Status status) {
+            if (this.status != status) {
+                this.modificationCount++;
+            }
             this.status = status;
+            if (this.sequence != null) {
+                this.sequence.lexemeIdentityChanged();
+            }
         }
 
         @Override
@@ -576,6 +950,9 @@ public class LexingFactoryImpl implements LexingFactory {
 
         @Override
         public void setLexerMessage(final String msg) {
+            if (!Objects.equals(this.lexerMessage, msg)) {
+                this.modificationCount++;
+            }
             this.lexerMessage = msg;
         }
 
@@ -622,7 +999,8 @@ public class LexingFactoryImpl implements LexingFactory {
 
         @Override
         public Map<ParsedValueName, Object> getParsedValues() {
-            return Collections.unmodifiableMap(this.parsedValues);
+            // both the shared empty map and ParsedValueMap are read-only:
+            return this.parsedValues;
         }
 
         @Override
@@ -632,11 +1010,9 @@ public class LexingFactoryImpl implements LexingFactory {
 
         @Override
         public Lexeme getFirst(final boolean acceptIgnoredAndWhitespace) {
-            Lexeme retval = this.first;
-            if (!acceptIgnoredAndWhitespace) {
-                while (retval != null && (LexemeIdentity.WHITE_SPACE.equals(retval.getIdentity()) || retval.isIgnored())) {
-                    retval = retval.getNext();
-                }
+            final LexemeImpl retval = this.sequence != null ? this.sequence.head : this.first;
+            if (!acceptIgnoredAndWhitespace && retval != null && !retval.isSignificant()) {
+                return retval.nextSignificant;
             }
             return retval;
         }
@@ -646,10 +1022,6 @@ public class LexingFactoryImpl implements LexingFactory {
             return this.getFirst(false);
         }
 
-        void setFirst(final LexemeImpl token) {
-            this.first = token;
-        }
-
         @Override
         public Lexeme getPrevious() {
             return this.getPrevious(false);
@@ -669,6 +1041,9 @@ public class LexingFactoryImpl implements LexingFactory {
         }
 
         LexemeImpl getPreviousImpl(final boolean acceptIgnored, final boolean acceptWhitespace) {
+            if (!acceptIgnored && !acceptWhitespace) {
+                return this.previousSignificant;
+            }
             LexemeImpl retval = this.prev;
             if (!acceptIgnored || !acceptWhitespace) {
                 boolean notAcceptable = true;
@@ -704,6 +1079,9 @@ public class LexingFactoryImpl implements LexingFactory {
         }
 
         LexemeImpl getNextImpl(final boolean acceptIgnored, final boolean acceptWhitespace) {
+            if (!acceptIgnored && !acceptWhitespace) {
+                return this.nextSignificant;
+            }
             LexemeImpl retval = this.next;
             if (!acceptIgnored || !acceptWhitespace) {
                 boolean notAcceptable = true;
@@ -720,6 +1098,87 @@ public class LexingFactoryImpl implements LexingFactory {
             return retval;
         }
 
+        @Override
+        public long getPosition() {
+            return this.position;
+        }
+
+        @Override
+        public Object getOrigin() {
+            return this.sequence;
+        }
+
+        @Override
+        public LexemeIdentityIndex getIdentityIndex() {
+            return this.sequence != null ? this.sequence.getIdentityIndex() : null;
+        }
+
+        /**
+         * Returns a counter increased by each change to the identity, status, lexer message, certainty, ignored and
+         * synthetic flags or parsed values of this lexeme. Setting a property to its current value is not counted.
+         *
+         * @return the modification count
+         */
+        int getModificationCount() {
+            return this.modificationCount;
+        }
+
+        LexemeSequenceImpl getSequence() {
+            return this.sequence;
+        }
+
+        /**
+         * Returns the context index of the sequence this lexeme belongs to, creating it if necessary.
+         *
+         * @return the index, or null if this lexeme is not linked into a sequence
+         */
+        LexemeContextIndex getContextIndex() {
+            return this.sequence == null ? null : this.sequence.getContextIndex();
+        }
+
+        private void updateContextIndex(final LexemeIdentity previousIdentity, final boolean wasSignificant) {
+            final LexemeContextIndex index = this.sequence == null ? null : this.sequence.contextIndex;
+            if (index != null) {
+                if (wasSignificant && previousIdentity != null) {
+                    index.remove(this, previousIdentity);
+                }
+                if (this.isSignificant() && this.id != null) {
+                    index.add(this, this.id);
+                }
+            }
+        }
+
+        boolean isSignificant() {
+            return !this.explicitlyIgnored && !LexemeIdentity.WHITE_SPACE.equals(this.id);
+        }
+
+        /**
+         * Updates the significant neighbour links after this lexeme has been linked into a sequence, or its significance
+         * (whitespace or ignored) has changed. Only the links of this lexeme and the lexemes between it and the closest
+         * significant lexemes on either side can change, so this is proportional to the amount of adjacent whitespace.
+         * After unlinking a lexeme, this must be called for one of its former neighbours.
+         */
+        void relinkSignificantNeighbours() {
+            this.previousSignificant = this.prev == null ? null : this.prev.isSignificant() ? this.prev : this.prev.previousSignificant;
+            this.nextSignificant = this.next == null ? null : this.next.isSignificant() ? this.next : this.next.nextSignificant;
+            LexemeImpl l = this.prev;
+            while (l != null) {
+                l.nextSignificant = l.next.isSignificant() ? l.next : l.next.nextSignificant;
+                if (l.isSignificant()) {
+                    break;
+                }
+                l = l.prev;
+            }
+            l = this.next;
+            while (l != null) {
+                l.previousSignificant = l.prev.isSignificant() ? l.prev : l.prev.previousSignificant;
+                if (l.isSignificant()) {
+                    break;
+                }
+                l = l.next;
+            }
+        }
+
         @Override
         public boolean hasPrevious() {
             return this.hasPrevious(false);
@@ -742,6 +1201,9 @@ public class LexingFactoryImpl implements LexingFactory {
 
         @Override
         public LexemeSequence getTailSequence() throws IllegalStateException {
+            if (this.sequence != null) {
+                return LexemeSequenceView.of(this.next, this.sequence.tail);
+            }
             final LexemeSequenceBuilder lsb = new LexemeSequenceBuilderImpl(this.factory);
             LexemeImpl l = this.next;
             while (l != null) {
@@ -757,6 +1219,9 @@ public class LexingFactoryImpl implements LexingFactory {
         }
 
         public void setSynthetic(final boolean synthetic) {
+            if (this.isSynthetic != synthetic) {
+                this.modificationCount++;
+            }
             isSynthetic = synthetic;
         }
 
@@ -784,6 +1249,9 @@ public class LexingFactoryImpl implements LexingFactory {
             if (percentage < 0.0 || percentage > 1.0) {
                 throw new IllegalArgumentException("Certainty must be between 0.0 and 1.0");
             }
+            if (Double.compare(this.certainty, percentage) != 0) {
+                this.modificationCount++;
+            }
             this.certainty = percentage;
         }
 
@@ -800,7 +1268,16 @@ public class LexingFactoryImpl implements LexingFactory {
          */
         @Override
         public void setIgnored(final boolean explicitlyIgnored) {
-            this.explicitlyIgnored = explicitlyIgnored;
+            if (this.explicitlyIgnored != explicitlyIgnored) {
+                final boolean wasSignificant = this.isSignificant();
+                this.explicitlyIgnored = explicitlyIgnored;
+                this.modificationCount++;
+                this.relinkSignificantNeighbours();
+                if (this.sequence != null) {
+                    this.sequence.lexemeIgnoredChanged();
+                }
+                this.updateContextIndex(this.id, wasSignificant);
+            }
         }
 
         @Override
@@ -815,10 +1292,24 @@ public class LexingFactoryImpl implements LexingFactory {
 
         @Override
         public void identify(final LexemeIdentity id, final Status status, final String note, final double certainty) {
+            final boolean wasSignificant = this.isSignificant();
+            final LexemeIdentity previousIdentity = this.id;
             this.id = id;
+            if (wasSignificant != this.isSignificant()) {
+                this.relinkSignificantNeighbours();
+            }
+            if (previousIdentity != id || wasSignificant != this.isSignificant()) {
+                this.updateContextIndex(previousIdentity, wasSignificant);
+            }
+            if (previousIdentity != id || this.status != status || !Objects.equals(this.lexerMessage, note)) {
+                this.modificationCount++;
+            }
             this.status = status;
             this.lexerMessage = note;
             this.setIdentificationCertainty(certainty);
+            if (this.sequence != null) {
+                this.sequence.lexemeIdentityChanged();
+            }
         }
 
         @Override
@@ -842,7 +1333,13 @@ public class LexingFactoryImpl implements LexingFactory {
                 if (!this.id.canStore(name)) {
                     throw new IllegalArgumentException(this.id + " can only store " + id.getPossibleNames());
                 }
-                this.parsedValues.put(name, value);
+                if (this.parsedValues.isEmpty()) {
+                    this.parsedValues = new ParsedValueMap();
+                }
+                if (!Objects.deepEquals(this.parsedValues.get(name), value)) {
+                    this.modificationCount++;
+                }
+                ((ParsedValueMap) this.parsedValues).set(name, value);
             } else {
                 throw new IllegalStateException("Cannot set parsed value before identifying Lexeme");
             }
@@ -868,30 +1365,8 @@ public class LexingFactoryImpl implements LexingFactory {
 
         @Override
         public Lexeme findNext(final LexemeIdentity needle, final Consumer<Lexeme> found, final LexemeParsingNotifyer notFound) {
-            Lexeme retval = null;
-            Lexeme current = this.getNext();
-            if (current != null) {
-                boolean stop = false;
-                LexemeIdentity currentId;
-                while (!stop) {
-                    currentId = current.getIdentityIfAcceptable();
-                    if (needle == null || (currentId != null && currentId.equals(needle))) {
-                        retval = current;
-                    }
-                    stop = !current.hasNext() || retval != null;
-                    current = current.getNext();
-                }
-            }
-            if (retval != null) {
-                if (found != null) {
-                    found.accept(retval);
-                }
-            } else {
-                if (notFound != null) {
-                    notFound.ping();
-                }
-            }
-            return retval;
+            final LexemeIdentityIndex index = this.sequence == null || needle == null ? null : this.sequence.getIdentityIndexForLookup();
+            return LexingFactoryImpl.findNext(this, index, this.position, needle, found, notFound);
         }
 
         public String toString() {
@@ -0,0 +1,55 @@
+package fi.fmi.avi.converter.tac.lexer.impl;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Snapshot of the lexing rounds run by {@link AviMessageLexerImpl} for the messages of one type. Each round re-visits the
+ * lexemes affected by the changes made in the previous one, until no more changes are made.
+ *
+ * @see AviMessageLexerImpl#setStatisticsEnabled(boolean)
+ */
+public final class MessageTypeStatistics {
+    private final String messageType;
+    private final long lexedMessageCount;
+    private final long iterationCount;
+    private final long maxIterationCount;
+
+    @ConstructorProperties({ "messageType", "lexedMessageCount", "iterationCount", "maxIterationCount" })
+    public MessageTypeStatistics(final String messageType, final long lexedMessageCount, final long iterationCount, final long maxIterationCount) {
+        this.messageType = messageType;
+        this.lexedMessageCount = lexedMessageCount;
+        this.iterationCount = iterationCount;
+        this.maxIterationCount = maxIterationCount;
+    }
+
+    public String getMessageType() {
+        return this.messageType;
+    }
+
+    public long getLexedMessageCount() {
+        return this.lexedMessageCount;
+    }
+
+    /**
+     * The total number of lexing rounds over all the messages of this type.
+     *
+     * @return the round count
+     */
+    public long getIterationCount() {
+        return this.iterationCount;
+    }
+
+    /**
+     * The largest number of lexing rounds needed for a single message of this type.
+     *
+     * @return the maximum round count
+     */
+    public long getMaxIterationCount() {
+        return this.maxIterationCount;
+    }
+
+    @Override
+    public String toString() {
+        return this.messageType + ": messages=" + this.lexedMessageCount + ", iterations=" + this.iterationCount + ", maxIterations=" + this.maxIterationCount;
+    }
+}
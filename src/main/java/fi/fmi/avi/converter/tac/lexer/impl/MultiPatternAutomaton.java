@@ -0,0 +1,750 @@
+package fi.fmi.avi.converter.tac.lexer.impl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * A deterministic finite automaton answering in a single scan of a token which ones of a set of regular expressions
+ * fully match it, as {@link java.util.regex.Matcher#matches()} would.
+ *
+ * The automaton supports the regular subset of the {@link Pattern} syntax used by the token visitors: literals,
+ * character classes with ranges and negation, the predefined classes <code>\s \S \d \D \w \W</code> and <code>.</code>,
+ * capturing, named and non-capturing groups, alternation, greedy and reluctant quantifiers, and the <code>^</code> and
+ * <code>$</code> anchors at the ends of the expression. Patterns using anything else (lookaround, back references,
+ * possessive quantifiers, inline flags etc.) or compiled with flags are not included in the automaton, and
+ * {@link #isSupported(int)} returns false for them. The automaton only handles pure ASCII input, {@link #match(CharSequence)}
+ * returns null for other tokens.
+ *
+ * Capturing groups are not tracked: for the capture offsets the matching pattern needs to be run normally, but only for
+ * the patterns the automaton reports matching.
+ */
+public final class MultiPatternAutomaton {
+    /**
+     * Upper limit for the number of automaton states, compiling more complex pattern sets fails.
+     */
+    public static final int MAX_STATES = 50000;
+
+    private static final int ASCII_LIMIT = 128;
+    private static final int DEAD_STATE = -1;
+    private static final long[] NO_MATCHES = new long[0];
+
+    private final int patternCount;
+    private final BitSet supported;
+    private final int[] characterClasses;
+    private final int characterClassCount;
+    private final int[] transitions;
+    private final long[][] matchesAtEnd;
+
+    private MultiPatternAutomaton(final int patternCount, final BitSet supported, final int[] characterClasses, final int characterClassCount,
+            final int[] transitions, final long[][] matchesAtEnd) {
+        this.patternCount = patternCount;
+        this.supported = supported;
+        this.characterClasses = characterClasses;
+        this.characterClassCount = characterClassCount;
+        this.transitions = transitions;
+        this.matchesAtEnd = matchesAtEnd;
+    }
+
+    /**
+     * Compiles the given patterns into a single automaton. The <code>null</code> patterns and the patterns using
+     * unsupported constructs are left out of the automaton.
+     *
+     * @param patterns the patterns, identified by their index in the list
+     * @return the compiled automaton
+     * @throws IllegalStateException if the automaton would exceed {@link #MAX_STATES} states
+     */
+    public static MultiPatternAutomaton compile(final List<Pattern> patterns) {
+        final Nfa nfa = new Nfa();
+        final NfaState start = nfa.newState();
+        final BitSet supported = new BitSet(patterns.size());
+        for (int i = 0; i < patterns.size(); i++) {
+            final Pattern pattern = patterns.get(i);
+            if (pattern == null || pattern.flags() != 0) {
+                continue;
+            }
+            try {
+                final Node ast = new Parser(pattern.pattern()).parse();
+                final int firstNewState = nfa.states.size();
+                final Fragment fragment = ast.build(nfa);
+                if (!nfa.anchorsOnlyAtEnds(firstNewState)) {
+                    throw new UnsupportedPatternException("$ anchor followed by input");
+                }
+                fragment.out.acceptedPattern = i;
+                start.epsilon.add(fragment.in);
+                supported.set(i);
+            } catch (final UnsupportedPatternException e) {
+                // left for java.util.regex
+            }
+        }
+        return new DfaBuilder(nfa, start, patterns.size(), supported).build();
+    }
+
+    /**
+     * Checks whether the given match result contains the given pattern.
+     *
+     * @param matches the result of {@link #match(CharSequence)}
+     * @param patternIndex the pattern index
+     * @return true if the pattern matched
+     */
+    public static boolean contains(final long[] matches, final int patternIndex) {
+        final int word = patternIndex >>> 6;
+        return word < matches.length && (matches[word] & (1L << patternIndex)) != 0;
+    }
+
+    public int getPatternCount() {
+        return this.patternCount;
+    }
+
+    /**
+     * Tells whether the pattern in the given index is handled by this automaton.
+     *
+     * @param patternIndex index of the pattern in the compiled list
+     * @return true if the results of {@link #match(CharSequence)} are valid for the pattern
+     */
+    public boolean isSupported(final int patternIndex) {
+        return this.supported.get(patternIndex);
+    }
+
+    public int getStateCount() {
+        return this.matchesAtEnd.length;
+    }
+
+    /**
+     * Tells whether some ASCII token fully matches both of the given patterns.
+     *
+     * @param patternIndex index of a supported pattern
+     * @param otherPatternIndex index of another supported pattern
+     * @return true if the languages of the patterns intersect
+     * @throws IllegalArgumentException if either of the patterns is not supported
+     */
+    public boolean mayMatchSameToken(final int patternIndex, final int otherPatternIndex) {
+        if (!isSupported(patternIndex) || !isSupported(otherPatternIndex)) {
+            throw new IllegalArgumentException("Pattern " + (isSupported(patternIndex) ? otherPatternIndex : patternIndex) + " is not supported");
+        }
+        // all the states are reachable from the start state:
+        for (final long[] matches : this.matchesAtEnd) {
+            if (contains(matches, patternIndex) && contains(matches, otherPatternIndex)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the supported patterns fully matching the given token.
+     *
+     * @param token the token to match
+     * @return the indexes of the matching patterns as a bit set to be queried with {@link #contains(long[], int)},
+     *         or null if the token contains non-ASCII characters. The returned array must not be modified.
+     */
+    public long[] match(final CharSequence token) {
+        int state = 0;
+        final int length = token.length();
+        for (int i = 0; i < length; i++) {
+            final char c = token.charAt(i);
+            if (c >= ASCII_LIMIT) {
+                return null;
+            }
+            if (state != DEAD_STATE) {
+                state = this.transitions[state * this.characterClassCount + this.characterClasses[c]];
+            }
+        }
+        return state == DEAD_STATE ? NO_MATCHES : this.matchesAtEnd[state];
+    }
+
+    private static long[] toMask(final char from, final char to) {
+        final long[] mask = new long[2];
+        for (char c = from; c <= to; c++) {
+            mask[c >>> 6] |= 1L << c;
+        }
+        return mask;
+    }
+
+    private static long[] toMask(final String characters) {
+        final long[] mask = new long[2];
+        for (int i = 0; i < characters.length(); i++) {
+            final char c = characters.charAt(i);
+            mask[c >>> 6] |= 1L << c;
+        }
+        return mask;
+    }
+
+    private static boolean inMask(final long[] mask, final int c) {
+        return (mask[c >>> 6] & (1L << c)) != 0;
+    }
+
+    private enum Anchor {
+        NONE, BEGIN, END
+    }
+
+    private static class UnsupportedPatternException extends Exception {
+        private static final long serialVersionUID = -4136802577036950658L;
+
+        UnsupportedPatternException(final String message) {
+            super(message);
+        }
+    }
+
+    private static final class NfaState {
+        private final int id;
+        private final List<NfaState> epsilon = new ArrayList<>(2);
+        private long[] characters;
+        private NfaState next;
+        private Anchor anchor = Anchor.NONE;
+        private int acceptedPattern = -1;
+
+        NfaState(final int id) {
+            this.id = id;
+        }
+    }
+
+    private static final class Fragment {
+        private final NfaState in;
+        private final NfaState out;
+
+        Fragment(final NfaState in, final NfaState out) {
+            this.in = in;
+            this.out = out;
+        }
+    }
+
+    private static final class Nfa {
+        private final List<NfaState> states = new ArrayList<>();
+
+        NfaState newState() {
+            final NfaState state = new NfaState(this.states.size());
+            this.states.add(state);
+            return state;
+        }
+
+        boolean anchorsOnlyAtEnds(final int firstState) {
+            for (int i = firstState; i < this.states.size(); i++) {
+                final NfaState state = this.states.get(i);
+                if (state.anchor == Anchor.END) {
+                    final BitSet visited = new BitSet();
+                    final Deque<NfaState> stack = new ArrayDeque<>();
+                    stack.push(state);
+                    while (!stack.isEmpty()) {
+                        final NfaState s = stack.pop();
+                        if (!visited.get(s.id)) {
+                            visited.set(s.id);
+                            if (s.characters != null) {
+                                return false;
+                            }
+                            s.epsilon.forEach(stack::push);
+                        }
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    private interface Node {
+        Fragment build(Nfa nfa);
+    }
+
+    private static final class CharacterSetNode implements Node {
+        private final long[] mask;
+
+        CharacterSetNode(final long[] mask) {
+            this.mask = mask;
+        }
+
+        @Override
+        public Fragment build(final Nfa nfa) {
+            final NfaState in = nfa.newState();
+            final NfaState out = nfa.newState();
+            in.characters = this.mask;
+            in.next = out;
+            return new Fragment(in, out);
+        }
+    }
+
+    private static final class AnchorNode implements Node {
+        private final Anchor anchor;
+
+        AnchorNode(final Anchor anchor) {
+            this.anchor = anchor;
+        }
+
+        @Override
+        public Fragment build(final Nfa nfa) {
+            final NfaState in = nfa.newState();
+            final NfaState out = nfa.newState();
+            in.anchor = this.anchor;
+            in.epsilon.add(out);
+            return new Fragment(in, out);
+        }
+    }
+
+    private static final class SequenceNode implements Node {
+        private final List<Node> items;
+
+        SequenceNode(final List<Node> items) {
+            this.items = items;
+        }
+
+        @Override
+        public Fragment build(final Nfa nfa) {
+            final NfaState in = nfa.newState();
+            NfaState out = in;
+            for (final Node item : this.items) {
+                final Fragment fragment = item.build(nfa);
+                out.epsilon.add(fragment.in);
+                out = fragment.out;
+            }
+            return new Fragment(in, out);
+        }
+    }
+
+    private static final class AlternationNode implements Node {
+        private final List<Node> alternatives;
+
+        AlternationNode(final List<Node> alternatives) {
+            this.alternatives = alternatives;
+        }
+
+        @Override
+        public Fragment build(final Nfa nfa) {
+            final NfaState in = nfa.newState();
+            final NfaState out = nfa.newState();
+            for (final Node alternative : this.alternatives) {
+                final Fragment fragment = alternative.build(nfa);
+                in.epsilon.add(fragment.in);
+                fragment.out.epsilon.add(out);
+            }
+            return new Fragment(in, out);
+        }
+    }
+
+    private static final class RepetitionNode implements Node {
+        private static final int UNBOUNDED = -1;
+        private final Node item;
+        private final int min;
+        private final int max;
+
+        RepetitionNode(final Node item, final int min, final int max) {
+            this.item = item;
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        public Fragment build(final Nfa nfa) {
+            final NfaState in = nfa.newState();
+            NfaState out = in;
+            for (int i = 0; i < this.min; i++) {
+                final Fragment fragment = this.item.build(nfa);
+                out.epsilon.add(fragment.in);
+                out = fragment.out;
+            }
+            if (this.max == UNBOUNDED) {
+                final NfaState loop = nfa.newState();
+                final NfaState end = nfa.newState();
+                final Fragment fragment = this.item.build(nfa);
+                out.epsilon.add(loop);
+                loop.epsilon.add(fragment.in);
+                loop.epsilon.add(end);
+                fragment.out.epsilon.add(loop);
+                out = end;
+            } else {
+                final NfaState end = nfa.newState();
+                for (int i = this.min; i < this.max; i++) {
+                    final Fragment fragment = this.item.build(nfa);
+                    out.epsilon.add(fragment.in);
+                    out.epsilon.add(end);
+                    out = fragment.out;
+                }
+                out.epsilon.add(end);
+                out = end;
+            }
+            return new Fragment(in, out);
+        }
+    }
+
+    /**
+     * Recursive descent parser for the supported subset of the java.util.regex syntax.
+     */
+    private static final class Parser {
+        private static final long[] WHITESPACE = toMask(" \t\n\u000B\f\r");
+        private static final long[] DIGITS = toMask('0', '9');
+        private static final long[] WORD_CHARACTERS = union(union(toMask('a', 'z'), toMask('A', 'Z')), union(DIGITS, toMask("_")));
+        private static final long[] DOT = complement(toMask("\n\r"));
+
+        private final String pattern;
+        private int pos;
+
+        Parser(final String pattern) {
+            this.pattern = pattern;
+        }
+
+        private static long[] union(final long[] a, final long[] b) {
+            return new long[] { a[0] | b[0], a[1] | b[1] };
+        }
+
+        private static long[] complement(final long[] a) {
+            return new long[] { ~a[0], ~a[1] };
+        }
+
+        Node parse() throws UnsupportedPatternException {
+            final Node node = parseAlternation();
+            if (this.pos < this.pattern.length()) {
+                throw new UnsupportedPatternException("Unexpected character at " + this.pos);
+            }
+            return node;
+        }
+
+        private boolean atEnd() {
+            return this.pos >= this.pattern.length();
+        }
+
+        private char peek() {
+            return this.pattern.charAt(this.pos);
+        }
+
+        private Node parseAlternation() throws UnsupportedPatternException {
+            final List<Node> alternatives = new ArrayList<>();
+            alternatives.add(parseSequence());
+            while (!atEnd() && peek() == '|') {
+                this.pos++;
+                alternatives.add(parseSequence());
+            }
+            return alternatives.size() == 1 ? alternatives.get(0) : new AlternationNode(alternatives);
+        }
+
+        private Node parseSequence() throws UnsupportedPatternException {
+            final List<Node> items = new ArrayList<>();
+            while (!atEnd() && peek() != '|' && peek() != ')') {
+                items.add(parseQuantified(parseAtom()));
+            }
+            return new SequenceNode(items);
+        }
+
+        private Node parseQuantified(final Node atom) throws UnsupportedPatternException {
+            Node node = atom;
+            while (!atEnd()) {
+                final char c = peek();
+                final int min;
+                final int max;
+                if (c == '?') {
+                    min = 0;
+                    max = 1;
+                    this.pos++;
+                } else if (c == '*') {
+                    min = 0;
+                    max = RepetitionNode.UNBOUNDED;
+                    this.pos++;
+                } else if (c == '+') {
+                    min = 1;
+                    max = RepetitionNode.UNBOUNDED;
+                    this.pos++;
+                } else if (c == '{') {
+                    final int close = this.pattern.indexOf('}', this.pos);
+                    if (close < 0) {
+                        throw new UnsupportedPatternException("Unclosed repetition");
+                    }
+                    final String spec = this.pattern.substring(this.pos + 1, close);
+                    try {
+                        final int comma = spec.indexOf(',');
+                        if (comma < 0) {
+                            min = Integer.parseInt(spec);
+                            max = min;
+                        } else {
+                            min = Integer.parseInt(spec.substring(0, comma));
+                            max = comma == spec.length() - 1 ? RepetitionNode.UNBOUNDED : Integer.parseInt(spec.substring(comma + 1));
+                        }
+                    } catch (final NumberFormatException e) {
+                        throw new UnsupportedPatternException("Invalid repetition " + spec);
+                    }
+                    if (max != RepetitionNode.UNBOUNDED && max < min) {
+                        throw new UnsupportedPatternException("Invalid repetition " + spec);
+                    }
+                    this.pos = close + 1;
+                } else {
+                    break;
+                }
+                if (!atEnd() && peek() == '?') {
+                    // reluctant quantifiers accept the same inputs for full matches
+                    this.pos++;
+                } else if (!atEnd() && peek() == '+') {
+                    throw new UnsupportedPatternException("Possessive quantifier");
+                }
+                node = new RepetitionNode(node, min, max);
+            }
+            return node;
+        }
+
+        private Node parseAtom() throws UnsupportedPatternException {
+            final char c = peek();
+            this.pos++;
+            switch (c) {
+                case '(':
+                    return parseGroup();
+                case '[':
+                    return new CharacterSetNode(parseCharacterClass());
+                case '.':
+                    return new CharacterSetNode(DOT);
+                case '^':
+                    return new AnchorNode(Anchor.BEGIN);
+                case '$':
+                    return new AnchorNode(Anchor.END);
+                case '\\':
+                    return new CharacterSetNode(parseEscape());
+                case '?':
+                case '*':
+                case '+':
+                case '{':
+                case '}':
+                case ']':
+                    throw new UnsupportedPatternException("Unexpected " + c);
+                default:
+                    if (c >= ASCII_LIMIT) {
+                        throw new UnsupportedPatternException("Non-ASCII literal");
+                    }
+                    return new CharacterSetNode(toMask(String.valueOf(c)));
+            }
+        }
+
+        private Node parseGroup() throws UnsupportedPatternException {
+            if (!atEnd() && peek() == '?') {
+                this.pos++;
+                if (atEnd()) {
+                    throw new UnsupportedPatternException("Unclosed group");
+                }
+                final char kind = peek();
+                if (kind == ':') {
+                    this.pos++;
+                } else if (kind == '<' && this.pos + 1 < this.pattern.length() && Character.isLetter(this.pattern.charAt(this.pos + 1))) {
+                    final int close = this.pattern.indexOf('>', this.pos);
+                    if (close < 0) {
+                        throw new UnsupportedPatternException("Unclosed group name");
+                    }
+                    this.pos = close + 1;
+                } else {
+                    throw new UnsupportedPatternException("Unsupported group construct (?" + kind);
+                }
+            }
+            final Node node = parseAlternation();
+            if (atEnd() || peek() != ')') {
+                throw new UnsupportedPatternException("Unclosed group");
+            }
+            this.pos++;
+            return node;
+        }
+
+        private long[] parseEscape() throws UnsupportedPatternException {
+            if (atEnd()) {
+                throw new UnsupportedPatternException("Trailing backslash");
+            }
+            final char c = peek();
+            this.pos++;
+            switch (c) {
+                case 's':
+                    return WHITESPACE;
+                case 'S':
+                    return complement(WHITESPACE);
+                case 'd':
+                    return DIGITS;
+                case 'D':
+                    return complement(DIGITS);
+                case 'w':
+                    return WORD_CHARACTERS;
+                case 'W':
+                    return complement(WORD_CHARACTERS);
+                case 't':
+                    return toMask("\t");
+                case 'n':
+                    return toMask("\n");
+                case 'r':
+                    return toMask("\r");
+                case 'f':
+                    return toMask("\f");
+                default:
+                    if (c < ASCII_LIMIT && !Character.isLetterOrDigit(c)) {
+                        return toMask(String.valueOf(c));
+                    }
+                    throw new UnsupportedPatternException("Unsupported escape \\" + c);
+            }
+        }
+
+        private long[] parseCharacterClass() throws UnsupportedPatternException {
+            boolean negated = false;
+            if (!atEnd() && peek() == '^') {
+                negated = true;
+                this.pos++;
+            }
+            long[] mask = new long[2];
+            boolean first = true;
+            while (true) {
+                if (atEnd()) {
+                    throw new UnsupportedPatternException("Unclosed character class");
+                }
+                final char c = peek();
+                if (c == ']') {
+                    if (first) {
+                        throw new UnsupportedPatternException("Empty character class");
+                    }
+                    this.pos++;
+                    break;
+                }
+                if (c == '[' || c == '&' || c >= ASCII_LIMIT) {
+                    throw new UnsupportedPatternException("Unsupported character class content");
+                }
+                this.pos++;
+                first = false;
+                if (c == '\\') {
+                    final long[] escaped = parseEscape();
+                    mask = union(mask, escaped);
+                    if (!atEnd() && peek() == '-' && this.pos + 1 < this.pattern.length() && this.pattern.charAt(this.pos + 1) != ']') {
+                        throw new UnsupportedPatternException("Range starting with an escape");
+                    }
+                    continue;
+                }
+                if (!atEnd() && peek() == '-' && this.pos + 1 < this.pattern.length() && this.pattern.charAt(this.pos + 1) != ']') {
+                    final char to = this.pattern.charAt(this.pos + 1);
+                    if (to == '\\' || to == '[' || to >= ASCII_LIMIT || to < c) {
+                        throw new UnsupportedPatternException("Unsupported range");
+                    }
+                    this.pos += 2;
+                    mask = union(mask, toMask(c, to));
+                } else {
+                    mask = union(mask, toMask(String.valueOf(c)));
+                }
+            }
+            return negated ? complement(mask) : mask;
+        }
+    }
+
+    /**
+     * Subset construction of the DFA from the combined NFA.
+     */
+    private static final class DfaBuilder {
+        private final Nfa nfa;
+        private final NfaState start;
+        private final int patternCount;
+        private final BitSet supported;
+        private final Map<BitSet, Integer> stateIds = new HashMap<>();
+        private final List<BitSet> states = new ArrayList<>();
+        private final List<long[]> matchesAtEnd = new ArrayList<>();
+        private int[] characterClasses;
+        private int characterClassCount;
+        private char[] classRepresentatives;
+
+        DfaBuilder(final Nfa nfa, final NfaState start, final int patternCount, final BitSet supported) {
+            this.nfa = nfa;
+            this.start = start;
+            this.patternCount = patternCount;
+            this.supported = supported;
+        }
+
+        MultiPatternAutomaton build() {
+            computeCharacterClasses();
+            final BitSet initial = new BitSet();
+            initial.set(this.start.id);
+            addState(closure(initial, true, false), true);
+            final List<int[]> rows = new ArrayList<>();
+            for (int i = 0; i < this.states.size(); i++) {
+                final BitSet state = this.states.get(i);
+                final int[] row = new int[this.characterClassCount];
+                for (int cls = 0; cls < this.characterClassCount; cls++) {
+                    final char c = this.classRepresentatives[cls];
+                    final BitSet target = new BitSet();
+                    for (int s = state.nextSetBit(0); s >= 0; s = state.nextSetBit(s + 1)) {
+                        final NfaState nfaState = this.nfa.states.get(s);
+                        if (nfaState.characters != null && inMask(nfaState.characters, c)) {
+                            target.set(nfaState.next.id);
+                        }
+                    }
+                    row[cls] = target.isEmpty() ? DEAD_STATE : addState(closure(target, false, false), false);
+                }
+                rows.add(row);
+            }
+            final int[] transitions = new int[rows.size() * this.characterClassCount];
+            for (int i = 0; i < rows.size(); i++) {
+                System.arraycopy(rows.get(i), 0, transitions, i * this.characterClassCount, this.characterClassCount);
+            }
+            return new MultiPatternAutomaton(this.patternCount, this.supported, this.characterClasses, this.characterClassCount, transitions,
+                    this.matchesAtEnd.toArray(new long[0][]));
+        }
+
+        private void computeCharacterClasses() {
+            final List<long[]> masks = new ArrayList<>();
+            for (final NfaState state : this.nfa.states) {
+                if (state.characters != null) {
+                    masks.add(state.characters);
+                }
+            }
+            final Map<BitSet, Integer> classBySignature = new HashMap<>();
+            this.characterClasses = new int[ASCII_LIMIT];
+            final char[] representatives = new char[ASCII_LIMIT];
+            for (char c = 0; c < ASCII_LIMIT; c++) {
+                final BitSet signature = new BitSet(masks.size());
+                for (int m = 0; m < masks.size(); m++) {
+                    if (inMask(masks.get(m), c)) {
+                        signature.set(m);
+                    }
+                }
+                Integer cls = classBySignature.get(signature);
+                if (cls == null) {
+                    cls = classBySignature.size();
+                    classBySignature.put(signature, cls);
+                    representatives[cls] = c;
+                }
+                this.characterClasses[c] = cls;
+            }
+            this.characterClassCount = classBySignature.size();
+            this.classRepresentatives = Arrays.copyOf(representatives, this.characterClassCount);
+        }
+
+        private int addState(final BitSet nfaStates, final boolean initial) {
+            final Integer existing = this.stateIds.get(nfaStates);
+            if (existing != null) {
+                return existing;
+            }
+            if (this.states.size() >= MAX_STATES) {
+                throw new IllegalStateException("Pattern automaton exceeds the maximum of " + MAX_STATES + " states");
+            }
+            final int id = this.states.size();
+            this.states.add(nfaStates);
+            this.stateIds.put(nfaStates, id);
+            final long[] matches = new long[(this.patternCount + 63) / 64];
+            final BitSet atEnd = closure(nfaStates, initial, true);
+            for (int s = atEnd.nextSetBit(0); s >= 0; s = atEnd.nextSetBit(s + 1)) {
+                final int accepted = this.nfa.states.get(s).acceptedPattern;
+                if (accepted >= 0) {
+                    matches[accepted >>> 6] |= 1L << accepted;
+                }
+            }
+            this.matchesAtEnd.add(matches);
+            return id;
+        }
+
+        private BitSet closure(final BitSet nfaStates, final boolean atBeginning, final boolean atEnd) {
+            final BitSet result = new BitSet();
+            final Deque<NfaState> stack = new ArrayDeque<>();
+            for (int s = nfaStates.nextSetBit(0); s >= 0; s = nfaStates.nextSetBit(s + 1)) {
+                stack.push(this.nfa.states.get(s));
+            }
+            while (!stack.isEmpty()) {
+                final NfaState state = stack.pop();
+                if (result.get(state.id)) {
+                    continue;
+                }
+                result.set(state.id);
+                if ((state.anchor == Anchor.BEGIN && !atBeginning) || (state.anchor == Anchor.END && !atEnd)) {
+                    continue;
+                }
+                state.epsilon.forEach(stack::push);
+            }
+            return result;
+        }
+    }
+}
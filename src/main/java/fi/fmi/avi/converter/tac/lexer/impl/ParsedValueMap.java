@@ -0,0 +1,150 @@
+package fi.fmi.avi.converter.tac.lexer.impl;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import fi.fmi.avi.converter.tac.lexer.Lexeme.ParsedValueName;
+
+/**
+ * Compact storage for the parsed values of a lexeme.
+ *
+ * The names present are kept as a bit mask indexed by {@link ParsedValueName#ordinal()}, and the values in an array
+ * holding only the present names in their ordinal order. A lexeme typically stores just a few values, so this
+ * takes a fraction of the memory of a {@link java.util.HashMap} or {@link java.util.EnumMap}. The lexemes storing no
+ * values should share {@link Collections#emptyMap()} instead of an instance of this class, see {@link #copyOf(Map)}.
+ *
+ * The map is read-only through the {@link Map} interface, the values are set using {@link #set(ParsedValueName, Object)}.
+ * Iteration is in the ordinal order of the names.
+ */
+final class ParsedValueMap extends AbstractMap<ParsedValueName, Object> {
+    private static final ParsedValueName[] NAMES = ParsedValueName.values();
+
+    static {
+        if (NAMES.length > Long.SIZE) {
+            throw new IllegalStateException("Too many parsed value names for a bit mask: " + NAMES.length);
+        }
+    }
+
+    private long present;
+    private Object[] values;
+
+    ParsedValueMap() {
+        this.values = new Object[1];
+    }
+
+    private ParsedValueMap(final ParsedValueMap other) {
+        this.present = other.present;
+        this.values = other.values.clone();
+    }
+
+    /**
+     * Returns a copy of the given parsed values, or the shared empty map if there are none.
+     *
+     * @param values the values to copy
+     * @return the copy
+     */
+    static Map<ParsedValueName, Object> copyOf(final Map<ParsedValueName, Object> values) {
+        if (values.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        if (values instanceof ParsedValueMap) {
+            return new ParsedValueMap((ParsedValueMap) values);
+        }
+        final ParsedValueMap retval = new ParsedValueMap();
+        for (final Map.Entry<ParsedValueName, Object> entry : values.entrySet()) {
+            retval.set(entry.getKey(), entry.getValue());
+        }
+        return retval;
+    }
+
+    private int slot(final int ordinal) {
+        return Long.bitCount(this.present & ((1L << ordinal) - 1));
+    }
+
+    /**
+     * Sets the value of the given name, replacing any previous value.
+     *
+     * @param name the parsed value name
+     * @param value the value, may be null
+     */
+    void set(final ParsedValueName name, final Object value) {
+        final int ordinal = name.ordinal();
+        final int slot = slot(ordinal);
+        final long bit = 1L << ordinal;
+        if ((this.present & bit) == 0) {
+            final int count = Long.bitCount(this.present);
+            if (count == this.values.length) {
+                final Object[] grown = new Object[count + 2];
+                System.arraycopy(this.values, 0, grown, 0, slot);
+                System.arraycopy(this.values, slot, grown, slot + 1, count - slot);
+                this.values = grown;
+            } else {
+                System.arraycopy(this.values, slot, this.values, slot + 1, count - slot);
+            }
+            this.present |= bit;
+        }
+        this.values[slot] = value;
+    }
+
+    @Override
+    public Object get(final Object key) {
+        if (!(key instanceof ParsedValueName)) {
+            return null;
+        }
+        final int ordinal = ((ParsedValueName) key).ordinal();
+        return (this.present & (1L << ordinal)) != 0 ? this.values[slot(ordinal)] : null;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return key instanceof ParsedValueName && (this.present & (1L << ((ParsedValueName) key).ordinal())) != 0;
+    }
+
+    @Override
+    public int size() {
+        return Long.bitCount(this.present);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.present == 0;
+    }
+
+    @Override
+    public Set<Map.Entry<ParsedValueName, Object>> entrySet() {
+        return new AbstractSet<Map.Entry<ParsedValueName, Object>>() {
+            @Override
+            public Iterator<Map.Entry<ParsedValueName, Object>> iterator() {
+                return new Iterator<Map.Entry<ParsedValueName, Object>>() {
+                    private long remaining = ParsedValueMap.this.present;
+                    private int slot = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return this.remaining != 0;
+                    }
+
+                    @Override
+                    public Map.Entry<ParsedValueName, Object> next() {
+                        if (this.remaining == 0) {
+                            throw new NoSuchElementException();
+                        }
+                        final int ordinal = Long.numberOfTrailingZeros(this.remaining);
+                        this.remaining &= this.remaining - 1;
+                        return new SimpleImmutableEntry<>(NAMES[ordinal], ParsedValueMap.this.values[this.slot++]);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return ParsedValueMap.this.size();
+            }
+        };
+    }
+}
@@ -0,0 +1,33 @@
+package fi.fmi.avi.converter.tac.lexer.impl;
+
+import fi.fmi.avi.converter.tac.lexer.Lexeme;
+
+/**
+ * A lexeme of the sequences of this package, knowing its position in the sequence it was created in and the identity
+ * index of the sequence or subsequence it was reached through. Lets {@link LexemeUtils} answer the order queries from
+ * the index regardless of the sequence implementation.
+ */
+interface PositionedLexeme extends Lexeme {
+
+    /**
+     * Returns the position of the lexeme in the sequence it was created in, increasing in the sequence order. The lexemes
+     * of the subsequences have the same positions as the lexemes they refer to.
+     *
+     * @return the position
+     */
+    long getPosition();
+
+    /**
+     * Returns the object identifying the sequence the lexeme was created in, shared by the lexemes of all the
+     * subsequences split from it.
+     *
+     * @return the origin, or null if the lexeme is not linked into a sequence
+     */
+    Object getOrigin();
+
+    /**
+     * @return the identity index of the sequence or subsequence of this lexeme, or null if the lexeme is not linked into
+     *         a sequence
+     */
+    LexemeIdentityIndex getIdentityIndex();
+}
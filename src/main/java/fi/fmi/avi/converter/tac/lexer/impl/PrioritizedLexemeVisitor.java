@@ -21,6 +21,7 @@ public abstract class PrioritizedLexemeVisitor implements LexemeVisitor, Compara
     }
 
     private OccurrenceFrequency expectedOccurrence;
+    private TokenPreconditions preconditions = TokenPreconditions.NONE;
 
     protected PrioritizedLexemeVisitor(final OccurrenceFrequency expectedOccurrence) {
         this.expectedOccurrence = expectedOccurrence;
@@ -43,6 +44,20 @@ public abstract class PrioritizedLexemeVisitor implements LexemeVisitor, Compara
         return this;
     }
 
+    /**
+     * Returns the static preconditions any token must fulfill for this visitor to possibly identify it.
+     * Used by {@link RecognizingAviMessageTokenLexer} to skip this visitor for tokens it cannot match.
+     *
+     * @return the token preconditions, {@link TokenPreconditions#NONE} by default
+     */
+    public TokenPreconditions getPreconditions() {
+        return this.preconditions;
+    }
+
+    protected void setPreconditions(final TokenPreconditions preconditions) {
+        this.preconditions = preconditions == null ? TokenPreconditions.NONE : preconditions;
+    }
+
     @Override
     public int compareTo(final LexemeVisitor o) {
         if (o instanceof PrioritizedLexemeVisitor) {
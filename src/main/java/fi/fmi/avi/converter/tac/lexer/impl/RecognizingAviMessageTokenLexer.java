@@ -1,11 +1,19 @@
 package fi.fmi.avi.converter.tac.lexer.impl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
 
 import fi.fmi.avi.converter.ConversionHints;
 import fi.fmi.avi.converter.tac.lexer.Lexeme;
+import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
 import fi.fmi.avi.converter.tac.lexer.LexemeSequence;
 import fi.fmi.avi.converter.tac.lexer.LexemeVisitor;
 import fi.fmi.avi.model.MessageType;
@@ -18,6 +26,8 @@ public class RecognizingAviMessageTokenLexer implements LexemeVisitor {
     public enum RelationalOperator {
         LESS_THAN("M"), MORE_THAN("P");
 
+        private static final RelationalOperator[] VALUES = values();
+
         private final String code;
 
         RelationalOperator(final String code) {
@@ -32,11 +42,22 @@ public class RecognizingAviMessageTokenLexer implements LexemeVisitor {
             }
             return null;
         }
+
+        public static RelationalOperator forCode(final char code) {
+            for (RelationalOperator w : VALUES) {
+                if (w.code.length() == 1 && w.code.charAt(0) == code) {
+                    return w;
+                }
+            }
+            return null;
+        }
     }
 
     public enum TendencyOperator {
         UPWARD("U"), DOWNWARD("D"), NO_CHANGE("N");
 
+        private static final TendencyOperator[] VALUES = values();
+
         private final String code;
 
         TendencyOperator(final String code) {
@@ -51,12 +72,49 @@ public class RecognizingAviMessageTokenLexer implements LexemeVisitor {
             }
             return null;
         }
+
+        public static TendencyOperator forCode(final char code) {
+            for (TendencyOperator w : VALUES) {
+                if (w.code.length() == 1 && w.code.charAt(0) == code) {
+                    return w;
+                }
+            }
+            return null;
+        }
     }
 
+    private static final int DISPATCH_INDEX_SIZE = 129;
+    private static final int NON_ASCII_INDEX = 128;
+    private static final int DEFAULT_ADAPTIVE_REORDER_INTERVAL = 10000;
+    // reading the clock costs as much as a typical visit, so only one in 16 visits is timed:
+    private static final int TIMING_SAMPLE_MASK = 15;
+
     private SuitabilityTester matcher;
 
     private final List<PrioritizedLexemeVisitor> visitors = new ArrayList<PrioritizedLexemeVisitor>();
 
+    private PrioritizedLexemeVisitor[] allVisitors = new PrioritizedLexemeVisitor[0];
+    // indexes of allVisitors in priority order by the first character of the token, the last one for non-ASCII characters:
+    private int[][] visitorsByFirstCharacter = createDispatchIndex(Collections.emptyList());
+
+    private boolean patternAutomatonEnabled = false;
+    // compiled on first use after teaching:
+    private volatile MultiPatternAutomaton patternAutomaton;
+
+    // the visitor order used for ASCII tokens, replaced as a whole when re-ordered:
+    private volatile VisitorOrder visitorOrder;
+    private boolean adaptiveOrderingEnabled = false;
+    private int adaptiveReorderInterval = DEFAULT_ADAPTIVE_REORDER_INTERVAL;
+    private AtomicLongArray visitorHits = new AtomicLongArray(0);
+    // the tokens left to visit until the next re-ordering, counted down by each thread separately to avoid contention:
+    private final ThreadLocal<int[]> adaptiveCountdown = ThreadLocal.withInitial(() -> new int[] { this.adaptiveReorderInterval });
+    // for each visitor, the preceding visitors possibly recognizing the same tokens, these must stay before it in any order:
+    private BitSet[] orderConstraints;
+
+    private boolean statisticsEnabled = false;
+    // indexed as allVisitors, null when the statistics are disabled:
+    private volatile VisitorCounters[] visitorCounters;
+
     public MessageType getMessageType() {
         return this.matcher.getMessageType();
     }
@@ -72,17 +130,450 @@ public class RecognizingAviMessageTokenLexer implements LexemeVisitor {
     public void teach(final PrioritizedLexemeVisitor lexer) {
         this.visitors.add(lexer);
         Collections.sort(this.visitors);
+        this.allVisitors = this.visitors.toArray(new PrioritizedLexemeVisitor[0]);
+        this.visitorsByFirstCharacter = createDispatchIndex(this.visitors);
+        this.patternAutomaton = null;
+        this.visitorOrder = null;
+        this.visitorHits = new AtomicLongArray(this.allVisitors.length);
+        this.orderConstraints = null;
+        this.visitorCounters = this.statisticsEnabled ? createVisitorCounters(this.allVisitors.length) : null;
+    }
+
+    public boolean isStatisticsEnabled() {
+        return this.statisticsEnabled;
+    }
+
+    /**
+     * Enables or disables counting the invocations, regular expression matches, identifications and the time spent of
+     * each visitor. Enabling resets the counters. The time is estimated from a random sample of the invocations.
+     *
+     * @param enabled true to count
+     * @see #getVisitorStatistics()
+     */
+    public void setStatisticsEnabled(final boolean enabled) {
+        this.statisticsEnabled = enabled;
+        this.visitorCounters = enabled ? createVisitorCounters(this.allVisitors.length) : null;
+    }
+
+    /**
+     * Returns the current counters of the visitors in the order of teaching.
+     *
+     * @return the counters, or an empty list if the statistics are disabled
+     */
+    public List<VisitorStatistics> getVisitorStatistics() {
+        final VisitorCounters[] counters = this.visitorCounters;
+        final PrioritizedLexemeVisitor[] visitors = this.allVisitors;
+        if (counters == null || counters.length != visitors.length) {
+            return Collections.emptyList();
+        }
+        final String messageType = this.matcher != null && this.matcher.getMessageType() != null ? this.matcher.getMessageType().name() : null;
+        final List<VisitorStatistics> retval = new ArrayList<>(visitors.length);
+        for (int i = 0; i < visitors.length; i++) {
+            final VisitorCounters c = counters[i];
+            retval.add(new VisitorStatistics(messageType, visitors[i].getClass().getName(), c.invocations.sum(), c.matches.sum(), c.identifications.sum(),
+                    c.estimateTotalNanos()));
+        }
+        return retval;
+    }
+
+    public void resetStatistics() {
+        final VisitorCounters[] counters = this.visitorCounters;
+        if (counters != null) {
+            for (final VisitorCounters c : counters) {
+                c.reset();
+            }
+        }
+    }
+
+    private static VisitorCounters[] createVisitorCounters(final int count) {
+        final VisitorCounters[] retval = new VisitorCounters[count];
+        for (int i = 0; i < count; i++) {
+            retval[i] = new VisitorCounters();
+        }
+        return retval;
+    }
+
+    public boolean isPatternAutomatonEnabled() {
+        return this.patternAutomatonEnabled;
+    }
+
+    /**
+     * Enables or disables matching the regular expressions of all the taught {@link RegexMatchingLexemeVisitor}s with
+     * a single combined {@link MultiPatternAutomaton} scan of each token. When enabled, the visitors whose
+     * pattern is known not to match the token are skipped without running their regular expressions. The automaton is
+     * compiled once on first use, so teaching more visitors after enabling it does not recompile it each time.
+     *
+     * @param enabled true to use the combined pattern automaton
+     */
+    public void setPatternAutomatonEnabled(final boolean enabled) {
+        this.patternAutomatonEnabled = enabled;
+        this.patternAutomaton = null;
+    }
+
+    private MultiPatternAutomaton getPatternAutomaton() {
+        if (!this.patternAutomatonEnabled) {
+            return null;
+        }
+        MultiPatternAutomaton retval = this.patternAutomaton;
+        if (retval == null) {
+            synchronized (this) {
+                retval = this.patternAutomaton;
+                if (retval == null) {
+                    retval = compilePatternAutomaton(this.visitors);
+                    this.patternAutomaton = retval;
+                }
+            }
+        }
+        return retval;
+    }
+
+    public boolean isAdaptiveOrderingEnabled() {
+        return this.adaptiveOrderingEnabled;
+    }
+
+    /**
+     * Enables or disables learning the visitor order from the lexed messages. When enabled, the visitors recognizing
+     * tokens are counted, and the visitors are periodically re-ordered by their hit counts, so that the most commonly
+     * successful ones are tried first.
+     *
+     * The re-ordering never changes the lexing results: a visitor is only moved ahead of the visitors it cannot compete
+     * with for the same token, as decided by their {@link TokenPreconditions} and, for the regular expression visitors
+     * supported by {@link MultiPatternAutomaton}, by their patterns. The learned order only applies to pure ASCII tokens.
+     *
+     * @param enabled true to learn the visitor order
+     * @see #exportVisitorOrder()
+     */
+    public void setAdaptiveOrderingEnabled(final boolean enabled) {
+        this.adaptiveOrderingEnabled = enabled;
+    }
+
+    /**
+     * Sets the number of visited tokens between re-ordering the visitors in the adaptive ordering mode. The tokens are
+     * counted separately by each lexing thread.
+     *
+     * @param interval the re-ordering interval in visited tokens
+     */
+    public void setAdaptiveReorderInterval(final int interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Reorder interval must be positive, got " + interval);
+        }
+        this.adaptiveReorderInterval = interval;
+    }
+
+    /**
+     * Returns the visitor classes in the order currently used for lexing, for freezing a learned order into configuration with
+     * {@link #setVisitorOrder(List)}.
+     *
+     * @return the visitor classes in the effective order
+     */
+    public List<Class<? extends PrioritizedLexemeVisitor>> exportVisitorOrder() {
+        final VisitorOrder order = this.visitorOrder;
+        final List<Class<? extends PrioritizedLexemeVisitor>> retval = new ArrayList<>(this.allVisitors.length);
+        for (int i = 0; i < this.allVisitors.length; i++) {
+            retval.add(this.allVisitors[order == null ? i : order.visitors[i]].getClass());
+        }
+        return retval;
+    }
+
+    /**
+     * Orders the visitors by the given list of visitor classes instead of their expected occurrence. The visitors not listed
+     * are tried after the listed ones. As with the adaptive ordering, the visitors possibly recognizing the same tokens
+     * keep their relative order. Must be called after teaching all the visitors.
+     *
+     * @param visitorClasses the visitor classes in the preferred order, as exported by {@link #exportVisitorOrder()}
+     */
+    public void setVisitorOrder(final List<Class<? extends PrioritizedLexemeVisitor>> visitorClasses) {
+        final long[] rank = new long[this.allVisitors.length];
+        for (int i = 0; i < this.allVisitors.length; i++) {
+            final int position = visitorClasses.indexOf(this.allVisitors[i].getClass());
+            rank[i] = position < 0 ? Long.MIN_VALUE : -position;
+        }
+        this.visitorOrder = createVisitorOrder(rank);
     }
 
     @Override
     public void visit(final Lexeme token, final ConversionHints hints) {
-            for (final LexemeVisitor v : visitors) {
+        this.visit(token, hints, null);
+    }
+
+    /**
+     * Visits the token with the taught visitors, using and updating the given cache of the visitors possibly
+     * recognizing each token.
+     *
+     * @param token the token to visit
+     * @param hints the conversion hints
+     * @param cache the classification cache, or null to classify the token from scratch
+     */
+    void visit(final Lexeme token, final ConversionHints hints, final TokenClassificationCache cache) {
+        final String tacToken = token.getTACToken();
+        final PrioritizedLexemeVisitor[] visitors = this.allVisitors;
+        VisitorCounters[] counters = this.visitorCounters;
+        if (counters != null && counters.length != visitors.length) {
+            counters = null;
+        }
+        if (tacToken == null || tacToken.isEmpty()) {
+            for (int index = 0; index < visitors.length; index++) {
                 if (token.getIdentificationCertainty() < 1.0) {
-                    token.accept(v, hints);
+                    accept(token, visitors[index], hints, counters == null ? null : counters[index]);
                 } else {
                     break;
                 }
             }
+            return;
+        }
+        final char first = tacToken.charAt(0);
+        final VisitorOrder order = this.visitorOrder;
+        final int[] candidates;
+        if (order != null && first < NON_ASCII_INDEX && isAscii(tacToken)) {
+            candidates = order.visitorsByFirstCharacter[first];
+        } else {
+            candidates = this.visitorsByFirstCharacter[first < NON_ASCII_INDEX ? first : NON_ASCII_INDEX];
+        }
+        long[] accepting = null;
+        if (cache != null) {
+            accepting = cache.get(this, tacToken, visitors);
+            if (accepting == null) {
+                accepting = this.classify(tacToken, visitors, this.visitorsByFirstCharacter[first < NON_ASCII_INDEX ? first : NON_ASCII_INDEX]);
+                cache.put(this, tacToken, visitors, accepting);
+            }
+        }
+        final MultiPatternAutomaton automaton = this.getPatternAutomaton();
+        final long[] matchingPatterns = accepting == null && automaton != null && candidates.length > 0 ? automaton.match(tacToken) : null;
+        final boolean adaptive = this.adaptiveOrderingEnabled;
+        for (final int index : candidates) {
+            if (token.getIdentificationCertainty() < 1.0) {
+                final PrioritizedLexemeVisitor v = visitors[index];
+                if (accepting != null) {
+                    if (!MultiPatternAutomaton.contains(accepting, index)) {
+                        continue;
+                    }
+                } else if (matchingPatterns != null && automaton.isSupported(index) && !MultiPatternAutomaton.contains(matchingPatterns, index)) {
+                    continue;
+                }
+                if (accepting != null || v.getPreconditions().accepts(tacToken)) {
+                    accept(token, v, hints, counters == null ? null : counters[index]);
+                    if (adaptive && token.getIdentificationCertainty() >= 1.0) {
+                        this.visitorHits.incrementAndGet(index);
+                    }
+                }
+            } else {
+                break;
+            }
+        }
+        if (adaptive) {
+            final int[] countdown = this.adaptiveCountdown.get();
+            if (--countdown[0] <= 0) {
+                countdown[0] = this.adaptiveReorderInterval;
+                this.reorderByHits();
+            }
+        }
+    }
+
+    private static void accept(final Lexeme token, final PrioritizedLexemeVisitor v, final ConversionHints hints, final VisitorCounters counters) {
+        if (counters == null) {
+            token.accept(v, hints);
+            return;
+        }
+        final LexemeIdentity identityBefore = token.getIdentity();
+        final double certaintyBefore = token.getIdentificationCertainty();
+        final boolean timed = (ThreadLocalRandom.current().nextInt() & TIMING_SAMPLE_MASK) == 0;
+        final long start = timed ? System.nanoTime() : 0L;
+        final boolean regexMatched;
+        if (v instanceof RegexMatchingLexemeVisitor) {
+            regexMatched = ((RegexMatchingLexemeVisitor) v).visitMatching(token, hints);
+        } else {
+            token.accept(v, hints);
+            regexMatched = false;
+        }
+        if (timed) {
+            counters.sampledNanos.add(System.nanoTime() - start);
+            counters.sampledInvocations.increment();
+        }
+        final boolean identified = !Objects.equals(identityBefore, token.getIdentity()) || token.getIdentificationCertainty() > certaintyBefore;
+        counters.invocations.increment();
+        // the visitors without a regular expression match only when they identify the token:
+        if (regexMatched || identified) {
+            counters.matches.increment();
+        }
+        if (identified) {
+            counters.identifications.increment();
+        }
+    }
+
+    /**
+     * Finds the visitors which may recognize the token regardless of its context: the ones the preconditions and
+     * the regular expression of which accept the token.
+     */
+    private long[] classify(final String tacToken, final PrioritizedLexemeVisitor[] visitors, final int[] candidates) {
+        final long[] retval = new long[(visitors.length + Long.SIZE - 1) / Long.SIZE];
+        final MultiPatternAutomaton automaton = this.getPatternAutomaton();
+        final long[] matchingPatterns = automaton != null ? automaton.match(tacToken) : null;
+        for (final int index : candidates) {
+            final PrioritizedLexemeVisitor v = visitors[index];
+            if (!v.getPreconditions().accepts(tacToken)) {
+                continue;
+            }
+            if (v instanceof RegexMatchingLexemeVisitor) {
+                if (matchingPatterns != null && automaton.isSupported(index)) {
+                    if (!MultiPatternAutomaton.contains(matchingPatterns, index)) {
+                        continue;
+                    }
+                } else if (!((RegexMatchingLexemeVisitor) v).getPattern().matcher(tacToken).matches()) {
+                    continue;
+                }
+            }
+            retval[index >>> 6] |= 1L << index;
+        }
+        return retval;
+    }
+
+    private static boolean isAscii(final String token) {
+        for (int i = 0; i < token.length(); i++) {
+            if (token.charAt(i) >= NON_ASCII_INDEX) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private synchronized void reorderByHits() {
+        final AtomicLongArray hits = this.visitorHits;
+        if (hits.length() != this.allVisitors.length) {
+            return;
+        }
+        final long[] rank = new long[hits.length()];
+        for (int i = 0; i < rank.length; i++) {
+            rank[i] = hits.get(i);
+        }
+        this.visitorOrder = createVisitorOrder(rank);
+    }
+
+    /**
+     * Orders the visitors by descending rank, keeping the visitors possibly recognizing the same tokens in their original
+     * relative order. The visitors of equal rank are kept in the original order.
+     */
+    private synchronized VisitorOrder createVisitorOrder(final long[] rank) {
+        if (this.orderConstraints == null) {
+            this.orderConstraints = createOrderConstraints();
+        }
+        final int count = this.allVisitors.length;
+        final int[] order = new int[count];
+        final BitSet placed = new BitSet(count);
+        // the number of the visitors not yet placed which must precede each visitor:
+        final int[] unplacedPredecessors = new int[count];
+        for (int i = 0; i < count; i++) {
+            unplacedPredecessors[i] = this.orderConstraints[i].cardinality();
+        }
+        for (int position = 0; position < count; position++) {
+            int best = -1;
+            for (int i = placed.nextClearBit(0); i < count; i = placed.nextClearBit(i + 1)) {
+                if (unplacedPredecessors[i] == 0 && (best < 0 || rank[i] > rank[best])) {
+                    best = i;
+                }
+            }
+            order[position] = best;
+            placed.set(best);
+            // constraints only point to the earlier visitors:
+            for (int i = placed.nextClearBit(best + 1); i < count; i = placed.nextClearBit(i + 1)) {
+                if (this.orderConstraints[i].get(best)) {
+                    unplacedPredecessors[i]--;
+                }
+            }
+        }
+        final List<PrioritizedLexemeVisitor> ordered = new ArrayList<>(count);
+        for (final int index : order) {
+            ordered.add(this.allVisitors[index]);
+        }
+        final int[][] byFirstCharacter = createDispatchIndex(ordered);
+        for (final int[] candidates : byFirstCharacter) {
+            for (int i = 0; i < candidates.length; i++) {
+                candidates[i] = order[candidates[i]];
+            }
+        }
+        return new VisitorOrder(order, byFirstCharacter);
+    }
+
+    private BitSet[] createOrderConstraints() {
+        final List<PrioritizedLexemeVisitor> taught = Arrays.asList(this.allVisitors);
+        final MultiPatternAutomaton enabledAutomaton = this.getPatternAutomaton();
+        final MultiPatternAutomaton automaton = enabledAutomaton != null ? enabledAutomaton : compilePatternAutomaton(taught);
+        final BitSet[] constraints = new BitSet[this.allVisitors.length];
+        for (int i = 0; i < this.allVisitors.length; i++) {
+            constraints[i] = new BitSet();
+            for (int j = 0; j < i; j++) {
+                if (mayRecognizeSameToken(automaton, i, j)) {
+                    constraints[i].set(j);
+                }
+            }
+        }
+        return constraints;
+    }
+
+    private boolean mayRecognizeSameToken(final MultiPatternAutomaton automaton, final int visitor, final int other) {
+        if (!this.allVisitors[visitor].getPreconditions().mayAcceptSameAsciiToken(this.allVisitors[other].getPreconditions())) {
+            return false;
+        }
+        if (automaton.isSupported(visitor) && automaton.isSupported(other)) {
+            return automaton.mayMatchSameToken(visitor, other);
+        }
+        return true;
+    }
+
+    private static int[][] createDispatchIndex(final List<PrioritizedLexemeVisitor> visitors) {
+        final int[][] index = new int[DISPATCH_INDEX_SIZE][];
+        final int[] candidates = new int[visitors.size()];
+        for (int i = 0; i < DISPATCH_INDEX_SIZE; i++) {
+            // any non-ASCII character will do for the last slot
+            final char c = i < NON_ASCII_INDEX ? (char) i : '\u00C4';
+            int count = 0;
+            for (int v = 0; v < visitors.size(); v++) {
+                if (visitors.get(v).getPreconditions().mayStartWith(c)) {
+                    candidates[count++] = v;
+                }
+            }
+            index[i] = Arrays.copyOf(candidates, count);
+        }
+        return index;
+    }
+
+    private static MultiPatternAutomaton compilePatternAutomaton(final List<PrioritizedLexemeVisitor> visitors) {
+        final List<Pattern> patterns = new ArrayList<>(visitors.size());
+        for (final PrioritizedLexemeVisitor v : visitors) {
+            patterns.add(v instanceof RegexMatchingLexemeVisitor ? ((RegexMatchingLexemeVisitor) v).getPattern() : null);
+        }
+        return MultiPatternAutomaton.compile(patterns);
+    }
+
+    private static final class VisitorCounters {
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder matches = new LongAdder();
+        private final LongAdder identifications = new LongAdder();
+        private final LongAdder sampledInvocations = new LongAdder();
+        private final LongAdder sampledNanos = new LongAdder();
+
+        long estimateTotalNanos() {
+            final long sampled = this.sampledInvocations.sum();
+            return sampled == 0 ? 0L : (long) ((double) this.sampledNanos.sum() / sampled * this.invocations.sum());
+        }
+
+        void reset() {
+            this.invocations.reset();
+            this.matches.reset();
+            this.identifications.reset();
+            this.sampledInvocations.reset();
+            this.sampledNanos.reset();
+        }
+    }
+
+    private static final class VisitorOrder {
+        // indexes of allVisitors in this order:
+        private final int[] visitors;
+        private final int[][] visitorsByFirstCharacter;
+
+        VisitorOrder(final int[] visitors, final int[][] visitorsByFirstCharacter) {
+            this.visitors = visitors;
+            this.visitorsByFirstCharacter = visitorsByFirstCharacter;
+        }
     }
 
     public interface SuitabilityTester {
@@ -29,23 +29,26 @@ public abstract class RegexMatchingLexemeVisitor extends PrioritizedLexemeVisito
     
     @Override
     public final void visit(final Lexeme token, final ConversionHints hints) {
+        this.visitMatching(token, hints);
+    }
+
+    /**
+     * Visits the token as {@link #visit(Lexeme, ConversionHints)}, telling whether the pattern matched.
+     *
+     * @return true if the token matched the pattern
+     */
+    final boolean visitMatching(final Lexeme token, final ConversionHints hints) {
         Matcher m = this.pattern.matcher(token.getTACToken());
         if (m.matches()) {
             this.visitIfMatched(token, m, hints);
+            return true;
         }
+        return false;
     }
 
     public abstract void visitIfMatched(final Lexeme token, final Matcher match, final ConversionHints hints);
 
     public static boolean hasPreceedingLexeme(Lexeme token, LexemeIdentity id) {
-        Lexeme previous = token.getPrevious();
-
-        while(previous != null) {
-            if (previous.getIdentity().equals(id)) {
-                return true;
-            }
-            previous = previous.getPrevious();
-        }
-        return false;
+        return LexemeUtils.existsPreviousLexeme(token, id);
     }
 }
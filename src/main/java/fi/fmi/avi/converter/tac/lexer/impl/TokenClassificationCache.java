@@ -0,0 +1,129 @@
+package fi.fmi.avi.converter.tac.lexer.impl;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded concurrent memo of the context-free part of classifying a token by a {@link RecognizingAviMessageTokenLexer}:
+ * the visitors the {@link TokenPreconditions} and regular expressions of which accept the token. The same tokens recur
+ * in almost every message, so once cached, a token is only offered to the visitors possibly recognizing it. The visitors
+ * themselves are still run for each occurrence, as they may depend on the surrounding lexemes.
+ *
+ * The entries are kept in a separate map for each token lexer, keyed by the token, as the token lexers of the same message
+ * type may have been taught different visitors. When the cache grows over its maximum size in total, it is trimmed with
+ * the CLOCK (second chance) policy: the entries used since the previous trim survive one more round, the others are
+ * evicted.
+ *
+ * @see AviMessageLexerImpl#setTokenClassificationCacheSize(int)
+ */
+final class TokenClassificationCache {
+    private final int maxSize;
+    private final int initialCapacity;
+    // identity keyed, the token lexers do not override equals:
+    private final ConcurrentHashMap<RecognizingAviMessageTokenLexer, ConcurrentHashMap<String, Entry>> entriesByTokenLexer = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicBoolean trimming = new AtomicBoolean();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    TokenClassificationCache(final int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive, got " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.initialCapacity = Math.min(maxSize, 1024) * 4 / 3 + 1;
+    }
+
+    /**
+     * Returns the cached visitors accepting the token.
+     *
+     * @param tokenLexer the classifying token lexer
+     * @param token the token
+     * @param visitors the current visitors of the token lexer, the entries made for any other visitors are not used
+     * @return the bit set of accepting visitor indexes, or null if not cached
+     */
+    long[] get(final RecognizingAviMessageTokenLexer tokenLexer, final String token, final Object[] visitors) {
+        final Map<String, Entry> entries = this.entriesByTokenLexer.get(tokenLexer);
+        final Entry entry = entries == null ? null : entries.get(token);
+        if (entry == null || entry.visitors != visitors) {
+            this.misses.increment();
+            return null;
+        }
+        if (!entry.referenced) {
+            entry.referenced = true;
+        }
+        this.hits.increment();
+        return entry.acceptingVisitors;
+    }
+
+    void put(final RecognizingAviMessageTokenLexer tokenLexer, final String token, final Object[] visitors, final long[] acceptingVisitors) {
+        final Map<String, Entry> entries = this.entriesByTokenLexer.computeIfAbsent(tokenLexer, l -> new ConcurrentHashMap<>(this.initialCapacity));
+        if (entries.put(token, new Entry(visitors, acceptingVisitors)) == null && this.size.incrementAndGet() > this.maxSize
+                && this.trimming.compareAndSet(false, true)) {
+            try {
+                trim();
+            } finally {
+                this.trimming.set(false);
+            }
+        }
+    }
+
+    private void trim() {
+        final int target = this.maxSize - this.maxSize / 4;
+        // at most two rounds: the first one may only clear the reference marks
+        for (int round = 0; round < 2 && this.size.get() > target; round++) {
+            for (final Map<String, Entry> entries : this.entriesByTokenLexer.values()) {
+                for (final Map.Entry<String, Entry> e : entries.entrySet()) {
+                    if (this.size.get() <= target) {
+                        return;
+                    }
+                    final Entry entry = e.getValue();
+                    if (entry.referenced) {
+                        entry.referenced = false;
+                    } else if (entries.remove(e.getKey(), entry)) {
+                        this.size.decrementAndGet();
+                        this.evictions.increment();
+                    }
+                }
+            }
+        }
+    }
+
+    int size() {
+        return this.size.get();
+    }
+
+    long getHitCount() {
+        return this.hits.sum();
+    }
+
+    long getMissCount() {
+        return this.misses.sum();
+    }
+
+    long getEvictionCount() {
+        return this.evictions.sum();
+    }
+
+    void resetStatistics() {
+        this.hits.reset();
+        this.misses.reset();
+        this.evictions.reset();
+    }
+
+    private static final class Entry {
+        private final Object[] visitors;
+        private final long[] acceptingVisitors;
+        // racy by design, a lost update only affects which entry is evicted:
+        private volatile boolean referenced;
+
+        Entry(final Object[] visitors, final long[] acceptingVisitors) {
+            this.visitors = visitors;
+            this.acceptingVisitors = acceptingVisitors;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package fi.fmi.avi.converter.tac.lexer.impl;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Index of token combining rules by their last element.
+ *
+ * A combining rule can only apply when its last predicate accepts the most recently added token. For the rules
+ * ending with a {@link TokenPredicate} the candidates are found with a single hash lookup for the literal ones
+ * and a single {@link MultiPatternAutomaton} run for the regular expression ones. Rules ending with any other
+ * kind of predicate are always considered candidates.
+ */
+final class TokenCombiningRuleIndex {
+
+    private final List<List<Predicate<String>>> rules;
+    private final Map<String, BitSet> rulesByLastLiteral = new HashMap<>();
+    private final BitSet rulesByLastPattern = new BitSet();
+    private final BitSet otherRules = new BitSet();
+    private final MultiPatternAutomaton lastPatterns;
+    // the elements other than the last ones, for telling whether a token may still be combined with the following ones:
+    private final Set<String> leadingLiterals = new HashSet<>();
+    private final List<Predicate<String>> leadingPatternPredicates = new ArrayList<>();
+    private final MultiPatternAutomaton leadingPatterns;
+    private final List<Predicate<String>> otherLeadingPredicates = new ArrayList<>();
+
+    TokenCombiningRuleIndex(final List<List<Predicate<String>>> rules) {
+        this.rules = Collections.unmodifiableList(new ArrayList<>(rules));
+        final List<Pattern> patterns = new ArrayList<>(this.rules.size());
+        for (int i = 0; i < this.rules.size(); i++) {
+            final List<Predicate<String>> rule = this.rules.get(i);
+            Pattern pattern = null;
+            if (!rule.isEmpty()) {
+                final Predicate<String> last = rule.get(rule.size() - 1);
+                if (last instanceof TokenPredicate && ((TokenPredicate) last).getLiteral() != null) {
+                    this.rulesByLastLiteral.computeIfAbsent(((TokenPredicate) last).getLiteral(), key -> new BitSet()).set(i);
+                } else if (last instanceof TokenPredicate) {
+                    pattern = ((TokenPredicate) last).getPattern();
+                } else {
+                    this.otherRules.set(i);
+                }
+            }
+            patterns.add(pattern);
+        }
+        this.lastPatterns = MultiPatternAutomaton.compile(patterns);
+        for (int i = 0; i < patterns.size(); i++) {
+            if (patterns.get(i) != null) {
+                if (this.lastPatterns.isSupported(i)) {
+                    this.rulesByLastPattern.set(i);
+                } else {
+                    this.otherRules.set(i);
+                }
+            }
+        }
+        final List<Pattern> leading = new ArrayList<>();
+        for (final List<Predicate<String>> rule : this.rules) {
+            for (final Predicate<String> predicate : rule.subList(0, Math.max(0, rule.size() - 1))) {
+                if (predicate instanceof TokenPredicate && ((TokenPredicate) predicate).getLiteral() != null) {
+                    this.leadingLiterals.add(((TokenPredicate) predicate).getLiteral());
+                } else if (predicate instanceof TokenPredicate) {
+                    leading.add(((TokenPredicate) predicate).getPattern());
+                    this.leadingPatternPredicates.add(predicate);
+                } else {
+                    this.otherLeadingPredicates.add(predicate);
+                }
+            }
+        }
+        this.leadingPatterns = MultiPatternAutomaton.compile(leading);
+        for (int i = 0; i < leading.size(); i++) {
+            if (!this.leadingPatterns.isSupported(i)) {
+                this.otherLeadingPredicates.add(this.leadingPatternPredicates.get(i));
+            }
+        }
+    }
+
+    List<List<Predicate<String>>> getRules() {
+        return this.rules;
+    }
+
+    List<Predicate<String>> getRule(final int index) {
+        return this.rules.get(index);
+    }
+
+    /**
+     * Tells whether the given token may be combined with any tokens following it, that is if it is accepted by any
+     * other than the last predicate of a rule. A token for which this returns false is never changed by combining
+     * once another token has been appended after it.
+     *
+     * @param token the token to check
+     * @return false if no rule can combine the token with the following ones
+     */
+    boolean mayBeCombinedWithFollowing(final String token) {
+        if (this.leadingLiterals.contains(token)) {
+            return true;
+        }
+        final long[] matches = this.leadingPatterns.match(token);
+        if (matches == null) {
+            for (int i = 0; i < this.leadingPatternPredicates.size(); i++) {
+                if (this.leadingPatterns.isSupported(i) && this.leadingPatternPredicates.get(i).test(token)) {
+                    return true;
+                }
+            }
+        } else {
+            for (final long word : matches) {
+                if (word != 0) {
+                    return true;
+                }
+            }
+        }
+        for (final Predicate<String> predicate : this.otherLeadingPredicates) {
+            if (predicate.test(token)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the indexes of the rules the last predicate of which may accept the given token. Any rule not
+     * included is certain not to match a sequence ending with <code>token</code>.
+     *
+     * @param token the last token of the sequence
+     * @return the candidate rule indexes in the rule order
+     */
+    BitSet getCandidateRules(final String token) {
+        final BitSet candidates = (BitSet) this.otherRules.clone();
+        final BitSet byLiteral = this.rulesByLastLiteral.get(token);
+        if (byLiteral != null) {
+            candidates.or(byLiteral);
+        }
+        final long[] matches = this.lastPatterns.match(token);
+        if (matches == null) {
+            candidates.or(this.rulesByLastPattern);
+        } else {
+            candidates.or(BitSet.valueOf(matches));
+        }
+        return candidates;
+    }
+}
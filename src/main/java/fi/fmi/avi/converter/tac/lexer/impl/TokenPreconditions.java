@@ -0,0 +1,244 @@
+package fi.fmi.avi.converter.tac.lexer.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Cheap static checks a TAC token must pass for a {@link PrioritizedLexemeVisitor} to be able to recognize it at all.
+ *
+ * The preconditions must accept every token the visitor could possibly identify, they are only used for skipping the
+ * visitors certain to fail on the token, for example when the first character of the token can never start a match of
+ * the visitor's regular expression. The checks are made against the ASCII characters only: if a precondition is created
+ * {@link Builder#ignoringCase() ignoring case}, any non-ASCII character is accepted in the checked positions to
+ * cover the Unicode case folding rules of {@link String#equalsIgnoreCase(String)}.
+ */
+public final class TokenPreconditions {
+    public static final String DIGITS = "0123456789";
+    public static final String LETTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    public static final String WHITESPACE = " \t\n\u000B\f\r";
+
+    /**
+     * Preconditions accepting any token.
+     */
+    public static final TokenPreconditions NONE = builder().build();
+
+    private static final int ASCII_LIMIT = 128;
+
+    private final long[] firstCharacters;
+    private final long[][] requiredCharacters;
+    private final boolean nonAsciiAccepted;
+    private final int minLength;
+    private final int maxLength;
+
+    private TokenPreconditions(final Builder builder) {
+        this.firstCharacters = builder.firstCharacters == null ? null : builder.firstCharacters.clone();
+        this.requiredCharacters = builder.requiredCharacters.toArray(new long[0][]);
+        this.nonAsciiAccepted = builder.ignoreCase;
+        this.minLength = builder.minLength;
+        this.maxLength = builder.maxLength;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Preconditions for a visitor recognizing only the given exact token.
+     *
+     * @param token the token text
+     * @return preconditions accepting only tokens starting with the same character and having the same length
+     */
+    public static TokenPreconditions equalTo(final String token) {
+        return builder().startingWithAnyOf(token.substring(0, 1)).withLength(token.length()).build();
+    }
+
+    /**
+     * Preconditions for a visitor recognizing only the given token compared with {@link String#equalsIgnoreCase(String)}.
+     *
+     * @param token the token text
+     * @return preconditions accepting only tokens possibly equal to the given one ignoring case
+     */
+    public static TokenPreconditions equalToIgnoringCase(final String token) {
+        return builder().ignoringCase().startingWithAnyOf(token.substring(0, 1)).withLength(token.length()).build();
+    }
+
+    private static boolean contains(final long[] mask, final char c) {
+        return (mask[c >>> 6] & (1L << c)) != 0;
+    }
+
+    public boolean hasFirstCharacterRestriction() {
+        return this.firstCharacters != null;
+    }
+
+    /**
+     * Checks whether a token starting with the given character may pass these preconditions.
+     *
+     * @param c the first character of the token
+     * @return false if no token starting with <code>c</code> is accepted
+     */
+    public boolean mayStartWith(final char c) {
+        if (this.firstCharacters == null) {
+            return true;
+        }
+        if (c >= ASCII_LIMIT) {
+            return this.nonAsciiAccepted;
+        }
+        return contains(this.firstCharacters, c);
+    }
+
+    /**
+     * Checks whether some ASCII token may pass both these and the other preconditions. Only the first characters and
+     * the length limits are compared, so a true result does not guarantee such a token exists.
+     *
+     * @param other the preconditions to compare with
+     * @return false if no ASCII token can pass both
+     */
+    public boolean mayAcceptSameAsciiToken(final TokenPreconditions other) {
+        if (Math.max(this.minLength, other.minLength) > Math.min(this.maxLength, other.maxLength)) {
+            return false;
+        }
+        if (this.firstCharacters == null || other.firstCharacters == null) {
+            return true;
+        }
+        for (int i = 0; i < this.firstCharacters.length; i++) {
+            if ((this.firstCharacters[i] & other.firstCharacters[i]) != 0) {
+                return true;
+            }
+        }
+        // the empty token is rejected by both as it has no first character
+        return false;
+    }
+
+    /**
+     * Tests the given token against all the preconditions.
+     *
+     * @param token the TAC token to check
+     * @return true if the token passes the preconditions
+     */
+    public boolean accepts(final CharSequence token) {
+        final int length = token.length();
+        if (length < this.minLength || length > this.maxLength) {
+            return false;
+        }
+        if (this.firstCharacters != null && (length == 0 || !mayStartWith(token.charAt(0)))) {
+            return false;
+        }
+        for (final long[] required : this.requiredCharacters) {
+            if (!containsAnyOf(token, required)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean containsAnyOf(final CharSequence token, final long[] mask) {
+        for (int i = 0; i < token.length(); i++) {
+            final char c = token.charAt(i);
+            if (c >= ASCII_LIMIT ? this.nonAsciiAccepted : contains(mask, c)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "TokenPreconditions{" + "firstCharacters=" + Arrays.toString(this.firstCharacters) + ", requiredCharacters=" + Arrays.deepToString(
+                this.requiredCharacters) + ", ignoreCase=" + this.nonAsciiAccepted + ", minLength=" + this.minLength + ", maxLength=" + this.maxLength + '}';
+    }
+
+    public static class Builder {
+        private final List<long[]> requiredCharacters = new ArrayList<>();
+        private long[] firstCharacters;
+        private boolean ignoreCase;
+        private int minLength = 0;
+        private int maxLength = Integer.MAX_VALUE;
+
+        private Builder() {
+        }
+
+        private static long[] toMask(final String characters, final boolean ignoreCase) {
+            final long[] mask = new long[ASCII_LIMIT / 64];
+            for (int i = 0; i < characters.length(); i++) {
+                final char c = characters.charAt(i);
+                if (c >= ASCII_LIMIT) {
+                    throw new IllegalArgumentException("Only ASCII characters are supported in token preconditions, got '" + c + "'");
+                }
+                mask[c >>> 6] |= 1L << c;
+                if (ignoreCase) {
+                    final char upper = Character.toUpperCase(c);
+                    final char lower = Character.toLowerCase(c);
+                    mask[upper >>> 6] |= 1L << upper;
+                    mask[lower >>> 6] |= 1L << lower;
+                }
+            }
+            return mask;
+        }
+
+        /**
+         * Makes the character checks case-insensitive. Must be set before adding any characters.
+         *
+         * @return this builder
+         */
+        public Builder ignoringCase() {
+            if (this.firstCharacters != null || !this.requiredCharacters.isEmpty()) {
+                throw new IllegalStateException("Case sensitivity must be set before adding any characters");
+            }
+            this.ignoreCase = true;
+            return this;
+        }
+
+        /**
+         * Adds the given characters to the set of allowed first characters of the token. If never called, any first character
+         * is accepted.
+         *
+         * @param characters the allowed first characters
+         * @return this builder
+         */
+        public Builder startingWithAnyOf(final String characters) {
+            final long[] mask = toMask(characters, this.ignoreCase);
+            if (this.firstCharacters == null) {
+                this.firstCharacters = mask;
+            } else {
+                for (int i = 0; i < mask.length; i++) {
+                    this.firstCharacters[i] |= mask[i];
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Requires the token to contain at least one of the given characters in any position. May be called several times,
+         * each call adds a separate requirement.
+         *
+         * @param characters the character set one of which is required
+         * @return this builder
+         */
+        public Builder containingAnyOf(final String characters) {
+            this.requiredCharacters.add(toMask(characters, this.ignoreCase));
+            return this;
+        }
+
+        public Builder withLength(final int length) {
+            return withLength(length, length);
+        }
+
+        public Builder withLength(final int minLength, final int maxLength) {
+            if (minLength < 0 || maxLength < minLength) {
+                throw new IllegalArgumentException("Invalid token length range " + minLength + "-" + maxLength);
+            }
+            this.minLength = minLength;
+            this.maxLength = maxLength;
+            return this;
+        }
+
+        public Builder withMinLength(final int minLength) {
+            return withLength(minLength, Integer.MAX_VALUE);
+        }
+
+        public TokenPreconditions build() {
+            return new TokenPreconditions(this);
+        }
+    }
+}
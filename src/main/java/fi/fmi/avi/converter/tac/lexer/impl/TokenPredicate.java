@@ -0,0 +1,103 @@
+package fi.fmi.avi.converter.tac.lexer.impl;
+
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Precompiled {@link Predicate} for a single element of a token combining rule.
+ *
+ * Unlike an arbitrary predicate, a TokenPredicate exposes what it matches: either a literal token or a
+ * regular expression. {@link LexingFactoryImpl} uses this information to index the combining rules by their
+ * last element, so that only the rules possibly ending with the most recently appended token are evaluated.
+ *
+ * @see LexingFactoryImpl#addTokenCombiningRule(java.util.List)
+ */
+public final class TokenPredicate implements Predicate<String> {
+    private static final String REGEX_METACHARACTERS = "\\^$.|?*+()[]{}";
+
+    private final String literal;
+    private final Pattern pattern;
+
+    private TokenPredicate(final String literal, final Pattern pattern) {
+        this.literal = literal;
+        this.pattern = pattern;
+    }
+
+    /**
+     * Creates a predicate accepting only the given token.
+     *
+     * @param token the token to accept
+     * @return the predicate
+     */
+    public static TokenPredicate equalTo(final String token) {
+        if (token == null) {
+            throw new NullPointerException("token must not be null");
+        }
+        return new TokenPredicate(token, null);
+    }
+
+    /**
+     * Creates a predicate accepting the tokens matching the given regular expression in the same manner as
+     * {@link String#matches(String)}. The pattern is compiled only once. If the expression, ignoring the start
+     * and end anchors, contains no special characters, the predicate is stored as a literal one.
+     *
+     * @param regex the regular expression to match the whole token against
+     * @return the predicate
+     */
+    public static TokenPredicate matching(final String regex) {
+        final Pattern pattern = Pattern.compile(regex);
+        final String literal = asLiteral(regex);
+        if (literal != null) {
+            return new TokenPredicate(literal, null);
+        }
+        return new TokenPredicate(null, pattern);
+    }
+
+    private static String asLiteral(final String regex) {
+        int start = 0;
+        int end = regex.length();
+        if (start < end && regex.charAt(start) == '^') {
+            start++;
+        }
+        if (start < end && regex.charAt(end - 1) == '$' && (end - 2 < start || regex.charAt(end - 2) != '\\')) {
+            end--;
+        }
+        for (int i = start; i < end; i++) {
+            if (REGEX_METACHARACTERS.indexOf(regex.charAt(i)) >= 0) {
+                return null;
+            }
+        }
+        return regex.substring(start, end);
+    }
+
+    /**
+     * The literal token accepted by this predicate.
+     *
+     * @return the token, or null if this predicate matches a pattern
+     */
+    public String getLiteral() {
+        return this.literal;
+    }
+
+    /**
+     * The regular expression of this predicate.
+     *
+     * @return the pattern, or null if this predicate accepts a literal token
+     */
+    public Pattern getPattern() {
+        return this.pattern;
+    }
+
+    @Override
+    public boolean test(final String token) {
+        if (this.literal != null) {
+            return this.literal.equals(token);
+        }
+        return this.pattern.matcher(token).matches();
+    }
+
+    @Override
+    public String toString() {
+        return this.literal != null ? "equalTo(" + this.literal + ")" : "matching(" + this.pattern.pattern() + ")";
+    }
+}
@@ -0,0 +1,119 @@
+package fi.fmi.avi.converter.tac.lexer.impl;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import fi.fmi.avi.converter.tac.lexer.Lexeme;
+import fi.fmi.avi.converter.tac.lexer.LexemeSequence;
+import fi.fmi.avi.model.MessageType;
+
+/**
+ * {@link RecognizingAviMessageTokenLexer.SuitabilityTester} accepting a message by one of its first tokens.
+ *
+ * The testers requiring one of exact tokens are indexed by {@link AviMessageLexerImpl}, so that selecting the token lexer
+ * for a message is a hash lookup of its first and second token instead of running the testers one by one.
+ * The pattern matching testers are run in the token lexer order as any other tester. As all the testers of this class
+ * only look at the first two tokens, {@link AviMessageLexerImpl#recognizeMessageType(String, fi.fmi.avi.converter.ConversionHints)} needs
+ * to split just the start of the message into tokens when no other kind of tester is used.
+ */
+public final class TokenSuitabilityTester implements RecognizingAviMessageTokenLexer.SuitabilityTester {
+
+    private final MessageType messageType;
+    private final int tokenPosition;
+    private final Set<String> tokens;
+    private final Pattern pattern;
+
+    private TokenSuitabilityTester(final MessageType messageType, final int tokenPosition, final String[] tokens, final Pattern pattern) {
+        this.messageType = messageType;
+        this.tokenPosition = tokenPosition;
+        this.tokens = tokens == null ? null : Collections.unmodifiableSet(new HashSet<>(Arrays.asList(tokens)));
+        this.pattern = pattern;
+    }
+
+    /**
+     * Creates a tester accepting the sequences starting with any of the given tokens.
+     *
+     * @param messageType the message type of the accepted sequences
+     * @param tokens the allowed first tokens
+     * @return the tester
+     */
+    public static TokenSuitabilityTester firstTokenEquals(final MessageType messageType, final String... tokens) {
+        return new TokenSuitabilityTester(messageType, 0, tokens, null);
+    }
+
+    /**
+     * Creates a tester accepting the sequences with any of the given tokens following the first one.
+     *
+     * @param messageType the message type of the accepted sequences
+     * @param tokens the allowed second tokens
+     * @return the tester
+     */
+    public static TokenSuitabilityTester secondTokenEquals(final MessageType messageType, final String... tokens) {
+        return new TokenSuitabilityTester(messageType, 1, tokens, null);
+    }
+
+    /**
+     * Creates a tester accepting the sequences the first token of which matches the given pattern.
+     *
+     * @param messageType the message type of the accepted sequences
+     * @param pattern the pattern the whole first token must match
+     * @return the tester
+     */
+    public static TokenSuitabilityTester firstTokenMatches(final MessageType messageType, final Pattern pattern) {
+        return new TokenSuitabilityTester(messageType, 0, null, pattern);
+    }
+
+    /**
+     * Creates a tester accepting any sequence, for a token lexer used as the last resort.
+     *
+     * @param messageType the message type of the accepted sequences
+     * @return the tester
+     */
+    public static TokenSuitabilityTester anyMessage(final MessageType messageType) {
+        return new TokenSuitabilityTester(messageType, 0, null, null);
+    }
+
+    /**
+     * The position of the tested token, counting only the non-whitespace lexemes.
+     *
+     * @return 0 for the first token, 1 for the second one
+     */
+    public int getTokenPosition() {
+        return this.tokenPosition;
+    }
+
+    /**
+     * The exact tokens accepted by this tester.
+     *
+     * @return the tokens, or null if this tester matches a pattern or accepts any sequence
+     */
+    public Set<String> getTokens() {
+        return this.tokens;
+    }
+
+    @Override
+    public boolean test(final LexemeSequence sequence) {
+        if (this.tokens == null && this.pattern == null) {
+            return true;
+        }
+        Lexeme l = sequence.getFirstLexeme();
+        if (l != null && this.tokenPosition == 1) {
+            l = l.hasNext() ? l.getNext() : null;
+        }
+        if (l == null) {
+            return false;
+        }
+        if (this.tokens != null) {
+            return this.tokens.contains(l.getTACToken());
+        }
+        return this.pattern.matcher(l.getTACToken()).matches();
+    }
+
+    @Override
+    public MessageType getMessageType() {
+        return this.messageType;
+    }
+}
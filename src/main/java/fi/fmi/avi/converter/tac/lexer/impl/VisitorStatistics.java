@@ -0,0 +1,86 @@
+package fi.fmi.avi.converter.tac.lexer.impl;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Snapshot of the counters of a single visitor of a {@link RecognizingAviMessageTokenLexer}, for finding the visitors
+ * the lexing time is spent in and tuning their {@link PrioritizedLexemeVisitor.OccurrenceFrequency}.
+ *
+ * @see RecognizingAviMessageTokenLexer#setStatisticsEnabled(boolean)
+ */
+public final class VisitorStatistics {
+    private final String messageType;
+    private final String visitorClass;
+    private final long invocationCount;
+    private final long matchCount;
+    private final long identificationCount;
+    private final long totalNanos;
+
+    @ConstructorProperties({ "messageType", "visitorClass", "invocationCount", "matchCount", "identificationCount", "totalNanos" })
+    public VisitorStatistics(final String messageType, final String visitorClass, final long invocationCount, final long matchCount,
+            final long identificationCount, final long totalNanos) {
+        this.messageType = messageType;
+        this.visitorClass = visitorClass;
+        this.invocationCount = invocationCount;
+        this.matchCount = matchCount;
+        this.identificationCount = identificationCount;
+        this.totalNanos = totalNanos;
+    }
+
+    /**
+     * The name of the message type of the token lexer the visitor belongs to.
+     *
+     * @return the message type name
+     */
+    public String getMessageType() {
+        return this.messageType;
+    }
+
+    public String getVisitorClass() {
+        return this.visitorClass;
+    }
+
+    /**
+     * The number of tokens given to the visitor, after the preconditions and the pattern automaton of the token lexer
+     * have excluded the tokens the visitor cannot accept.
+     *
+     * @return the invocation count
+     */
+    public long getInvocationCount() {
+        return this.invocationCount;
+    }
+
+    /**
+     * The number of invocations in which the regular expression of the visitor matched the token. For the visitors not
+     * matching a regular expression, the same as the invocation count.
+     *
+     * @return the match count
+     */
+    public long getMatchCount() {
+        return this.matchCount;
+    }
+
+    /**
+     * The number of invocations which changed the identity of the token or raised its identification certainty.
+     *
+     * @return the identification count
+     */
+    public long getIdentificationCount() {
+        return this.identificationCount;
+    }
+
+    /**
+     * The total time spent in the visitor, estimated from the timed sample of the invocations.
+     *
+     * @return the estimated time in nanoseconds
+     */
+    public long getTotalNanos() {
+        return this.totalNanos;
+    }
+
+    @Override
+    public String toString() {
+        return this.messageType + "/" + this.visitorClass + ": invocations=" + this.invocationCount + ", matches=" + this.matchCount + ", identifications="
+                + this.identificationCount + ", nanos=" + this.totalNanos;
+    }
+}
@@ -5,10 +5,12 @@ import fi.fmi.avi.converter.ConversionHints;
 import fi.fmi.avi.converter.tac.lexer.Lexeme;
 import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
 import fi.fmi.avi.converter.tac.lexer.impl.PrioritizedLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 
 public class ARSStart extends PrioritizedLexemeVisitor {
     public ARSStart(final OccurrenceFrequency prio) {
         super(prio);
+        setPreconditions(TokenPreconditions.equalToIgnoringCase("ARS"));
     }
 
     @Override
@@ -1,5 +1,7 @@
 package fi.fmi.avi.converter.tac.lexer.impl.token;
 
+import static fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions.DIGITS;
+
 import java.util.Optional;
 import java.util.regex.Matcher;
 
@@ -10,6 +12,7 @@ import fi.fmi.avi.converter.tac.lexer.SerializingException;
 import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
 import fi.fmi.avi.converter.tac.lexer.impl.RegexMatchingLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 import fi.fmi.avi.model.swx.SpaceWeatherAdvisory;
 import fi.fmi.avi.model.swx.immutable.AdvisoryNumberImpl;
@@ -17,6 +20,7 @@ import fi.fmi.avi.model.swx.immutable.AdvisoryNumberImpl;
 public class AdvisoryNumber extends RegexMatchingLexemeVisitor {
     public AdvisoryNumber(final OccurrenceFrequency prio) {
         super("^(?<advisoryNumber>[\\d]{4}/[0-9]+?)$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf(DIGITS).withMinLength(6).containingAnyOf("/").build());
     }
 
     @Override
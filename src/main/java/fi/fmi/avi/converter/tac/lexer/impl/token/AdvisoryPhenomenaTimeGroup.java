@@ -1,5 +1,7 @@
 package fi.fmi.avi.converter.tac.lexer.impl.token;
 
+import static fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions.DIGITS;
+
 import java.time.DateTimeException;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoField;
@@ -15,6 +17,7 @@ import fi.fmi.avi.converter.tac.lexer.SerializingException;
 import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
 import fi.fmi.avi.converter.tac.lexer.impl.RegexMatchingLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 import fi.fmi.avi.model.PartialOrCompleteTimeInstant;
 import fi.fmi.avi.model.swx.SpaceWeatherAdvisory;
@@ -28,6 +31,7 @@ public class AdvisoryPhenomenaTimeGroup extends RegexMatchingLexemeVisitor {
 
     public AdvisoryPhenomenaTimeGroup(final OccurrenceFrequency prio) {
         super("^(?<day>[0-9]{2})/(?<hour>[0-9]{2})(?<minute>[0-9]{2})Z$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf(DIGITS).withLength(8).containingAnyOf("/").build());
     }
 
     @Override
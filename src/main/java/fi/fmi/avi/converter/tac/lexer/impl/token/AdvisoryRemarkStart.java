@@ -10,11 +10,13 @@ import fi.fmi.avi.converter.tac.lexer.SerializingException;
 import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.PrioritizedLexemeVisitor;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 
 public class AdvisoryRemarkStart extends PrioritizedLexemeVisitor {
     public AdvisoryRemarkStart(final PrioritizedLexemeVisitor.OccurrenceFrequency prio) {
         super(prio);
+        setPreconditions(TokenPreconditions.equalTo("RMK:"));
     }
 
     @Override
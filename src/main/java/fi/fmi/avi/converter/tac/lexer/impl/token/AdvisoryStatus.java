@@ -10,6 +10,7 @@ import fi.fmi.avi.converter.tac.lexer.SerializingException;
 import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
 import fi.fmi.avi.converter.tac.lexer.impl.RegexMatchingLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationCodeListUser;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 import fi.fmi.avi.model.swx.SpaceWeatherAdvisory;
@@ -17,6 +18,7 @@ import fi.fmi.avi.model.swx.SpaceWeatherAdvisory;
 public class AdvisoryStatus extends RegexMatchingLexemeVisitor {
     public AdvisoryStatus(final OccurrenceFrequency prio) {
         super("^(?<status>TEST|EXER){1}$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf("TE").withLength(4).build());
     }
 
     @Override
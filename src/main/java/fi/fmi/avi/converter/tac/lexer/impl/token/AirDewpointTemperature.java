@@ -3,6 +3,7 @@ package fi.fmi.avi.converter.tac.lexer.impl.token;
 import static fi.fmi.avi.converter.tac.lexer.Lexeme.ParsedValueName.UNIT;
 import static fi.fmi.avi.converter.tac.lexer.Lexeme.ParsedValueName.VALUE;
 import static fi.fmi.avi.converter.tac.lexer.LexemeIdentity.AIR_DEWPOINT_TEMPERATURE;
+import static fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions.DIGITS;
 
 import java.util.Optional;
 import java.util.regex.Matcher;
@@ -14,6 +15,7 @@ import fi.fmi.avi.converter.tac.lexer.SerializingException;
 import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
 import fi.fmi.avi.converter.tac.lexer.impl.RegexMatchingLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 import fi.fmi.avi.model.NumericMeasure;
 import fi.fmi.avi.model.metar.MeteorologicalTerminalAirReport;
@@ -25,45 +27,25 @@ public class AirDewpointTemperature extends RegexMatchingLexemeVisitor {
 
     public AirDewpointTemperature(final OccurrenceFrequency prio) {
         super("^(M)?([0-9]{2}|//)/(M)?([0-9]{2}|//)$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf("M/").startingWithAnyOf(DIGITS).withLength(5, 7).containingAnyOf("/").build());
     }
 
     @Override
     public void visitIfMatched(final Lexeme token, final Matcher match, final ConversionHints hints) {
-        Double airTemp = null;
-        Double dewPointTemp = null;
-        if (!"//".equals(match.group(2))) {
-            airTemp = Double.valueOf(match.group(2));
-        }
-        if (!"//".equals(match.group(4))) {
-            dewPointTemp = Double.valueOf(match.group(4));
-        }
+        final String tac = token.getTACToken();
         Double[] values = new Double[2];
         boolean missingValues = false;
-        if (airTemp != null) {
-            if (match.group(1) != null) {
-                if (1.0d/airTemp.doubleValue() == Double.POSITIVE_INFINITY) {
-                    airTemp = -0.0d; //explicit value required, 0.0d != -0.0d
-                } else {
-                    airTemp = Double.valueOf(airTemp.intValue() * -1);
-                }
-            }
-            values[0] = airTemp;
+        if (!MatchedGroups.isMissing(tac, match, 2)) {
+            values[0] = temperature(tac, match, 1, 2);
         } else {
             missingValues = true;
         }
-        if (dewPointTemp != null) {
-            if (match.group(3) != null) {
-                if (1.0d/dewPointTemp.doubleValue() == Double.POSITIVE_INFINITY) {
-                    dewPointTemp = -0.0d;
-                } else {
-                    dewPointTemp = Double.valueOf(dewPointTemp.intValue() * -1);
-                }
-            }
-            values[1] = dewPointTemp;
+        if (!MatchedGroups.isMissing(tac, match, 4)) {
+            values[1] = temperature(tac, match, 3, 4);
         } else {
             missingValues = true;
         }
-        
+
         if (missingValues) {
             token.identify(AIR_DEWPOINT_TEMPERATURE, Lexeme.Status.WARNING, "Values for air and/or dew point temperature missing");
         } else {
@@ -73,6 +55,14 @@ public class AirDewpointTemperature extends RegexMatchingLexemeVisitor {
         }
     }
 
+    private static Double temperature(final String tac, final Matcher match, final int minusGroup, final int valueGroup) {
+        final int value = MatchedGroups.parseInt(tac, match, valueGroup);
+        if (MatchedGroups.isPresent(match, minusGroup)) {
+            return value == 0 ? -0.0d : (double) -value; //explicit value required for M00, 0.0d != -0.0d
+        }
+        return (double) value;
+    }
+
     public static class Reconstructor extends FactoryBasedReconstructor {
 
         @Override
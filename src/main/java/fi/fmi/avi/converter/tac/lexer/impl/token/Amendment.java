@@ -9,6 +9,7 @@ import fi.fmi.avi.converter.tac.lexer.Lexeme;
 import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.PrioritizedLexemeVisitor;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationCodeListUser;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 import fi.fmi.avi.model.taf.TAF;
@@ -20,6 +21,7 @@ public class Amendment extends PrioritizedLexemeVisitor {
 
     public Amendment(final OccurrenceFrequency prio) {
         super(prio);
+        setPreconditions(TokenPreconditions.equalToIgnoringCase("AMD"));
     }
 
     @Override
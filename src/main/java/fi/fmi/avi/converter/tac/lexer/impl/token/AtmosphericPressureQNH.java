@@ -14,6 +14,7 @@ import fi.fmi.avi.converter.tac.lexer.SerializingException;
 import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
 import fi.fmi.avi.converter.tac.lexer.impl.RegexMatchingLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 import fi.fmi.avi.model.NumericMeasure;
 import fi.fmi.avi.model.metar.MeteorologicalTerminalAirReport;
@@ -26,6 +27,8 @@ public class AtmosphericPressureQNH extends RegexMatchingLexemeVisitor {
     public enum PressureMeasurementUnit {
         HECTOPASCAL("Q"), INCHES_OF_MERCURY("A");
 
+        private static final PressureMeasurementUnit[] VALUES = values();
+
         private String code;
 
         PressureMeasurementUnit(final String code) {
@@ -40,18 +43,29 @@ public class AtmosphericPressureQNH extends RegexMatchingLexemeVisitor {
             }
             return null;
         }
+
+        public static PressureMeasurementUnit forCode(final char code) {
+            for (PressureMeasurementUnit w : VALUES) {
+                if (w.code.length() == 1 && w.code.charAt(0) == code) {
+                    return w;
+                }
+            }
+            return null;
+        }
     }
 
     public AtmosphericPressureQNH(final OccurrenceFrequency prio) {
         super("^([AQ])([0-9]{4}|////)$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf("AQ").withLength(5).build());
     }
 
     @Override
     public void visitIfMatched(final Lexeme token, final Matcher match, final ConversionHints hints) {
-        PressureMeasurementUnit unit = PressureMeasurementUnit.forCode(match.group(1));
+        final String tac = token.getTACToken();
+        PressureMeasurementUnit unit = PressureMeasurementUnit.forCode(tac.charAt(match.start(1)));
         Integer value = null;
-        if (!"////".equals(match.group(2))) {
-            value = Integer.valueOf(match.group(2));
+        if (!MatchedGroups.isMissing(tac, match, 2)) {
+            value = Integer.valueOf(MatchedGroups.parseInt(tac, match, 2));
         }
         if (value != null) {
             token.identify(AIR_PRESSURE_QNH);
@@ -10,6 +10,7 @@ import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
 import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.PrioritizedLexemeVisitor;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 import fi.fmi.avi.model.metar.MeteorologicalTerminalAirReport;
 
@@ -19,6 +20,7 @@ import fi.fmi.avi.model.metar.MeteorologicalTerminalAirReport;
 public class AutoMetar extends PrioritizedLexemeVisitor {
     public AutoMetar(final OccurrenceFrequency prio) {
         super(prio);
+        setPreconditions(TokenPreconditions.equalToIgnoringCase("AUTO"));
     }
 
     @Override
@@ -1,5 +1,7 @@
 package fi.fmi.avi.converter.tac.lexer.impl.token;
 
+import static fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions.LETTERS;
+
 import java.util.Optional;
 import java.util.regex.Matcher;
 
@@ -10,6 +12,7 @@ import fi.fmi.avi.converter.tac.lexer.SerializingException;
 import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
 import fi.fmi.avi.converter.tac.lexer.impl.RegexMatchingLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 import fi.fmi.avi.model.bulletin.BulletinHeading;
 import fi.fmi.avi.model.bulletin.MeteorologicalBulletin;
@@ -18,6 +21,7 @@ public class BulletinHeaderDataDesignators extends RegexMatchingLexemeVisitor {
 
     public BulletinHeaderDataDesignators(final OccurrenceFrequency prio) {
         super("^(?<designators>[A-Z]{2}[A-Z]{2}[0-9]{2})$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf(LETTERS).withLength(6).build());
     }
 
     @Override
@@ -10,6 +10,7 @@ import fi.fmi.avi.converter.tac.lexer.SerializingException;
 import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
 import fi.fmi.avi.converter.tac.lexer.impl.RegexMatchingLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 import fi.fmi.avi.model.bulletin.BulletinHeading;
 import fi.fmi.avi.model.bulletin.MeteorologicalBulletin;
@@ -18,6 +19,7 @@ public class BulletinHeadingBBBIndicator extends RegexMatchingLexemeVisitor {
 
     public BulletinHeadingBBBIndicator(final OccurrenceFrequency prio) {
         super("^(?<bbb>(?:RR|AA|CC)[A-Z])$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf("RAC").withLength(3).build());
     }
 
     @Override
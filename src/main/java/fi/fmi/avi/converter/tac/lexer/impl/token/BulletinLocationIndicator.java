@@ -1,5 +1,7 @@
 package fi.fmi.avi.converter.tac.lexer.impl.token;
 
+import static fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions.LETTERS;
+
 import java.util.Optional;
 import java.util.regex.Matcher;
 
@@ -10,6 +12,7 @@ import fi.fmi.avi.converter.tac.lexer.SerializingException;
 import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
 import fi.fmi.avi.converter.tac.lexer.impl.RegexMatchingLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 import fi.fmi.avi.model.bulletin.BulletinHeading;
 import fi.fmi.avi.model.bulletin.MeteorologicalBulletin;
@@ -18,6 +21,7 @@ public class BulletinLocationIndicator extends RegexMatchingLexemeVisitor {
 
     public BulletinLocationIndicator(final OccurrenceFrequency prio) {
         super("^(?<code>[A-Z]{4})$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf(LETTERS).withLength(4).build());
     }
 
     @Override
@@ -9,6 +9,7 @@ import fi.fmi.avi.converter.tac.lexer.Lexeme;
 import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.PrioritizedLexemeVisitor;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 import fi.fmi.avi.model.metar.MeteorologicalTerminalAirReport;
 import fi.fmi.avi.model.metar.TrendForecast;
@@ -22,6 +23,7 @@ import fi.fmi.avi.model.taf.TAFChangeForecast;
 public class CAVOK extends PrioritizedLexemeVisitor {
     public CAVOK(final OccurrenceFrequency prio) {
         super(prio);
+        setPreconditions(TokenPreconditions.equalToIgnoringCase("CAVOK"));
     }
 
     @Override
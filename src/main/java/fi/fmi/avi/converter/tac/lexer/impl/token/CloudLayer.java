@@ -5,6 +5,7 @@ import static fi.fmi.avi.converter.tac.lexer.Lexeme.ParsedValueName.TYPE;
 import static fi.fmi.avi.converter.tac.lexer.Lexeme.ParsedValueName.UNIT;
 import static fi.fmi.avi.converter.tac.lexer.Lexeme.ParsedValueName.VALUE;
 import static fi.fmi.avi.converter.tac.lexer.LexemeIdentity.CLOUD;
+import static fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions.LETTERS;
 
 import java.util.Optional;
 import java.util.regex.Matcher;
@@ -16,6 +17,7 @@ import fi.fmi.avi.converter.tac.lexer.SerializingException;
 import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
 import fi.fmi.avi.converter.tac.lexer.impl.RegexMatchingLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationCodeListUser.CloudAmount;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 import fi.fmi.avi.model.CloudForecast;
@@ -44,6 +46,8 @@ public class CloudLayer extends RegexMatchingLexemeVisitor {
 		OVERCAST("OVC"),
 		SKY_OBSCURED("VV");
 
+        private static final CloudCover[] VALUES = values();
+
         private final String code;
 
         CloudCover(final String code) {
@@ -59,11 +63,22 @@ public class CloudLayer extends RegexMatchingLexemeVisitor {
             return null;
         }
 
+        static CloudCover forCode(final String tac, final Matcher match, final String group) {
+            for (CloudCover w : VALUES) {
+                if (MatchedGroups.equalTo(tac, match, group, w.code)) {
+                    return w;
+                }
+            }
+            return null;
+        }
+
     }
 
     public enum CloudType {
         TOWERING_CUMULUS("TCU"), CUMULONIMBUS("CB");
 
+        private static final CloudType[] VALUES = values();
+
         private final String code;
 
         CloudType(final String code) {
@@ -79,6 +94,15 @@ public class CloudLayer extends RegexMatchingLexemeVisitor {
             return null;
         }
 
+        static CloudType forCode(final String tac, final Matcher match, final String group) {
+            for (CloudType w : VALUES) {
+                if (MatchedGroups.equalTo(tac, match, group, w.code)) {
+                    return w;
+                }
+            }
+            return null;
+        }
+
         public String getCode() {
         	return this.code;
 		}
@@ -91,25 +115,27 @@ public class CloudLayer extends RegexMatchingLexemeVisitor {
 
     public CloudLayer(final OccurrenceFrequency prio) {
         super("^(?<iscloud>(?<amount>[A-Z]{3}|VV|/{3})(?<height>[0-9]{3}|/{3})(?<type>CB|TCU|/{3})?)|(?<nocloud>SKC|NSC|NCD|CLR)$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf(LETTERS).startingWithAnyOf("/").withLength(3, 9).build());
     }
 
     @Override
     public void visitIfMatched(final Lexeme token, final Matcher match, final ConversionHints hints) {
-        if ("///".equals(match.group("amount")) && "///".equals(match.group("height"))) {
-            if ("///".equals(match.group("type"))) {
+        final String tac = token.getTACToken();
+        if (MatchedGroups.isMissing(tac, match, "amount") && MatchedGroups.isMissing(tac, match, "height")) {
+            if (MatchedGroups.isMissing(tac, match, "type")) {
                 token.identify(LexemeIdentity.CLOUD, Lexeme.Status.SYNTAX_ERROR, "Cloud type cannot be missing '///' if also amount and height are missing");
             } else {
                 token.identify(LexemeIdentity.CLOUD);
                 token.setParsedValue(VALUE, SpecialValue.AMOUNT_AND_HEIGHT_UNOBSERVABLE_BY_AUTO_SYSTEM);
-                token.setParsedValue(TYPE, CloudType.forCode(match.group("type")));
+                token.setParsedValue(TYPE, CloudType.forCode(tac, match, "type"));
             }
         } else {
-            if (match.group("amount") != null) {
-                if ("///".equals(match.group("amount"))) {
+            if (MatchedGroups.isPresent(match, "amount")) {
+                if (MatchedGroups.isMissing(tac, match, "amount")) {
                     token.identify(LexemeIdentity.CLOUD);
                     token.setParsedValue(COVER, SpecialValue.CLOUD_AMOUNT_UNOBSERVABLE);
                 } else {
-                    CloudCover cloudCover = CloudCover.forCode(match.group("amount"));
+                    CloudCover cloudCover = CloudCover.forCode(tac, match, "amount");
                     if (cloudCover != null) {
                         token.identify(LexemeIdentity.CLOUD);
                         token.setParsedValue(COVER, cloudCover);
@@ -117,27 +143,27 @@ public class CloudLayer extends RegexMatchingLexemeVisitor {
                         token.identify(CLOUD, Lexeme.Status.SYNTAX_ERROR, "Unknown cloud cover " + match.group("amount"));
                     }
                 }
-            } else if (match.group("nocloud") != null) {
-                CloudCover cloudCover = CloudCover.forCode(match.group("nocloud"));
+            } else if (MatchedGroups.isPresent(match, "nocloud")) {
+                CloudCover cloudCover = CloudCover.forCode(tac, match, "nocloud");
                 token.identify(LexemeIdentity.CLOUD);
                 token.setParsedValue(COVER, cloudCover);
             }
 
-            if (match.group("height") != null) {
-                if ("///".equals(match.group("height"))) {
+            if (MatchedGroups.isPresent(match, "height")) {
+                if (MatchedGroups.isMissing(tac, match, "height")) {
                     token.setParsedValue(VALUE, SpecialValue.CLOUD_BASE_UNOBSERVABLE);
                 } else {
-                    token.setParsedValue(VALUE, Integer.parseInt(match.group("height")));
+                    token.setParsedValue(VALUE, MatchedGroups.parseInt(tac, match, "height"));
                     token.setParsedValue(UNIT, "hft");
                 }
             }
 
-            if (match.group("type") != null) {
-                if ("///".equals(match.group("type"))) {
+            if (MatchedGroups.isPresent(match, "type")) {
+                if (MatchedGroups.isMissing(tac, match, "type")) {
                     token.setParsedValue(TYPE, SpecialValue.CLOUD_TYPE_UNOBSERVABLE);
                 } else {
-                    CloudType type = CloudType.forCode(match.group("type"));
-                    if (CloudCover.SKY_OBSCURED.code.equals(match.group("amount")) && (CloudType.CUMULONIMBUS == type || CloudType.TOWERING_CUMULUS == type)) {
+                    CloudType type = CloudType.forCode(tac, match, "type");
+                    if (MatchedGroups.equalTo(tac, match, "amount", CloudCover.SKY_OBSCURED.code) && (CloudType.CUMULONIMBUS == type || CloudType.TOWERING_CUMULUS == type)) {
                         token.identify(CLOUD, Lexeme.Status.SYNTAX_ERROR, "'CB' and 'TCU' not allowed with 'VV'");
                     }
                     token.setParsedValue(TYPE, type);
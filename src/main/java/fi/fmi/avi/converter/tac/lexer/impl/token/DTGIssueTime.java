@@ -1,5 +1,7 @@
 package fi.fmi.avi.converter.tac.lexer.impl.token;
 
+import static fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions.DIGITS;
+
 import java.time.DateTimeException;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
@@ -12,6 +14,7 @@ import fi.fmi.avi.converter.tac.lexer.Lexeme;
 import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
 import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 import fi.fmi.avi.model.PartialOrCompleteTimeInstant;
 import fi.fmi.avi.model.swx.SpaceWeatherAdvisory;
@@ -23,6 +26,7 @@ public class DTGIssueTime extends TimeHandlingRegex {
 
     public DTGIssueTime(final OccurrenceFrequency prio) {
         super("^(?<year>[0-9]{4})(?<month>[0-9]{2})(?<day>[0-9]{2})/(?<hour>[0-9]{2})(?<minute>[0-9]{2})Z$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf(DIGITS).withLength(14).build());
     }
 
     @Override
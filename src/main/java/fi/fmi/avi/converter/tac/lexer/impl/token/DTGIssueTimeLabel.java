@@ -9,12 +9,14 @@ import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
 import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
 import fi.fmi.avi.converter.tac.lexer.impl.RegexMatchingLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 import fi.fmi.avi.model.swx.SpaceWeatherAdvisory;
 
 public class DTGIssueTimeLabel extends RegexMatchingLexemeVisitor {
     public DTGIssueTimeLabel(final OccurrenceFrequency prio) {
         super("^DTG\\:$", prio);
+        setPreconditions(TokenPreconditions.equalTo("DTG:"));
     }
 
     @Override
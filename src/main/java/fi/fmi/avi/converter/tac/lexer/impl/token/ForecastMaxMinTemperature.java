@@ -15,6 +15,7 @@ import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
 import fi.fmi.avi.converter.tac.lexer.SerializingException;
 import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 import fi.fmi.avi.model.NumericMeasure;
 import fi.fmi.avi.model.PartialOrCompleteTimeInstant;
@@ -49,6 +50,7 @@ public class ForecastMaxMinTemperature extends TimeHandlingRegex {
 
     public ForecastMaxMinTemperature(final OccurrenceFrequency prio) {
         super("^(TX|TN)(M)?([0-9]{2})/([0-9]{2})?([0-9]{2})(Z)?$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf("T").withLength(7, 11).containingAnyOf("/").build());
     }
 
     @Override
@@ -4,6 +4,8 @@ import static fi.fmi.avi.converter.tac.lexer.Lexeme.ParsedValueName.RELATIONAL_O
 import static fi.fmi.avi.converter.tac.lexer.Lexeme.ParsedValueName.UNIT;
 import static fi.fmi.avi.converter.tac.lexer.Lexeme.ParsedValueName.VALUE;
 import static fi.fmi.avi.converter.tac.lexer.LexemeIdentity.HORIZONTAL_VISIBILITY;
+import static fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions.DIGITS;
+import static fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions.LETTERS;
 
 import java.util.regex.Matcher;
 
@@ -12,6 +14,7 @@ import fi.fmi.avi.converter.tac.lexer.Lexeme;
 import fi.fmi.avi.converter.tac.lexer.Lexeme.Status;
 import fi.fmi.avi.converter.tac.lexer.impl.RecognizingAviMessageTokenLexer;
 import fi.fmi.avi.converter.tac.lexer.impl.RegexMatchingLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 
 /**
  * Created by rinne on 10/02/17.
@@ -20,6 +23,7 @@ public class FractionalHorizontalVisibility extends RegexMatchingLexemeVisitor {
 
     public FractionalHorizontalVisibility(final OccurrenceFrequency prio) {
         super("^([PM])?((([0-9]{1,3}\\s)(([1-9]{1})/([1-9]{1,2})))|([0-9]{1,3})|(([0-9]{1})/([0-9]{1,2})))(?!KT)([A-Z]{1,2})$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf("PM").startingWithAnyOf(DIGITS).withLength(2, 11).containingAnyOf(LETTERS).build());
     }
 
     @Override
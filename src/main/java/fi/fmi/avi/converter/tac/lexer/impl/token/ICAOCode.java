@@ -3,6 +3,7 @@ package fi.fmi.avi.converter.tac.lexer.impl.token;
 import static fi.fmi.avi.converter.tac.lexer.Lexeme.ParsedValueName.COUNTRY;
 import static fi.fmi.avi.converter.tac.lexer.Lexeme.ParsedValueName.VALUE;
 import static fi.fmi.avi.converter.tac.lexer.LexemeIdentity.AERODROME_DESIGNATOR;
+import static fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions.LETTERS;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -14,6 +15,7 @@ import fi.fmi.avi.converter.tac.lexer.Lexeme;
 import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
 import fi.fmi.avi.converter.tac.lexer.impl.RegexMatchingLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 import fi.fmi.avi.model.metar.MeteorologicalTerminalAirReport;
 import fi.fmi.avi.model.taf.TAF;
@@ -256,6 +258,7 @@ public class ICAOCode extends RegexMatchingLexemeVisitor {
 
     public ICAOCode(final OccurrenceFrequency prio) {
         super("^[A-Z]{4,}$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf(LETTERS).withMinLength(4).build());
     }
 
     @Override
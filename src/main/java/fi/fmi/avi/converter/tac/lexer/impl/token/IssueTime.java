@@ -7,6 +7,7 @@ import static fi.fmi.avi.converter.tac.lexer.LexemeIdentity.AERODROME_DESIGNATOR
 import static fi.fmi.avi.converter.tac.lexer.LexemeIdentity.BULLETIN_HEADING_LOCATION_INDICATOR;
 import static fi.fmi.avi.converter.tac.lexer.LexemeIdentity.ISSUE_TIME;
 import static fi.fmi.avi.converter.tac.lexer.LexemeIdentity.REP;
+import static fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions.DIGITS;
 
 import java.time.format.DateTimeFormatter;
 import java.util.Optional;
@@ -17,6 +18,7 @@ import fi.fmi.avi.converter.tac.lexer.Lexeme;
 import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
 import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AerodromeWeatherMessage;
 import fi.fmi.avi.model.AviationWeatherMessage;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
@@ -31,18 +33,20 @@ public class IssueTime extends TimeHandlingRegex {
 
     public IssueTime(final OccurrenceFrequency prio) {
         super("^([0-9]{2})?([0-9]{2})([0-9]{2})Z?$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf(DIGITS).withLength(4, 7).build());
     }
 
     @Override
     public void visitIfMatched(final Lexeme token, final Matcher match, final ConversionHints hints) {
         if (token.hasPrevious() && (AERODROME_DESIGNATOR.equals(token.getPrevious().getIdentity()) || BULLETIN_HEADING_LOCATION_INDICATOR.equals(
                 token.getPrevious().getIdentity()) || REP.equals(token.getPrevious().getIdentity()))) {
+            final String tac = token.getTACToken();
             int date = -1;
-            if (match.group(1) != null) {
-                date = Integer.parseInt(match.group(1));
+            if (MatchedGroups.isPresent(match, 1)) {
+                date = MatchedGroups.parseInt(tac, match, 1);
             }
-            int hour = Integer.parseInt(match.group(2));
-            int minute = Integer.parseInt(match.group(3));
+            int hour = MatchedGroups.parseInt(tac, match, 2);
+            int minute = MatchedGroups.parseInt(tac, match, 3);
             if (date == -1) {
                 if (timeOkHourMinute(hour, minute)) {
                     token.identify(ISSUE_TIME);
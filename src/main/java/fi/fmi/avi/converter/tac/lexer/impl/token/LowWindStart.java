@@ -7,12 +7,14 @@ import fi.fmi.avi.converter.ConversionHints;
 import fi.fmi.avi.converter.tac.lexer.Lexeme;
 import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
 import fi.fmi.avi.converter.tac.lexer.impl.RegexMatchingLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 
 public class LowWindStart extends RegexMatchingLexemeVisitor {
     public static final LexemeIdentity LOW_WIND_START = new LexemeIdentity("LOW_WIND_START");
 
     public LowWindStart(final OccurrenceFrequency prio) {
         super("^LOW\\s+WIND$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf("L").withMinLength(8).build());
     }
 
     @Override
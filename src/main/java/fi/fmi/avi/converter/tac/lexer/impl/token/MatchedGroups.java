@@ -0,0 +1,144 @@
+package fi.fmi.avi.converter.tac.lexer.impl.token;
+
+import java.util.regex.Matcher;
+
+/**
+ * Helpers for decoding the groups captured by the regular expression of a {@link fi.fmi.avi.converter.tac.lexer.impl.RegexMatchingLexemeVisitor}
+ * directly from the matched token by the group offsets. Unlike {@link Matcher#group(int)}, these never create a substring
+ * of the token, which matters for the tokens recurring in every message.
+ *
+ * The <code>input</code> of each method must be the token the matcher was matched against.
+ */
+public final class MatchedGroups {
+
+    // longer digit sequences may overflow an int, and are left to Integer.parseInt
+    private static final int MAX_FAST_DIGITS = 9;
+
+    private MatchedGroups() {
+    }
+
+    /**
+     * Tells whether the given group took part in the match.
+     *
+     * @param match the matcher after a successful match
+     * @param group the group number
+     * @return true if the group was matched
+     */
+    public static boolean isPresent(final Matcher match, final int group) {
+        return match.start(group) >= 0;
+    }
+
+    public static boolean isPresent(final Matcher match, final String group) {
+        return match.start(group) >= 0;
+    }
+
+    /**
+     * Decodes the unsigned decimal number captured by the given group.
+     *
+     * @param input the matched token
+     * @param match the matcher after a successful match
+     * @param group the group number
+     * @return the number
+     * @throws NumberFormatException if the group was not matched or contains anything but the digits 0-9
+     */
+    public static int parseInt(final CharSequence input, final Matcher match, final int group) {
+        return parseInt(input, match.start(group), match.end(group));
+    }
+
+    public static int parseInt(final CharSequence input, final Matcher match, final String group) {
+        return parseInt(input, match.start(group), match.end(group));
+    }
+
+    /**
+     * Decodes the unsigned decimal number between the given offsets of the input.
+     *
+     * @param input the characters to decode
+     * @param start the start offset, inclusive
+     * @param end the end offset, exclusive
+     * @return the number
+     * @throws NumberFormatException if the range is empty or contains anything but the digits 0-9
+     */
+    public static int parseInt(final CharSequence input, final int start, final int end) {
+        if (start < 0 || end <= start) {
+            throw new NumberFormatException("No digits to decode");
+        }
+        if (end - start > MAX_FAST_DIGITS) {
+            return Integer.parseInt(input.subSequence(start, end).toString());
+        }
+        int retval = 0;
+        for (int i = start; i < end; i++) {
+            final char c = input.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("Not a digit '" + c + "' in '" + input.subSequence(start, end) + "'");
+            }
+            retval = retval * 10 + (c - '0');
+        }
+        return retval;
+    }
+
+    /**
+     * Tells whether the given group consists of the missing value marker '/' only, such as '//' or '////'.
+     *
+     * @param input the matched token
+     * @param match the matcher after a successful match
+     * @param group the group number
+     * @return true if the group was matched and contains only slashes
+     */
+    public static boolean isMissing(final CharSequence input, final Matcher match, final int group) {
+        return isMissing(input, match.start(group), match.end(group));
+    }
+
+    public static boolean isMissing(final CharSequence input, final Matcher match, final String group) {
+        return isMissing(input, match.start(group), match.end(group));
+    }
+
+    private static boolean isMissing(final CharSequence input, final int start, final int end) {
+        if (start < 0 || end <= start) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (input.charAt(i) != '/') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares the given group to a string, in the same manner as <code>value.equals(match.group(group))</code>.
+     *
+     * @param input the matched token
+     * @param match the matcher after a successful match
+     * @param group the group number
+     * @param value the string to compare to
+     * @return true if the group was matched and is equal to <code>value</code>
+     */
+    public static boolean equalTo(final CharSequence input, final Matcher match, final int group, final String value) {
+        return regionEquals(input, match.start(group), match.end(group), value);
+    }
+
+    public static boolean equalTo(final CharSequence input, final Matcher match, final String group, final String value) {
+        return regionEquals(input, match.start(group), match.end(group), value);
+    }
+
+    /**
+     * Compares the characters between the given offsets of the input to a string.
+     *
+     * @param input the characters to compare
+     * @param start the start offset, inclusive, negative for an unmatched group
+     * @param end the end offset, exclusive
+     * @param value the string to compare to
+     * @return true if the range is equal to <code>value</code>
+     */
+    public static boolean regionEquals(final CharSequence input, final int start, final int end, final String value) {
+        if (start < 0 || end - start != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (input.charAt(start + i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
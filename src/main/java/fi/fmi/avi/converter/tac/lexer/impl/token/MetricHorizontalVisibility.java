@@ -5,6 +5,7 @@ import static fi.fmi.avi.converter.tac.lexer.Lexeme.ParsedValueName.RELATIONAL_O
 import static fi.fmi.avi.converter.tac.lexer.Lexeme.ParsedValueName.UNIT;
 import static fi.fmi.avi.converter.tac.lexer.Lexeme.ParsedValueName.VALUE;
 import static fi.fmi.avi.converter.tac.lexer.LexemeIdentity.HORIZONTAL_VISIBILITY;
+import static fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions.DIGITS;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -21,6 +22,7 @@ import fi.fmi.avi.converter.tac.lexer.impl.LexemeUtils;
 import fi.fmi.avi.converter.tac.lexer.impl.RecognizingAviMessageTokenLexer;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
 import fi.fmi.avi.converter.tac.lexer.impl.RegexMatchingLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationCodeListUser.RelationalOperator;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 import fi.fmi.avi.model.NumericMeasure;
@@ -39,6 +41,7 @@ public class MetricHorizontalVisibility extends RegexMatchingLexemeVisitor {
 
     public MetricHorizontalVisibility(final OccurrenceFrequency prio) {
         super("^([0-9]{4})([A-Z]{1,2}|NDV)?$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf(DIGITS).withLength(4, 7).build());
     }
 
     @Override
@@ -51,14 +54,7 @@ public class MetricHorizontalVisibility extends RegexMatchingLexemeVisitor {
     		//Horizontal visibility cannot be the first token:
     		return;
     	}
-    	boolean inChangeGroup = false;
-    	while (l != null) {
-			if (LexemeIdentity.TAF_FORECAST_CHANGE_INDICATOR == l.getIdentity()) {
-				inChangeGroup = true;
-				break;
-			}
-			l = l.getPrevious();
-		}
+    	final boolean inChangeGroup = LexemeUtils.existsPreviousLexeme(token, LexemeIdentity.TAF_FORECAST_CHANGE_INDICATOR);
 		if (!inChangeGroup) {
             final Lexeme prev = token.getPrevious();
     		if (LexemeIdentity.SURFACE_WIND.equals(prev.getIdentity())
@@ -10,12 +10,14 @@ import fi.fmi.avi.converter.tac.lexer.Lexeme;
 import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
 import fi.fmi.avi.converter.tac.lexer.impl.RegexMatchingLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 import fi.fmi.avi.model.swx.SpaceWeatherAdvisory;
 
 public class NextAdvisoryLabel extends RegexMatchingLexemeVisitor {
     public NextAdvisoryLabel(final OccurrenceFrequency prio) {
         super("^NXT\\sADVISORY\\:$", prio);
+        setPreconditions(TokenPreconditions.equalTo("NXT ADVISORY:"));
     }
 
     @Override
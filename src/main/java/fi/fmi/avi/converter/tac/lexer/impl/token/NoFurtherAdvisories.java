@@ -13,12 +13,14 @@ import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.PrioritizedLexemeVisitor;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
 import fi.fmi.avi.converter.tac.lexer.impl.RegexMatchingLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 import fi.fmi.avi.model.swx.SpaceWeatherAdvisory;
 
 public class NoFurtherAdvisories extends RegexMatchingLexemeVisitor {
     public NoFurtherAdvisories(final PrioritizedLexemeVisitor.OccurrenceFrequency prio) {
         super("^NO\\sFURTHER\\sADVISORIES$", prio);
+        setPreconditions(TokenPreconditions.equalTo("NO FURTHER ADVISORIES"));
     }
     @Override
     public void visitIfMatched(final Lexeme token, final Matcher match, final ConversionHints hints) {
@@ -10,6 +10,7 @@ import fi.fmi.avi.converter.tac.lexer.SerializingException;
 import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.PrioritizedLexemeVisitor;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 import fi.fmi.avi.model.metar.TrendForecast;
 import fi.fmi.avi.model.taf.TAFChangeForecast;
@@ -20,6 +21,7 @@ import fi.fmi.avi.model.taf.TAFChangeForecast;
 public class NoSignificantWeather extends PrioritizedLexemeVisitor {
     public NoSignificantWeather(final OccurrenceFrequency prio) {
         super(prio);
+        setPreconditions(TokenPreconditions.equalToIgnoringCase("NSW"));
     }
 
     @Override
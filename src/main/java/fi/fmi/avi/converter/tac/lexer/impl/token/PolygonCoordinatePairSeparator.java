@@ -4,10 +4,12 @@ import fi.fmi.avi.converter.ConversionHints;
 import fi.fmi.avi.converter.tac.lexer.Lexeme;
 import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
 import fi.fmi.avi.converter.tac.lexer.impl.PrioritizedLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 
 public class PolygonCoordinatePairSeparator extends PrioritizedLexemeVisitor {
     public PolygonCoordinatePairSeparator(final OccurrenceFrequency prio) {
         super(prio);
+        setPreconditions(TokenPreconditions.equalTo("-"));
     }
 
     @Override
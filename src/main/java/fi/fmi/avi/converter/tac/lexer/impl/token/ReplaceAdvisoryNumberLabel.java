@@ -10,12 +10,14 @@ import fi.fmi.avi.converter.tac.lexer.SerializingException;
 import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
 import fi.fmi.avi.converter.tac.lexer.impl.RegexMatchingLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 import fi.fmi.avi.model.swx.SpaceWeatherAdvisory;
 
 public class ReplaceAdvisoryNumberLabel extends RegexMatchingLexemeVisitor {
     public ReplaceAdvisoryNumberLabel(final OccurrenceFrequency prio) {
         super("^NR\\sRPLC\\s?:$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf("N").withLength(8, 9).build());
     }
 
     @Override
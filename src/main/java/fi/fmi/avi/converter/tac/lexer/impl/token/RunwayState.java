@@ -3,6 +3,7 @@ package fi.fmi.avi.converter.tac.lexer.impl.token;
 import static fi.fmi.avi.converter.tac.lexer.Lexeme.ParsedValueName.RUNWAY;
 import static fi.fmi.avi.converter.tac.lexer.Lexeme.ParsedValueName.VALUE;
 import static fi.fmi.avi.converter.tac.lexer.LexemeIdentity.RUNWAY_STATE;
+import static fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions.DIGITS;
 
 import java.util.Collections;
 import java.util.HashMap;
@@ -16,6 +17,7 @@ import fi.fmi.avi.converter.tac.lexer.SerializingException;
 import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
 import fi.fmi.avi.converter.tac.lexer.impl.RegexMatchingLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationCodeListUser;
 import fi.fmi.avi.model.AviationCodeListUser.RunwayContamination;
 import fi.fmi.avi.model.AviationCodeListUser.RunwayDeposit;
@@ -191,6 +193,7 @@ public class RunwayState extends RegexMatchingLexemeVisitor {
 
         super("^(?:R?(?<RunwayDesignator19th>[0-9]{2}[LCR]?)/|(?<RunwayDesignator16th>[0-9]{2}[LCR]?))((([0-9/])([1259/])([0-9]{2}|//))|(CLRD))([0-9]{2}|//)$",
                 prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf("R").startingWithAnyOf(DIGITS).withLength(8, 11).build());
     }
 
     protected String getRunwayDesignationMatch(Matcher match) {
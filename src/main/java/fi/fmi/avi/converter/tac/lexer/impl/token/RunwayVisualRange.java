@@ -20,6 +20,7 @@ import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.RecognizingAviMessageTokenLexer;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
 import fi.fmi.avi.converter.tac.lexer.impl.RegexMatchingLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationCodeListUser.RelationalOperator;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 import fi.fmi.avi.model.NumericMeasure;
@@ -32,34 +33,34 @@ public class RunwayVisualRange extends RegexMatchingLexemeVisitor {
 
     public RunwayVisualRange(final OccurrenceFrequency prio) {
         super("^R([0-9]{2}[LRC]?)/([MP])?([0-9]{4})(V([MP])?([0-9]{4}))?([UDN])?(FT)?$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf("R").withMinLength(8).containingAnyOf("/").build());
     }
 
     @Override
 	public void visitIfMatched(final Lexeme token, final Matcher match, final ConversionHints hints) {
+		final String tac = token.getTACToken();
 		String runway = match.group(1);
-		RecognizingAviMessageTokenLexer.RelationalOperator belowAboveIndicator = RecognizingAviMessageTokenLexer.RelationalOperator.forCode(match.group(2));
-		int visibility = Integer.parseInt(match.group(3));
+		RecognizingAviMessageTokenLexer.RelationalOperator belowAboveIndicator = relationalOperator(tac, match, 2);
+		int visibility = MatchedGroups.parseInt(tac, match, 3);
 		token.identify(RUNWAY_VISUAL_RANGE);
 		token.setParsedValue(RUNWAY, runway);
 		token.setParsedValue(MIN_VALUE, visibility);
 		if (belowAboveIndicator != null) {
 			token.setParsedValue(RELATIONAL_OPERATOR, belowAboveIndicator);
 		}
-		String variablePart = match.group(4);
-		if (variablePart != null) {
-			belowAboveIndicator = RecognizingAviMessageTokenLexer.RelationalOperator.forCode(match.group(5));
+		if (MatchedGroups.isPresent(match, 4)) {
+			belowAboveIndicator = relationalOperator(tac, match, 5);
 			if (belowAboveIndicator != null) {
 				token.setParsedValue(RELATIONAL_OPERATOR2, belowAboveIndicator);
 			}
-			int variableVis = Integer.parseInt(match.group(6));
+			int variableVis = MatchedGroups.parseInt(tac, match, 6);
 			token.setParsedValue(MAX_VALUE, variableVis);
 		}
-		RecognizingAviMessageTokenLexer.TendencyOperator tendencyIndicator = RecognizingAviMessageTokenLexer.TendencyOperator.forCode(match.group(7));
+		RecognizingAviMessageTokenLexer.TendencyOperator tendencyIndicator = tendencyOperator(tac, match, 7);
 		if (tendencyIndicator != null) {
 			token.setParsedValue(TENDENCY_OPERATOR, tendencyIndicator);
 		}
-		String unit = match.group(8);
-		if (unit != null) {
+		if (MatchedGroups.isPresent(match, 8)) {
 			token.setParsedValue(UNIT, "[ft_i]");
 		} else {
 			token.setParsedValue(UNIT, "m");
@@ -67,6 +68,20 @@ public class RunwayVisualRange extends RegexMatchingLexemeVisitor {
 
 	}
 
+	private static RecognizingAviMessageTokenLexer.RelationalOperator relationalOperator(final String tac, final Matcher match, final int group) {
+		if (!MatchedGroups.isPresent(match, group)) {
+			return null;
+		}
+		return RecognizingAviMessageTokenLexer.RelationalOperator.forCode(tac.charAt(match.start(group)));
+	}
+
+	private static RecognizingAviMessageTokenLexer.TendencyOperator tendencyOperator(final String tac, final Matcher match, final int group) {
+		if (!MatchedGroups.isPresent(match, group)) {
+			return null;
+		}
+		return RecognizingAviMessageTokenLexer.TendencyOperator.forCode(tac.charAt(match.start(group)));
+	}
+
 	public static class Reconstructor extends FactoryBasedReconstructor {
 
 		@Override
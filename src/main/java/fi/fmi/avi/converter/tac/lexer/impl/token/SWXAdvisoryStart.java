@@ -10,11 +10,13 @@ import fi.fmi.avi.converter.tac.lexer.SerializingException;
 import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
 import fi.fmi.avi.converter.tac.lexer.impl.RegexMatchingLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 
 public class SWXAdvisoryStart extends RegexMatchingLexemeVisitor {
     public SWXAdvisoryStart(final OccurrenceFrequency prio) {
         super("^SWX\\s+ADVISORY$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf("S").withMinLength(12).build());
     }
 
     @Override
@@ -10,6 +10,7 @@ import fi.fmi.avi.converter.tac.lexer.SerializingException;
 import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
 import fi.fmi.avi.converter.tac.lexer.impl.RegexMatchingLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 import fi.fmi.avi.model.swx.IssuingCenter;
 import fi.fmi.avi.model.swx.SpaceWeatherAdvisory;
@@ -17,6 +18,7 @@ import fi.fmi.avi.model.swx.SpaceWeatherAdvisory;
 public class SWXCenter extends RegexMatchingLexemeVisitor {
     public SWXCenter(final OccurrenceFrequency prio) {
         super("^(?<issuer>.{3,12})$", prio);
+        setPreconditions(TokenPreconditions.builder().withMinLength(3).build());
     }
 
     @Override
@@ -8,6 +8,7 @@ import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.PrioritizedLexemeVisitor;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
 import fi.fmi.avi.converter.tac.lexer.impl.RegexMatchingLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 import fi.fmi.avi.model.swx.SpaceWeatherAdvisory;
 
@@ -17,6 +18,7 @@ import java.util.regex.Matcher;
 public class SWXEffectLabel extends RegexMatchingLexemeVisitor {
     public SWXEffectLabel(final PrioritizedLexemeVisitor.OccurrenceFrequency prio) {
         super("^SWX\\sEFFECT:$", prio);
+        setPreconditions(TokenPreconditions.equalTo("SWX EFFECT:"));
     }
 
     @Override
@@ -11,6 +11,7 @@ import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.PrioritizedLexemeVisitor;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
 import fi.fmi.avi.converter.tac.lexer.impl.RegexMatchingLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 import fi.fmi.avi.model.swx.SpaceWeatherAdvisory;
 import fi.fmi.avi.model.swx.SpaceWeatherAdvisoryAnalysis;
@@ -18,6 +19,7 @@ import fi.fmi.avi.model.swx.SpaceWeatherAdvisoryAnalysis;
 public class SWXNotExpected extends RegexMatchingLexemeVisitor {
     public SWXNotExpected(final PrioritizedLexemeVisitor.OccurrenceFrequency prio) {
         super("^NO\\sSWX\\sEXP$", prio);
+        setPreconditions(TokenPreconditions.equalTo("NO SWX EXP"));
     }
 
     @Override
@@ -10,6 +10,7 @@ import fi.fmi.avi.converter.tac.lexer.SerializingException;
 import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
 import fi.fmi.avi.converter.tac.lexer.impl.RegexMatchingLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 import fi.fmi.avi.model.swx.SpaceWeatherAdvisory;
 import fi.fmi.avi.model.swx.SpaceWeatherAdvisoryAnalysis;
@@ -21,6 +22,7 @@ public class SWXPhenomena extends RegexMatchingLexemeVisitor {
 
     public SWXPhenomena(final OccurrenceFrequency prio) {
         super("^(?<type>OBS|FCST)\\s+SWX(?:\\s+\\+(?:\\s+)?(?<hour>\\d{1,2})\\s+HR)?:$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf("OF").withMinLength(8).containingAnyOf(":").build());
     }
 
     @Override
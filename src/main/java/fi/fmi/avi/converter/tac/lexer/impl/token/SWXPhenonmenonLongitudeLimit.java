@@ -17,6 +17,7 @@ import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.PrioritizedLexemeVisitor;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
 import fi.fmi.avi.converter.tac.lexer.impl.RegexMatchingLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 import fi.fmi.avi.model.swx.SpaceWeatherAdvisory;
 import fi.fmi.avi.model.swx.SpaceWeatherAdvisoryAnalysis;
@@ -25,6 +26,7 @@ import fi.fmi.avi.model.swx.SpaceWeatherRegion;
 public class SWXPhenonmenonLongitudeLimit extends RegexMatchingLexemeVisitor {
     public SWXPhenonmenonLongitudeLimit(final PrioritizedLexemeVisitor.OccurrenceFrequency prio) {
         super("^((W|E)(\\d+)\\s?\\-?\\s?){2}$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf("WE").withMinLength(4).build());
     }
 
     @Override
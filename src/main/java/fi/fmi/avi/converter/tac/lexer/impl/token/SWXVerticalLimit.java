@@ -12,6 +12,7 @@ import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.PrioritizedLexemeVisitor;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
 import fi.fmi.avi.converter.tac.lexer.impl.RegexMatchingLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationCodeListUser;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 import fi.fmi.avi.model.NumericMeasure;
@@ -27,6 +28,7 @@ import java.util.regex.Matcher;
 public class SWXVerticalLimit extends RegexMatchingLexemeVisitor {
     public SWXVerticalLimit(final PrioritizedLexemeVisitor.OccurrenceFrequency prio) {
         super("^((?<above>ABV)\\s)?(?<unit>FL)(?<lowervalue>\\d*)(-(?<uppervalue>\\d*))?$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf("AF").withMinLength(2).build());
     }
 
     @Override
@@ -11,6 +11,7 @@ import fi.fmi.avi.converter.tac.lexer.SerializingException;
 import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
 import fi.fmi.avi.converter.tac.lexer.impl.RegexMatchingLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 import fi.fmi.avi.model.NumericMeasure;
 import fi.fmi.avi.model.metar.MeteorologicalTerminalAirReport;
@@ -55,6 +56,7 @@ public class SeaState extends RegexMatchingLexemeVisitor {
 
     public SeaState(final OccurrenceFrequency prio) {
         super("^W(?<minus>M?)(?<temp>[0-9]{2}|//)/(S(?<state>[0-9]|/)|H(?<height>[0-9]{1,3}))$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf("W").withLength(6, 9).containingAnyOf("/").build());
     }
 
     @Override
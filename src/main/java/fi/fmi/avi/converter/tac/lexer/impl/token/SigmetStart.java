@@ -5,6 +5,7 @@ import static fi.fmi.avi.converter.tac.lexer.LexemeIdentity.SIGMET_START;
 import fi.fmi.avi.converter.ConversionHints;
 import fi.fmi.avi.converter.tac.lexer.Lexeme;
 import fi.fmi.avi.converter.tac.lexer.impl.PrioritizedLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 
 
 /**
@@ -14,6 +15,7 @@ public class SigmetStart extends PrioritizedLexemeVisitor {
 
     public SigmetStart(final OccurrenceFrequency prio) {
         super(prio);
+        setPreconditions(TokenPreconditions.equalToIgnoringCase("SIGMET"));
     }
 
     @Override
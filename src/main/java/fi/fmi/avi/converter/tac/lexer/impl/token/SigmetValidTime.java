@@ -12,12 +12,14 @@ import java.util.regex.Matcher;
 import fi.fmi.avi.converter.ConversionHints;
 import fi.fmi.avi.converter.tac.lexer.Lexeme;
 import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 
 public class SigmetValidTime extends TimeHandlingRegex {
 
     public SigmetValidTime(final OccurrenceFrequency prio) {
         super("^VALID\\s(?<startDay>[0-9]{2})(?<startHour>[0-9]{2})(?<startMinute>[0-9]{2})[/-](?<endDay>[0-9]{2})(?<endHour>[0-9]{2})"
                 + "(?<endMinute>[0-9]{2})$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf("V").withLength(19).build());
     }
 
     @Override
@@ -7,6 +7,7 @@ import static fi.fmi.avi.converter.tac.lexer.Lexeme.ParsedValueName.RELATIONAL_O
 import static fi.fmi.avi.converter.tac.lexer.Lexeme.ParsedValueName.RELATIONAL_OPERATOR2;
 import static fi.fmi.avi.converter.tac.lexer.Lexeme.ParsedValueName.UNIT;
 import static fi.fmi.avi.converter.tac.lexer.LexemeIdentity.SURFACE_WIND;
+import static fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions.DIGITS;
 
 import java.util.Optional;
 import java.util.regex.Matcher;
@@ -19,6 +20,7 @@ import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.LexemeUtils;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
 import fi.fmi.avi.converter.tac.lexer.impl.RegexMatchingLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationCodeListUser;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 import fi.fmi.avi.model.NumericMeasure;
@@ -36,6 +38,7 @@ public class SurfaceWind extends RegexMatchingLexemeVisitor {
 
     public SurfaceWind(final OccurrenceFrequency prio) {
         super("^(VRB|[0-9]{3})(P?[0-9]{2,3})(GP?[0-9]{2,3})?(KT|MPS|KMH)$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf("V").startingWithAnyOf(DIGITS).withLength(7, 15).containingAnyOf("KM").build());
     }
 
     @Override
@@ -47,24 +50,24 @@ public class SurfaceWind extends RegexMatchingLexemeVisitor {
         boolean meanWindAbove = false;
         boolean gustAbove = false;
 
-        String unit;
-        if (!"VRB".equals(match.group(1))) {
-            direction = Integer.parseInt(match.group(1));
+        final String tac = token.getTACToken();
+        if (!MatchedGroups.equalTo(tac, match, 1, "VRB")) {
+            direction = MatchedGroups.parseInt(tac, match, 1);
         }
-        if (match.group(2).charAt(0) == 'P') {
-            mean = Integer.parseInt(match.group(2).substring(1));
+        if (tac.charAt(match.start(2)) == 'P') {
+            mean = MatchedGroups.parseInt(tac, match.start(2) + 1, match.end(2));
             meanWindAbove = true;
         } else {
-            mean = Integer.parseInt(match.group(2));
+            mean = MatchedGroups.parseInt(tac, match, 2);
         }
-        final String gust = match.group(3);
-        if (gust != null && 'G' == gust.charAt(0)) {
+        final int gust = match.start(3);
+        if (gust >= 0 && 'G' == tac.charAt(gust)) {
             try {
-                if (gust.charAt(1) == 'P') {
-                    gustValue = Integer.parseInt(gust.substring(2));
+                if (tac.charAt(gust + 1) == 'P') {
+                    gustValue = MatchedGroups.parseInt(tac, gust + 2, match.end(3));
                     gustAbove = true;
                 } else {
-                    gustValue = Integer.parseInt(gust.substring(1));
+                    gustValue = MatchedGroups.parseInt(tac, gust + 1, match.end(3));
                 }
                 if (gustValue < 0) {
                     formatOk = false;
@@ -73,7 +76,7 @@ public class SurfaceWind extends RegexMatchingLexemeVisitor {
                 formatOk = false;
             }
         }
-        unit = match.group(4);
+        final String unit = speedUnit(tac, match, 4);
         if (direction > 360 || mean < 0 || unit == null) {
             formatOk = false;
         }
@@ -100,17 +103,23 @@ public class SurfaceWind extends RegexMatchingLexemeVisitor {
             if (gustAbove) {
                 token.setParsedValue(RELATIONAL_OPERATOR2, AviationCodeListUser.RelationalOperator.ABOVE);
             }
-            if ("KT".equalsIgnoreCase(unit)) {
-                unit = "[kn_i]";
-            } else if ("MPS".equalsIgnoreCase(unit)) {
-                unit = "m/s";
-            }
-            token.setParsedValue(UNIT, unit.toLowerCase());
+            token.setParsedValue(UNIT, unit);
         } else {
             token.identify(SURFACE_WIND, Lexeme.Status.SYNTAX_ERROR, "Wind direction or speed values invalid");
         }
     }
 
+    private static String speedUnit(final String tac, final Matcher match, final int group) {
+        if (MatchedGroups.equalTo(tac, match, group, "KT")) {
+            return "[kn_i]";
+        } else if (MatchedGroups.equalTo(tac, match, group, "MPS")) {
+            return "m/s";
+        } else if (MatchedGroups.equalTo(tac, match, group, "KMH")) {
+            return "kmh";
+        }
+        return null;
+    }
+
     public enum WindDirection {
         VARIABLE("VRB");
 
@@ -4,6 +4,7 @@ import static fi.fmi.avi.converter.tac.lexer.Lexeme.ParsedValueName.DAY1;
 import static fi.fmi.avi.converter.tac.lexer.Lexeme.ParsedValueName.DAY2;
 import static fi.fmi.avi.converter.tac.lexer.Lexeme.ParsedValueName.HOUR1;
 import static fi.fmi.avi.converter.tac.lexer.Lexeme.ParsedValueName.HOUR2;
+import static fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions.DIGITS;
 
 import java.util.Optional;
 import java.util.regex.Matcher;
@@ -14,6 +15,7 @@ import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
 import fi.fmi.avi.converter.tac.lexer.SerializingException;
 import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationCodeListUser.TAFChangeIndicator;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 import fi.fmi.avi.model.PartialOrCompleteTimeInstant;
@@ -28,20 +30,22 @@ public class TAFChangeForecastTimeGroup extends TimeHandlingRegex {
 
     public TAFChangeForecastTimeGroup(final OccurrenceFrequency prio) {
         super("^(([0-9]{2})([0-9]{2}))|(([0-9]{2})([0-9]{2})/([0-9]{2})([0-9]{2}))$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf(DIGITS).withLength(4, 9).build());
     }
 
     @Override
     public void visitIfMatched(final Lexeme token, final Matcher match, final ConversionHints hints) {
         if (token.hasPrevious() &&  LexemeIdentity.TAF_FORECAST_CHANGE_INDICATOR.equals(token.getPrevious().getIdentity())) {
-            if (match.group(1) != null) {
+            final String tac = token.getTACToken();
+            if (MatchedGroups.isPresent(match, 1)) {
                 //old 24h TAF: HHHH
                 double certainty = 0.5; //could also be horizontal visibility
                 Lexeme l = token.getNext();
                 if (l != null && (LexemeIdentity.SURFACE_WIND.equals(l.getIdentity()) || LexemeIdentity.HORIZONTAL_VISIBILITY.equals(l.getIdentity()))) {
                     certainty = 1.0;
                 }
-                int fromHour = Integer.parseInt(match.group(2));
-                int toHour = Integer.parseInt(match.group(3));
+                int fromHour = MatchedGroups.parseInt(tac, match, 2);
+                int toHour = MatchedGroups.parseInt(tac, match, 3);
                 if (timeOkHour(fromHour) && timeOkHour(toHour)) {
                     token.identify(LexemeIdentity.TAF_CHANGE_FORECAST_TIME_GROUP, certainty);
                     token.setParsedValue(HOUR1, fromHour);
@@ -50,12 +54,12 @@ public class TAFChangeForecastTimeGroup extends TimeHandlingRegex {
                     token.identify(LexemeIdentity.TAF_CHANGE_FORECAST_TIME_GROUP, Lexeme.Status.SYNTAX_ERROR, "Invalid time(s)", 0.3);
                 }
 
-            } else if (match.group(4) != null) {
+            } else if (MatchedGroups.isPresent(match, 4)) {
                 //30h TAF
-                int fromDay = Integer.parseInt(match.group(5));
-                int fromHour = Integer.parseInt(match.group(6));
-                int toDay = Integer.parseInt(match.group(7));
-                int toHour = Integer.parseInt(match.group(8));
+                int fromDay = MatchedGroups.parseInt(tac, match, 5);
+                int fromHour = MatchedGroups.parseInt(tac, match, 6);
+                int toDay = MatchedGroups.parseInt(tac, match, 7);
+                int toHour = MatchedGroups.parseInt(tac, match, 8);
                 if (timeOkDayHour(fromDay, fromHour) && timeOkDayHour(toDay, toHour)) {
                     token.identify(LexemeIdentity.TAF_CHANGE_FORECAST_TIME_GROUP);
                     token.setParsedValue(DAY1, fromDay);
@@ -17,6 +17,7 @@ import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
 import fi.fmi.avi.converter.tac.lexer.SerializingException;
 import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 import fi.fmi.avi.model.PartialOrCompleteTimeInstant;
 import fi.fmi.avi.model.taf.TAF;
@@ -29,6 +30,7 @@ public class TAFForecastChangeIndicator extends TimeHandlingRegex {
 
     public TAFForecastChangeIndicator(final OccurrenceFrequency prio) {
         super("^(TEMPO|BECMG|PROB40|PROB30|PROB30 TEMPO|PROB40 TEMPO)|(FM([0-9]{2})?([0-9]{2})([0-9]{2}))$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf("TBPF").withLength(5, 12).build());
     }
 
     @Override
@@ -12,6 +12,7 @@ import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
 import fi.fmi.avi.converter.tac.lexer.SerializingException;
 import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 import fi.fmi.avi.model.metar.TrendForecast;
 
@@ -42,6 +43,7 @@ public class TrendChangeIndicator extends TimeHandlingRegex {
 
     public TrendChangeIndicator(final OccurrenceFrequency prio) {
         super("^(TEMPO|BECMG)$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf("TB").withLength(5).build());
     }
 
     @Override
@@ -16,6 +16,7 @@ import fi.fmi.avi.converter.tac.lexer.Lexeme;
 import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
 import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 import fi.fmi.avi.model.PartialOrCompleteTime;
 import fi.fmi.avi.model.PartialOrCompleteTimeInstant;
@@ -28,6 +29,7 @@ import fi.fmi.avi.model.metar.TrendForecast;
 public class TrendTimeGroup extends TimeHandlingRegex {
     public TrendTimeGroup(final OccurrenceFrequency prio) {
         super("^(FM|TL|AT)([0-9]{2})([0-9]{2})$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf("FTA").withLength(6).build());
     }
 
     @Override
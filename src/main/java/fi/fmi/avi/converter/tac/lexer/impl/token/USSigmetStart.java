@@ -6,10 +6,12 @@ import fi.fmi.avi.converter.ConversionHints;
 import fi.fmi.avi.converter.tac.lexer.Lexeme;
 import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
 import fi.fmi.avi.converter.tac.lexer.impl.RegexMatchingLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 
 public class USSigmetStart extends RegexMatchingLexemeVisitor {
     public USSigmetStart(final OccurrenceFrequency prio) {
         super("^SIG[CWE]$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf("S").withLength(4).build());
     }
 
     @Override
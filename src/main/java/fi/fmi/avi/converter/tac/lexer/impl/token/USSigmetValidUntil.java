@@ -8,11 +8,13 @@ import java.util.regex.Matcher;
 import fi.fmi.avi.converter.ConversionHints;
 import fi.fmi.avi.converter.tac.lexer.Lexeme;
 import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 
 public class USSigmetValidUntil extends TimeHandlingRegex {
 
     public USSigmetValidUntil(final OccurrenceFrequency prio) {
         super("^VALID\\s+UNTIL\\s+(?<endHour>[0-9]{2})(?<endMinute>[0-9]{2})Z$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf("V").withMinLength(17).build());
     }
 
     @Override
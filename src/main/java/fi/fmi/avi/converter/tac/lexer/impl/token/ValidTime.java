@@ -4,6 +4,7 @@ import static fi.fmi.avi.converter.tac.lexer.Lexeme.ParsedValueName.DAY1;
 import static fi.fmi.avi.converter.tac.lexer.Lexeme.ParsedValueName.DAY2;
 import static fi.fmi.avi.converter.tac.lexer.Lexeme.ParsedValueName.HOUR1;
 import static fi.fmi.avi.converter.tac.lexer.Lexeme.ParsedValueName.HOUR2;
+import static fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions.DIGITS;
 
 import java.time.Duration;
 import java.util.Optional;
@@ -18,6 +19,7 @@ import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
 import fi.fmi.avi.converter.tac.lexer.SerializingException;
 import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 import fi.fmi.avi.model.PartialOrCompleteTimeInstant;
 import fi.fmi.avi.model.PartialOrCompleteTimePeriod;
@@ -31,6 +33,7 @@ public class ValidTime extends TimeHandlingRegex {
 
     public ValidTime(final OccurrenceFrequency prio) {
         super("^(([0-9]{2})([0-9]{2})([0-9]{2}))|(([0-9]{2})([0-9]{2})/([0-9]{2})([0-9]{2}))$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf(DIGITS).withLength(6, 9).build());
     }
 
     static int calculateNumberOfHours(final PartialOrCompleteTimePeriod period) {
@@ -92,11 +95,12 @@ public class ValidTime extends TimeHandlingRegex {
     @Override
     public void visitIfMatched(final Lexeme token, final Matcher match, final ConversionHints hints) {
         if (token.hasPrevious() && LexemeIdentity.ISSUE_TIME.equals(token.getPrevious().getIdentity())) {
-            if (match.group(1) != null) {
+            final String tac = token.getTACToken();
+            if (MatchedGroups.isPresent(match, 1)) {
                 //old 24h TAF, just one day field
-                final int day = Integer.parseInt(match.group(2));
-                final int fromHour = Integer.parseInt(match.group(3));
-                final int toHour = Integer.parseInt(match.group(4));
+                final int day = MatchedGroups.parseInt(tac, match, 2);
+                final int fromHour = MatchedGroups.parseInt(tac, match, 3);
+                final int toHour = MatchedGroups.parseInt(tac, match, 4);
                 if (timeOkDayHour(day, fromHour) && timeOkDayHour(day, toHour)) {
                     token.identify(LexemeIdentity.VALID_TIME);
                     token.setParsedValue(DAY1, day);
@@ -108,10 +112,10 @@ public class ValidTime extends TimeHandlingRegex {
 
             } else {
                 //30h TAF
-                final int fromDay = Integer.parseInt(match.group(6));
-                final int fromHour = Integer.parseInt(match.group(7));
-                final int toDay = Integer.parseInt(match.group(8));
-                final int toHour = Integer.parseInt(match.group(9));
+                final int fromDay = MatchedGroups.parseInt(tac, match, 6);
+                final int fromHour = MatchedGroups.parseInt(tac, match, 7);
+                final int toDay = MatchedGroups.parseInt(tac, match, 8);
+                final int toHour = MatchedGroups.parseInt(tac, match, 9);
                 if (timeOkDayHour(fromDay, fromHour) && timeOkDayHour(toDay, toHour)) {
                     token.identify(LexemeIdentity.VALID_TIME);
                     token.setParsedValue(DAY1, fromDay);
@@ -7,10 +7,12 @@ import fi.fmi.avi.converter.ConversionHints;
 import fi.fmi.avi.converter.tac.lexer.Lexeme;
 import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
 import fi.fmi.avi.converter.tac.lexer.impl.RegexMatchingLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 
 public class VolcanicAshAdvisoryStart extends RegexMatchingLexemeVisitor {
     public VolcanicAshAdvisoryStart(final OccurrenceFrequency prio) {
         super("^VA\\s+ADVISORY$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf("V").withMinLength(11).build());
     }
 
     @Override
@@ -6,11 +6,13 @@ import fi.fmi.avi.converter.ConversionHints;
 import fi.fmi.avi.converter.tac.lexer.Lexeme;
 import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
 import fi.fmi.avi.converter.tac.lexer.impl.RegexMatchingLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 
 public class VolcanicAshPhenomena extends RegexMatchingLexemeVisitor {
 
     public VolcanicAshPhenomena(final OccurrenceFrequency prio) {
         super("^(?<type>OBS|FCST)(?:[a-zA-Z0-9\\+\\s]+)?:$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf("OF").withMinLength(4).containingAnyOf(":").build());
     }
 
     @Override
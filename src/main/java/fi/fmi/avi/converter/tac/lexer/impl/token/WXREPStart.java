@@ -5,12 +5,14 @@ import fi.fmi.avi.converter.ConversionHints;
 import fi.fmi.avi.converter.tac.lexer.Lexeme;
 import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
 import fi.fmi.avi.converter.tac.lexer.impl.PrioritizedLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 
 public class WXREPStart extends PrioritizedLexemeVisitor {
     public static final LexemeIdentity WXREP_START = new LexemeIdentity("WXREP_START");
 
     public WXREPStart(final OccurrenceFrequency prio) {
         super(prio);
+        setPreconditions(TokenPreconditions.equalToIgnoringCase("WXREP"));
     }
 
     @Override
@@ -6,12 +6,14 @@ import fi.fmi.avi.converter.ConversionHints;
 import fi.fmi.avi.converter.tac.lexer.Lexeme;
 import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
 import fi.fmi.avi.converter.tac.lexer.impl.RegexMatchingLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 
 public class WXWarningStart extends RegexMatchingLexemeVisitor {
     public static final LexemeIdentity WX_WARNING_START = new LexemeIdentity("WX_WARNING_START");
 
     public WXWarningStart(final OccurrenceFrequency prio) {
         super("^WX\\s+WRNG$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf("W").withMinLength(7).build());
     }
 
     @Override
@@ -4,6 +4,7 @@ import static fi.fmi.avi.converter.tac.lexer.LexemeIdentity.AERODROME_DESIGNATOR
 import static fi.fmi.avi.converter.tac.lexer.LexemeIdentity.RECENT_WEATHER;
 import static fi.fmi.avi.converter.tac.lexer.LexemeIdentity.REMARKS_START;
 import static fi.fmi.avi.converter.tac.lexer.LexemeIdentity.WEATHER;
+import static fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions.LETTERS;
 import static fi.fmi.avi.model.immutable.WeatherImpl.WEATHER_CODES;
 
 import java.util.Arrays;
@@ -17,8 +18,10 @@ import fi.fmi.avi.converter.tac.lexer.Lexeme;
 import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
 import fi.fmi.avi.converter.tac.lexer.SerializingException;
 import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
+import fi.fmi.avi.converter.tac.lexer.impl.LexemeUtils;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
 import fi.fmi.avi.converter.tac.lexer.impl.RegexMatchingLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 
 /**
@@ -33,26 +36,15 @@ public class Weather extends RegexMatchingLexemeVisitor {
 
     public Weather(final OccurrenceFrequency prio) {
         super("^(RE)?([+-]?[A-Z]{2,8})$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf(LETTERS).startingWithAnyOf("+-").withLength(2, 11).build());
     }
 
     @Override
     public void visitIfMatched(final Lexeme token, final Matcher match, final ConversionHints hints) {
-        boolean isPreceededWithAerodromeCode = false;
-        boolean isPreceededWithRemarkStart = false;
-        Lexeme l = token.getPrevious();
-        while (l != null) {
-            if (!isPreceededWithAerodromeCode && AERODROME_DESIGNATOR.equals(l.getIdentityIfAcceptable())) {
-                isPreceededWithAerodromeCode = true;
-            }
-            if (!isPreceededWithRemarkStart && REMARKS_START.equals(l.getIdentityIfAcceptable())) {
-                isPreceededWithRemarkStart = true;
-            }
-            l = l.getPrevious();
-        }
-        if (isPreceededWithRemarkStart) {
+        if (LexemeUtils.existsPreviousLexeme(token, REMARKS_START, l -> l.getIdentityIfAcceptable() != null)) {
             return;
         }
-        if (isPreceededWithAerodromeCode) {
+        if (LexemeUtils.existsPreviousLexeme(token, AERODROME_DESIGNATOR, l -> l.getIdentityIfAcceptable() != null)) {
             boolean isRecent = match.group(1) != null;
             String code = match.group(2);
 
@@ -1,11 +1,14 @@
 package fi.fmi.avi.converter.tac.lexer.impl.token;
 
+import static fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions.WHITESPACE;
+
 import java.util.regex.Matcher;
 
 import fi.fmi.avi.converter.ConversionHints;
 import fi.fmi.avi.converter.tac.lexer.Lexeme;
 import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
 import fi.fmi.avi.converter.tac.lexer.impl.RegexMatchingLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 
 /**
  * Created by rinne on 10/02/17.
@@ -14,6 +17,7 @@ public class Whitespace extends RegexMatchingLexemeVisitor {
 
     public Whitespace(final OccurrenceFrequency prio) {
         super("^\\s+$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf(WHITESPACE).withMinLength(1).build());
     }
 
     @Override
@@ -2,6 +2,7 @@ package fi.fmi.avi.converter.tac.lexer.impl.token;
 
 import static fi.fmi.avi.converter.tac.lexer.Lexeme.ParsedValueName.RUNWAY;
 import static fi.fmi.avi.converter.tac.lexer.LexemeIdentity.WIND_SHEAR;
+import static fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions.WHITESPACE;
 
 import java.util.Optional;
 import java.util.regex.Matcher;
@@ -12,6 +13,7 @@ import fi.fmi.avi.converter.tac.lexer.SerializingException;
 import fi.fmi.avi.converter.tac.lexer.impl.FactoryBasedReconstructor;
 import fi.fmi.avi.converter.tac.lexer.impl.ReconstructorContext;
 import fi.fmi.avi.converter.tac.lexer.impl.RegexMatchingLexemeVisitor;
+import fi.fmi.avi.converter.tac.lexer.impl.TokenPreconditions;
 import fi.fmi.avi.model.AviationWeatherMessageOrCollection;
 import fi.fmi.avi.model.RunwayDirection;
 import fi.fmi.avi.model.metar.MeteorologicalTerminalAirReport;
@@ -23,6 +25,7 @@ public class WindShear extends RegexMatchingLexemeVisitor {
 
     public WindShear(final OccurrenceFrequency prio) {
         super("^WS\\s(ALL\\s)?(?:RWY|R(?:WY)?([0-9]{2}[LRC]?))$", prio);
+        setPreconditions(TokenPreconditions.builder().startingWithAnyOf("W").withMinLength(6).containingAnyOf(WHITESPACE).build());
     }
 
     @Override
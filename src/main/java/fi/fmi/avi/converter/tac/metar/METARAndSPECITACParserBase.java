@@ -15,6 +15,7 @@ import fi.fmi.avi.converter.ConversionIssue;
 import fi.fmi.avi.converter.ConversionIssue.Type;
 import fi.fmi.avi.converter.ConversionResult;
 import fi.fmi.avi.converter.tac.AbstractTACParser;
+import fi.fmi.avi.converter.tac.MessageGrammar;
 import fi.fmi.avi.converter.tac.lexer.AviMessageLexer;
 import fi.fmi.avi.converter.tac.lexer.Lexeme;
 import fi.fmi.avi.converter.tac.lexer.Lexeme.ParsedValueName;
@@ -68,20 +69,46 @@ import fi.fmi.avi.model.metar.immutable.WindShearImpl;
 public abstract class METARAndSPECITACParserBase<T extends MeteorologicalTerminalAirReport, B extends MeteorologicalTerminalAirReportBuilder<? extends MeteorologicalTerminalAirReport, B>>
         extends AbstractTACParser<T> {
 
-    private static final LexemeIdentity[] zeroOrOneAllowed = {LexemeIdentity.AERODROME_DESIGNATOR, LexemeIdentity.ISSUE_TIME, LexemeIdentity.AIR_DEWPOINT_TEMPERATURE,
-            LexemeIdentity.AIR_PRESSURE_QNH, LexemeIdentity.WIND_SHEAR, LexemeIdentity.SEA_STATE, LexemeIdentity.SNOW_CLOSURE, LexemeIdentity.REMARKS_START, LexemeIdentity.NIL,
-            LexemeIdentity.ROUTINE_DELAYED_OBSERVATION };
+    // the allowed order and repetition of the groups, checked once for each message:
+    private static final MessageGrammar GRAMMAR = MessageGrammar.builder()
+            .zeroOrOne(LexemeIdentity.AERODROME_DESIGNATOR, LexemeIdentity.ISSUE_TIME, LexemeIdentity.AIR_DEWPOINT_TEMPERATURE, LexemeIdentity.AIR_PRESSURE_QNH,
+                    LexemeIdentity.WIND_SHEAR, LexemeIdentity.SEA_STATE, LexemeIdentity.SNOW_CLOSURE, LexemeIdentity.REMARKS_START, LexemeIdentity.NIL,
+                    LexemeIdentity.ROUTINE_DELAYED_OBSERVATION)
+            .section(LexemeIdentity.CORRECTION).allowingAfter(LexemeIdentity.RUNWAY_VISUAL_RANGE)
+            .section(LexemeIdentity.AERODROME_DESIGNATOR).allowingAfter(LexemeIdentity.RUNWAY_VISUAL_RANGE)
+            .section(LexemeIdentity.ISSUE_TIME)
+            .section(LexemeIdentity.ROUTINE_DELAYED_OBSERVATION, LexemeIdentity.NIL, LexemeIdentity.AUTOMATED).allowingAfter(LexemeIdentity.RUNWAY_VISUAL_RANGE)
+            .section(LexemeIdentity.SURFACE_WIND, LexemeIdentity.VARIABLE_WIND_DIRECTION)
+            .section(LexemeIdentity.CAVOK, LexemeIdentity.HORIZONTAL_VISIBILITY)
+            .section(LexemeIdentity.RUNWAY_VISUAL_RANGE)
+            .section(LexemeIdentity.WEATHER)
+            .section(LexemeIdentity.CLOUD)
+            .section(LexemeIdentity.AIR_DEWPOINT_TEMPERATURE)
+            .section(LexemeIdentity.AIR_PRESSURE_QNH)
+            .section(LexemeIdentity.RECENT_WEATHER)
+            .section(LexemeIdentity.WIND_SHEAR)
+            .section(LexemeIdentity.SEA_STATE)
+            .section(LexemeIdentity.RUNWAY_STATE, LexemeIdentity.SNOW_CLOSURE)
+            .section(LexemeIdentity.COLOR_CODE)
+            .section(LexemeIdentity.TREND_CHANGE_INDICATOR)
+            .section(LexemeIdentity.REMARKS_START)
+            // present weather, AUTO and variable wind direction may precede the groups before them:
+            .looselyOrdered(LexemeIdentity.AUTOMATED, LexemeIdentity.VARIABLE_WIND_DIRECTION, LexemeIdentity.WEATHER)
+            .group(LexemeIdentity.TREND_CHANGE_INDICATOR).section(LexemeIdentity.TREND_CHANGE_INDICATOR)
+            .section(LexemeIdentity.TREND_TIME_GROUP)
+            .section(LexemeIdentity.SURFACE_WIND, LexemeIdentity.CAVOK, LexemeIdentity.HORIZONTAL_VISIBILITY, LexemeIdentity.WEATHER,
+                    LexemeIdentity.NO_SIGNIFICANT_WEATHER, LexemeIdentity.CLOUD, LexemeIdentity.COLOR_CODE)
+            .group(LexemeIdentity.NO_SIGNIFICANT_CHANGES)
+            .group(LexemeIdentity.REMARKS_START)
+            .build();
 
     private AviMessageLexer lexer;
 
     private static List<ConversionIssue> setObservedSurfaceWind(final MeteorologicalTerminalAirReportBuilder builder, final LexemeSequence lexed,
-            final ConversionHints hints) {
+            final MessageGrammar.Validation order, final ConversionHints hints) {
         final List<ConversionIssue> retval = new ArrayList<>();
         lexed.getFirstLexeme().findNext(LexemeIdentity.SURFACE_WIND, (match) -> {
-            final LexemeIdentity[] before = {LexemeIdentity.CAVOK, LexemeIdentity.HORIZONTAL_VISIBILITY, LexemeIdentity.RUNWAY_VISUAL_RANGE, LexemeIdentity.CLOUD,
-                    LexemeIdentity.AIR_DEWPOINT_TEMPERATURE, LexemeIdentity.AIR_PRESSURE_QNH, LexemeIdentity.RECENT_WEATHER, LexemeIdentity.WIND_SHEAR, LexemeIdentity.SEA_STATE,
-                    LexemeIdentity.RUNWAY_STATE, LexemeIdentity.SNOW_CLOSURE, LexemeIdentity.COLOR_CODE, LexemeIdentity.TREND_CHANGE_INDICATOR, LexemeIdentity.REMARKS_START };
-            final ConversionIssue issue = checkBeforeAnyOf(match, before);
+            final ConversionIssue issue = order.checkOrder(match);
             if (issue != null) {
                 retval.add(issue);
             } else {
@@ -123,7 +150,7 @@ public abstract class METARAndSPECITACParserBase<T extends MeteorologicalTermina
                 }
 
                 match.findNext(LexemeIdentity.VARIABLE_WIND_DIRECTION, (varMatch) -> {
-                    final ConversionIssue varIssue = checkBeforeAnyOf(varMatch, before);
+                    final ConversionIssue varIssue = order.checkOrder(varMatch);
                     if (varIssue != null) {
                         retval.add(varIssue);
                     } else {
@@ -148,16 +175,13 @@ public abstract class METARAndSPECITACParserBase<T extends MeteorologicalTermina
     }
 
     private static List<ConversionIssue> setHorizontalVisibilities(final MeteorologicalTerminalAirReportBuilder builder, final LexemeSequence lexed,
-            final ConversionHints hints) {
+            final MessageGrammar.Validation order, final ConversionHints hints) {
         final List<ConversionIssue> retval = new ArrayList<>();
         lexed.getFirstLexeme().findNext(LexemeIdentity.HORIZONTAL_VISIBILITY, (match) -> {
-            final LexemeIdentity[] before = {LexemeIdentity.RUNWAY_VISUAL_RANGE, LexemeIdentity.CLOUD, LexemeIdentity.AIR_DEWPOINT_TEMPERATURE, LexemeIdentity.AIR_PRESSURE_QNH,
-                    LexemeIdentity.RECENT_WEATHER, LexemeIdentity.WIND_SHEAR, LexemeIdentity.SEA_STATE, LexemeIdentity.RUNWAY_STATE, LexemeIdentity.SNOW_CLOSURE, LexemeIdentity.COLOR_CODE,
-                    LexemeIdentity.TREND_CHANGE_INDICATOR, LexemeIdentity.REMARKS_START };
             ConversionIssue issue;
             final HorizontalVisibilityImpl.Builder vis = HorizontalVisibilityImpl.builder();
             while (match != null) {
-                issue = checkBeforeAnyOf(match, before);
+                issue = order.checkOrder(match);
                 if (issue != null) {
                     retval.add(issue);
                 } else {
@@ -204,18 +228,14 @@ public abstract class METARAndSPECITACParserBase<T extends MeteorologicalTermina
     }
 
     private static List<ConversionIssue> setRVRs(final MeteorologicalTerminalAirReportBuilder builder, final LexemeSequence lexed,
-            final ConversionHints hints) {
+            final MessageGrammar.Validation order, final ConversionHints hints) {
         final List<ConversionIssue> retval = new ArrayList<>();
 
         lexed.getFirstLexeme().findNext(LexemeIdentity.RUNWAY_VISUAL_RANGE, (match) -> {
-            final LexemeIdentity[] before = {LexemeIdentity.CLOUD, LexemeIdentity.AIR_DEWPOINT_TEMPERATURE, LexemeIdentity.AIR_PRESSURE_QNH, LexemeIdentity.RECENT_WEATHER,
-                    LexemeIdentity.WIND_SHEAR,
-                    LexemeIdentity.SEA_STATE, LexemeIdentity.RUNWAY_STATE, LexemeIdentity.SNOW_CLOSURE, LexemeIdentity.COLOR_CODE, LexemeIdentity.TREND_CHANGE_INDICATOR,
-                    LexemeIdentity.REMARKS_START };
             ConversionIssue issue;
             final List<RunwayVisualRange> rvrs = new ArrayList<>();
             while (match != null) {
-                issue = checkBeforeAnyOf(match, before);
+                issue = order.checkOrder(match);
                 if (issue != null) {
                     retval.add(issue);
                 } else {
@@ -284,15 +304,11 @@ public abstract class METARAndSPECITACParserBase<T extends MeteorologicalTermina
     }
 
     private static List<ConversionIssue> setPresentWeather(final MeteorologicalTerminalAirReportBuilder builder, final LexemeSequence lexed,
-            final ConversionHints hints) {
+            final MessageGrammar.Validation order, final ConversionHints hints) {
         final List<ConversionIssue> retval = new ArrayList<>();
 
         lexed.getFirstLexeme().findNext(LexemeIdentity.WEATHER, (match) -> {
-            final LexemeIdentity[] before = {LexemeIdentity.CLOUD, LexemeIdentity.AIR_DEWPOINT_TEMPERATURE, LexemeIdentity.AIR_PRESSURE_QNH, LexemeIdentity.RECENT_WEATHER,
-                    LexemeIdentity.WIND_SHEAR,
-                    LexemeIdentity.SEA_STATE, LexemeIdentity.RUNWAY_STATE, LexemeIdentity.SNOW_CLOSURE, LexemeIdentity.COLOR_CODE, LexemeIdentity.TREND_CHANGE_INDICATOR,
-                    LexemeIdentity.REMARKS_START };
-            final ConversionIssue issue = checkBeforeAnyOf(match, before);
+            final ConversionIssue issue = order.checkOrder(match);
             if (issue != null) {
                 retval.add(issue);
             } else {
@@ -300,7 +316,7 @@ public abstract class METARAndSPECITACParserBase<T extends MeteorologicalTermina
                     retval.add(new ConversionIssue(Type.LOGICAL, "CAVOK cannot co-exist with present weather"));
                 } else {
                     final List<fi.fmi.avi.model.Weather> weather = new ArrayList<>();
-                    retval.addAll(appendWeatherCodes(match, weather, before, hints));
+                    retval.addAll(appendWeatherCodes(match, weather, order, LexemeIdentity.WEATHER, hints));
                     if (!weather.isEmpty()) {
                         builder.setPresentWeather(weather);
                     }
@@ -311,18 +327,15 @@ public abstract class METARAndSPECITACParserBase<T extends MeteorologicalTermina
     }
 
     private static List<ConversionIssue> setObservedClouds(final MeteorologicalTerminalAirReportBuilder builder, final LexemeSequence lexed,
-            final ConversionHints hints) {
+            final MessageGrammar.Validation order, final ConversionHints hints) {
         final List<ConversionIssue> retval = new ArrayList<>();
 
         lexed.getFirstLexeme().findNext(LexemeIdentity.CLOUD, (match) -> {
-            final LexemeIdentity[] before = {LexemeIdentity.AIR_DEWPOINT_TEMPERATURE, LexemeIdentity.AIR_PRESSURE_QNH, LexemeIdentity.RECENT_WEATHER, LexemeIdentity.WIND_SHEAR,
-                    LexemeIdentity.SEA_STATE, LexemeIdentity.RUNWAY_STATE, LexemeIdentity.SNOW_CLOSURE, LexemeIdentity.COLOR_CODE, LexemeIdentity.TREND_CHANGE_INDICATOR,
-                    LexemeIdentity.REMARKS_START };
             final ObservedCloudsImpl.Builder clouds = ObservedCloudsImpl.builder();
             ConversionIssue issue;
             final List<ObservedCloudLayer> layers = new ArrayList<>();
             while (match != null) {
-                issue = checkBeforeAnyOf(match, before);
+                issue = order.checkOrder(match);
                 if (issue != null) {
                     retval.add(issue);
                 } else {
@@ -384,14 +397,11 @@ public abstract class METARAndSPECITACParserBase<T extends MeteorologicalTermina
     }
 
     private static List<ConversionIssue> setTemperatures(final MeteorologicalTerminalAirReportBuilder builder, final LexemeSequence lexed,
-            final ConversionHints hints) {
+            final MessageGrammar.Validation order, final ConversionHints hints) {
         final List<ConversionIssue> retval = new ArrayList<>();
 
         lexed.getFirstLexeme().findNext(LexemeIdentity.AIR_DEWPOINT_TEMPERATURE, (match) -> {
-            final LexemeIdentity[] before = {LexemeIdentity.AIR_PRESSURE_QNH, LexemeIdentity.RECENT_WEATHER, LexemeIdentity.WIND_SHEAR, LexemeIdentity.SEA_STATE, LexemeIdentity.RUNWAY_STATE,
-                    LexemeIdentity.SNOW_CLOSURE,
-                    LexemeIdentity.COLOR_CODE, LexemeIdentity.TREND_CHANGE_INDICATOR, LexemeIdentity.REMARKS_START };
-            final ConversionIssue issue = checkBeforeAnyOf(match, before);
+            final ConversionIssue issue = order.checkOrder(match);
             if (issue != null) {
                 retval.add(issue);
             } else {
@@ -417,14 +427,12 @@ public abstract class METARAndSPECITACParserBase<T extends MeteorologicalTermina
         return retval;
     }
 
-    private static List<ConversionIssue> setQNH(final MeteorologicalTerminalAirReportBuilder builder, final LexemeSequence lexed, final ConversionHints hints) {
+    private static List<ConversionIssue> setQNH(final MeteorologicalTerminalAirReportBuilder builder, final LexemeSequence lexed,
+            final MessageGrammar.Validation order, final ConversionHints hints) {
         final List<ConversionIssue> retval = new ArrayList<>();
 
         lexed.getFirstLexeme().findNext(LexemeIdentity.AIR_PRESSURE_QNH,  (match) -> {
-            final LexemeIdentity[] before = {LexemeIdentity.RECENT_WEATHER, LexemeIdentity.WIND_SHEAR, LexemeIdentity.SEA_STATE, LexemeIdentity.RUNWAY_STATE, LexemeIdentity.SNOW_CLOSURE,
-                    LexemeIdentity.COLOR_CODE,
-                    LexemeIdentity.TREND_CHANGE_INDICATOR, LexemeIdentity.REMARKS_START };
-            final ConversionIssue issue = checkBeforeAnyOf(match, before);
+            final ConversionIssue issue = order.checkOrder(match);
             if (issue != null) {
                 retval.add(issue);
             } else {
@@ -452,14 +460,11 @@ public abstract class METARAndSPECITACParserBase<T extends MeteorologicalTermina
     }
 
     private static List<ConversionIssue> setRecentWeather(final MeteorologicalTerminalAirReportBuilder builder, final LexemeSequence lexed,
-            final ConversionHints hints) {
+            final MessageGrammar.Validation order, final ConversionHints hints) {
         final List<ConversionIssue> retval = new ArrayList<>();
         lexed.getFirstLexeme().findNext(LexemeIdentity.RECENT_WEATHER,  (match) -> {
-            final LexemeIdentity[] before = {LexemeIdentity.WIND_SHEAR, LexemeIdentity.SEA_STATE, LexemeIdentity.RUNWAY_STATE, LexemeIdentity.SNOW_CLOSURE, LexemeIdentity.COLOR_CODE,
-                    LexemeIdentity.TREND_CHANGE_INDICATOR,
-                    LexemeIdentity.REMARKS_START };
             final List<fi.fmi.avi.model.Weather> weather = new ArrayList<>();
-            retval.addAll(appendWeatherCodes(match, weather, before, hints));
+            retval.addAll(appendWeatherCodes(match, weather, order, LexemeIdentity.RECENT_WEATHER, hints));
             if (!weather.isEmpty()) {
                 builder.setRecentWeather(weather);
             }
@@ -468,16 +473,14 @@ public abstract class METARAndSPECITACParserBase<T extends MeteorologicalTermina
     }
 
     private static List<ConversionIssue> setWindShears(final MeteorologicalTerminalAirReportBuilder builder, final LexemeSequence lexed,
-            final ConversionHints hints) {
+            final MessageGrammar.Validation order, final ConversionHints hints) {
         final List<ConversionIssue> retval = new ArrayList<>();
         lexed.getFirstLexeme().findNext(LexemeIdentity.WIND_SHEAR,  (match) -> {
-            final LexemeIdentity[] before = { LexemeIdentity.SEA_STATE, LexemeIdentity.RUNWAY_STATE, LexemeIdentity.SNOW_CLOSURE, LexemeIdentity.COLOR_CODE, LexemeIdentity.TREND_CHANGE_INDICATOR,
-                    LexemeIdentity.REMARKS_START };
             ConversionIssue issue;
             final WindShearImpl.Builder ws = WindShearImpl.builder();
             final List<RunwayDirection> runways = new ArrayList<>();
             while (match != null) {
-                issue = checkBeforeAnyOf(match, before);
+                issue = order.checkOrder(match);
                 if (issue != null) {
                     retval.add(issue);
                 } else {
@@ -509,12 +512,10 @@ public abstract class METARAndSPECITACParserBase<T extends MeteorologicalTermina
     }
 
     private static List<ConversionIssue> setSeaState(final MeteorologicalTerminalAirReportBuilder builder, final LexemeSequence lexed,
-            final ConversionHints hints) {
+            final MessageGrammar.Validation order, final ConversionHints hints) {
         final List<ConversionIssue> retval = new ArrayList<>();
         lexed.getFirstLexeme().findNext(LexemeIdentity.SEA_STATE, (match) -> {
-            final LexemeIdentity[] before = {LexemeIdentity.RUNWAY_STATE, LexemeIdentity.SNOW_CLOSURE, LexemeIdentity.COLOR_CODE, LexemeIdentity.TREND_CHANGE_INDICATOR,
-                    LexemeIdentity.REMARKS_START };
-            final ConversionIssue issue = checkBeforeAnyOf(match, before);
+            final ConversionIssue issue = order.checkOrder(match);
             if (issue != null) {
                 retval.add(issue);
             } else {
@@ -582,15 +583,14 @@ public abstract class METARAndSPECITACParserBase<T extends MeteorologicalTermina
     }
 
     private static List<ConversionIssue> setRunwayStates(final MeteorologicalTerminalAirReportBuilder builder, final LexemeSequence lexed,
-            final ConversionHints hints) {
+            final MessageGrammar.Validation order, final ConversionHints hints) {
         final List<ConversionIssue> retval = new ArrayList<>();
 
         lexed.getFirstLexeme().findNext(LexemeIdentity.RUNWAY_STATE,  (match) -> {
-            final LexemeIdentity[] before = {LexemeIdentity.COLOR_CODE, LexemeIdentity.TREND_CHANGE_INDICATOR, LexemeIdentity.REMARKS_START };
             ConversionIssue issue;
             final List<RunwayState> states = new ArrayList<>();
             while (match != null) {
-                issue = checkBeforeAnyOf(match, before);
+                issue = order.checkOrder(match);
                 if (issue != null) {
                     retval.add(issue);
                     match = match.findNext(LexemeIdentity.RUNWAY_STATE);
@@ -722,11 +722,10 @@ public abstract class METARAndSPECITACParserBase<T extends MeteorologicalTermina
     }
 
     private static List<ConversionIssue> setColorState(final MeteorologicalTerminalAirReportBuilder builder, final LexemeSequence lexed,
-            final ConversionHints hints) {
+            final MessageGrammar.Validation order, final ConversionHints hints) {
         final List<ConversionIssue> retval = new ArrayList<>();
         lexed.getFirstLexeme().findNext(LexemeIdentity.COLOR_CODE,  (match) -> {
-            final LexemeIdentity[] before = {LexemeIdentity.TREND_CHANGE_INDICATOR, LexemeIdentity.REMARKS_START };
-            final ConversionIssue issue = checkBeforeAnyOf(match, before);
+            final ConversionIssue issue = order.checkOrder(match);
             if (issue != null) {
                 retval.add(issue);
             } else {
@@ -750,12 +749,8 @@ public abstract class METARAndSPECITACParserBase<T extends MeteorologicalTermina
         Lexeme token = parseChangeTimeGroups(fctBuilder, groupStart.getNext(), retval, hints);
 
         //loop over change group tokens:
-        final LexemeIdentity[] before = { LexemeIdentity.REMARKS_START, LexemeIdentity.END_TOKEN };
 
         while (token != null) {
-            if (checkBeforeAnyOf(token, before) != null) {
-                break;
-            }
             final LexemeIdentity id = token.getIdentity();
             if (LexemeIdentity.CAVOK.equals(id)) {
                 fctBuilder.setCeilingAndVisibilityOk(true);
@@ -1059,9 +1054,9 @@ public abstract class METARAndSPECITACParserBase<T extends MeteorologicalTermina
             return result;
         }
 
-        final List<ConversionIssue> issues = checkZeroOrOne(lexed, zeroOrOneAllowed);
-        if (!issues.isEmpty()) {
-            result.addIssue(issues);
+        final MessageGrammar.Validation order = GRAMMAR.validate(lexed);
+        if (!order.getCardinalityIssues().isEmpty()) {
+            result.addIssue(order.getCardinalityIssues());
         }
 
         final B builder = getBuilder();
@@ -1074,15 +1069,11 @@ public abstract class METARAndSPECITACParserBase<T extends MeteorologicalTermina
         withTimeForTranslation(hints, builder::setTranslationTime);
 
         //Split into obs & trends (+possible remarks)
-        final List<LexemeSequence> subSequences = lexed.splitBy(LexemeIdentity.TREND_CHANGE_INDICATOR, LexemeIdentity.NO_SIGNIFICANT_CHANGES, LexemeIdentity.REMARKS_START);
+        final List<LexemeSequence> subSequences = GRAMMAR.splitIntoGroups(lexed);
         final LexemeSequence obs = subSequences.get(0);
 
         obs.getFirstLexeme().findNext(LexemeIdentity.CORRECTION, (match) -> {
-            final LexemeIdentity[] before = { LexemeIdentity.AERODROME_DESIGNATOR, LexemeIdentity.ISSUE_TIME, LexemeIdentity.ROUTINE_DELAYED_OBSERVATION, LexemeIdentity.NIL,
-                    LexemeIdentity.SURFACE_WIND, LexemeIdentity.CAVOK, LexemeIdentity.HORIZONTAL_VISIBILITY, LexemeIdentity.CLOUD, LexemeIdentity.AIR_DEWPOINT_TEMPERATURE,
-                    LexemeIdentity.AIR_PRESSURE_QNH, LexemeIdentity.RECENT_WEATHER, LexemeIdentity.WIND_SHEAR, LexemeIdentity.SEA_STATE, LexemeIdentity.RUNWAY_STATE, LexemeIdentity.SNOW_CLOSURE,
-                    LexemeIdentity.COLOR_CODE, LexemeIdentity.TREND_CHANGE_INDICATOR, LexemeIdentity.REMARKS_START };
-            final ConversionIssue issue = checkBeforeAnyOf(match, before);
+            final ConversionIssue issue = order.checkOrder(match);
             if (issue != null) {
                 result.addIssue(issue);
             } else {
@@ -1091,11 +1082,7 @@ public abstract class METARAndSPECITACParserBase<T extends MeteorologicalTermina
         }, () -> builder.setStatus(AviationCodeListUser.MetarStatus.NORMAL));
 
         obs.getFirstLexeme().findNext(LexemeIdentity.AERODROME_DESIGNATOR, (match) -> {
-            final LexemeIdentity[] before = new LexemeIdentity[] { LexemeIdentity.ISSUE_TIME, LexemeIdentity.ROUTINE_DELAYED_OBSERVATION, LexemeIdentity.NIL, LexemeIdentity.SURFACE_WIND,
-                    LexemeIdentity.CAVOK, LexemeIdentity.HORIZONTAL_VISIBILITY, LexemeIdentity.CLOUD, LexemeIdentity.AIR_DEWPOINT_TEMPERATURE, LexemeIdentity.AIR_PRESSURE_QNH,
-                    LexemeIdentity.RECENT_WEATHER, LexemeIdentity.WIND_SHEAR, LexemeIdentity.SEA_STATE, LexemeIdentity.RUNWAY_STATE, LexemeIdentity.SNOW_CLOSURE, LexemeIdentity.COLOR_CODE,
-                    LexemeIdentity.TREND_CHANGE_INDICATOR, LexemeIdentity.REMARKS_START };
-            final ConversionIssue issue = checkBeforeAnyOf(match, before);
+            final ConversionIssue issue = order.checkOrder(match);
             if (issue != null) {
                 result.addIssue(issue);
             } else {
@@ -1103,13 +1090,10 @@ public abstract class METARAndSPECITACParserBase<T extends MeteorologicalTermina
             }
         }, () -> result.addIssue(new ConversionIssue(ConversionIssue.Type.SYNTAX, "Aerodrome designator not given in " + input)));
 
-        result.addIssue(setMETARIssueTime(builder, lexed, hints));
+        result.addIssue(setMETARIssueTime(builder, lexed, order, hints));
 
         obs.getFirstLexeme().findNext(LexemeIdentity.AUTOMATED, (match) -> {
-            final LexemeIdentity[] before = new LexemeIdentity[] { LexemeIdentity.SURFACE_WIND, LexemeIdentity.CAVOK, LexemeIdentity.HORIZONTAL_VISIBILITY, LexemeIdentity.CLOUD,
-                    LexemeIdentity.AIR_DEWPOINT_TEMPERATURE, LexemeIdentity.AIR_PRESSURE_QNH, LexemeIdentity.RECENT_WEATHER, LexemeIdentity.WIND_SHEAR, LexemeIdentity.SEA_STATE,
-                    LexemeIdentity.RUNWAY_STATE, LexemeIdentity.SNOW_CLOSURE, LexemeIdentity.COLOR_CODE, LexemeIdentity.TREND_CHANGE_INDICATOR, LexemeIdentity.REMARKS_START };
-            final ConversionIssue issue = checkBeforeAnyOf(match, before);
+            final ConversionIssue issue = order.checkOrder(match);
             if (issue != null) {
                 result.addIssue(issue);
             } else {
@@ -1118,10 +1102,7 @@ public abstract class METARAndSPECITACParserBase<T extends MeteorologicalTermina
         });
 
         obs.getFirstLexeme().findNext(LexemeIdentity.ROUTINE_DELAYED_OBSERVATION,  (match) -> {
-            final LexemeIdentity[] before = new LexemeIdentity[] { LexemeIdentity.SURFACE_WIND, LexemeIdentity.CAVOK, LexemeIdentity.HORIZONTAL_VISIBILITY, LexemeIdentity.CLOUD,
-                    LexemeIdentity.AIR_DEWPOINT_TEMPERATURE, LexemeIdentity.AIR_PRESSURE_QNH, LexemeIdentity.RECENT_WEATHER, LexemeIdentity.WIND_SHEAR, LexemeIdentity.SEA_STATE,
-                    LexemeIdentity.RUNWAY_STATE, LexemeIdentity.SNOW_CLOSURE, LexemeIdentity.COLOR_CODE, LexemeIdentity.TREND_CHANGE_INDICATOR, LexemeIdentity.REMARKS_START };
-            final ConversionIssue issue = checkBeforeAnyOf(match, before);
+            final ConversionIssue issue = order.checkOrder(match);
             if (issue != null) {
                 result.addIssue(issue);
             } else {
@@ -1136,10 +1117,7 @@ public abstract class METARAndSPECITACParserBase<T extends MeteorologicalTermina
         });
 
         obs.getFirstLexeme().findNext(LexemeIdentity.NIL, (match) -> {
-            final LexemeIdentity[] before = new LexemeIdentity[] { LexemeIdentity.SURFACE_WIND, LexemeIdentity.CAVOK, LexemeIdentity.HORIZONTAL_VISIBILITY, LexemeIdentity.CLOUD,
-                    LexemeIdentity.AIR_DEWPOINT_TEMPERATURE, LexemeIdentity.AIR_PRESSURE_QNH, LexemeIdentity.RECENT_WEATHER, LexemeIdentity.WIND_SHEAR, LexemeIdentity.SEA_STATE,
-                    LexemeIdentity.RUNWAY_STATE, LexemeIdentity.SNOW_CLOSURE, LexemeIdentity.COLOR_CODE, LexemeIdentity.TREND_CHANGE_INDICATOR, LexemeIdentity.REMARKS_START };
-            final ConversionIssue issue = checkBeforeAnyOf(match, before);
+            final ConversionIssue issue = order.checkOrder(match);
             if (issue != null) {
                 result.addIssue(issue);
             } else {
@@ -1158,13 +1136,10 @@ public abstract class METARAndSPECITACParserBase<T extends MeteorologicalTermina
             return result;
         }
 
-        result.addIssue(setObservedSurfaceWind(builder, obs, hints));
+        result.addIssue(setObservedSurfaceWind(builder, obs, order, hints));
 
         obs.getFirstLexeme().findNext(LexemeIdentity.CAVOK, (match) -> {
-            final LexemeIdentity[] before = new LexemeIdentity[] { LexemeIdentity.RUNWAY_VISUAL_RANGE, LexemeIdentity.CLOUD, LexemeIdentity.AIR_DEWPOINT_TEMPERATURE,
-                    LexemeIdentity.AIR_PRESSURE_QNH, LexemeIdentity.RECENT_WEATHER, LexemeIdentity.WIND_SHEAR, LexemeIdentity.SEA_STATE, LexemeIdentity.RUNWAY_STATE, LexemeIdentity.SNOW_CLOSURE,
-                    LexemeIdentity.COLOR_CODE, LexemeIdentity.TREND_CHANGE_INDICATOR, LexemeIdentity.REMARKS_START };
-            final ConversionIssue issue = checkBeforeAnyOf(match, before);
+            final ConversionIssue issue = order.checkOrder(match);
             if (issue != null) {
                 result.addIssue(issue);
             } else {
@@ -1172,20 +1147,19 @@ public abstract class METARAndSPECITACParserBase<T extends MeteorologicalTermina
             }
         });
 
-        result.addIssue(setHorizontalVisibilities(builder, obs, hints));
-        result.addIssue(setRVRs(builder, obs, hints));
-        result.addIssue(setPresentWeather(builder, obs, hints));
-        result.addIssue(setObservedClouds(builder, obs, hints));
-        result.addIssue(setTemperatures(builder, obs, hints));
-        result.addIssue(setQNH(builder, obs, hints));
-        result.addIssue(setRecentWeather(builder, obs, hints));
-        result.addIssue(setWindShears(builder, obs, hints));
-        result.addIssue(setSeaState(builder, obs, hints));
-        result.addIssue(setRunwayStates(builder, obs, hints));
+        result.addIssue(setHorizontalVisibilities(builder, obs, order, hints));
+        result.addIssue(setRVRs(builder, obs, order, hints));
+        result.addIssue(setPresentWeather(builder, obs, order, hints));
+        result.addIssue(setObservedClouds(builder, obs, order, hints));
+        result.addIssue(setTemperatures(builder, obs, order, hints));
+        result.addIssue(setQNH(builder, obs, order, hints));
+        result.addIssue(setRecentWeather(builder, obs, order, hints));
+        result.addIssue(setWindShears(builder, obs, order, hints));
+        result.addIssue(setSeaState(builder, obs, order, hints));
+        result.addIssue(setRunwayStates(builder, obs, order, hints));
 
         obs.getFirstLexeme().findNext(LexemeIdentity.SNOW_CLOSURE, (match) -> {
-            final LexemeIdentity[] before = new LexemeIdentity[] { LexemeIdentity.COLOR_CODE, LexemeIdentity.TREND_CHANGE_INDICATOR, LexemeIdentity.REMARKS_START };
-            final ConversionIssue issue = checkBeforeAnyOf(match, before);
+            final ConversionIssue issue = order.checkOrder(match);
             if (issue != null) {
                 result.addIssue(issue);
             } else {
@@ -1193,13 +1167,13 @@ public abstract class METARAndSPECITACParserBase<T extends MeteorologicalTermina
             }
         });
 
-        result.addIssue(setColorState(builder, obs, hints));
+        result.addIssue(setColorState(builder, obs, order, hints));
 
         if (subSequences.size() > 0) {
             for (int i = 1; i < subSequences.size(); i++) {
                 final LexemeSequence seq = subSequences.get(i);
                 if (LexemeIdentity.TREND_CHANGE_INDICATOR.equals(seq.getFirstLexeme().getIdentity())) {
-                    result.addIssue(addToTrends(builder, seq.getFirstLexeme(), hints));
+                    result.addIssue(addToTrends(builder, seq.getFirstLexeme(), order, hints));
                 } else if (LexemeIdentity.NO_SIGNIFICANT_CHANGES.equals(seq.getFirstLexeme().getIdentity())) {
                     builder.setNoSignificantChanges(true);
                 } else if (LexemeIdentity.REMARKS_START.equals(seq.getFirstLexeme().getIdentity())) {
@@ -1220,22 +1194,20 @@ public abstract class METARAndSPECITACParserBase<T extends MeteorologicalTermina
         return result;
     }
 
-    private List<ConversionIssue> setMETARIssueTime(final B builder, final LexemeSequence lexed, final ConversionHints hints) {
+    private List<ConversionIssue> setMETARIssueTime(final B builder, final LexemeSequence lexed, final MessageGrammar.Validation order,
+            final ConversionHints hints) {
         final List<ConversionIssue> retval = new ArrayList<>();
-        final LexemeIdentity[] before = { LexemeIdentity.ROUTINE_DELAYED_OBSERVATION, LexemeIdentity.NIL, LexemeIdentity.SURFACE_WIND, LexemeIdentity.CAVOK, LexemeIdentity.HORIZONTAL_VISIBILITY,
-                LexemeIdentity.RUNWAY_VISUAL_RANGE, LexemeIdentity.CLOUD, LexemeIdentity.AIR_DEWPOINT_TEMPERATURE, LexemeIdentity.AIR_PRESSURE_QNH, LexemeIdentity.RECENT_WEATHER,
-                LexemeIdentity.WIND_SHEAR, LexemeIdentity.SEA_STATE, LexemeIdentity.RUNWAY_STATE, LexemeIdentity.SNOW_CLOSURE, LexemeIdentity.COLOR_CODE, LexemeIdentity.TREND_CHANGE_INDICATOR,
-                LexemeIdentity.REMARKS_START };
-        retval.addAll(withFoundIssueTime(lexed, before, hints, builder::setIssueTime));
+        retval.addAll(withFoundIssueTime(lexed, order, hints, builder::setIssueTime));
         return retval;
     }
 
-    private List<ConversionIssue> addToTrends(final B builder, final Lexeme changeFctToken, final ConversionHints hints) {
+    private List<ConversionIssue> addToTrends(final B builder, final Lexeme changeFctToken, final MessageGrammar.Validation order,
+            final ConversionHints hints) {
         if (LexemeIdentity.TREND_CHANGE_INDICATOR != changeFctToken.getIdentity()) {
             throw new IllegalArgumentException("Cannot update Trend, the start lexeme " + changeFctToken + " is not a change forecast start token");
         }
         final List<ConversionIssue> retval = new ArrayList<>();
-        final ConversionIssue issue = checkBeforeAnyOf(changeFctToken, new LexemeIdentity[] { LexemeIdentity.REMARKS_START });
+        final ConversionIssue issue = order.checkOrder(changeFctToken);
         if (issue != null) {
             retval.add(issue);
             return retval;
@@ -10,6 +10,7 @@ import fi.fmi.avi.converter.ConversionIssue;
 import fi.fmi.avi.converter.ConversionResult;
 import fi.fmi.avi.converter.IssueList;
 import fi.fmi.avi.converter.tac.AbstractTACParser;
+import fi.fmi.avi.converter.tac.MessageGrammar;
 import fi.fmi.avi.converter.tac.lexer.AviMessageLexer;
 import fi.fmi.avi.converter.tac.lexer.Lexeme;
 import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
@@ -43,6 +44,37 @@ public abstract class TAFTACParserBase<T extends TAF> extends AbstractTACParser<
     protected static final LexemeIdentity[] zeroOrOneAllowed = {LexemeIdentity.AERODROME_DESIGNATOR, LexemeIdentity.ISSUE_TIME, LexemeIdentity.VALID_TIME,
             LexemeIdentity.CORRECTION, LexemeIdentity.AMENDMENT, LexemeIdentity.CANCELLATION, LexemeIdentity.NIL, LexemeIdentity.MIN_TEMPERATURE,
             LexemeIdentity.MAX_TEMPERATURE, LexemeIdentity.REMARKS_START };
+
+    // the allowed order and repetition of the groups, checked once for each message:
+    private static final MessageGrammar GRAMMAR = MessageGrammar.builder()
+            .zeroOrOne(zeroOrOneAllowed)
+            .section(LexemeIdentity.CORRECTION, LexemeIdentity.AMENDMENT)
+            .section(LexemeIdentity.AERODROME_DESIGNATOR)
+            .section(LexemeIdentity.ISSUE_TIME)
+            .section(LexemeIdentity.NIL)
+            .section(LexemeIdentity.VALID_TIME)
+            .section(LexemeIdentity.CANCELLATION)
+            .section(LexemeIdentity.SURFACE_WIND)
+            .section(LexemeIdentity.CAVOK)
+            .section(LexemeIdentity.HORIZONTAL_VISIBILITY)
+            .section(LexemeIdentity.WEATHER)
+            .section(LexemeIdentity.CLOUD)
+            .section(LexemeIdentity.MAX_TEMPERATURE)
+            .section(LexemeIdentity.MIN_TEMPERATURE)
+            .section(LexemeIdentity.TAF_FORECAST_CHANGE_INDICATOR)
+            .section(LexemeIdentity.REMARKS_START)
+            .group(LexemeIdentity.TAF_FORECAST_CHANGE_INDICATOR)
+            .section(LexemeIdentity.TAF_FORECAST_CHANGE_INDICATOR)
+            .section(LexemeIdentity.TAF_CHANGE_FORECAST_TIME_GROUP)
+            .section(LexemeIdentity.SURFACE_WIND).allowingAfter(LexemeIdentity.NO_SIGNIFICANT_WEATHER)
+            .section(LexemeIdentity.CAVOK)
+            .section(LexemeIdentity.HORIZONTAL_VISIBILITY)
+            .section(LexemeIdentity.WEATHER)
+            .section(LexemeIdentity.NO_SIGNIFICANT_WEATHER)
+            .section(LexemeIdentity.CLOUD)
+            .group(LexemeIdentity.REMARKS_START)
+            .build();
+
     protected AviMessageLexer lexer;
 
     @Override
@@ -74,9 +106,9 @@ public abstract class TAFTACParserBase<T extends TAF> extends AbstractTACParser<
             result.addIssue(new ConversionIssue(ConversionIssue.Type.SYNTAX, "Message does not end in end token"));
             return result;
         }
-        final List<ConversionIssue> issues = checkZeroOrOne(lexed, zeroOrOneAllowed);
-        if (!issues.isEmpty()) {
-            result.addIssue(issues);
+        final MessageGrammar.Validation order = GRAMMAR.validate(lexed);
+        if (!order.getCardinalityIssues().isEmpty()) {
+            result.addIssue(order.getCardinalityIssues());
             return result;
         }
         final TAFImpl.Builder builder = TAFImpl.builder();
@@ -88,14 +120,10 @@ public abstract class TAFTACParserBase<T extends TAF> extends AbstractTACParser<
         withTimeForTranslation(hints, builder::setTranslationTime);
 
         //Split & filter in the sequences starting with FORECAST_CHANGE_INDICATOR:
-        final List<LexemeSequence> subSequences = lexed.splitBy(LexemeIdentity.TAF_FORECAST_CHANGE_INDICATOR, LexemeIdentity.REMARKS_START);
+        final List<LexemeSequence> subSequences = GRAMMAR.splitIntoGroups(lexed);
 
         lexed.getFirstLexeme().findNext(LexemeIdentity.CORRECTION, (match) -> {
-            final LexemeIdentity[] before = {LexemeIdentity.AERODROME_DESIGNATOR, LexemeIdentity.ISSUE_TIME, LexemeIdentity.NIL,
-                    LexemeIdentity.VALID_TIME, LexemeIdentity.CANCELLATION, LexemeIdentity.SURFACE_WIND, LexemeIdentity.HORIZONTAL_VISIBILITY,
-                    LexemeIdentity.WEATHER, LexemeIdentity.CLOUD, LexemeIdentity.CAVOK, LexemeIdentity.MIN_TEMPERATURE, LexemeIdentity.MAX_TEMPERATURE,
-                    LexemeIdentity.TAF_FORECAST_CHANGE_INDICATOR, LexemeIdentity.REMARKS_START};
-            final ConversionIssue issue = checkBeforeAnyOf(match, before);
+            final ConversionIssue issue = order.checkOrder(match);
             if (issue != null) {
                 result.addIssue(issue);
             } else {
@@ -104,11 +132,7 @@ public abstract class TAFTACParserBase<T extends TAF> extends AbstractTACParser<
         });
 
         lexed.getFirstLexeme().findNext(LexemeIdentity.AMENDMENT, (match) -> {
-            final LexemeIdentity[] before = {LexemeIdentity.AERODROME_DESIGNATOR, LexemeIdentity.ISSUE_TIME, LexemeIdentity.NIL,
-                    LexemeIdentity.VALID_TIME, LexemeIdentity.CANCELLATION, LexemeIdentity.SURFACE_WIND, LexemeIdentity.HORIZONTAL_VISIBILITY,
-                    LexemeIdentity.WEATHER, LexemeIdentity.CLOUD, LexemeIdentity.CAVOK, LexemeIdentity.MIN_TEMPERATURE, LexemeIdentity.MAX_TEMPERATURE,
-                    LexemeIdentity.TAF_FORECAST_CHANGE_INDICATOR, LexemeIdentity.REMARKS_START };
-            final ConversionIssue issue = checkBeforeAnyOf(match, before);
+            final ConversionIssue issue = order.checkOrder(match);
             if (issue != null) {
                 result.addIssue(issue);
             } else {
@@ -117,11 +141,7 @@ public abstract class TAFTACParserBase<T extends TAF> extends AbstractTACParser<
         });
 
         lexed.getFirstLexeme().findNext(LexemeIdentity.AERODROME_DESIGNATOR, (match) -> {
-            final LexemeIdentity[] before = new LexemeIdentity[] { LexemeIdentity.ISSUE_TIME, LexemeIdentity.NIL, LexemeIdentity.VALID_TIME,
-                    LexemeIdentity.CANCELLATION, LexemeIdentity.SURFACE_WIND, LexemeIdentity.HORIZONTAL_VISIBILITY, LexemeIdentity.WEATHER,
-                    LexemeIdentity.CLOUD, LexemeIdentity.CAVOK, LexemeIdentity.MIN_TEMPERATURE, LexemeIdentity.MAX_TEMPERATURE,
-                    LexemeIdentity.TAF_FORECAST_CHANGE_INDICATOR, LexemeIdentity.REMARKS_START };
-            final ConversionIssue issue = checkBeforeAnyOf(match, before);
+            final ConversionIssue issue = order.checkOrder(match);
             if (issue != null) {
                 result.addIssue(issue);
             } else {
@@ -129,14 +149,10 @@ public abstract class TAFTACParserBase<T extends TAF> extends AbstractTACParser<
             }
         }, () -> result.addIssue(new ConversionIssue(ConversionIssue.Type.SYNTAX, "Aerodrome designator not given in " + input)));
 
-        result.addIssue(setTAFIssueTime(builder, lexed, hints));
+        result.addIssue(setTAFIssueTime(builder, lexed, order, hints));
 
         lexed.getFirstLexeme().findNext(LexemeIdentity.NIL,  (match) -> {
-            final LexemeIdentity[] before = new LexemeIdentity[] {LexemeIdentity.VALID_TIME, LexemeIdentity.CANCELLATION, LexemeIdentity.SURFACE_WIND,
-                    LexemeIdentity.HORIZONTAL_VISIBILITY, LexemeIdentity.WEATHER, LexemeIdentity.CLOUD, LexemeIdentity.CAVOK,
-                    LexemeIdentity.MIN_TEMPERATURE, LexemeIdentity.MAX_TEMPERATURE, LexemeIdentity.TAF_FORECAST_CHANGE_INDICATOR,
-                    LexemeIdentity.REMARKS_START };
-            final ConversionIssue issue = checkBeforeAnyOf(match, before);
+            final ConversionIssue issue = order.checkOrder(match);
             if (issue != null) {
                 result.addIssue(issue);
             } else {
@@ -168,10 +184,7 @@ public abstract class TAFTACParserBase<T extends TAF> extends AbstractTACParser<
 
 
         lexed.getFirstLexeme().findNext(LexemeIdentity.CANCELLATION, (match) -> {
-            final LexemeIdentity[] before = new LexemeIdentity[] { LexemeIdentity.SURFACE_WIND, LexemeIdentity.HORIZONTAL_VISIBILITY,
-                    LexemeIdentity.WEATHER, LexemeIdentity.CLOUD, LexemeIdentity.CAVOK, LexemeIdentity.MIN_TEMPERATURE, LexemeIdentity.MAX_TEMPERATURE,
-                    LexemeIdentity.TAF_FORECAST_CHANGE_INDICATOR, LexemeIdentity.REMARKS_START };
-            final ConversionIssue issue = checkBeforeAnyOf(match, before);
+            final ConversionIssue issue = order.checkOrder(match);
             if (issue != null) {
                 result.addIssue(issue);
             } else {
@@ -190,33 +203,33 @@ public abstract class TAFTACParserBase<T extends TAF> extends AbstractTACParser<
                     .VALUE_TAF_REFERENCE_POLICY_USE_REFERRED_REPORT_VALID_TIME_FOR_COR_CNL_AMD);
         }
         if (builder.getStatus() == null) {
-            result.addIssue(setTAFValidTime(builder, lexed, hints));
+            result.addIssue(setTAFValidTime(builder, lexed, order, hints));
         } else {
             switch (builder.getStatus()) {
                 case AMENDMENT:
                     if (referencePolicy.equals(ConversionHints.VALUE_TAF_REFERENCE_POLICY_USE_REFERRED_REPORT_VALID_TIME_FOR_COR_CNL_AMD)) {
-                        result.addIssue(setReferredReport(builder, lexed, hints));
+                        result.addIssue(setReferredReport(builder, lexed, order, hints));
                     } else {
-                        result.addIssue(setTAFValidTime(builder, lexed, hints));
+                        result.addIssue(setTAFValidTime(builder, lexed, order, hints));
                     }
                     break;
                 case CORRECTION:
                     if (referencePolicy.equals(ConversionHints.VALUE_TAF_REFERENCE_POLICY_USE_REFERRED_REPORT_VALID_TIME_FOR_COR_CNL_AMD) || referencePolicy.equals(ConversionHints.VALUE_TAF_REFERENCE_POLICY_USE_REFERRED_REPORT_VALID_TIME_FOR_COR_CNL)) {
-                        result.addIssue(setReferredReport(builder, lexed, hints));
+                        result.addIssue(setReferredReport(builder, lexed, order, hints));
                     } else {
-                        result.addIssue(setTAFValidTime(builder, lexed, hints));
+                        result.addIssue(setTAFValidTime(builder, lexed, order, hints));
                     }
                     break;
                 case CANCELLATION:
                     if (referencePolicy.equals(ConversionHints.VALUE_TAF_REFERENCE_POLICY_USE_REFERRED_REPORT_VALID_TIME_FOR_COR_CNL_AMD) || referencePolicy.equals(ConversionHints.VALUE_TAF_REFERENCE_POLICY_USE_REFERRED_REPORT_VALID_TIME_FOR_COR_CNL)
                             || referencePolicy.equals(ConversionHints.VALUE_TAF_REFERENCE_POLICY_USE_REFERRED_REPORT_VALID_TIME_FOR_CNL)) {
-                        result.addIssue(setReferredReport(builder, lexed, hints));
+                        result.addIssue(setReferredReport(builder, lexed, order, hints));
                     } else {
-                        result.addIssue(setTAFValidTime(builder, lexed, hints));
+                        result.addIssue(setTAFValidTime(builder, lexed, order, hints));
                     }
                     break;
                 default:
-                    result.addIssue(setTAFValidTime(builder, lexed, hints));
+                    result.addIssue(setTAFValidTime(builder, lexed, order, hints));
 
             }
         }
@@ -228,11 +241,11 @@ public abstract class TAFTACParserBase<T extends TAF> extends AbstractTACParser<
         }
 
         //Should always return at least one as long as lexed is not empty, the first one is the base forecast:
-        result.addIssue(setBaseForecast(builder, subSequences.get(0).getFirstLexeme(), hints));
+        result.addIssue(setBaseForecast(builder, subSequences.get(0).getFirstLexeme(), order, hints));
         for (int i = 1; i < subSequences.size(); i++) {
             final LexemeSequence seq = subSequences.get(i);
             if (LexemeIdentity.TAF_FORECAST_CHANGE_INDICATOR.equals(seq.getFirstLexeme().getIdentity())) {
-                result.addIssue(addChangeForecast(builder, subSequences.get(i).getFirstLexeme(), hints));
+                result.addIssue(addChangeForecast(builder, subSequences.get(i).getFirstLexeme(), order, hints));
             }
         }
 
@@ -246,17 +259,15 @@ public abstract class TAFTACParserBase<T extends TAF> extends AbstractTACParser<
         return result;
     }
 
-    protected List<ConversionIssue> setTAFIssueTime(final TAFImpl.Builder builder, final LexemeSequence lexed, final ConversionHints hints) {
-        final LexemeIdentity[] before = new LexemeIdentity[] {LexemeIdentity.NIL, LexemeIdentity.VALID_TIME, LexemeIdentity.CANCELLATION,
-                LexemeIdentity.SURFACE_WIND, LexemeIdentity.HORIZONTAL_VISIBILITY, LexemeIdentity.WEATHER, LexemeIdentity.CLOUD, LexemeIdentity.CAVOK,
-                LexemeIdentity.MIN_TEMPERATURE, LexemeIdentity.MAX_TEMPERATURE, LexemeIdentity.TAF_FORECAST_CHANGE_INDICATOR,
-                LexemeIdentity.REMARKS_START };
-        return new ArrayList<>(withFoundIssueTime(lexed, before, hints, builder::setIssueTime));
+    protected List<ConversionIssue> setTAFIssueTime(final TAFImpl.Builder builder, final LexemeSequence lexed, final MessageGrammar.Validation order,
+            final ConversionHints hints) {
+        return new ArrayList<>(withFoundIssueTime(lexed, order, hints, builder::setIssueTime));
     }
 
-    protected List<ConversionIssue> setTAFValidTime(final TAFImpl.Builder builder, final LexemeSequence lexed, final ConversionHints hints) {
+    protected List<ConversionIssue> setTAFValidTime(final TAFImpl.Builder builder, final LexemeSequence lexed, final MessageGrammar.Validation order,
+            final ConversionHints hints) {
         final IssueList result = new IssueList();
-        Optional<PartialOrCompleteTimePeriod> validityTime = parseValidityTime(lexed,result);
+        Optional<PartialOrCompleteTimePeriod> validityTime = parseValidityTime(lexed, order, result);
         if (validityTime.isPresent()) {
             builder.setValidityTime(validityTime);
         } else {
@@ -265,12 +276,13 @@ public abstract class TAFTACParserBase<T extends TAF> extends AbstractTACParser<
         return result;
     }
 
-    protected List<ConversionIssue> setReferredReport(final TAFImpl.Builder builder, final LexemeSequence lexed, final ConversionHints hints) {
+    protected List<ConversionIssue> setReferredReport(final TAFImpl.Builder builder, final LexemeSequence lexed, final MessageGrammar.Validation order,
+            final ConversionHints hints) {
         IssueList result = new IssueList();
 
             final TAFReferenceImpl.Builder refBuilder = TAFReferenceImpl.builder();
             refBuilder.setAerodrome(builder.getAerodrome());
-            Optional<PartialOrCompleteTimePeriod> validityTime = parseValidityTime(lexed,result);
+            Optional<PartialOrCompleteTimePeriod> validityTime = parseValidityTime(lexed, order, result);
             if (validityTime.isPresent()) {
                 refBuilder.setValidityTime(validityTime.get());
             } else {
@@ -283,15 +295,11 @@ public abstract class TAFTACParserBase<T extends TAF> extends AbstractTACParser<
         return result;
     }
 
-    private Optional<PartialOrCompleteTimePeriod> parseValidityTime(final LexemeSequence lexed, final IssueList issues) {
+    private Optional<PartialOrCompleteTimePeriod> parseValidityTime(final LexemeSequence lexed, final MessageGrammar.Validation order, final IssueList issues) {
         Optional<PartialOrCompleteTimePeriod> retval = Optional.empty();
         Lexeme match = lexed.getFirstLexeme().findNext(LexemeIdentity.VALID_TIME);
         if (match != null) {
-            final LexemeIdentity[] before = new LexemeIdentity[] {LexemeIdentity.CANCELLATION, LexemeIdentity.SURFACE_WIND,
-                    LexemeIdentity.HORIZONTAL_VISIBILITY, LexemeIdentity.WEATHER, LexemeIdentity.CLOUD, LexemeIdentity.CAVOK,
-                    LexemeIdentity.MIN_TEMPERATURE, LexemeIdentity.MAX_TEMPERATURE, LexemeIdentity.TAF_FORECAST_CHANGE_INDICATOR,
-                    LexemeIdentity.REMARKS_START };
-            final ConversionIssue issue = checkBeforeAnyOf(match, before);
+            final ConversionIssue issue = order.checkOrder(match);
             if (issue != null) {
                 issues.add(issue);
             } else {
@@ -315,20 +323,18 @@ public abstract class TAFTACParserBase<T extends TAF> extends AbstractTACParser<
         return retval;
     }
 
-    protected List<ConversionIssue> setBaseForecast(final TAFImpl.Builder builder, final Lexeme baseFctToken, final ConversionHints hints) {
+    protected List<ConversionIssue> setBaseForecast(final TAFImpl.Builder builder, final Lexeme baseFctToken, final MessageGrammar.Validation order,
+            final ConversionHints hints) {
         final TAFBaseForecastImpl.Builder baseFct = TAFBaseForecastImpl.builder();
 
         //noinspection CollectionAddAllCanBeReplacedWithConstructor
-        final List<ConversionIssue> result = new ArrayList<>(withForecastSurfaceWind(baseFctToken,
-                new LexemeIdentity[] {LexemeIdentity.CAVOK, LexemeIdentity.HORIZONTAL_VISIBILITY, LexemeIdentity.WEATHER, LexemeIdentity.CLOUD,
-                        LexemeIdentity.MIN_TEMPERATURE, LexemeIdentity.MAX_TEMPERATURE }, hints, baseFct::setSurfaceWind));
+        final List<ConversionIssue> result = new ArrayList<>(withForecastSurfaceWind(baseFctToken, order, hints,
+                baseFct::setSurfaceWind));
         if (!baseFct.getSurfaceWind().isPresent()) {
             result.add(new ConversionIssue(ConversionIssue.Type.MISSING_DATA, "Surface wind is missing from TAF base forecast"));
         }
         baseFctToken.findNext(LexemeIdentity.CAVOK, (match) -> {
-            final LexemeIdentity[] before = new LexemeIdentity[] {LexemeIdentity.HORIZONTAL_VISIBILITY, LexemeIdentity.WEATHER, LexemeIdentity.CLOUD,
-                    LexemeIdentity.MIN_TEMPERATURE, LexemeIdentity.MAX_TEMPERATURE };
-            final ConversionIssue issue = checkBeforeAnyOf(match, before);
+            final ConversionIssue issue = order.checkOrder(match);
             if (issue != null) {
                 result.add(issue);
             } else {
@@ -336,12 +342,10 @@ public abstract class TAFTACParserBase<T extends TAF> extends AbstractTACParser<
             }
         });
 
-        result.addAll(withVisibility(baseFctToken,
-                new LexemeIdentity[] {LexemeIdentity.WEATHER, LexemeIdentity.CLOUD, LexemeIdentity.MIN_TEMPERATURE, LexemeIdentity.MAX_TEMPERATURE },
-                hints, (measureAndOperator) -> {
-                    baseFct.setPrevailingVisibility(measureAndOperator.getMeasure());
-                    baseFct.setPrevailingVisibilityOperator(measureAndOperator.getOperator());
-                }));
+        result.addAll(withVisibility(baseFctToken, order, hints, (measureAndOperator) -> {
+            baseFct.setPrevailingVisibility(measureAndOperator.getMeasure());
+            baseFct.setPrevailingVisibilityOperator(measureAndOperator.getOperator());
+        }));
         if (!baseFct.getPrevailingVisibility().isPresent()) {
             if (!baseFct.isCeilingAndVisibilityOk()) {
                 result.add(new ConversionIssue(ConversionIssue.Type.MISSING_DATA, "Visibility or CAVOK is missing from TAF base forecast"));
@@ -349,7 +353,7 @@ public abstract class TAFTACParserBase<T extends TAF> extends AbstractTACParser<
             }
         }
 
-        result.addAll(withWeather(baseFctToken, new LexemeIdentity[] { LexemeIdentity.CLOUD, LexemeIdentity.MIN_TEMPERATURE, LexemeIdentity.MAX_TEMPERATURE }, hints,
+        result.addAll(withWeather(baseFctToken, order, hints,
                 baseFct::setForecastWeather));
         //Ensure that forecastWeather is always non-empty for base forecast unless CAVOK:
         if (!baseFct.getForecastWeather().isPresent() && !baseFct.isCeilingAndVisibilityOk()) {
@@ -361,19 +365,20 @@ public abstract class TAFTACParserBase<T extends TAF> extends AbstractTACParser<
             result.add(new ConversionIssue(ConversionIssue.Severity.ERROR, ConversionIssue.Type.SYNTAX, "NSW not allowed in TAF base weather"));
         }
 
-        result.addAll(withClouds(baseFctToken, new LexemeIdentity[] { LexemeIdentity.MIN_TEMPERATURE, LexemeIdentity.MAX_TEMPERATURE }, hints, baseFct::setCloud));
+        result.addAll(withClouds(baseFctToken, order, hints, baseFct::setCloud));
 
         if (!baseFct.getCloud().isPresent() && !baseFct.isCeilingAndVisibilityOk()) {
             result.add(new ConversionIssue(ConversionIssue.Type.MISSING_DATA, "Cloud or CAVOK is missing from TAF base forecast"));
         }
 
-        result.addAll(updateTemperatures(baseFct, baseFctToken, hints));
+        result.addAll(updateTemperatures(baseFct, baseFctToken, order, hints));
 
         builder.setBaseForecast(baseFct.build());
         return result;
     }
 
-    private List<ConversionIssue> updateTemperatures(final TAFBaseForecastImpl.Builder builder, final Lexeme from, final ConversionHints hints) {
+    private List<ConversionIssue> updateTemperatures(final TAFBaseForecastImpl.Builder builder, final Lexeme from, final MessageGrammar.Validation order,
+            final ConversionHints hints) {
         final List<ConversionIssue> result = new ArrayList<>();
         final List<TAFAirTemperatureForecast> temps = new ArrayList<>();
         TAFAirTemperatureForecastImpl.Builder airTemperatureForecast;
@@ -383,7 +388,7 @@ public abstract class TAFTACParserBase<T extends TAF> extends AbstractTACParser<
         Lexeme minTempToken;
 
         while (maxTempToken != null) {
-            final ConversionIssue issue = checkBeforeAnyOf(maxTempToken, new LexemeIdentity[] { LexemeIdentity.MIN_TEMPERATURE });
+            final ConversionIssue issue = order.checkOrder(maxTempToken);
             if (issue != null) {
                 result.add(issue);
             } else {
@@ -440,9 +445,10 @@ public abstract class TAFTACParserBase<T extends TAF> extends AbstractTACParser<
         return result;
     }
 
-    protected List<ConversionIssue> addChangeForecast(final TAFImpl.Builder builder, final Lexeme changeFctToken, final ConversionHints hints) {
+    protected List<ConversionIssue> addChangeForecast(final TAFImpl.Builder builder, final Lexeme changeFctToken, final MessageGrammar.Validation order,
+            final ConversionHints hints) {
         final List<ConversionIssue> result = new ArrayList<>();
-        final ConversionIssue issue = checkBeforeAnyOf(changeFctToken, new LexemeIdentity[] { LexemeIdentity.REMARKS_START });
+        final ConversionIssue issue = order.checkOrder(changeFctToken);
         if (issue != null) {
             result.add(issue);
             return result;
@@ -464,11 +470,11 @@ public abstract class TAFTACParserBase<T extends TAF> extends AbstractTACParser<
                 switch (type) {
                     case TEMPORARY_FLUCTUATIONS:
                         changeFct.setChangeIndicator(AviationCodeListUser.TAFChangeIndicator.TEMPORARY_FLUCTUATIONS);
-                        result.addAll(updateChangeForecastContents(changeFct, type, changeFctToken, hints));
+                        result.addAll(updateChangeForecastContents(changeFct, type, changeFctToken, order, hints));
                         break;
                     case BECOMING:
                         changeFct.setChangeIndicator(AviationCodeListUser.TAFChangeIndicator.BECOMING);
-                        result.addAll(updateChangeForecastContents(changeFct, type, changeFctToken, hints));
+                        result.addAll(updateChangeForecastContents(changeFct, type, changeFctToken, order, hints));
                         break;
                     case FROM:
                         changeFct.setChangeIndicator(AviationCodeListUser.TAFChangeIndicator.FROM);
@@ -485,23 +491,23 @@ public abstract class TAFTACParserBase<T extends TAF> extends AbstractTACParser<
                             result.add(
                                     new ConversionIssue(ConversionIssue.Type.MISSING_DATA, "Missing validity start hour or minute in " + next.getTACToken()));
                         }
-                        result.addAll(updateChangeForecastContents(changeFct, type, changeFctToken, hints));
+                        result.addAll(updateChangeForecastContents(changeFct, type, changeFctToken, order, hints));
                         break;
                     case WITH_40_PCT_PROBABILITY:
                         changeFct.setChangeIndicator(AviationCodeListUser.TAFChangeIndicator.PROBABILITY_40);
-                        result.addAll(updateChangeForecastContents(changeFct, type, changeFctToken, hints));
+                        result.addAll(updateChangeForecastContents(changeFct, type, changeFctToken, order, hints));
                         break;
                     case WITH_30_PCT_PROBABILITY:
                         changeFct.setChangeIndicator(AviationCodeListUser.TAFChangeIndicator.PROBABILITY_30);
-                        result.addAll(updateChangeForecastContents(changeFct, type, changeFctToken, hints));
+                        result.addAll(updateChangeForecastContents(changeFct, type, changeFctToken, order, hints));
                         break;
                     case TEMPO_WITH_30_PCT_PROBABILITY:
                         changeFct.setChangeIndicator(AviationCodeListUser.TAFChangeIndicator.PROBABILITY_30_TEMPORARY_FLUCTUATIONS);
-                        result.addAll(updateChangeForecastContents(changeFct, type, changeFctToken, hints));
+                        result.addAll(updateChangeForecastContents(changeFct, type, changeFctToken, order, hints));
                         break;
                     case TEMPO_WITH_40_PCT_PROBABILITY:
                         changeFct.setChangeIndicator(AviationCodeListUser.TAFChangeIndicator.PROBABILITY_40_TEMPORARY_FLUCTUATIONS);
-                        result.addAll(updateChangeForecastContents(changeFct, type, changeFctToken, hints));
+                        result.addAll(updateChangeForecastContents(changeFct, type, changeFctToken, order, hints));
                         break;
                     default:
                         result.add(new ConversionIssue(ConversionIssue.Type.SYNTAX, "Unknown change group " + type));
@@ -520,16 +526,15 @@ public abstract class TAFTACParserBase<T extends TAF> extends AbstractTACParser<
     }
 
     private List<ConversionIssue> updateChangeForecastContents(final TAFChangeForecastImpl.Builder builder,
-            final TAFForecastChangeIndicator.ForecastChangeIndicatorType type, final Lexeme from, final ConversionHints hints) {
+            final TAFForecastChangeIndicator.ForecastChangeIndicatorType type, final Lexeme from, final MessageGrammar.Validation order,
+            final ConversionHints hints) {
         final List<ConversionIssue> result = new ArrayList<>();
 
         //FM case has already been handled in the calling code:
         if (TAFForecastChangeIndicator.ForecastChangeIndicatorType.FROM != type) {
             final Lexeme timeGroup = from.findNext(LexemeIdentity.TAF_CHANGE_FORECAST_TIME_GROUP);
             if (timeGroup != null) {
-                final LexemeIdentity[] before = { LexemeIdentity.SURFACE_WIND, LexemeIdentity.CAVOK, LexemeIdentity.HORIZONTAL_VISIBILITY,
-                        LexemeIdentity.WEATHER, LexemeIdentity.NO_SIGNIFICANT_WEATHER, LexemeIdentity.CLOUD };
-                final ConversionIssue issue = checkBeforeAnyOf(timeGroup, before);
+                final ConversionIssue issue = order.checkOrder(timeGroup);
                 if (issue != null) {
                     result.add(issue);
                 } else {
@@ -554,15 +559,11 @@ public abstract class TAFTACParserBase<T extends TAF> extends AbstractTACParser<
             }
         }
 
-        result.addAll(withForecastSurfaceWind(from,
-                new LexemeIdentity[] { LexemeIdentity.CAVOK, LexemeIdentity.HORIZONTAL_VISIBILITY, LexemeIdentity.WEATHER, LexemeIdentity.CLOUD }, hints,
-                builder::setSurfaceWind));
+        result.addAll(withForecastSurfaceWind(from, order, hints, builder::setSurfaceWind));
 
 
         from.findNext(LexemeIdentity.CAVOK, (match) -> {
-            final LexemeIdentity[] before = new LexemeIdentity[] { LexemeIdentity.HORIZONTAL_VISIBILITY, LexemeIdentity.WEATHER,
-                    LexemeIdentity.NO_SIGNIFICANT_WEATHER, LexemeIdentity.CLOUD };
-            final ConversionIssue issue = checkBeforeAnyOf(match, before);
+            final ConversionIssue issue = order.checkOrder(match);
             if (issue != null) {
                 result.add(issue);
             } else {
@@ -571,17 +572,17 @@ public abstract class TAFTACParserBase<T extends TAF> extends AbstractTACParser<
         });
 
         result.addAll(
-                withVisibility(from, new LexemeIdentity[] { LexemeIdentity.WEATHER, LexemeIdentity.NO_SIGNIFICANT_WEATHER, LexemeIdentity.CLOUD }, hints,
+                withVisibility(from, order, hints,
                         (measureWithOperator -> {
                             builder.setPrevailingVisibility(measureWithOperator.getMeasure());
                             builder.setPrevailingVisibilityOperator(measureWithOperator.getOperator());
 
                 })));
 
-        result.addAll(withWeather(from, new LexemeIdentity[] { LexemeIdentity.NO_SIGNIFICANT_WEATHER, LexemeIdentity.CLOUD }, hints, builder::setForecastWeather));
+        result.addAll(withWeather(from, order, hints, builder::setForecastWeather));
 
         from.findNext(LexemeIdentity.NO_SIGNIFICANT_WEATHER, (match) -> {
-            final ConversionIssue issue = checkBeforeAnyOf(match, new LexemeIdentity[] { LexemeIdentity.CLOUD });
+            final ConversionIssue issue = order.checkOrder(match);
             if (issue != null) {
                 result.add(issue);
             } else {
@@ -593,7 +594,7 @@ public abstract class TAFTACParserBase<T extends TAF> extends AbstractTACParser<
             }
         });
 
-        result.addAll(withClouds(from, new LexemeIdentity[] {}, hints, builder::setCloud));
+        result.addAll(withClouds(from, order, hints, builder::setCloud));
 
         //Check that all mandatory properties are given in the FM case:
         if (TAFForecastChangeIndicator.ForecastChangeIndicatorType.FROM == type) {
@@ -642,11 +643,11 @@ public abstract class TAFTACParserBase<T extends TAF> extends AbstractTACParser<
         return result;
     }
 
-    private List<ConversionIssue> withForecastSurfaceWind(final Lexeme from, final LexemeIdentity[] before, final ConversionHints hints,
+    private List<ConversionIssue> withForecastSurfaceWind(final Lexeme from, final MessageGrammar.Validation order, final ConversionHints hints,
             final Consumer<SurfaceWind> consumer) {
         final List<ConversionIssue> result = new ArrayList<>();
         from.findNext(LexemeIdentity.SURFACE_WIND, (match) -> {
-            final ConversionIssue issue = checkBeforeAnyOf(match, before);
+            final ConversionIssue issue = order.checkOrder(match);
             if (issue != null) {
                 result.add(issue);
             } else {
@@ -689,11 +690,11 @@ public abstract class TAFTACParserBase<T extends TAF> extends AbstractTACParser<
         return result;
     }
 
-    private List<ConversionIssue> withVisibility(final Lexeme from, final LexemeIdentity[] before, final ConversionHints hints,
+    private List<ConversionIssue> withVisibility(final Lexeme from, final MessageGrammar.Validation order, final ConversionHints hints,
             final Consumer<MeasureWithOperator> consumer) {
         final List<ConversionIssue> result = new ArrayList<>();
         from.findNext(LexemeIdentity.HORIZONTAL_VISIBILITY, (match) -> {
-            final ConversionIssue issue = checkBeforeAnyOf(match, before);
+            final ConversionIssue issue = order.checkOrder(match);
             if (issue != null) {
                 result.add(issue);
             } else {
@@ -726,23 +727,23 @@ public abstract class TAFTACParserBase<T extends TAF> extends AbstractTACParser<
         return result;
     }
 
-    private List<ConversionIssue> withWeather(final Lexeme from, final LexemeIdentity[] before, final ConversionHints hints,
+    private List<ConversionIssue> withWeather(final Lexeme from, final MessageGrammar.Validation order, final ConversionHints hints,
             final Consumer<List<fi.fmi.avi.model.Weather>> consumer) {
         final List<ConversionIssue> result = new ArrayList<>();
         from.findNext(LexemeIdentity.WEATHER, (match) -> {
-            final ConversionIssue issue = checkBeforeAnyOf(match, before);
+            final ConversionIssue issue = order.checkOrder(match);
             if (issue != null) {
                 result.add(issue);
             } else {
                 final List<fi.fmi.avi.model.Weather> weather = new ArrayList<>();
-                result.addAll(appendWeatherCodes(match, weather, before, hints));
+                result.addAll(appendWeatherCodes(match, weather, order, LexemeIdentity.WEATHER, hints));
                 consumer.accept(weather);
             }
         });
         return result;
     }
 
-    private List<ConversionIssue> withClouds(final Lexeme from, final LexemeIdentity[] before, final ConversionHints hints,
+    private List<ConversionIssue> withClouds(final Lexeme from, final MessageGrammar.Validation order, final ConversionHints hints,
             final Consumer<CloudForecast> consumer) {
         final List<ConversionIssue> result = new ArrayList<>();
         from.findNext(LexemeIdentity.CLOUD, (match) -> {
@@ -750,7 +751,7 @@ public abstract class TAFTACParserBase<T extends TAF> extends AbstractTACParser<
             final CloudForecastImpl.Builder cloud = CloudForecastImpl.builder();
             final List<CloudLayer> layers = new ArrayList<>();
             while (match != null) {
-                issue = checkBeforeAnyOf(match, before);
+                issue = order.checkOrder(match);
                 if (issue != null) {
                     result.add(issue);
                 } else {
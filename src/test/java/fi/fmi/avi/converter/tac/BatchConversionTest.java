@@ -0,0 +1,119 @@
+package fi.fmi.avi.converter.tac;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.support.AnnotationConfigContextLoader;
+
+import fi.fmi.avi.converter.AviMessageSpecificConverter;
+import fi.fmi.avi.converter.ConversionHints;
+import fi.fmi.avi.converter.ConversionIssue;
+import fi.fmi.avi.converter.ConversionResult;
+import fi.fmi.avi.converter.tac.lexer.AviMessageLexer;
+import fi.fmi.avi.converter.tac.metar.METARTACParser;
+import fi.fmi.avi.model.metar.METAR;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = TACTestConfiguration.class, loader = AnnotationConfigContextLoader.class)
+public class BatchConversionTest {
+
+    private static final String[] MESSAGES = { //
+            "METAR EFHK 111111Z 15008KT 0700 R04R/1500N R15/1000U R22L/1200N R04L/1000VP1500U SN VV006 M08/M10 Q1023 RESN WS ALL RWY TEMPO 0900=",
+            "METAR EFHK 012400Z 00000KT 4500 R04R/0500D R15/0600VP1500D R22L/0275N R04L/P1500D BR FEW003 SCT050 14/13 Q1008 TEMPO 2000=",
+            "METAR EFTU 011350Z AUTO VRB02KT CAVOK 22/12 Q1008=", //
+            "METAR EFHK 111111Z 15008KT 0700 SN VV006 M08/M10 Q1023 NOSIG=", //
+            "METAR EFHK 111111Z 15008KT=", //
+            "TAF EFHK 011733Z 0118/0218 VRB02KT 4000 -SN BKN003=" };
+
+    @Autowired
+    private AviMessageSpecificConverter<String, METAR> metarTACParser;
+
+    @Autowired
+    private AviMessageLexer lexer;
+
+    private List<String> input(final int copies) {
+        final List<String> input = new ArrayList<>();
+        for (int i = 0; i < copies; i++) {
+            for (final String message : MESSAGES) {
+                input.add(message);
+            }
+        }
+        return input;
+    }
+
+    private void assertSameResults(final List<String> input, final List<ConversionResult<METAR>> results) {
+        assertEquals(input.size(), results.size());
+        for (int i = 0; i < input.size(); i++) {
+            final ConversionResult<METAR> expected = this.metarTACParser.convertMessage(input.get(i), ConversionHints.EMPTY);
+            assertEquals(expected.getStatus(), results.get(i).getStatus());
+            assertEquals(expected.getConvertedMessage(), results.get(i).getConvertedMessage());
+            assertEquals(expected.getConversionIssues().size(), results.get(i).getConversionIssues().size());
+        }
+    }
+
+    @Test
+    public void testResultsInInputOrder() {
+        final List<String> input = input(50);
+        assertSameResults(input, BatchConversion.convertMessages(this.metarTACParser, input, ConversionHints.EMPTY));
+        final ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            assertSameResults(input, BatchConversion.convertMessages(this.metarTACParser, input, ConversionHints.EMPTY, pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testWithExecutorService() {
+        final List<String> input = input(20);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            assertSameResults(input, BatchConversion.convertMessages(this.metarTACParser, input.stream(), ConversionHints.EMPTY, executor));
+            assertTrue(BatchConversion.convertMessages(this.metarTACParser, new ArrayList<>(), ConversionHints.EMPTY, executor).isEmpty());
+            // an executor of unknown parallelism:
+            final Executor wrapped = executor::execute;
+            assertSameResults(input, BatchConversion.convertMessages(this.metarTACParser, input, ConversionHints.EMPTY, wrapped, 4));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testFailuresAreIsolated() {
+        final METARTACParser failing = new METARTACParser() {
+            @Override
+            public ConversionResult<METAR> convertMessage(final String input, final ConversionHints hints) {
+                if (input.startsWith("METAR EFTU")) {
+                    throw new IllegalStateException("failed");
+                }
+                return super.convertMessage(input, hints);
+            }
+        };
+        failing.setTACLexer(this.lexer);
+        final List<String> input = input(10);
+        final List<ConversionResult<METAR>> results = BatchConversion.convertMessages(failing, input, ConversionHints.EMPTY);
+        for (int i = 0; i < input.size(); i++) {
+            if (input.get(i).startsWith("METAR EFTU")) {
+                assertEquals(ConversionResult.Status.FAIL, results.get(i).getStatus());
+                assertFalse(results.get(i).getConvertedMessage().isPresent());
+                assertEquals(ConversionIssue.Type.OTHER, results.get(i).getConversionIssues().get(0).getType());
+            } else {
+                assertEquals(this.metarTACParser.convertMessage(input.get(i), ConversionHints.EMPTY).getConvertedMessage(),
+                        results.get(i).getConvertedMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package fi.fmi.avi.converter.tac;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import fi.fmi.avi.converter.ConversionIssue;
+import fi.fmi.avi.converter.tac.lexer.Lexeme;
+import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
+import fi.fmi.avi.converter.tac.lexer.LexemeSequence;
+import fi.fmi.avi.converter.tac.lexer.impl.LexingFactoryImpl;
+
+public class MessageGrammarTest {
+
+    private static final MessageGrammar GRAMMAR = MessageGrammar.builder()
+            .zeroOrOne(LexemeIdentity.AERODROME_DESIGNATOR)
+            .section(LexemeIdentity.AERODROME_DESIGNATOR).allowingAfter(LexemeIdentity.WEATHER)
+            .section(LexemeIdentity.SURFACE_WIND)
+            .section(LexemeIdentity.HORIZONTAL_VISIBILITY, LexemeIdentity.WEATHER)
+            .section(LexemeIdentity.CLOUD)
+            .section(LexemeIdentity.TAF_FORECAST_CHANGE_INDICATOR)
+            .looselyOrdered(LexemeIdentity.WEATHER)
+            .group(LexemeIdentity.TAF_FORECAST_CHANGE_INDICATOR)
+            .section(LexemeIdentity.TAF_FORECAST_CHANGE_INDICATOR)
+            .section(LexemeIdentity.SURFACE_WIND)
+            .section(LexemeIdentity.HORIZONTAL_VISIBILITY)
+            .build();
+
+    private LexemeSequence sequence;
+    private List<Lexeme> tokens;
+
+    @Before
+    public void setUp() {
+        this.sequence = new LexingFactoryImpl().createLexemeSequence("TAF EFHK 24005KT 9999 BKN010 BECMG 24010KT 8000=", null);
+        this.tokens = new ArrayList<>();
+        for (final Lexeme l : this.sequence.getLexemes()) {
+            if (!LexemeIdentity.WHITE_SPACE.equals(l.getIdentity())) {
+                this.tokens.add(l);
+            }
+        }
+        this.tokens.get(0).identify(LexemeIdentity.TAF_START);
+        this.tokens.get(1).identify(LexemeIdentity.AERODROME_DESIGNATOR);
+        this.tokens.get(2).identify(LexemeIdentity.SURFACE_WIND);
+        this.tokens.get(3).identify(LexemeIdentity.HORIZONTAL_VISIBILITY);
+        this.tokens.get(4).identify(LexemeIdentity.CLOUD);
+        this.tokens.get(5).identify(LexemeIdentity.TAF_FORECAST_CHANGE_INDICATOR);
+        this.tokens.get(6).identify(LexemeIdentity.SURFACE_WIND);
+        this.tokens.get(7).identify(LexemeIdentity.HORIZONTAL_VISIBILITY);
+    }
+
+    @Test
+    public void testValidOrder() {
+        final MessageGrammar.Validation order = GRAMMAR.validate(this.sequence);
+        for (final Lexeme l : this.sequence.getLexemes()) {
+            assertNull(order.checkOrder(l));
+        }
+        assertTrue(order.getCardinalityIssues().isEmpty());
+    }
+
+    @Test
+    public void testFirstDisallowedLexemeIsReported() {
+        this.tokens.get(1).identify(LexemeIdentity.CLOUD);
+        this.tokens.get(4).identify(LexemeIdentity.AERODROME_DESIGNATOR);
+        final MessageGrammar.Validation order = GRAMMAR.validate(this.sequence);
+        final ConversionIssue issue = order.checkOrder(this.tokens.get(4));
+        assertEquals(ConversionIssue.Type.SYNTAX, issue.getType());
+        assertEquals("Invalid token order: '" + this.tokens.get(4) + "' was found after one of type CLOUD", issue.getMessage());
+        // the lexeme may also be checked as if it was of another identity:
+        assertNull(order.checkOrder(this.tokens.get(4), LexemeIdentity.CLOUD));
+        assertTrue(order.checkOrder(this.tokens.get(3)).getMessage().endsWith("after one of type CLOUD"));
+    }
+
+    @Test
+    public void testAllowedAndLooselyOrderedIdentities() {
+        this.tokens.get(1).identify(LexemeIdentity.WEATHER);
+        this.tokens.get(3).identify(LexemeIdentity.AERODROME_DESIGNATOR);
+        final MessageGrammar.Validation order = GRAMMAR.validate(this.sequence);
+        assertNull(order.checkOrder(this.tokens.get(1)));
+        assertTrue(order.checkOrder(this.tokens.get(3)).getMessage().endsWith("after one of type SURFACE_WIND"));
+
+        // neither ignored lexemes nor the loosely ordered identities constrain the others:
+        this.tokens.get(2).setIgnored(true);
+        this.tokens.get(3).identify(LexemeIdentity.SURFACE_WIND);
+        this.tokens.get(4).identify(LexemeIdentity.AERODROME_DESIGNATOR);
+        final MessageGrammar.Validation reordered = GRAMMAR.validate(this.sequence);
+        assertTrue(reordered.checkOrder(this.tokens.get(4)).getMessage().endsWith("after one of type SURFACE_WIND"));
+        this.tokens.get(3).identify(LexemeIdentity.WEATHER);
+        assertNull(GRAMMAR.validate(this.sequence).checkOrder(this.tokens.get(4)));
+    }
+
+    @Test
+    public void testGroups() {
+        this.tokens.get(7).identify(LexemeIdentity.CLOUD);
+        final MessageGrammar.Validation order = GRAMMAR.validate(this.sequence);
+        final List<LexemeSequence> groups = GRAMMAR.splitIntoGroups(this.sequence);
+        assertEquals(2, groups.size());
+        // the group sections are checked within the group only:
+        final Lexeme changeWind = groups.get(1).getFirstLexeme().getNext();
+        assertEquals(LexemeIdentity.SURFACE_WIND, changeWind.getIdentity());
+        assertNull(order.checkOrder(changeWind));
+        assertNull(order.checkOrder(groups.get(1).getFirstLexeme()));
+        // the other identities with the message rules:
+        this.tokens.get(7).identify(LexemeIdentity.AERODROME_DESIGNATOR);
+        final MessageGrammar.Validation misplaced = GRAMMAR.validate(this.sequence);
+        assertTrue(misplaced.checkOrder(this.tokens.get(7)).getMessage().endsWith("after one of type SURFACE_WIND"));
+        this.tokens.get(6).identify(LexemeIdentity.HORIZONTAL_VISIBILITY);
+        this.tokens.get(7).identify(LexemeIdentity.SURFACE_WIND);
+        assertTrue(GRAMMAR.validate(this.sequence).checkOrder(this.tokens.get(7)).getMessage().endsWith("after one of type HORIZONTAL_VISIBILITY"));
+    }
+
+    @Test
+    public void testGroupContentSection() {
+        this.tokens.get(7).identify(LexemeIdentity.CLOUD);
+        // CLOUD is not declared in the group, so it must not follow the change indicator of the message rules:
+        assertTrue(GRAMMAR.validate(this.sequence).checkOrder(this.tokens.get(7)).getMessage().endsWith("after one of type TAF_FORECAST_CHANGE_INDICATOR"));
+        final MessageGrammar grammar = MessageGrammar.builder()
+                .section(LexemeIdentity.AERODROME_DESIGNATOR)
+                .section(LexemeIdentity.SURFACE_WIND)
+                .section(LexemeIdentity.HORIZONTAL_VISIBILITY)
+                .section(LexemeIdentity.CLOUD)
+                .section(LexemeIdentity.TAF_FORECAST_CHANGE_INDICATOR)
+                .group(LexemeIdentity.TAF_FORECAST_CHANGE_INDICATOR)
+                .section(LexemeIdentity.TAF_FORECAST_CHANGE_INDICATOR)
+                .section(LexemeIdentity.SURFACE_WIND, LexemeIdentity.HORIZONTAL_VISIBILITY, LexemeIdentity.CLOUD)
+                .build();
+        assertNull(grammar.validate(this.sequence).checkOrder(this.tokens.get(7)));
+        assertNull(grammar.validate(this.sequence).checkOrder(this.tokens.get(6)));
+    }
+
+    @Test
+    public void testCardinalityIssues() {
+        this.tokens.get(2).identify(LexemeIdentity.AERODROME_DESIGNATOR);
+        this.tokens.get(3).identify(LexemeIdentity.AERODROME_DESIGNATOR, Lexeme.Status.SYNTAX_ERROR);
+        this.tokens.get(4).identify(LexemeIdentity.AERODROME_DESIGNATOR);
+        this.tokens.get(4).setIgnored(true);
+        final List<ConversionIssue> issues = GRAMMAR.validate(this.sequence).getCardinalityIssues();
+        assertEquals(2, issues.size());
+        assertEquals("More than one of AERODROME_DESIGNATOR in " + this.sequence.getTAC(), issues.get(0).getMessage());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownLexeme() {
+        final LexemeSequence other = new LexingFactoryImpl().createLexemeSequence("TAF EFHK=", null);
+        GRAMMAR.validate(this.sequence).checkOrder(other.getLastLexeme());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateSection() {
+        MessageGrammar.builder().section(LexemeIdentity.CLOUD).section(LexemeIdentity.SURFACE_WIND, LexemeIdentity.CLOUD).build();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testAllowingAfterWithoutSection() {
+        MessageGrammar.builder().group(LexemeIdentity.TAF_FORECAST_CHANGE_INDICATOR).allowingAfter(LexemeIdentity.CLOUD);
+    }
+}
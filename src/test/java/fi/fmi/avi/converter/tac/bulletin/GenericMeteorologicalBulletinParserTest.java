@@ -7,7 +7,10 @@ import static org.junit.Assert.assertTrue;
 
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -18,6 +21,7 @@ import org.springframework.test.context.support.AnnotationConfigContextLoader;
 
 import fi.fmi.avi.converter.AviMessageConverter;
 import fi.fmi.avi.converter.ConversionHints;
+import fi.fmi.avi.converter.ConversionIssue;
 import fi.fmi.avi.converter.ConversionResult;
 import fi.fmi.avi.converter.tac.TACTestConfiguration;
 import fi.fmi.avi.converter.tac.conf.TACConverter;
@@ -424,4 +428,88 @@ public class GenericMeteorologicalBulletinParserTest {
         assertTrue(msg.getIssueTime().get().getPartialTime().isPresent());
         assertEquals(PartialOrCompleteTimeInstant.of(PartialDateTime.of(31, 6, 0, ZoneId.of("Z"))), msg.getIssueTime().get());
     }
+
+    @Test
+    public void testParallelBulletinParsing() {
+        final GenericMeteorologicalBulletinParser parallelParser = new GenericMeteorologicalBulletinParser();
+        parallelParser.setTACLexer(this.lexer);
+        parallelParser.setContainedMessageExecutor(ForkJoinPool.commonPool());
+        parallelParser.setParallelProcessingThreshold(2);
+
+        final StringBuilder metars = new StringBuilder("SAFI33 EFPP 020500\n");
+        for (int i = 0; i < 40; i++) {
+            metars.append("METAR EF").append((char) ('A' + i % 26)).append((char) ('A' + i / 26)).append(" 1111").append(10 + i % 50)
+                    .append("Z 18004KT 9999 FEW020 M08/M10 Q1023=\n");
+        }
+        assertSameResults(metars.toString(), null, parallelParser);
+        // a message without an end token stops the parsing of the bulletin:
+        assertSameResults(metars + "METAR EFHK 111115Z 18004KT 9999 FEW020 M08/M10 Q1023", null, parallelParser);
+
+        // the fallback type of an unrecognized message applies to the following messages:
+        final String wxrep = "UAFI31 EFHK 310555\n" + "T01 REP 0555 N6520 E02522 FBL TURB FL230=\n" + "WXREP T01 REP 0555 N6520 E02522 FBL TURB FL230=\n"
+                + "T01 REP 0555 N6520 E02522 FBL TURB FL230=";
+        assertSameResults(wxrep, null, parallelParser);
+        assertSameResults(wxrep, new ConversionHints(ConversionHints.KEY_CONTAINED_MESSAGE_TYPE, new MessageType("WXREP")), parallelParser);
+    }
+
+    @Test
+    public void testParallelBulletinParsingStopsAtFailedMessage() {
+        // the second message is lexed as if unterminated, the third one cannot be lexed at all:
+        final AviMessageLexer failingLexer = new AviMessageLexer() {
+            @Override
+            public LexemeSequence lexMessage(final String input) {
+                return lexer.lexMessage(input);
+            }
+
+            @Override
+            public LexemeSequence lexMessage(final String input, final ConversionHints hints) {
+                if (input.contains("EFAB")) {
+                    return lexer.lexMessage(input.replace("=", ""), hints);
+                } else if (input.contains("EFAC")) {
+                    throw new IllegalStateException("Message lexed after the failed one");
+                }
+                return lexer.lexMessage(input, hints);
+            }
+
+            @Override
+            public Optional<MessageType> recognizeMessageType(final String input, final ConversionHints hints) {
+                return lexer.recognizeMessageType(input, hints);
+            }
+        };
+        final GenericMeteorologicalBulletinParser sequentialParser = new GenericMeteorologicalBulletinParser();
+        sequentialParser.setTACLexer(failingLexer);
+        final GenericMeteorologicalBulletinParser parallelParser = new GenericMeteorologicalBulletinParser();
+        parallelParser.setTACLexer(failingLexer);
+        parallelParser.setContainedMessageExecutor(ForkJoinPool.commonPool());
+        parallelParser.setParallelProcessingThreshold(2);
+
+        final String bulletin = "SAFI33 EFPP 020500\n" + "METAR EFAA 111115Z 18004KT 9999 FEW020 M08/M10 Q1023=\n"
+                + "METAR EFAB 111115Z 18004KT 9999 FEW020 M08/M10 Q1023=\n" + "METAR EFAC 111115Z 18004KT 9999 FEW020 M08/M10 Q1023=\n"
+                + "METAR EFAD 111115Z 18004KT 9999 FEW020 M08/M10 Q1023=";
+        final ConversionResult<GenericMeteorologicalBulletin> expected = sequentialParser.convertMessage(bulletin, null);
+        final ConversionResult<GenericMeteorologicalBulletin> actual = parallelParser.convertMessage(bulletin, null);
+        assertEquals(ConversionResult.Status.FAIL, actual.getStatus());
+        assertEquals(expected.getStatus(), actual.getStatus());
+        assertEquals(expected.getConvertedMessage(), actual.getConvertedMessage());
+        assertEquals(issueMessages(expected.getConversionIssues()), issueMessages(actual.getConversionIssues()));
+        assertTrue(issueMessages(actual.getConversionIssues()).contains("Contained message #2 does not end in end token"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidParallelProcessingThreshold() {
+        new GenericMeteorologicalBulletinParser().setParallelProcessingThreshold(0);
+    }
+
+    private void assertSameResults(final String bulletin, final ConversionHints hints, final GenericMeteorologicalBulletinParser parallelParser) {
+        final ConversionResult<GenericMeteorologicalBulletin> expected = this.converter.convertMessage(bulletin, TACConverter.TAC_TO_GENERIC_BULLETIN_POJO,
+                hints);
+        final ConversionResult<GenericMeteorologicalBulletin> actual = parallelParser.convertMessage(bulletin, hints);
+        assertEquals(expected.getStatus(), actual.getStatus());
+        assertEquals(expected.getConvertedMessage(), actual.getConvertedMessage());
+        assertEquals(issueMessages(expected.getConversionIssues()), issueMessages(actual.getConversionIssues()));
+    }
+
+    private static List<String> issueMessages(final List<ConversionIssue> issues) {
+        return issues.stream().map(ConversionIssue::getMessage).collect(Collectors.toList());
+    }
 }
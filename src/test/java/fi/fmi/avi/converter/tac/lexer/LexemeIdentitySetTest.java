@@ -0,0 +1,50 @@
+package fi.fmi.avi.converter.tac.lexer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class LexemeIdentitySetTest {
+
+    @Test
+    public void testMembership() {
+        final LexemeIdentitySet set = LexemeIdentitySet.of(LexemeIdentity.CLOUD, LexemeIdentity.TAF_START, LexemeIdentity.CLOUD);
+        assertEquals(2, set.size());
+        assertTrue(set.contains(LexemeIdentity.CLOUD));
+        assertTrue(set.contains(new LexemeIdentity(LexemeIdentity.TAF_START.name())));
+        assertFalse(set.contains(LexemeIdentity.WEATHER));
+        assertFalse(set.contains(LexemeIdentity.TAF_START.name()));
+        assertFalse(set.contains(null));
+
+        assertTrue(set.remove(LexemeIdentity.CLOUD));
+        assertFalse(set.remove(LexemeIdentity.CLOUD));
+        assertEquals(1, set.size());
+        assertEquals(new HashSet<>(Arrays.asList(LexemeIdentity.TAF_START)), set);
+    }
+
+    @Test
+    public void testIterationInOrdinalOrder() {
+        final LexemeIdentity custom = new LexemeIdentity("LEXEME_IDENTITY_SET_TEST_CUSTOM");
+        final Set<LexemeIdentity> set = LexemeIdentitySet.copyOf(Arrays.asList(custom, LexemeIdentity.WEATHER, LexemeIdentity.AERODROME_DESIGNATOR));
+        final Set<LexemeIdentity> copy = LexemeIdentitySet.copyOf(set);
+        assertEquals(set, copy);
+        final ArrayList<LexemeIdentity> expected = new ArrayList<>(copy);
+        expected.sort((a, b) -> a.ordinal() - b.ordinal());
+        assertEquals(expected, new ArrayList<>(copy));
+        assertEquals(custom, expected.get(2));
+
+        final Iterator<LexemeIdentity> it = copy.iterator();
+        it.next();
+        it.remove();
+        assertEquals(expected.subList(1, 3), new ArrayList<>(copy));
+        assertEquals(3, set.size());
+    }
+}
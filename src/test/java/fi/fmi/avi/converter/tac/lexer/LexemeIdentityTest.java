@@ -1,6 +1,8 @@
 package fi.fmi.avi.converter.tac.lexer;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 
 import java.lang.reflect.Field;
@@ -13,6 +15,9 @@ import java.util.stream.Stream;
 
 import org.junit.Test;
 
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 public class LexemeIdentityTest {
     private static Stream<Field> lexemeIdentityConstantFields() {
         return Arrays.stream(LexemeIdentity.class.getFields())//
@@ -57,4 +62,44 @@ public class LexemeIdentityTest {
                             lexemeIdentity.name().endsWith("_LABEL"));
                 });
     }
+
+    @Test
+    public void constantsAreCanonical() {
+        lexemeIdentityConstants()//
+                .forEach(lexemeIdentity -> {
+                    assertSame(lexemeIdentity, LexemeIdentity.forName(lexemeIdentity.name()));
+                    assertSame(lexemeIdentity, LexemeIdentity.forOrdinal(lexemeIdentity.ordinal()));
+                });
+        assertEquals(lexemeIdentityConstants().count(), lexemeIdentityConstants().mapToInt(LexemeIdentity::ordinal).distinct().count());
+    }
+
+    @Test
+    public void sameNameSharesOrdinal() {
+        final LexemeIdentity copy = new LexemeIdentity(LexemeIdentity.CLOUD.name());
+        assertNotSame(LexemeIdentity.CLOUD, copy);
+        assertEquals(LexemeIdentity.CLOUD, copy);
+        assertEquals(LexemeIdentity.CLOUD.ordinal(), copy.ordinal());
+        assertEquals(LexemeIdentity.CLOUD.hashCode(), copy.hashCode());
+        assertSame(LexemeIdentity.CLOUD, copy.canonical());
+
+        final LexemeIdentity custom = new LexemeIdentity("LEXEME_IDENTITY_TEST_CUSTOM");
+        assertSame(custom, LexemeIdentity.forName("LEXEME_IDENTITY_TEST_CUSTOM"));
+        assertSame(custom, new LexemeIdentity("LEXEME_IDENTITY_TEST_CUSTOM").canonical());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownNameIsNotRegistered() {
+        LexemeIdentity.forName("LEXEME_IDENTITY_TEST_UNKNOWN");
+    }
+
+    @Test
+    public void deserializesToCanonical() throws Exception {
+        final ObjectMapper om = new ObjectMapper();
+        assertSame(LexemeIdentity.TAF_START, om.readValue(om.writeValueAsString(LexemeIdentity.TAF_START), LexemeIdentity.class));
+    }
+
+    @Test(expected = JsonMappingException.class)
+    public void unknownNameIsNotDeserialized() throws Exception {
+        new ObjectMapper().readValue("\"LEXEME_IDENTITY_TEST_UNKNOWN\"", LexemeIdentity.class);
+    }
 }
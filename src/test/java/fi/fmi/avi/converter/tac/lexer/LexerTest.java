@@ -20,6 +20,7 @@ import org.springframework.test.context.support.AnnotationConfigContextLoader;
 
 import fi.fmi.avi.converter.ConversionHints;
 import fi.fmi.avi.converter.tac.TACTestConfiguration;
+import fi.fmi.avi.converter.tac.lexer.impl.AviMessageLexerImpl;
 
 /**
  * Generic tests for the TAC Lexer implementation
@@ -148,4 +149,42 @@ public class LexerTest {
         }
     }
 
+    @Test
+    public void testLexingStatistics() {
+        assertTrue(lexer instanceof AviMessageLexerImpl);
+        final AviMessageLexerImpl lexerImpl = (AviMessageLexerImpl) lexer;
+        lexerImpl.resetStatistics();
+        final LexemeSequence seq = lexer.lexMessage("TAF EFHK 011733Z 0118/0218 VRB02KT 4000 -SN BKN003\n" + "TEMPO 0118/0120 1500 SN \n"
+                + "BECMG 0120/0122 1500 BR \t\n" + "PROB40 TEMPO 0122/0203 0700 FG\n" + "BECMG 0204/0206 21010KT 5000 BKN005\n" + "BECMG 0210/0212 9999 BKN010=");
+        final int lexemeCount = seq.getLexemes(true).size();
+
+        assertEquals(1, lexerImpl.getLexedMessageCount());
+        assertTrue(lexerImpl.getIterationCount() > 0);
+        assertTrue(lexerImpl.getLexemeVisitCount() >= lexemeCount / 2);
+        // each round visits a lexeme at most once, and only the first round visits them all:
+        assertTrue(lexerImpl.getLexemeVisitCount() < lexemeCount * lexerImpl.getIterationCount());
+
+        lexerImpl.resetStatistics();
+        assertEquals(0, lexerImpl.getLexedMessageCount());
+        assertEquals(0, lexerImpl.getIterationCount());
+        assertEquals(0, lexerImpl.getLexemeVisitCount());
+    }
+
+    @Test
+    public void testLexemeVisitsAreBounded() {
+        final AviMessageLexerImpl lexerImpl = (AviMessageLexerImpl) lexer;
+        final StringBuilder tac = new StringBuilder("TAF KOKC 051130Z 051212 14008KT 5SM BR BKN030");
+        for (int i = 0; i < 40; i++) {
+            tac.append("\nTEMPO 1316 1 1/2SM BR\nBECMG 2224 20013G20KT 4SM SHRA OVC020");
+        }
+        lexerImpl.resetStatistics();
+        final LexemeSequence seq = lexer.lexMessage(tac.append('=').toString());
+        final int lexemeCount = seq.getLexemes(true).size();
+
+        // a change only re-queues the neighbours and the dependents of the changed lexeme, not the rest of the message:
+        assertTrue(lexerImpl.getIterationCount() <= 3);
+        assertTrue("Visited " + lexerImpl.getLexemeVisitCount() + " times for " + lexemeCount + " lexemes",
+                lexerImpl.getLexemeVisitCount() <= lexemeCount + lexemeCount / 8);
+    }
+
 }
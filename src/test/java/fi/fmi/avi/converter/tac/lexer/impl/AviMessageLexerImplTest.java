@@ -0,0 +1,149 @@
+package fi.fmi.avi.converter.tac.lexer.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import fi.fmi.avi.converter.ConversionHints;
+import fi.fmi.avi.converter.tac.lexer.Lexeme;
+import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
+import fi.fmi.avi.converter.tac.lexer.LexemeSequence;
+import fi.fmi.avi.model.MessageType;
+
+public class AviMessageLexerImplTest {
+
+    private AviMessageLexerImpl lexer;
+
+    private static RecognizingAviMessageTokenLexer tokenLexer(final RecognizingAviMessageTokenLexer.SuitabilityTester tester) {
+        final RecognizingAviMessageTokenLexer l = new RecognizingAviMessageTokenLexer();
+        l.setSuitabilityTester(tester);
+        return l;
+    }
+
+    @Before
+    public void setUp() {
+        this.lexer = new AviMessageLexerImpl();
+        this.lexer.setLexingFactory(new LexingFactoryImpl());
+        this.lexer.addTokenLexer(tokenLexer(TokenSuitabilityTester.firstTokenEquals(MessageType.METAR, "METAR")));
+        this.lexer.addTokenLexer(tokenLexer(TokenSuitabilityTester.firstTokenMatches(MessageType.BULLETIN, Pattern.compile("^[A-Z]{4}[0-9]{2}$"))));
+        this.lexer.addTokenLexer(tokenLexer(TokenSuitabilityTester.secondTokenEquals(MessageType.SIGMET, "SIGMET")));
+        this.lexer.addTokenLexer(tokenLexer(TokenSuitabilityTester.firstTokenEquals(MessageType.SIGMET, "SIGC", "SIGW", "SIGE")));
+        this.lexer.addTokenLexer(tokenLexer(TokenSuitabilityTester.firstTokenEquals(MessageType.TAF, "TAF")));
+        this.lexer.addTokenLexer(tokenLexer(new RecognizingAviMessageTokenLexer.SuitabilityTester() {
+            @Override
+            public boolean test(final LexemeSequence sequence) {
+                return true;
+            }
+
+            @Override
+            public MessageType getMessageType() {
+                return MessageType.GENERIC;
+            }
+        }));
+    }
+
+    @Test
+    public void testMessageTypeSelectionInTokenLexerOrder() {
+        assertEquals(Optional.of(MessageType.METAR), this.lexer.recognizeMessageType("METAR EFHK 011750Z=", null));
+        assertEquals(Optional.of(MessageType.METAR), this.lexer.recognizeMessageType("METAR SIGMET", null));
+        assertEquals(Optional.of(MessageType.TAF), this.lexer.recognizeMessageType("TAF EFHK 011733Z=", null));
+        assertEquals(Optional.of(MessageType.SIGMET), this.lexer.recognizeMessageType("EFIN SIGMET 1 VALID 170750/170950 EFKL-", null));
+        assertEquals(Optional.of(MessageType.SIGMET), this.lexer.recognizeMessageType("SIGE\nCONVECTIVE SIGMET 11E", null));
+        assertEquals(Optional.of(MessageType.BULLETIN), this.lexer.recognizeMessageType("FTFI33 EFPP 020500\nTAF EFHK 011733Z=", null));
+        // the preceding bulletin tester is tried before the indexed token lexers:
+        assertEquals(Optional.of(MessageType.BULLETIN), this.lexer.recognizeMessageType("WSFI31 SIGMET", null));
+        assertEquals(Optional.of(MessageType.GENERIC), this.lexer.recognizeMessageType("SIGMET", null));
+        assertEquals(Optional.of(MessageType.GENERIC), this.lexer.recognizeMessageType("", null));
+    }
+
+    @Test
+    public void testMessageTypeRecognizedWhileLexing() {
+        final List<MessageType> recognized = new ArrayList<>();
+        for (final String tac : Arrays.asList("METAR EFHK 011750Z=", "EFIN SIGMET 1 VALID 170750/170950 EFKL-", "WSFI31 SIGMET", "SIGMET", "")) {
+            recognized.clear();
+            final LexemeSequence lexed = this.lexer.lexMessage(tac, null, recognized::add);
+            assertEquals(Arrays.asList(this.lexer.recognizeMessageType(tac, null).get()), recognized);
+            assertEquals(tac, lexed.getTAC());
+        }
+
+        // no type without a suitable token lexer:
+        final AviMessageLexerImpl metarOnly = new AviMessageLexerImpl();
+        metarOnly.setLexingFactory(new LexingFactoryImpl());
+        metarOnly.addTokenLexer(tokenLexer(TokenSuitabilityTester.firstTokenEquals(MessageType.METAR, "METAR")));
+        recognized.clear();
+        assertEquals("TAF EFHK 011733Z=", metarOnly.lexMessage("TAF EFHK 011733Z=", null, recognized::add).getTAC());
+        assertEquals(0, recognized.size());
+    }
+
+    @Test
+    public void testMessageTypeRecognizedFromCombinedStartTokens() {
+        final LexingFactoryImpl factory = new LexingFactoryImpl();
+        factory.addTokenCombiningRule(Arrays.asList(TokenPredicate.equalTo("LOW"), TokenPredicate.equalTo("WIND")));
+        factory.addTokenCombiningRule(Arrays.asList(TokenPredicate.equalTo("SPACE"), TokenPredicate.equalTo("WEATHER"), TokenPredicate.equalTo("ADVISORY")));
+        final AviMessageLexerImpl tokenLexers = new AviMessageLexerImpl();
+        tokenLexers.setLexingFactory(factory);
+        tokenLexers.addTokenLexer(tokenLexer(TokenSuitabilityTester.firstTokenEquals(MessageType.METAR, "LOW WIND")));
+        tokenLexers.addTokenLexer(tokenLexer(TokenSuitabilityTester.secondTokenEquals(MessageType.SPACE_WEATHER_ADVISORY, "SPACE WEATHER ADVISORY")));
+        tokenLexers.addTokenLexer(tokenLexer(TokenSuitabilityTester.anyMessage(MessageType.GENERIC)));
+
+        assertEquals(Optional.of(MessageType.METAR), tokenLexers.recognizeMessageType("LOW WIND EFHK 270950Z=", null));
+        assertEquals(Optional.of(MessageType.SPACE_WEATHER_ADVISORY), tokenLexers.recognizeMessageType("SWX SPACE WEATHER ADVISORY\nDTG: 20161108/0100Z", null));
+        assertEquals(Optional.of(MessageType.GENERIC), tokenLexers.recognizeMessageType("SWX SPACE WEATHER", null));
+        assertEquals(Optional.of(MessageType.GENERIC), tokenLexers.recognizeMessageType("LOW", null));
+        assertEquals(Optional.of(MessageType.GENERIC), tokenLexers.recognizeMessageType("", null));
+
+        final LexemeSequence prefix = factory.createLexemeSequencePrefix("LOW WIND EFHK 270950Z=", null, 2);
+        assertEquals("LOW WIND EFHK 270950Z", prefix.getTAC());
+        assertEquals("LOW WIND", prefix.getFirstLexeme().getTACToken());
+        assertEquals("EFHK", prefix.getFirstLexeme().getNext().getTACToken());
+    }
+
+    @Test
+    public void testStatisticsOverJmx() throws Exception {
+        final RecognizingAviMessageTokenLexer metar = tokenLexer(TokenSuitabilityTester.firstTokenEquals(MessageType.METAR, "METAR"));
+        metar.teach(new RegexMatchingLexemeVisitor("^METAR$") {
+            @Override
+            public void visitIfMatched(final Lexeme token, final Matcher match, final ConversionHints hints) {
+                token.identify(LexemeIdentity.METAR_START);
+            }
+        });
+        final AviMessageLexerImpl statisticsLexer = new AviMessageLexerImpl();
+        statisticsLexer.setLexingFactory(new LexingFactoryImpl());
+        statisticsLexer.setStatisticsEnabled(true);
+        statisticsLexer.addTokenLexer(metar);
+        statisticsLexer.lexMessage("METAR EFHK=");
+        statisticsLexer.lexMessage("METAR EFHF=");
+
+        final MessageTypeStatistics rounds = statisticsLexer.getMessageTypeStatistics().get(0);
+        assertEquals("METAR", rounds.getMessageType());
+        assertEquals(2, rounds.getLexedMessageCount());
+        assertEquals(rounds.getIterationCount(), 2 * rounds.getMaxIterationCount());
+
+        final MBeanServer server = MBeanServerFactory.newMBeanServer();
+        final ObjectName name = new ObjectName("fi.fmi.avi.converter.tac:type=AviMessageLexer");
+        server.registerMBean(statisticsLexer, name);
+        assertEquals(2L, server.getAttribute(name, "LexedMessageCount"));
+        final CompositeData[] visitors = (CompositeData[]) server.getAttribute(name, "VisitorStatistics");
+        assertEquals(1, visitors.length);
+        assertEquals(2L, visitors[0].get("identificationCount"));
+        // all four lexemes of both messages are offered to the only visitor:
+        assertEquals(8L, visitors[0].get("invocationCount"));
+        assertEquals(2L, visitors[0].get("matchCount"));
+        server.invoke(name, "resetStatistics", null, null);
+        assertEquals(0L, server.getAttribute(name, "LexedMessageCount"));
+    }
+
+}
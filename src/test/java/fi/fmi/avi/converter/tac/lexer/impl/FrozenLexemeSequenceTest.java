@@ -0,0 +1,124 @@
+package fi.fmi.avi.converter.tac.lexer.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import fi.fmi.avi.converter.tac.lexer.Lexeme;
+import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
+import fi.fmi.avi.converter.tac.lexer.LexemeSequence;
+
+public class FrozenLexemeSequenceTest {
+
+    private LexemeSequence lexed;
+
+    @Before
+    public void setUp() {
+        this.lexed = new LexingFactoryImpl().createLexemeSequence("EFHK 011750Z \nBECMG 9999 \nRMK X=", null);
+        final List<Lexeme> all = this.lexed.getLexemes(true);
+        all.get(0).identify(LexemeIdentity.AERODROME_DESIGNATOR);
+        all.get(0).setParsedValue(Lexeme.ParsedValueName.VALUE, "EFHK");
+        all.get(5).identify(LexemeIdentity.TREND_CHANGE_INDICATOR, Lexeme.Status.WARNING, "note", 0.5);
+        all.get(10).identify(LexemeIdentity.REMARKS_START);
+        all.get(12).setIgnored(true);
+    }
+
+    @Test
+    public void testSnapshotOfState() {
+        final LexemeSequence frozen = FrozenLexemeSequence.of(this.lexed);
+        assertEquals(this.lexed.getTAC(), frozen.getTAC());
+        assertEquals(this.lexed.getLexemes().size(), frozen.getLexemes().size());
+        final List<Lexeme> expected = this.lexed.getLexemes(true);
+        final List<Lexeme> actual = frozen.getLexemes(true);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            final Lexeme e = expected.get(i);
+            final Lexeme a = actual.get(i);
+            assertEquals(e.getTACToken(), a.getTACToken());
+            assertEquals(e.getIdentity(), a.getIdentity());
+            assertEquals(e.getStatus(), a.getStatus());
+            assertEquals(e.getLexerMessage(), a.getLexerMessage());
+            assertEquals(e.getIdentificationCertainty(), a.getIdentificationCertainty(), 0.0);
+            assertEquals(e.getStartIndex(), a.getStartIndex());
+            assertEquals(e.getEndIndex(), a.getEndIndex());
+            assertEquals(e.isIgnored(), a.isIgnored());
+            assertEquals(e.getParsedValues(), a.getParsedValues());
+        }
+        assertEquals("EFHK", actual.get(0).getParsedValue(Lexeme.ParsedValueName.VALUE, String.class));
+
+        // later changes to the lexed sequence are not reflected:
+        expected.get(0).setParsedValue(Lexeme.ParsedValueName.VALUE, "EFTU");
+        expected.get(2).identify(LexemeIdentity.ISSUE_TIME);
+        assertEquals("EFHK", actual.get(0).getParsedValue(Lexeme.ParsedValueName.VALUE, String.class));
+        assertNull(actual.get(2).getIdentity());
+        assertSame(frozen, FrozenLexemeSequence.of(frozen));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testLexemesCannotBeModified() {
+        FrozenLexemeSequence.of(this.lexed).getFirstLexeme().identify(LexemeIdentity.ISSUE_TIME);
+    }
+
+    @Test
+    public void testNavigation() {
+        final LexemeSequence frozen = FrozenLexemeSequence.of(this.lexed);
+        final List<LexemeSequence> parts = frozen.splitBy(LexemeIdentity.TREND_CHANGE_INDICATOR, LexemeIdentity.REMARKS_START);
+        assertEquals(3, parts.size());
+        assertEquals("BECMG 9999 \n", parts.get(1).getTAC());
+
+        final Lexeme becmg = parts.get(1).getFirstLexeme();
+        assertFalse(becmg.hasPrevious());
+        assertEquals("9999", becmg.getNext().getTACToken());
+        assertSame(becmg.getNext(), becmg.getNext());
+        assertSame(becmg, becmg.getNext().getFirst());
+        assertNull(becmg.getNext().getNext());
+        assertEquals(frozen.getLexemes(true).get(5), becmg);
+
+        // the ignored lexeme is skipped:
+        final Lexeme remarks = parts.get(2).getFirstLexeme();
+        assertEquals("=", remarks.getNext().getTACToken());
+        assertEquals("X", remarks.getNext(true).getNext(true).getTACToken());
+        assertEquals("X=", remarks.getTailSequence().trimWhiteSpace().getTAC());
+        assertEquals(3, parts.get(2).getLexemes().size());
+        assertTrue(frozen.getLastLexeme().getTailSequence().getLexemes().isEmpty());
+        assertEquals("EFHK 011750Z", parts.get(0).trimWhiteSpace().getTAC());
+        assertSame(frozen.getLexemes(true).get(10), frozen.getFirstLexeme().findNext(LexemeIdentity.REMARKS_START));
+    }
+
+    @Test
+    public void testConcurrentReading() throws Exception {
+        final LexemeSequence frozen = FrozenLexemeSequence.of(this.lexed);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                results.add(executor.submit((Callable<String>) () -> {
+                    final StringBuilder sb = new StringBuilder();
+                    for (final LexemeSequence part : frozen.splitBy(LexemeIdentity.TREND_CHANGE_INDICATOR)) {
+                        for (Lexeme l = part.getFirstLexeme(); l != null; l = l.getNext()) {
+                            sb.append(l.getTACToken()).append(' ');
+                        }
+                    }
+                    return sb.toString();
+                }));
+            }
+            for (final Future<String> result : results) {
+                assertEquals("EFHK 011750Z BECMG 9999 RMK = ", result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package fi.fmi.avi.converter.tac.lexer.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import fi.fmi.avi.converter.tac.lexer.Lexeme;
+import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
+import fi.fmi.avi.converter.tac.lexer.LexemeIdentitySet;
+import fi.fmi.avi.converter.tac.lexer.LexemeSequence;
+
+public class LexemeUtilsTest {
+
+    private LexemeSequence sequence;
+    private List<Lexeme> tokens;
+
+    @Before
+    public void setUp() {
+        this.sequence = new LexingFactoryImpl().createLexemeSequence("TAF EFHK 24005KT 9999 BECMG 24010KT 8000 BECMG 5000=", null);
+        this.tokens = new ArrayList<>();
+        for (final Lexeme l : this.sequence.getLexemes()) {
+            if (!LexemeIdentity.WHITE_SPACE.equals(l.getIdentity())) {
+                this.tokens.add(l);
+            }
+        }
+        this.tokens.get(0).identify(LexemeIdentity.TAF_START);
+        this.tokens.get(1).identify(LexemeIdentity.AERODROME_DESIGNATOR);
+        this.tokens.get(2).identify(LexemeIdentity.SURFACE_WIND);
+        this.tokens.get(3).identify(LexemeIdentity.HORIZONTAL_VISIBILITY);
+    }
+
+    @Test
+    public void testExistsPreviousLexeme() {
+        final Lexeme wind = this.tokens.get(5);
+        assertTrue(LexemeUtils.existsPreviousLexeme(wind, LexemeIdentity.AERODROME_DESIGNATOR));
+        assertFalse(LexemeUtils.existsPreviousLexeme(this.tokens.get(1), LexemeIdentity.AERODROME_DESIGNATOR));
+        assertFalse(LexemeUtils.existsPreviousLexeme(wind, LexemeIdentity.TAF_FORECAST_CHANGE_INDICATOR));
+
+        this.tokens.get(4).identify(LexemeIdentity.TAF_FORECAST_CHANGE_INDICATOR);
+        assertTrue(LexemeUtils.existsPreviousLexeme(wind, LexemeIdentity.TAF_FORECAST_CHANGE_INDICATOR));
+        assertFalse(LexemeUtils.existsPreviousLexeme(this.tokens.get(4), LexemeIdentity.TAF_FORECAST_CHANGE_INDICATOR));
+
+        this.tokens.get(1).identify(LexemeIdentity.AERODROME_DESIGNATOR, Lexeme.Status.SYNTAX_ERROR);
+        assertTrue(LexemeUtils.existsPreviousLexeme(wind, LexemeIdentity.AERODROME_DESIGNATOR));
+        assertFalse(LexemeUtils.existsPreviousLexeme(wind, LexemeIdentity.AERODROME_DESIGNATOR, l -> l.getIdentityIfAcceptable() != null));
+
+        this.tokens.get(1).setIgnored(true);
+        assertFalse(LexemeUtils.existsPreviousLexeme(wind, LexemeIdentity.AERODROME_DESIGNATOR));
+        this.tokens.get(1).setIgnored(false);
+        this.tokens.get(1).identify(LexemeIdentity.ISSUE_TIME);
+        assertFalse(LexemeUtils.existsPreviousLexeme(wind, LexemeIdentity.AERODROME_DESIGNATOR));
+        assertTrue(LexemeUtils.existsPreviousLexeme(wind, LexemeIdentity.ISSUE_TIME));
+    }
+
+    @Test
+    public void testExistsPreviousLexemesWithinSameGroup() {
+        final Lexeme changeWind = this.tokens.get(5);
+        assertTrue(LexemeUtils.existsPreviousLexemesWithinSameGroup(changeWind, LexemeIdentity.SURFACE_WIND));
+        assertFalse(LexemeUtils.existsPreviousLexemesWithinSameGroup(this.tokens.get(2), LexemeIdentity.SURFACE_WIND));
+
+        this.tokens.get(4).identify(LexemeIdentity.TAF_FORECAST_CHANGE_INDICATOR);
+        assertFalse(LexemeUtils.existsPreviousLexemesWithinSameGroup(changeWind, LexemeIdentity.SURFACE_WIND));
+        changeWind.identify(LexemeIdentity.SURFACE_WIND);
+        this.tokens.get(6).identify(LexemeIdentity.HORIZONTAL_VISIBILITY);
+        this.tokens.get(7).identify(LexemeIdentity.TAF_FORECAST_CHANGE_INDICATOR);
+        final Lexeme lastVisibility = this.tokens.get(8);
+        assertFalse(LexemeUtils.existsPreviousLexemesWithinSameGroup(lastVisibility, LexemeIdentity.HORIZONTAL_VISIBILITY));
+        assertTrue(LexemeUtils.existsPreviousLexemesWithinSameGroup(this.tokens.get(6), LexemeIdentity.SURFACE_WIND));
+        assertFalse(LexemeUtils.existsPreviousLexemesWithinSameGroup(this.tokens.get(6), LexemeIdentity.SURFACE_WIND, l -> l != changeWind));
+
+        this.tokens.get(7).identify(LexemeIdentity.HORIZONTAL_VISIBILITY);
+        assertTrue(LexemeUtils.existsPreviousLexemesWithinSameGroup(lastVisibility, LexemeIdentity.HORIZONTAL_VISIBILITY));
+    }
+
+    @Test
+    public void testFindFirstPreviousLexeme() {
+        final Set<LexemeIdentity> afterWind = LexemeIdentitySet.of(LexemeIdentity.HORIZONTAL_VISIBILITY, LexemeIdentity.TAF_FORECAST_CHANGE_INDICATOR);
+        final Lexeme changeWind = this.tokens.get(5);
+        assertNull(LexemeUtils.findFirstPreviousLexeme(this.tokens.get(2), afterWind));
+        assertSame(this.tokens.get(3), LexemeUtils.findFirstPreviousLexeme(changeWind, afterWind));
+
+        // the first one is found, whatever its status:
+        this.tokens.get(4).identify(LexemeIdentity.TAF_FORECAST_CHANGE_INDICATOR);
+        this.tokens.get(3).identify(LexemeIdentity.HORIZONTAL_VISIBILITY, Lexeme.Status.SYNTAX_ERROR);
+        assertSame(this.tokens.get(3), LexemeUtils.findFirstPreviousLexeme(changeWind, afterWind));
+        this.tokens.get(3).setIgnored(true);
+        assertSame(this.tokens.get(4), LexemeUtils.findFirstPreviousLexeme(changeWind, afterWind));
+        assertNull(LexemeUtils.findFirstPreviousLexeme(this.tokens.get(4), afterWind));
+
+        // only the lexemes of the subsequence are considered:
+        this.tokens.get(3).setIgnored(false);
+        final LexemeSequence change = this.sequence.splitBy(LexemeIdentity.TAF_FORECAST_CHANGE_INDICATOR).get(1);
+        assertNull(LexemeUtils.findFirstPreviousLexeme(change.getFirstLexeme(), afterWind));
+        assertSame(change.getFirstLexeme(), LexemeUtils.findFirstPreviousLexeme(change.getLastLexeme(), afterWind));
+        final LexemeSequence frozen = FrozenLexemeSequence.of(this.sequence);
+        assertEquals("9999", LexemeUtils.findFirstPreviousLexeme(frozen.getLastLexeme(), afterWind).getTACToken());
+    }
+}
@@ -0,0 +1,346 @@
+package fi.fmi.avi.converter.tac.lexer.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import fi.fmi.avi.converter.ConversionHints;
+import fi.fmi.avi.converter.tac.lexer.Lexeme;
+import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
+import fi.fmi.avi.converter.tac.lexer.LexemeSequence;
+import fi.fmi.avi.converter.tac.lexer.LexemeSequenceBuilder;
+import fi.fmi.avi.model.MessageType;
+
+public class LexingFactoryImplTest {
+
+    private LexingFactoryImpl factory;
+
+    private static ConversionHints messageTypeHint(final MessageType type) {
+        final ConversionHints hints = new ConversionHints();
+        hints.put(ConversionHints.KEY_MESSAGE_TYPE, type);
+        return hints;
+    }
+
+    @Before
+    public void setUp() {
+        this.factory = new LexingFactoryImpl();
+        this.factory.addTokenCombiningRule(Arrays.asList(TokenPredicate.equalTo("WS"), TokenPredicate.equalTo("ALL"), TokenPredicate.equalTo("RWY")));
+        this.factory.addTokenCombiningRule(Arrays.asList(TokenPredicate.equalTo("SWX"), TokenPredicate.equalTo("ADVISORY")));
+        this.factory.addTokenCombiningRule(Arrays.asList(TokenPredicate.equalTo("NO"), TokenPredicate.equalTo("FURTHER")),
+                MessageType.SPACE_WEATHER_ADVISORY);
+        this.factory.setMessageStartToken(MessageType.METAR, this.factory.createLexeme("METAR", LexemeIdentity.METAR_START, Lexeme.Status.OK, true));
+        this.factory.setMessageStartToken(MessageType.SPACE_WEATHER_ADVISORY,
+                this.factory.createLexeme("SWX ADVISORY", LexemeIdentity.SPACE_WEATHER_ADVISORY_START, Lexeme.Status.OK, true));
+    }
+
+    private List<String> tokens(final String tac, final ConversionHints hints) {
+        final List<String> tokens = new ArrayList<>();
+        for (final Lexeme l : this.factory.createLexemeSequence(tac, hints).getLexemes()) {
+            if (!LexemeIdentity.WHITE_SPACE.equals(l.getIdentity())) {
+                tokens.add(l.getTACToken());
+            }
+        }
+        return tokens;
+    }
+
+    @Test
+    public void testScopedRules() {
+        assertEquals(3, this.factory.getTokenCombiningRules().size());
+        assertEquals(2, this.factory.getTokenCombiningRules(MessageType.METAR).size());
+        assertEquals(3, this.factory.getTokenCombiningRules(MessageType.SPACE_WEATHER_ADVISORY).size());
+    }
+
+    @Test
+    public void testScopeFromStartToken() {
+        assertEquals(Arrays.asList("METAR", "WS ALL RWY", "NO", "FURTHER"), tokens("METAR WS ALL RWY NO FURTHER", null));
+        assertEquals(Arrays.asList("SWX ADVISORY", "NO FURTHER"), tokens("SWX ADVISORY NO FURTHER", null));
+        assertEquals(Arrays.asList("METAR", "SWX ADVISORY", "NO FURTHER"), tokens("SWX ADVISORY NO FURTHER", messageTypeHint(MessageType.METAR)));
+    }
+
+    @Test
+    public void testScopeFromMultiTokenStartToken() {
+        this.factory.addTokenCombiningRule(Arrays.asList(TokenPredicate.equalTo("VA"), TokenPredicate.equalTo("ADVISORY"), TokenPredicate.equalTo("NR")));
+        this.factory.addTokenCombiningRule(Arrays.asList(TokenPredicate.equalTo("NOT"), TokenPredicate.equalTo("AVBL")), MessageType.VOLCANIC_ASH_ADVISORY);
+        this.factory.setMessageStartToken(MessageType.VOLCANIC_ASH_ADVISORY,
+                this.factory.createLexeme("VA ADVISORY NR", LexemeIdentity.VOLCANIC_ASH_ADVISORY_START, Lexeme.Status.OK, true));
+        // the scope is only decided once the combined start token is complete:
+        assertEquals(Arrays.asList("METAR", "VA ADVISORY NR", "NOT AVBL"), tokens("VA ADVISORY NR NOT AVBL", messageTypeHint(MessageType.METAR)));
+        assertEquals(Arrays.asList("METAR", "VA", "EFHK", "NOT", "AVBL"), tokens("VA EFHK NOT AVBL", messageTypeHint(MessageType.METAR)));
+    }
+
+    @Test
+    public void testScopeFromHint() {
+        assertEquals(Arrays.asList("METAR", "EFHK", "NO", "FURTHER"), tokens("EFHK NO FURTHER", messageTypeHint(MessageType.METAR)));
+        assertEquals(Arrays.asList("SWX ADVISORY", "NO FURTHER"), tokens("NO FURTHER", messageTypeHint(MessageType.SPACE_WEATHER_ADVISORY)));
+    }
+
+    @Test
+    public void testAllRulesWithUnknownType() {
+        assertEquals(Arrays.asList("EFHK", "NO FURTHER"), tokens("EFHK NO FURTHER", null));
+        assertEquals(Arrays.asList("EFHK", "NO FURTHER"), tokens("EFHK NO FURTHER", messageTypeHint(MessageType.GENERIC)));
+    }
+
+    @Test
+    public void testTokenOffsets() {
+        final String tac = "METAR  EFHK\u0003=\nWS ALL RWY=";
+        final List<Lexeme> lexemes = this.factory.createLexemeSequence(tac, null).getLexemes();
+        final List<String> tokens = new ArrayList<>();
+        for (final Lexeme l : lexemes) {
+            assertEquals(l.getTACToken(), tac.substring(l.getStartIndex(), l.getEndIndex() + 1));
+            tokens.add(l.getTACToken());
+        }
+        assertEquals(Arrays.asList("METAR", " ", " ", "EFHK", "\u0003", "=", "\n", "WS ALL RWY", "="), tokens);
+        assertEquals(Lexeme.MeteorologicalBulletinSpecialCharacter.END_OF_TEXT, lexemes.get(4).getParsedValue(Lexeme.ParsedValueName.TYPE,
+                Lexeme.MeteorologicalBulletinSpecialCharacter.class));
+        assertEquals(LexemeIdentity.END_TOKEN, lexemes.get(5).getIdentity());
+    }
+
+
+    private static void assertSignificantNeighbours(final LexemeSequence seq) {
+        final List<Lexeme> all = seq.getLexemes(true);
+        for (int i = 0; i < all.size(); i++) {
+            Lexeme expectedNext = null;
+            for (int j = i + 1; j < all.size() && expectedNext == null; j++) {
+                expectedNext = isSignificant(all.get(j)) ? all.get(j) : null;
+            }
+            Lexeme expectedPrevious = null;
+            for (int j = i - 1; j >= 0 && expectedPrevious == null; j--) {
+                expectedPrevious = isSignificant(all.get(j)) ? all.get(j) : null;
+            }
+            assertSame(all.get(i).getTACToken(), expectedNext, all.get(i).getNext());
+            assertSame(all.get(i).getTACToken(), expectedPrevious, all.get(i).getPrevious());
+        }
+        Lexeme expectedFirst = null;
+        for (int j = 0; j < all.size() && expectedFirst == null; j++) {
+            expectedFirst = isSignificant(all.get(j)) ? all.get(j) : null;
+        }
+        for (final Lexeme l : all) {
+            assertSame(expectedFirst, l.getFirst());
+        }
+    }
+
+    private static boolean isSignificant(final Lexeme l) {
+        return !l.isIgnored() && !LexemeIdentity.WHITE_SPACE.equals(l.getIdentity());
+    }
+
+    @Test
+    public void testSignificantNeighbours() {
+        final LexemeSequence seq = this.factory.createLexemeSequence(" METAR  EFHK\n 011750Z WS ALL RWY 9999=", null);
+        assertSignificantNeighbours(seq);
+        final List<Lexeme> all = seq.getLexemes(true);
+        final Lexeme efhk = all.get(4);
+        assertEquals("EFHK", efhk.getTACToken());
+        efhk.setIgnored(true);
+        assertSignificantNeighbours(seq);
+        all.get(1).identify(LexemeIdentity.WHITE_SPACE);
+        assertSignificantNeighbours(seq);
+        all.get(2).identify(LexemeIdentity.METAR_START);
+        assertSignificantNeighbours(seq);
+        efhk.setIgnored(false);
+        all.get(1).identify(LexemeIdentity.METAR_START);
+        assertSignificantNeighbours(seq);
+        for (final Lexeme l : all) {
+            l.setIgnored(true);
+        }
+        assertSignificantNeighbours(seq);
+        all.get(all.size() - 1).setIgnored(false);
+        assertSignificantNeighbours(seq);
+    }
+
+    @Test
+    public void testSubsequenceViews() {
+        final LexemeSequence seq = this.factory.createLexemeSequence("EFHK 011750Z \nBECMG 9999 \nRMK X=", null);
+        final List<Lexeme> all = seq.getLexemes(true);
+        all.get(5).identify(LexemeIdentity.TREND_CHANGE_INDICATOR);
+        all.get(10).identify(LexemeIdentity.REMARKS_START);
+
+        final List<LexemeSequence> parts = seq.splitBy(LexemeIdentity.TREND_CHANGE_INDICATOR, LexemeIdentity.REMARKS_START);
+        assertEquals(3, parts.size());
+        assertEquals("EFHK 011750Z \n", parts.get(0).getTAC());
+        assertEquals("BECMG 9999 \n", parts.get(1).getTAC());
+        assertEquals("RMK X=", parts.get(2).getTAC());
+
+        // navigation stops at the bounds of the view:
+        final Lexeme becmg = parts.get(1).getFirstLexeme();
+        assertNull(becmg.getPrevious(true));
+        assertFalse(becmg.hasPrevious());
+        final Lexeme visibility = becmg.getNext();
+        assertEquals("9999", visibility.getTACToken());
+        assertNull(visibility.getNext());
+        assertNull(parts.get(1).getLastLexeme().getNext(true));
+        assertNull(visibility.findNext(LexemeIdentity.REMARKS_START));
+        assertSame(becmg, visibility.getFirst());
+        assertSame(visibility, becmg.getNext());
+
+        // the lexemes are shared with the original sequence:
+        visibility.identify(LexemeIdentity.HORIZONTAL_VISIBILITY);
+        assertEquals(LexemeIdentity.HORIZONTAL_VISIBILITY, all.get(7).getIdentity());
+        assertEquals(visibility, parts.get(1).trimWhiteSpace().getLastLexeme());
+
+        assertEquals("BECMG 9999", parts.get(1).trimWhiteSpace().getTAC());
+        assertEquals(" 9999 \n", becmg.getTailSequence().getTAC());
+        assertTrue(parts.get(2).getLastLexeme().getTailSequence().getLexemes().isEmpty());
+        assertEquals("X=", all.get(10).getTailSequence().trimWhiteSpace().getTAC());
+        assertEquals(2, all.get(10).getTailSequence().splitBy(false, LexemeIdentity.WHITE_SPACE).size());
+        assertTrue(this.factory.createLexemeSequence(" \n ", null).trimWhiteSpace().getLexemes().isEmpty());
+    }
+
+    @Test
+    public void testArrayBackedSequences() {
+        final StringBuilder tac = new StringBuilder("EFHK 011750Z WS ALL RWY");
+        for (int i = 0; i < 40; i++) {
+            tac.append(" 9999");
+        }
+        final String input = tac.append('=').toString();
+        final ConversionHints hints = messageTypeHint(MessageType.METAR);
+        final LexemeSequence linked = this.factory.createLexemeSequence(input, hints);
+        this.factory.setArrayBackedSequences(true);
+        final LexingFactoryImpl.LexemeSequenceImpl array = (LexingFactoryImpl.LexemeSequenceImpl) this.factory.createLexemeSequence(input, hints);
+
+        final List<Lexeme> expected = linked.getLexemes(true);
+        assertEquals(expected.size(), array.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getTACToken(), array.get(i).getTACToken());
+            assertSame(array.getFirstLexeme(), array.get(i).getFirst(true));
+        }
+        assertEquals("METAR", array.get(0).getTACToken());
+        assertEquals("WS ALL RWY", array.get(6).getTACToken());
+        assertSame(array.getLastLexeme(), array.get(array.size() - 1));
+
+        final List<Lexeme> lexemes = array.getLexemes();
+        assertSame(lexemes, array.getLexemes());
+        array.get(2).setIgnored(true);
+        assertNotSame(lexemes, array.getLexemes());
+        assertEquals(lexemes.size() - 1, array.getLexemes().size());
+        assertEquals(expected.size(), array.getLexemes(true).size());
+
+        final LexemeSequenceBuilder builder = this.factory.createLexemeSequenceBuilder();
+        assertTrue(builder.isEmpty());
+        builder.appendAll(expected).removeLast().removeLast();
+        final LexingFactoryImpl.LexemeSequenceImpl built = (LexingFactoryImpl.LexemeSequenceImpl) builder.build();
+        assertEquals(expected.size() - 2, built.size());
+        assertEquals(LexemeIdentity.WHITE_SPACE, built.getLastLexeme().getIdentity());
+        while (!builder.isEmpty()) {
+            builder.removeLast();
+        }
+        assertEquals(0, built.size());
+        assertNull(built.getFirstLexeme());
+    }
+
+    @Test
+    public void testIdentityIndex() {
+        final LexemeSequence lexed = this.factory.createLexemeSequence("EFHK 011750Z \nBECMG 9999 \nRMK X=", null);
+        final List<Lexeme> all = lexed.getLexemes(true);
+        all.get(0).identify(LexemeIdentity.AERODROME_DESIGNATOR);
+        all.get(2).identify(LexemeIdentity.ISSUE_TIME);
+        all.get(5).identify(LexemeIdentity.TREND_CHANGE_INDICATOR);
+        all.get(7).identify(LexemeIdentity.HORIZONTAL_VISIBILITY, Lexeme.Status.WARNING);
+        all.get(10).identify(LexemeIdentity.REMARKS_START);
+        all.get(12).identify(LexemeIdentity.TREND_CHANGE_INDICATOR, Lexeme.Status.UNRECOGNIZED);
+
+        // repeated lookups are answered from the index:
+        for (int i = 0; i < 3; i++) {
+            assertSame(all.get(5), lexed.getFirstLexeme().findNext(LexemeIdentity.TREND_CHANGE_INDICATOR));
+            assertSame(all.get(10), all.get(5).findNext(LexemeIdentity.REMARKS_START));
+            assertNull(all.get(5).findNext(LexemeIdentity.TREND_CHANGE_INDICATOR));
+            assertNull(all.get(10).findNext(LexemeIdentity.ISSUE_TIME));
+        }
+        assertEquals(Arrays.asList(all.get(5), all.get(10)),
+                lexed.getRecognizedLexemes(LexemeIdentity.REMARKS_START, LexemeIdentity.TREND_CHANGE_INDICATOR, LexemeIdentity.REMARKS_START));
+        assertTrue(lexed.getRecognizedLexemes(LexemeIdentity.WEATHER).isEmpty());
+        final int nonOk = lexed.getNonOkLexemeCount();
+        assertEquals(lexed.getLexemes().stream().filter(l -> Lexeme.Status.OK != l.getStatus()).count(), nonOk);
+
+        // the index is recreated after changes to the lexemes:
+        all.get(12).identify(LexemeIdentity.TREND_CHANGE_INDICATOR);
+        all.get(7).setIgnored(true);
+        assertSame(all.get(12), all.get(5).findNext(LexemeIdentity.TREND_CHANGE_INDICATOR));
+        assertSame(all.get(12), all.get(5).findNext(LexemeIdentity.TREND_CHANGE_INDICATOR));
+        assertEquals(Arrays.asList(all.get(5), all.get(12)), lexed.getRecognizedLexemes(LexemeIdentity.TREND_CHANGE_INDICATOR));
+        assertEquals(nonOk - 2, lexed.getNonOkLexemeCount());
+
+        // the views only find their own lexemes:
+        final LexemeSequence trend = lexed.splitBy(LexemeIdentity.TREND_CHANGE_INDICATOR, LexemeIdentity.REMARKS_START).get(1);
+        for (int i = 0; i < 3; i++) {
+            assertNull(trend.getFirstLexeme().findNext(LexemeIdentity.REMARKS_START));
+        }
+        assertEquals(1, trend.getRecognizedLexemes(LexemeIdentity.TREND_CHANGE_INDICATOR, LexemeIdentity.REMARKS_START).size());
+        all.get(7).setIgnored(false);
+        all.get(7).identify(LexemeIdentity.REMARKS_START);
+        assertEquals("9999", trend.getFirstLexeme().findNext(LexemeIdentity.REMARKS_START).getTACToken());
+        assertEquals(2, trend.getRecognizedLexemes(LexemeIdentity.TREND_CHANGE_INDICATOR, LexemeIdentity.REMARKS_START).size());
+    }
+
+    @Test
+    public void testDefaultSequenceMethods() {
+        final LexemeSequence lexed = this.factory.createLexemeSequence("EFHK 011750Z \nBECMG 9999 \nRMK X=", null);
+        final List<Lexeme> all = lexed.getLexemes(true);
+        all.get(5).identify(LexemeIdentity.TREND_CHANGE_INDICATOR);
+        all.get(7).identify(LexemeIdentity.HORIZONTAL_VISIBILITY, Lexeme.Status.WARNING);
+        all.get(10).identify(LexemeIdentity.REMARKS_START);
+        all.get(12).identify(LexemeIdentity.TREND_CHANGE_INDICATOR, Lexeme.Status.UNRECOGNIZED);
+
+        // a sequence implemented elsewhere gets the queries from the interface and can still be frozen:
+        final LexemeSequence delegating = new LexemeSequence() {
+            @Override
+            public String getTAC() {
+                return lexed.getTAC();
+            }
+
+            @Override
+            public Lexeme getFirstLexeme() {
+                return lexed.getFirstLexeme();
+            }
+
+            @Override
+            public Lexeme getLastLexeme() {
+                return lexed.getLastLexeme();
+            }
+
+            @Override
+            public List<Lexeme> getLexemes() {
+                return lexed.getLexemes();
+            }
+
+            @Override
+            public List<Lexeme> getLexemes(final boolean acceptIgnored) {
+                return lexed.getLexemes(acceptIgnored);
+            }
+
+            @Override
+            public List<LexemeSequence> splitBy(final LexemeIdentity... ids) {
+                return lexed.splitBy(ids);
+            }
+
+            @Override
+            public List<LexemeSequence> splitBy(final boolean separatorStartsSequence, final LexemeIdentity... ids) {
+                return lexed.splitBy(separatorStartsSequence, ids);
+            }
+
+            @Override
+            public LexemeSequence trimWhiteSpace() {
+                return lexed.trimWhiteSpace();
+            }
+        };
+        assertEquals(lexed.getRecognizedLexemes(LexemeIdentity.TREND_CHANGE_INDICATOR, LexemeIdentity.REMARKS_START),
+                delegating.getRecognizedLexemes(LexemeIdentity.TREND_CHANGE_INDICATOR, LexemeIdentity.REMARKS_START));
+        assertEquals(lexed.getNonOkLexemeCount(), delegating.getNonOkLexemeCount());
+        all.get(7).setIgnored(true);
+        assertEquals(lexed.getNonOkLexemeCount(), delegating.getNonOkLexemeCount());
+
+        final LexemeSequence frozen = FrozenLexemeSequence.of(delegating);
+        assertEquals(lexed.getTAC(), frozen.getTAC());
+        assertEquals(lexed.getNonOkLexemeCount(), frozen.getNonOkLexemeCount());
+        assertEquals("BECMG", frozen.getRecognizedLexemes(LexemeIdentity.TREND_CHANGE_INDICATOR).get(0).getTACToken());
+    }
+}
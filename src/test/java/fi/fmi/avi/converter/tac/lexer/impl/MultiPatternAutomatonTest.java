@@ -0,0 +1,117 @@
+package fi.fmi.avi.converter.tac.lexer.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import fi.fmi.avi.converter.tac.lexer.impl.PrioritizedLexemeVisitor.OccurrenceFrequency;
+import fi.fmi.avi.converter.tac.lexer.impl.token.AirDewpointTemperature;
+import fi.fmi.avi.converter.tac.lexer.impl.token.CloudLayer;
+import fi.fmi.avi.converter.tac.lexer.impl.token.ColorCode;
+import fi.fmi.avi.converter.tac.lexer.impl.token.FractionalHorizontalVisibility;
+import fi.fmi.avi.converter.tac.lexer.impl.token.ICAOCode;
+import fi.fmi.avi.converter.tac.lexer.impl.token.IssueTime;
+import fi.fmi.avi.converter.tac.lexer.impl.token.MetricHorizontalVisibility;
+import fi.fmi.avi.converter.tac.lexer.impl.token.NextAdvisory;
+import fi.fmi.avi.converter.tac.lexer.impl.token.RunwayState;
+import fi.fmi.avi.converter.tac.lexer.impl.token.RunwayVisualRange;
+import fi.fmi.avi.converter.tac.lexer.impl.token.SWXCenter;
+import fi.fmi.avi.converter.tac.lexer.impl.token.SWXPhenomena;
+import fi.fmi.avi.converter.tac.lexer.impl.token.SurfaceWind;
+import fi.fmi.avi.converter.tac.lexer.impl.token.TAFChangeForecastTimeGroup;
+import fi.fmi.avi.converter.tac.lexer.impl.token.ValidTime;
+import fi.fmi.avi.converter.tac.lexer.impl.token.Weather;
+import fi.fmi.avi.converter.tac.lexer.impl.token.Whitespace;
+import fi.fmi.avi.converter.tac.lexer.impl.token.WindShear;
+
+public class MultiPatternAutomatonTest {
+
+    private static final String[] TOKENS = { "METAR", "EFHK", "011750Z", "0118/0218", "1200", "VRB02KT", "24005G15KT", "9999", "0800NDV", "-SN", "+TSRA",
+            "BKN003", "VV///", "//////", "FEW020CB", "NSC", "M01/M03", "18/M00", "R04R/1500N", "R15L/CLRD70", "88//////", "1 1/2SM", "BLACKRED", "WS R04R",
+            "WS ALL RWY", "PECASUS", "OBS SWX:", "FCST SWX +6 HR:", "20161108/0700Z", "WILL BE ISSUED BY 20161108/0700Z", " ", "\n", " \n", "=", "", "A",
+            "12345678901234", "EFHK\n", "TEMPO", "0118/0218\n" };
+
+    private static List<Pattern> visitorPatterns() {
+        final List<RegexMatchingLexemeVisitor> visitors = Arrays.asList(new ICAOCode(OccurrenceFrequency.AVERAGE), new IssueTime(OccurrenceFrequency.AVERAGE),
+                new ValidTime(OccurrenceFrequency.AVERAGE), new SurfaceWind(OccurrenceFrequency.AVERAGE),
+                new MetricHorizontalVisibility(OccurrenceFrequency.AVERAGE), new FractionalHorizontalVisibility(OccurrenceFrequency.AVERAGE),
+                new Weather(OccurrenceFrequency.AVERAGE), new CloudLayer(OccurrenceFrequency.AVERAGE), new AirDewpointTemperature(OccurrenceFrequency.AVERAGE),
+                new RunwayVisualRange(OccurrenceFrequency.AVERAGE), new RunwayState(OccurrenceFrequency.AVERAGE), new ColorCode(OccurrenceFrequency.AVERAGE),
+                new WindShear(OccurrenceFrequency.AVERAGE), new SWXCenter(OccurrenceFrequency.AVERAGE), new SWXPhenomena(OccurrenceFrequency.AVERAGE),
+                new NextAdvisory(OccurrenceFrequency.AVERAGE), new TAFChangeForecastTimeGroup(OccurrenceFrequency.AVERAGE),
+                new Whitespace(OccurrenceFrequency.AVERAGE));
+        final List<Pattern> patterns = new ArrayList<>();
+        for (final RegexMatchingLexemeVisitor visitor : visitors) {
+            patterns.add(visitor.getPattern());
+        }
+        return patterns;
+    }
+
+    private static void assertSameAsRegex(final List<Pattern> patterns, final MultiPatternAutomaton automaton, final String... tokens) {
+        for (final String token : tokens) {
+            final long[] matches = automaton.match(token);
+            for (int i = 0; i < patterns.size(); i++) {
+                if (automaton.isSupported(i)) {
+                    assertEquals("Pattern " + patterns.get(i) + " on '" + token + "'", patterns.get(i).matcher(token).matches(),
+                            MultiPatternAutomaton.contains(matches, i));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testVisitorPatternsMatchAsRegex() {
+        final List<Pattern> patterns = visitorPatterns();
+        final MultiPatternAutomaton automaton = MultiPatternAutomaton.compile(patterns);
+        for (int i = 0; i < patterns.size(); i++) {
+            // negative lookahead used in FractionalHorizontalVisibility is not supported
+            assertEquals(patterns.get(i).pattern(), !patterns.get(i).pattern().contains("(?!"), automaton.isSupported(i));
+        }
+        assertSameAsRegex(patterns, automaton, TOKENS);
+    }
+
+    @Test
+    public void testSyntaxSubset() {
+        final List<Pattern> patterns = Arrays.asList(Pattern.compile("^a(b|c)*d$"), Pattern.compile("[^0-9]{2,}"), Pattern.compile("(?:x\\.)+?y"),
+                Pattern.compile("^A|B$"), Pattern.compile("[/-]\\d?"), Pattern.compile("a$b"), Pattern.compile("(a)\\1"),
+                Pattern.compile("abc", Pattern.CASE_INSENSITIVE), null);
+        final MultiPatternAutomaton automaton = MultiPatternAutomaton.compile(patterns);
+        assertTrue(automaton.isSupported(0));
+        assertTrue(automaton.isSupported(1));
+        assertTrue(automaton.isSupported(2));
+        assertTrue(automaton.isSupported(3));
+        assertTrue(automaton.isSupported(4));
+        assertFalse(automaton.isSupported(5));
+        assertFalse(automaton.isSupported(6));
+        assertFalse(automaton.isSupported(7));
+        assertFalse(automaton.isSupported(8));
+        assertSameAsRegex(patterns, automaton, "ad", "abcbd", "abx", "xy", "x.x.y", "x.y.", "A", "B", "AB", "/", "-5", "5", "", "ab", "a\n");
+    }
+
+    @Test
+    public void testMayMatchSameToken() {
+        final MultiPatternAutomaton automaton = MultiPatternAutomaton.compile(
+                Arrays.asList(Pattern.compile("^[A-Z]{4}$"), Pattern.compile("^[A-Z]{2,8}$"), Pattern.compile("^[A-Z]{3}[0-9]{3}$"),
+                        Pattern.compile("^[0-9]{6}Z$")));
+        assertTrue(automaton.mayMatchSameToken(0, 1));
+        assertTrue(automaton.mayMatchSameToken(1, 0));
+        assertFalse(automaton.mayMatchSameToken(0, 2));
+        assertFalse(automaton.mayMatchSameToken(1, 2));
+        assertFalse(automaton.mayMatchSameToken(2, 3));
+    }
+
+    @Test
+    public void testNonAsciiInputNotHandled() {
+        final MultiPatternAutomaton automaton = MultiPatternAutomaton.compile(visitorPatterns());
+        assertNull(automaton.match("\u00C4EFHK"));
+    }
+
+}
@@ -0,0 +1,68 @@
+package fi.fmi.avi.converter.tac.lexer.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import fi.fmi.avi.converter.tac.lexer.Lexeme;
+import fi.fmi.avi.converter.tac.lexer.Lexeme.ParsedValueName;
+import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
+
+public class ParsedValueMapTest {
+
+    @Test
+    public void testSameContentsAsHashMap() {
+        final ParsedValueMap values = new ParsedValueMap();
+        final Map<ParsedValueName, Object> expected = new HashMap<>();
+        for (final ParsedValueName name : Arrays.asList(ParsedValueName.UNIT, ParsedValueName.YEAR, ParsedValueName.SEQUENCE_NUMBER,
+                ParsedValueName.COUNTRY, ParsedValueName.VALUE, ParsedValueName.YEAR)) {
+            values.set(name, name.name().toLowerCase());
+            expected.put(name, name.name().toLowerCase());
+        }
+        values.set(ParsedValueName.DAY1, null);
+        expected.put(ParsedValueName.DAY1, null);
+
+        assertEquals(expected, values);
+        assertEquals(values, expected);
+        assertEquals(expected.hashCode(), values.hashCode());
+        assertEquals(6, values.size());
+        assertTrue(values.containsKey(ParsedValueName.DAY1));
+        assertNull(values.get(ParsedValueName.DAY1));
+        assertFalse(values.containsKey(ParsedValueName.DAY2));
+        assertEquals("unit", values.get(ParsedValueName.UNIT));
+        assertEquals(Arrays.asList(ParsedValueName.COUNTRY, ParsedValueName.YEAR, ParsedValueName.DAY1, ParsedValueName.VALUE, ParsedValueName.UNIT,
+                ParsedValueName.SEQUENCE_NUMBER), new ArrayList<>(values.keySet()));
+        assertEquals(expected, ParsedValueMap.copyOf(values));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testReadOnly() {
+        final ParsedValueMap values = new ParsedValueMap();
+        values.set(ParsedValueName.VALUE, 1);
+        values.put(ParsedValueName.UNIT, "m");
+    }
+
+    @Test
+    public void testEmptyLexemesShareEmptyMap() {
+        final LexingFactoryImpl factory = new LexingFactoryImpl();
+        final Lexeme lexeme = factory.createLexeme("EFHK", LexemeIdentity.AERODROME_DESIGNATOR);
+        assertSame(Collections.emptyMap(), lexeme.getParsedValues());
+        final Lexeme copy = factory.createLexemeSequenceBuilder().append(lexeme).build().getFirstLexeme();
+        assertSame(Collections.emptyMap(), copy.getParsedValues());
+
+        lexeme.setParsedValue(ParsedValueName.VALUE, "EFHK");
+        assertEquals(Collections.singletonMap(ParsedValueName.VALUE, "EFHK"), lexeme.getParsedValues());
+        assertEquals(Collections.singletonMap(ParsedValueName.VALUE, "EFHK"),
+                factory.createLexemeSequenceBuilder().append(lexeme).build().getFirstLexeme().getParsedValues());
+    }
+}
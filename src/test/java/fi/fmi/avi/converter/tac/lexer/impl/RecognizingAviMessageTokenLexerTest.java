@@ -0,0 +1,185 @@
+package fi.fmi.avi.converter.tac.lexer.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import fi.fmi.avi.converter.ConversionHints;
+import fi.fmi.avi.converter.tac.lexer.Lexeme;
+import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
+import fi.fmi.avi.model.MessageType;
+
+public class RecognizingAviMessageTokenLexerTest {
+
+    private RecognizingAviMessageTokenLexer tokenLexer;
+    private LexingFactoryImpl factory;
+
+    private static class Station extends RegexMatchingLexemeVisitor {
+        Station() {
+            super("^[A-Z]{4}$");
+        }
+
+        @Override
+        public void visitIfMatched(final Lexeme token, final Matcher match, final ConversionHints hints) {
+            token.identify(LexemeIdentity.AERODROME_DESIGNATOR);
+        }
+    }
+
+    private static class Weather extends RegexMatchingLexemeVisitor {
+        Weather() {
+            super("^[A-Z]{2,8}$");
+        }
+
+        @Override
+        public void visitIfMatched(final Lexeme token, final Matcher match, final ConversionHints hints) {
+            token.identify(LexemeIdentity.WEATHER);
+        }
+    }
+
+    private static class Cloud extends RegexMatchingLexemeVisitor {
+        Cloud() {
+            super("^[A-Z]{3}[0-9]{3}$");
+        }
+
+        @Override
+        public void visitIfMatched(final Lexeme token, final Matcher match, final ConversionHints hints) {
+            token.identify(LexemeIdentity.CLOUD);
+        }
+    }
+
+    private static class Time extends RegexMatchingLexemeVisitor {
+        Time() {
+            super("^[0-9]{6}Z$");
+        }
+
+        @Override
+        public void visitIfMatched(final Lexeme token, final Matcher match, final ConversionHints hints) {
+            token.identify(LexemeIdentity.ISSUE_TIME);
+        }
+    }
+
+    private static class Nil extends PrioritizedLexemeVisitor {
+        @Override
+        public void visit(final Lexeme token, final ConversionHints hints) {
+            if ("NIL".equals(token.getTACToken())) {
+                token.identify(LexemeIdentity.NIL);
+            }
+        }
+    }
+
+    @Before
+    public void setUp() {
+        this.factory = new LexingFactoryImpl();
+        this.tokenLexer = new RecognizingAviMessageTokenLexer();
+        this.tokenLexer.teach(new Station());
+        this.tokenLexer.teach(new Weather());
+        this.tokenLexer.teach(new Cloud());
+        this.tokenLexer.teach(new Time());
+    }
+
+    private LexemeIdentity lex(final String token) {
+        final Lexeme lexeme = this.factory.createLexeme(token);
+        this.tokenLexer.visit(lexeme, null);
+        return lexeme.getIdentity();
+    }
+
+    @Test
+    public void testAdaptiveOrderingKeepsCompetingVisitorsInOrder() {
+        this.tokenLexer.setAdaptiveOrderingEnabled(true);
+        this.tokenLexer.setAdaptiveReorderInterval(1);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(LexemeIdentity.ISSUE_TIME, lex("011750Z"));
+            assertEquals(LexemeIdentity.WEATHER, lex("SHRASN"));
+        }
+        // Weather is hit more often than Station, but both accept four letter tokens:
+        assertEquals(Arrays.asList(Time.class, Station.class, Weather.class, Cloud.class), this.tokenLexer.exportVisitorOrder());
+        assertEquals(LexemeIdentity.AERODROME_DESIGNATOR, lex("EFHK"));
+        assertEquals(LexemeIdentity.WEATHER, lex("SHRASN"));
+        assertEquals(LexemeIdentity.CLOUD, lex("BKN003"));
+    }
+
+    @Test
+    public void testFrozenVisitorOrder() {
+        final List<Class<? extends PrioritizedLexemeVisitor>> staticOrder = this.tokenLexer.exportVisitorOrder();
+        assertEquals(Arrays.asList(Station.class, Weather.class, Cloud.class, Time.class), staticOrder);
+
+        this.tokenLexer.setVisitorOrder(Arrays.asList(Weather.class, Cloud.class, Time.class, Station.class));
+        assertEquals(Arrays.asList(Cloud.class, Time.class, Station.class, Weather.class), this.tokenLexer.exportVisitorOrder());
+        assertEquals(LexemeIdentity.AERODROME_DESIGNATOR, lex("EFHK"));
+
+        this.tokenLexer.setVisitorOrder(staticOrder);
+        assertEquals(staticOrder, this.tokenLexer.exportVisitorOrder());
+
+        // teaching resets the order:
+        this.tokenLexer.setVisitorOrder(Arrays.asList(Time.class));
+        this.tokenLexer.teach(new Cloud());
+        assertEquals(Arrays.asList(Station.class, Weather.class, Cloud.class, Time.class, Cloud.class), this.tokenLexer.exportVisitorOrder());
+    }
+
+    @Test
+    public void testClassificationCacheGivesSameResults() {
+        final TokenClassificationCache cache = new TokenClassificationCache(100);
+        for (int i = 0; i < 3; i++) {
+            for (final String token : Arrays.asList("EFHK", "SHRASN", "BKN003", "011750Z", "\u00C4\u00C4\u00C4\u00C4", "1")) {
+                final Lexeme uncached = this.factory.createLexeme(token);
+                this.tokenLexer.visit(uncached, null);
+                final Lexeme cached = this.factory.createLexeme(token);
+                this.tokenLexer.visit(cached, null, cache);
+                assertEquals(token, uncached.getIdentity(), cached.getIdentity());
+            }
+        }
+        assertEquals(6, cache.getMissCount());
+        assertEquals(12, cache.getHitCount());
+
+        // teaching invalidates the cached entries:
+        this.tokenLexer.teach(new Cloud());
+        final Lexeme lexeme = this.factory.createLexeme("BKN003");
+        this.tokenLexer.visit(lexeme, null, cache);
+        assertEquals(LexemeIdentity.CLOUD, lexeme.getIdentity());
+        assertEquals(7, cache.getMissCount());
+    }
+
+    @Test
+    public void testVisitorStatistics() {
+        this.tokenLexer.setSuitabilityTester(TokenSuitabilityTester.anyMessage(MessageType.METAR));
+        this.tokenLexer.setStatisticsEnabled(true);
+        lex("EFHK");
+        lex("SHRASN");
+        lex("BKN003");
+        final List<VisitorStatistics> statistics = this.tokenLexer.getVisitorStatistics();
+        assertEquals(4, statistics.size());
+        final VisitorStatistics station = statistics.get(0);
+        assertEquals("METAR", station.getMessageType());
+        assertEquals(Station.class.getName(), station.getVisitorClass());
+        assertEquals(3, station.getInvocationCount());
+        assertEquals(1, station.getMatchCount());
+        assertEquals(1, station.getIdentificationCount());
+        final VisitorStatistics weather = statistics.get(1);
+        assertEquals(2, weather.getInvocationCount());
+        assertEquals(1, weather.getMatchCount());
+        assertEquals(1, weather.getIdentificationCount());
+
+        final RecognizingAviMessageTokenLexer nilLexer = new RecognizingAviMessageTokenLexer();
+        nilLexer.teach(new Nil());
+        nilLexer.setStatisticsEnabled(true);
+        for (final String token : Arrays.asList("EFHK", "NIL")) {
+            nilLexer.visit(this.factory.createLexeme(token), null);
+        }
+        final VisitorStatistics nil = nilLexer.getVisitorStatistics().get(0);
+        assertEquals(2, nil.getInvocationCount());
+        assertEquals(1, nil.getMatchCount());
+        assertEquals(1, nil.getIdentificationCount());
+
+        this.tokenLexer.resetStatistics();
+        assertEquals(0, this.tokenLexer.getVisitorStatistics().get(0).getInvocationCount());
+        this.tokenLexer.setStatisticsEnabled(false);
+        assertTrue(this.tokenLexer.getVisitorStatistics().isEmpty());
+    }
+
+}
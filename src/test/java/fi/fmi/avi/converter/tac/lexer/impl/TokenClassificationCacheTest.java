@@ -0,0 +1,46 @@
+package fi.fmi.avi.converter.tac.lexer.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TokenClassificationCacheTest {
+
+    private static final Object[] VISITORS = new Object[0];
+
+    @Test
+    public void testKeyedByTokenLexerAndToken() {
+        final TokenClassificationCache cache = new TokenClassificationCache(10);
+        final RecognizingAviMessageTokenLexer metar = new RecognizingAviMessageTokenLexer();
+        final RecognizingAviMessageTokenLexer taf = new RecognizingAviMessageTokenLexer();
+        cache.put(metar, "9999", VISITORS, new long[] { 1L });
+        cache.put(taf, "9999", VISITORS, new long[] { 2L });
+        assertArrayEquals(new long[] { 1L }, cache.get(metar, "9999", VISITORS));
+        assertArrayEquals(new long[] { 2L }, cache.get(taf, "9999", VISITORS));
+        assertNull(cache.get(metar, "CAVOK", VISITORS));
+        assertNull(cache.get(metar, "9999", new Object[0]));
+        assertEquals(2, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        cache.resetStatistics();
+        assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    public void testRecentlyUsedEntriesSurviveEviction() {
+        final TokenClassificationCache cache = new TokenClassificationCache(8);
+        final RecognizingAviMessageTokenLexer tokenLexer = new RecognizingAviMessageTokenLexer();
+        for (int i = 0; i < 8; i++) {
+            cache.put(tokenLexer, "T" + i, VISITORS, new long[1]);
+        }
+        assertNotNull(cache.get(tokenLexer, "T3", VISITORS));
+        cache.put(tokenLexer, "T8", VISITORS, new long[1]);
+        assertTrue(cache.size() <= 6);
+        assertEquals(9 - cache.size(), cache.getEvictionCount());
+        assertNotNull(cache.get(tokenLexer, "T3", VISITORS));
+    }
+
+}
@@ -0,0 +1,87 @@
+package fi.fmi.avi.converter.tac.lexer.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.junit.Test;
+
+public class TokenCombiningRuleIndexTest {
+
+    private static final String[] TOKENS = { "WS", "ALL", "RWY", "R04R", "RWY22", "TEMPO", "PROB30", "1/2SM", "1", "HR:", "+6", "+6 HR:", "FCST SWX",
+            ":", "-", "SWX:", "SWX", "VA", "\u00C4", "" };
+
+    @Test
+    public void testLiteralPatternsStoredAsLiterals() {
+        assertEquals("NR", TokenPredicate.matching("^NR$").getLiteral());
+        assertEquals("HR:", TokenPredicate.matching("HR:$").getLiteral());
+        assertEquals("-", TokenPredicate.matching("^-$").getLiteral());
+        assertNull(TokenPredicate.matching("^SWX:?$").getLiteral());
+        assertNull(TokenPredicate.matching("^MOD|SEV$").getLiteral());
+        assertNull(TokenPredicate.matching("^A\\$").getLiteral());
+        assertNotNull(TokenPredicate.matching("^MOD|SEV$").getPattern());
+        assertTrue(TokenPredicate.matching("^MOD|SEV$").test("SEV"));
+        assertFalse(TokenPredicate.equalTo("WS").test("WS "));
+    }
+
+    @Test
+    public void testCandidatesIncludeAllMatchingRules() {
+        final Predicate<String> opaque = s -> s.startsWith("R");
+        final List<List<Predicate<String>>> rules = Arrays.asList(//
+                Arrays.asList(TokenPredicate.equalTo("WS"), TokenPredicate.equalTo("ALL"), TokenPredicate.equalTo("RWY")),
+                Arrays.asList(TokenPredicate.equalTo("WS"), TokenPredicate.matching("^R(?:WY)?[0-9]{2}[LRC]?$")),
+                Arrays.asList(TokenPredicate.matching("^PROB[34]0$"), TokenPredicate.equalTo("TEMPO")),
+                Arrays.asList(TokenPredicate.matching("^[0-9]*$"), TokenPredicate.matching("^[0-9]*/[0-9]*[A-Z]{2}$")),
+                Arrays.asList(TokenPredicate.matching("^\\+[0-9]{1,2}$"), TokenPredicate.matching("HR:$")),
+                Arrays.asList(TokenPredicate.matching("^FCST\\s+SWX"), TokenPredicate.matching("^\\+[0-9]{1,2}\\s+HR:$")),
+                Arrays.asList(TokenPredicate.matching("^(?:SWX)|(?:VA)$")),
+                Arrays.asList(TokenPredicate.equalTo("WS"), opaque),
+                Arrays.asList());
+        final TokenCombiningRuleIndex index = new TokenCombiningRuleIndex(rules);
+        for (final String token : TOKENS) {
+            final BitSet candidates = index.getCandidateRules(token);
+            for (int i = 0; i < rules.size(); i++) {
+                final List<Predicate<String>> rule = rules.get(i);
+                if (!rule.isEmpty() && rule.get(rule.size() - 1).test(token)) {
+                    assertTrue("Rule " + i + " missing for '" + token + "'", candidates.get(i));
+                }
+            }
+            assertFalse(candidates.get(rules.size() - 1));
+        }
+        assertEquals(BitSet.valueOf(new long[] { 0b10000001L }), index.getCandidateRules("RWY"));
+        assertEquals(BitSet.valueOf(new long[] { 0b10010000L }), index.getCandidateRules("HR:"));
+    }
+
+    @Test
+    public void testCombinableWithFollowingAsAnyLeadingPredicate() {
+        final List<List<Predicate<String>>> rules = Arrays.asList(//
+                Arrays.asList(TokenPredicate.equalTo("WS"), TokenPredicate.equalTo("ALL"), TokenPredicate.equalTo("RWY")),
+                Arrays.asList(TokenPredicate.matching("^PROB[34]0$"), TokenPredicate.equalTo("TEMPO")),
+                Arrays.asList(TokenPredicate.matching("^FCST\\s+SWX"), TokenPredicate.matching("^\\+[0-9]{1,2}\\s+HR:$")),
+                Arrays.asList(TokenPredicate.matching("^\\+[0-9]{1,2}$"), TokenPredicate.matching("HR:$")),
+                Arrays.asList((Predicate<String>) s -> s.endsWith(":"), TokenPredicate.equalTo("-")),
+                Arrays.asList(TokenPredicate.equalTo("VA")));
+        final TokenCombiningRuleIndex index = new TokenCombiningRuleIndex(rules);
+        for (final String token : TOKENS) {
+            boolean expected = false;
+            for (final List<Predicate<String>> rule : rules) {
+                for (final Predicate<String> predicate : rule.subList(0, rule.size() - 1)) {
+                    expected |= predicate.test(token);
+                }
+            }
+            assertEquals(token, expected, index.mayBeCombinedWithFollowing(token));
+        }
+        assertTrue(index.mayBeCombinedWithFollowing("ALL"));
+        assertTrue(index.mayBeCombinedWithFollowing("FCST SWX"));
+        assertFalse(index.mayBeCombinedWithFollowing("RWY"));
+        assertFalse(index.mayBeCombinedWithFollowing("VA"));
+    }
+
+}
@@ -0,0 +1,81 @@
+package fi.fmi.avi.converter.tac.lexer.impl;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import fi.fmi.avi.converter.tac.lexer.impl.PrioritizedLexemeVisitor.OccurrenceFrequency;
+import fi.fmi.avi.converter.tac.lexer.impl.token.CloudLayer;
+import fi.fmi.avi.converter.tac.lexer.impl.token.FractionalHorizontalVisibility;
+import fi.fmi.avi.converter.tac.lexer.impl.token.RunwayState;
+import fi.fmi.avi.converter.tac.lexer.impl.token.SurfaceWind;
+import fi.fmi.avi.converter.tac.lexer.impl.token.TAFForecastChangeIndicator;
+import fi.fmi.avi.converter.tac.lexer.impl.token.Weather;
+import fi.fmi.avi.converter.tac.lexer.impl.token.Whitespace;
+import fi.fmi.avi.converter.tac.lexer.impl.token.WindShear;
+
+public class TokenPreconditionsTest {
+
+    private static void assertAcceptsAllMatching(final RegexMatchingLexemeVisitor visitor, final String... tokens) {
+        for (final String token : tokens) {
+            assertTrue("Pattern of " + visitor.getClass().getSimpleName() + " does not match " + token, visitor.getPattern().matcher(token).matches());
+            assertTrue("Preconditions of " + visitor.getClass().getSimpleName() + " reject " + token, visitor.getPreconditions().accepts(token));
+        }
+    }
+
+    @Test
+    public void testNoneAcceptsAnything() {
+        assertTrue(TokenPreconditions.NONE.accepts(""));
+        assertTrue(TokenPreconditions.NONE.accepts("\u00C4\u00D6"));
+        assertTrue(TokenPreconditions.NONE.mayStartWith('x'));
+        assertFalse(TokenPreconditions.NONE.hasFirstCharacterRestriction());
+    }
+
+    @Test
+    public void testBuilderChecks() {
+        final TokenPreconditions preconditions = TokenPreconditions.builder()
+                .startingWithAnyOf(TokenPreconditions.DIGITS)
+                .startingWithAnyOf("V")
+                .withLength(7, 15)
+                .containingAnyOf("KM")
+                .build();
+        assertTrue(preconditions.accepts("24005KT"));
+        assertTrue(preconditions.accepts("VRB02MPS"));
+        assertFalse(preconditions.accepts("9999"));
+        assertFalse(preconditions.accepts("BKN0050"));
+        assertFalse(preconditions.accepts("2400500"));
+        assertFalse(preconditions.accepts("24005G15KT24005G15KT"));
+        assertFalse(preconditions.mayStartWith('B'));
+        assertFalse(preconditions.mayStartWith('\u00C4'));
+    }
+
+    @Test
+    public void testIgnoringCase() {
+        final TokenPreconditions preconditions = TokenPreconditions.equalToIgnoringCase("SIGMET");
+        assertTrue(preconditions.accepts("SIGMET"));
+        assertTrue(preconditions.accepts("sigmet"));
+        // String.equalsIgnoreCase considers the Latin small letter long s equal to 's':
+        assertTrue(preconditions.accepts("\u017FIGMET"));
+        assertFalse(preconditions.accepts("TIGMET"));
+        assertFalse(preconditions.accepts("SIGMETS"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonAsciiCharactersRejected() {
+        TokenPreconditions.builder().startingWithAnyOf("\u00C4");
+    }
+
+    @Test
+    public void testVisitorPreconditionsAcceptMatchingTokens() {
+        assertAcceptsAllMatching(new SurfaceWind(OccurrenceFrequency.AVERAGE), "24005KT", "VRB02KT", "240P99G150MPS", "36010G20KMH");
+        assertAcceptsAllMatching(new CloudLayer(OccurrenceFrequency.AVERAGE), "BKN003", "VV001", "//////", "FEW020CB", "SCT010///", "NSC");
+        assertAcceptsAllMatching(new Weather(OccurrenceFrequency.AVERAGE), "-SN", "+TSRAGR", "RERA", "BR");
+        assertAcceptsAllMatching(new RunwayState(OccurrenceFrequency.AVERAGE), "99421594", "R15L/CLRD70", "15R//////", "88//////");
+        assertAcceptsAllMatching(new FractionalHorizontalVisibility(OccurrenceFrequency.AVERAGE), "1SM", "P6SM", "1 1/2SM", "M1/4SM");
+        assertAcceptsAllMatching(new TAFForecastChangeIndicator(OccurrenceFrequency.AVERAGE), "TEMPO", "PROB30 TEMPO", "FM1200", "FM011200");
+        assertAcceptsAllMatching(new WindShear(OccurrenceFrequency.AVERAGE), "WS RWY", "WS ALL RWY", "WS R04R");
+        assertAcceptsAllMatching(new Whitespace(OccurrenceFrequency.AVERAGE), " ", "\n", " \t\r\n");
+    }
+
+}
@@ -0,0 +1,77 @@
+package fi.fmi.avi.converter.tac.lexer.impl.token;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import fi.fmi.avi.converter.tac.lexer.Lexeme;
+import fi.fmi.avi.converter.tac.lexer.LexemeIdentity;
+import fi.fmi.avi.converter.tac.lexer.impl.LexingFactoryImpl;
+import fi.fmi.avi.converter.tac.lexer.impl.PrioritizedLexemeVisitor.OccurrenceFrequency;
+
+public class MatchedGroupsTest {
+
+    private static Matcher match(final String regex, final String token) {
+        final Matcher m = Pattern.compile(regex).matcher(token);
+        assertTrue(m.matches());
+        return m;
+    }
+
+    @Test
+    public void testDecodingByGroupOffsets() {
+        final String token = "M05///";
+        final Matcher m = match("^(M)?([0-9]{2}|//)/(M)?(?<dew>[0-9]{2}|//)$", token);
+        assertTrue(MatchedGroups.isPresent(m, 1));
+        assertFalse(MatchedGroups.isPresent(m, 3));
+        assertEquals(5, MatchedGroups.parseInt(token, m, 2));
+        assertTrue(MatchedGroups.isMissing(token, m, "dew"));
+        assertFalse(MatchedGroups.isMissing(token, m, 2));
+        assertFalse(MatchedGroups.isMissing(token, m, 3));
+        assertTrue(MatchedGroups.equalTo(token, m, 1, "M"));
+        assertFalse(MatchedGroups.equalTo(token, m, 3, "M"));
+        assertEquals(123456789, MatchedGroups.parseInt("X123456789", 1, 10));
+        assertEquals(1234567890, MatchedGroups.parseInt("1234567890", 0, 10));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testUnmatchedGroupIsNotANumber() {
+        final Matcher m = match("^([0-9]{2})?([0-9]{4})Z$", "1750Z");
+        MatchedGroups.parseInt("1750Z", m, 1);
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testNonDigitsAreNotANumber() {
+        MatchedGroups.parseInt("12A4", 0, 4);
+    }
+
+    @Test
+    public void testMigratedVisitorsDecodeAsBefore() {
+        final LexingFactoryImpl factory = new LexingFactoryImpl();
+
+        final Lexeme temperatures = factory.createLexeme("M00/M12");
+        temperatures.accept(new AirDewpointTemperature(OccurrenceFrequency.AVERAGE), null);
+        assertEquals(LexemeIdentity.AIR_DEWPOINT_TEMPERATURE, temperatures.getIdentity());
+        assertArrayEquals(new Double[] { -0.0d, -12.0d }, temperatures.getParsedValue(Lexeme.ParsedValueName.VALUE, Double[].class));
+
+        // the wind is checked against the preceding lexemes of the sequence:
+        final Lexeme wind = factory.createLexemeSequence("EFHK 240P49GP99KMH", null).getLastLexeme();
+        wind.accept(new SurfaceWind(OccurrenceFrequency.AVERAGE), null);
+        assertEquals(LexemeIdentity.SURFACE_WIND, wind.getIdentity());
+        assertEquals(Integer.valueOf(240), wind.getParsedValue(Lexeme.ParsedValueName.DIRECTION, Integer.class));
+        assertEquals(Integer.valueOf(49), wind.getParsedValue(Lexeme.ParsedValueName.MEAN_VALUE, Integer.class));
+        assertEquals(Integer.valueOf(99), wind.getParsedValue(Lexeme.ParsedValueName.MAX_VALUE, Integer.class));
+        assertEquals("kmh", wind.getParsedValue(Lexeme.ParsedValueName.UNIT, String.class));
+
+        final Lexeme clouds = factory.createLexeme("VV///");
+        clouds.accept(new CloudLayer(OccurrenceFrequency.AVERAGE), null);
+        assertEquals(CloudLayer.CloudCover.SKY_OBSCURED, clouds.getParsedValue(Lexeme.ParsedValueName.COVER, CloudLayer.CloudCover.class));
+        assertEquals(CloudLayer.SpecialValue.CLOUD_BASE_UNOBSERVABLE, clouds.getParsedValue(Lexeme.ParsedValueName.VALUE, Object.class));
+    }
+
+}